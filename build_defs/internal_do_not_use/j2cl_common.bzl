@@ -49,24 +49,32 @@ def _compile(
         exported_plugins,
         output_jar,
         javac_opts,
+        internal_transpiler_flags,
     )
 
     output_jszip = output_jszip or ctx.actions.declare_file("%s.js.zip" % name)
 
     if java_srcs:
         output_library_info = ctx.actions.declare_file("%s_library_info" % name)
+        output_profile = None
+        # Compilations can be profiled for the whole build with --define=J2CL_PROFILE=1.
+        if internal_transpiler_flags.get("profile") or ctx.var.get("J2CL_PROFILE", None):
+            output_profile = ctx.actions.declare_file("%s_profile.json" % name)
         _j2cl_transpile(
             ctx,
             java_provider,
             js_srcs,
             output_jszip,
             output_library_info,
+            output_profile,
             internal_transpiler_flags,
         )
         library_info = [output_library_info]
+        profile = [output_profile] if output_profile else []
     else:
         _create_empty_zip(ctx, output_jszip)
         library_info = []
+        profile = []
 
     generate_tree_artifact = ctx.attr._enable_tree_artifact[BuildSettingInfo].value
     output_js = _unzip_output(ctx, output_jszip, name) if generate_tree_artifact else output_jszip
@@ -79,6 +87,7 @@ def _compile(
         _private_ = struct(
             java_info = java_provider,
             library_info = library_info,
+            profile = profile,
             output_js = output_js,
             js_info = j2cl_js_provider(ctx, js_provider_srcs, js_deps, js_exports),
         ),
@@ -128,8 +137,20 @@ def _create_empty_zip(ctx, output_js_zip):
         mnemonic = "J2clZip",
     )
 
-def _java_compile(ctx, name, srcs, deps, exports, plugins, exported_plugins, output_jar, javac_opts):
-    stripped_java_srcs = [_strip_gwt_incompatible(ctx, name, srcs)] if srcs else []
+def _java_compile(
+        ctx,
+        name,
+        srcs,
+        deps,
+        exports,
+        plugins,
+        exported_plugins,
+        output_jar,
+        javac_opts,
+        internal_transpiler_flags = {}):
+    stripped_java_srcs = [
+        _strip_gwt_incompatible(ctx, name, srcs, internal_transpiler_flags),
+    ] if srcs else []
 
     default_j2cl_javac_opts = [
         # Avoid log site injection which introduces calls to unsupported APIs
@@ -158,13 +179,15 @@ def _java_compile(ctx, name, srcs, deps, exports, plugins, exported_plugins, out
         javac_opts = default_j2cl_javac_opts + javac_opts,
     )
 
-def _strip_gwt_incompatible(ctx, name, java_srcs):
+def _strip_gwt_incompatible(ctx, name, java_srcs, internal_transpiler_flags):
     output_file = ctx.actions.declare_file(name + "_stripped-src.jar")
 
     args = ctx.actions.args()
     args.use_param_file("@%s", use_always = True)
     args.set_param_file_format("multiline")
     args.add("-d", output_file)
+    if internal_transpiler_flags.get("threads", 1) > 1:
+        args.add("-threads", str(internal_transpiler_flags["threads"]))
     args.add_all(java_srcs)
 
     ctx.actions.run(
@@ -174,7 +197,10 @@ def _strip_gwt_incompatible(ctx, name, java_srcs):
         executable = ctx.executable._j2cl_stripper,
         arguments = [args],
         env = dict(LANG = "en_US.UTF-8"),
-        execution_requirements = {"supports-workers": "1"},
+        execution_requirements = {
+            "supports-multiplex-workers": "1",
+            "supports-workers": "1",
+        },
         mnemonic = "J2cl",
     )
 
@@ -186,6 +212,7 @@ def _j2cl_transpile(
         js_srcs,
         output_dir,
         library_info_output,
+        profile_output,
         internal_transpiler_flags):
     """ Takes Java provider and translates it into Closure style JS in a zip bundle."""
 
@@ -206,18 +233,31 @@ def _j2cl_transpile(
         args.add("-readablesourcemaps")
     if internal_transpiler_flags.get("readable_library_info"):
         args.add("-readablelibraryinfo")
+    # Small longs can be unboxed for the whole build with --define=J2CL_UNBOX_SMALL_LONGS=1.
+    if (internal_transpiler_flags.get("unbox_small_longs") or
+        ctx.var.get("J2CL_UNBOX_SMALL_LONGS", None)):
+        args.add("-unboxsmalllongs")
     if ctx.var.get("GROK_ELLIPSIS_BUILD", None):
         args.add("-generatekytheindexingmetadata")
+    if internal_transpiler_flags.get("threads", 1) > 1:
+        args.add("-threads", str(internal_transpiler_flags["threads"]))
+    if not internal_transpiler_flags.get("fuse_passes", True):
+        args.add("-nofusepasses")
+    if profile_output:
+        args.add("-profileoutput", profile_output)
     args.add_all(srcs)
 
     ctx.actions.run(
         progress_message = "Transpiling to JavaScript %s" % ctx.label,
         inputs = depset(srcs, transitive = [classpath]),
-        outputs = [output_dir, library_info_output],
+        outputs = [output_dir, library_info_output] + ([profile_output] if profile_output else []),
         executable = ctx.executable._j2cl_transpiler,
         arguments = [args],
         env = dict(LANG = "en_US.UTF-8"),
-        execution_requirements = {"supports-workers": "1"},
+        execution_requirements = {
+            "supports-multiplex-workers": "1",
+            "supports-workers": "1",
+        },
         mnemonic = "J2cl",
     )
 
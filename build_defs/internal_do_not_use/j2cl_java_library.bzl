@@ -18,6 +18,10 @@ def _impl_j2cl_library(ctx):
         internal_transpiler_flags = {
             "readable_source_maps": ctx.attr.readable_source_maps,
             "readable_library_info": ctx.attr.readable_library_info,
+            "unbox_small_longs": ctx.attr.unbox_small_longs,
+            "threads": ctx.attr.threads,
+            "fuse_passes": ctx.attr.fuse_passes,
+            "profile": ctx.attr.profile,
         },
     )
 
@@ -32,6 +36,8 @@ def _impl_j2cl_library(ctx):
                 # TODO(goktug): Remove after b/35847804 is fixed.
                 runfiles = _collect_runfiles(ctx, output_js_array, ctx.attr.deps + ctx.attr.exports),
             ),
+            # Built with --output_groups=j2cl_profile.
+            OutputGroupInfo(j2cl_profile = depset(j2cl_provider._private_.profile)),
         ],
     )
 
@@ -54,6 +60,10 @@ def _collect_runfiles(ctx, files, deps):
 _J2CL_INTERNAL_LIB_ATTRS = {
     "readable_source_maps": attr.bool(default = False),
     "readable_library_info": attr.bool(default = False),
+    "unbox_small_longs": attr.bool(default = False),
+    "threads": attr.int(default = 1),
+    "fuse_passes": attr.bool(default = True),
+    "profile": attr.bool(default = False),
 }
 
 _J2CL_LIB_ATTRS = {
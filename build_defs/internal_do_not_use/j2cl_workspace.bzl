@@ -104,6 +104,34 @@ def setup_j2cl_workspace(omit_org_gwtproject_gwt = False,
         licenses = ["notice"],
     )
 
+    jvm_maven_import_external(
+        name = "org_openjdk_jmh_core",
+        artifact = "org.openjdk.jmh:jmh-core:1.21",
+        server_urls = _MAVEN_CENTRAL_URLS,
+        licenses = ["restricted"],  # GPLv2 with Classpath Exception
+    )
+
+    jvm_maven_import_external(
+        name = "org_openjdk_jmh_generator_annprocess",
+        artifact = "org.openjdk.jmh:jmh-generator-annprocess:1.21",
+        server_urls = _MAVEN_CENTRAL_URLS,
+        licenses = ["restricted"],  # GPLv2 with Classpath Exception
+    )
+
+    jvm_maven_import_external(
+        name = "net_sf_jopt_simple",
+        artifact = "net.sf.jopt-simple:jopt-simple:4.6",
+        server_urls = _MAVEN_CENTRAL_URLS,
+        licenses = ["notice"],
+    )
+
+    jvm_maven_import_external(
+        name = "org_apache_commons_math3",
+        artifact = "org.apache.commons:commons-math3:3.2",
+        server_urls = _MAVEN_CENTRAL_URLS,
+        licenses = ["notice"],
+    )
+
     # TODO(b/135461024): for now J2CL uses a prepackaged version of javac. But in the future it
     # might be better to tie in to the Java platform in bazel and control the version there.
     jvm_maven_import_external(
@@ -20,11 +20,29 @@ import jsinterop.annotations.JsType;
 /**
  * Defines utility static functions that map from transpiled Long instantiation and arithmetic
  * operations to some particular Long emulation library. (In this case Closure's goog.math.Long)
+ *
+ * <p>Longs whose values are safe integers (i.e. within +/-(2^53 - 1)) might also be represented as
+ * plain JavaScript numbers, which are created by code transpiled with small long unboxing enabled.
+ * Operations on such "small" longs are performed with number arithmetic and only fall back to
+ * goog.math.Long when the result does not fit. Both representations are accepted everywhere so that
+ * code transpiled with and without unboxing can be mixed; code that never creates small longs never
+ * takes the fast paths nor observes them.
+ *
+ * <p>Note that this class is used by the implementation of primitive conversions and hence should
+ * not use long values nor casts between primitive types.
  */
 @JsType(namespace = "vmbootstrap")
 class LongUtils {
 
+  private static final double MAX_SAFE_INTEGER = 9007199254740991.0;
+  private static final double TWO_PWR_32 = 4294967296.0;
+
   public static int $compare(NativeLong a, NativeLong b) {
+    if (isSmall(a) || isSmall(b)) {
+      double left = toNumber(a);
+      double right = toNumber(b);
+      return left < right ? -1 : (left > right ? 1 : 0);
+    }
     return a.compare(b);
   }
 
@@ -37,108 +55,257 @@ class LongUtils {
     return NativeLong.fromNumber(value);
   }
 
+  /** Creates a small long from a number that is known to be a safe integer, e.g. an int. */
+  public static NativeLong $fromSafeInteger(double value) {
+    return toSmall(value);
+  }
+
+  /** Narrows a number to a long, which is small if the truncated value is a safe integer. */
+  public static NativeLong $fromDouble(double value) {
+    double truncated = value < 0 ? Math.ceil(value) : Math.floor(value);
+    // NaN is not a safe integer and is handled by goog.math.Long as required by Java.
+    return isSafeInteger(truncated) ? toSmall(truncated) : NativeLong.fromNumber(value);
+  }
+
   public static int $toInt(NativeLong value) {
-    return value.toInt();
+    return isSmall(value) ? toInt32(asDouble(value)) : value.toInt();
   }
 
   public static double $toNumber(NativeLong value) {
-    return value.toNumber();
+    return toNumber(value);
   }
 
   public static NativeLong $and(NativeLong leftLong, NativeLong rightLong) {
-    return leftLong.and(rightLong);
+    if (isSmall(leftLong) && isSmall(rightLong)) {
+      double left = asDouble(leftLong);
+      double right = asDouble(rightLong);
+      return fromBits(toInt32(left) & toInt32(right), getHighBits(left) & getHighBits(right));
+    }
+    return maybeToSmall(toBoxed(leftLong).and(toBoxed(rightLong)), leftLong, rightLong);
   }
 
   public static NativeLong $not(NativeLong valueLong) {
-    return valueLong.not();
+    if (isSmall(valueLong)) {
+      double result = -asDouble(valueLong) - 1;
+      if (isSafeInteger(result)) {
+        return toSmall(result);
+      }
+    }
+    return maybeToSmall(toBoxed(valueLong).not(), valueLong, valueLong);
   }
 
   public static NativeLong $divide(NativeLong leftLong, NativeLong rightLong) {
     LongUtils.checkDivisorZero(rightLong);
-    return leftLong.div(rightLong);
+    if (isSmall(leftLong) && isSmall(rightLong)) {
+      // The quotient of safe integers is always a safe integer, and the rounding of the division
+      // never crosses an integer boundary.
+      double result = asDouble(leftLong) / asDouble(rightLong);
+      return toSmall(result < 0 ? Math.ceil(result) : Math.floor(result));
+    }
+    return maybeToSmall(toBoxed(leftLong).div(toBoxed(rightLong)), leftLong, rightLong);
   }
 
   public static boolean $equals(NativeLong leftLong, NativeLong rightLong) {
+    if (isSmall(leftLong) || isSmall(rightLong)) {
+      return toNumber(leftLong) == toNumber(rightLong);
+    }
     return leftLong.equals(rightLong);
   }
 
   public static boolean $greater(NativeLong leftLong, NativeLong rightLong) {
+    if (isSmall(leftLong) || isSmall(rightLong)) {
+      return toNumber(leftLong) > toNumber(rightLong);
+    }
     return leftLong.greaterThan(rightLong);
   }
 
   public static boolean $greaterEquals(NativeLong leftLong, NativeLong rightLong) {
+    if (isSmall(leftLong) || isSmall(rightLong)) {
+      return toNumber(leftLong) >= toNumber(rightLong);
+    }
     return leftLong.greaterThanOrEqual(rightLong);
   }
 
   public static NativeLong $leftShift(NativeLong valueLong, int numBits) {
-    return valueLong.shiftLeft(numBits);
+    if (isSmall(valueLong)) {
+      double result = asDouble(valueLong) * Math.pow(2, numBits & 63);
+      if (isSafeInteger(result)) {
+        return toSmall(result);
+      }
+    }
+    return maybeToSmall(toBoxed(valueLong).shiftLeft(numBits), valueLong, valueLong);
   }
 
   public static boolean $less(NativeLong leftLong, NativeLong rightLong) {
+    if (isSmall(leftLong) || isSmall(rightLong)) {
+      return toNumber(leftLong) < toNumber(rightLong);
+    }
     return leftLong.lessThan(rightLong);
   }
 
   public static boolean $lessEquals(NativeLong leftLong, NativeLong rightLong) {
+    if (isSmall(leftLong) || isSmall(rightLong)) {
+      return toNumber(leftLong) <= toNumber(rightLong);
+    }
     return leftLong.lessThanOrEqual(rightLong);
   }
 
   public static NativeLong $minus(NativeLong leftLong, NativeLong rightLong) {
-    return leftLong.subtract(rightLong);
+    if (isSmall(leftLong) && isSmall(rightLong)) {
+      double result = asDouble(leftLong) - asDouble(rightLong);
+      if (isSafeInteger(result)) {
+        return toSmall(result);
+      }
+    }
+    return maybeToSmall(toBoxed(leftLong).subtract(toBoxed(rightLong)), leftLong, rightLong);
   }
 
   public static NativeLong $negate(NativeLong valueLong) {
+    if (isSmall(valueLong)) {
+      // The range of safe integers is symmetric.
+      return toSmall(-asDouble(valueLong));
+    }
     return valueLong.negate();
   }
 
   public static boolean $notEquals(NativeLong leftLong, NativeLong rightLong) {
+    if (isSmall(leftLong) || isSmall(rightLong)) {
+      return toNumber(leftLong) != toNumber(rightLong);
+    }
     return leftLong.notEquals(rightLong);
   }
 
   public static NativeLong $or(NativeLong leftLong, NativeLong rightLong) {
-    return leftLong.or(rightLong);
+    if (isSmall(leftLong) && isSmall(rightLong)) {
+      double left = asDouble(leftLong);
+      double right = asDouble(rightLong);
+      return fromBits(toInt32(left) | toInt32(right), getHighBits(left) | getHighBits(right));
+    }
+    return maybeToSmall(toBoxed(leftLong).or(toBoxed(rightLong)), leftLong, rightLong);
   }
 
   public static NativeLong $plus(NativeLong leftLong, NativeLong rightLong) {
-    return leftLong.add(rightLong);
+    if (isSmall(leftLong) && isSmall(rightLong)) {
+      double result = asDouble(leftLong) + asDouble(rightLong);
+      if (isSafeInteger(result)) {
+        return toSmall(result);
+      }
+    }
+    return maybeToSmall(toBoxed(leftLong).add(toBoxed(rightLong)), leftLong, rightLong);
   }
 
   public static NativeLong $remainder(NativeLong leftLong, NativeLong rightLong) {
     LongUtils.checkDivisorZero(rightLong);
-    return leftLong.modulo(rightLong);
+    if (isSmall(leftLong) && isSmall(rightLong)) {
+      // The remainder of numbers is exact and has the sign of the dividend, as in Java.
+      return toSmall(asDouble(leftLong) % asDouble(rightLong));
+    }
+    return maybeToSmall(toBoxed(leftLong).modulo(toBoxed(rightLong)), leftLong, rightLong);
   }
 
   public static NativeLong $rightShiftSigned(NativeLong valueLong, int numBits) {
+    if (isSmall(valueLong)) {
+      return toSmall(Math.floor(asDouble(valueLong) / Math.pow(2, numBits & 63)));
+    }
     return valueLong.shiftRight(numBits);
   }
 
   public static NativeLong $rightShiftUnsigned(NativeLong valueLong, int numBits) {
-    return valueLong.shiftRightUnsigned(numBits);
+    if (isSmall(valueLong) && (asDouble(valueLong) >= 0 || (numBits & 63) == 0)) {
+      return toSmall(Math.floor(asDouble(valueLong) / Math.pow(2, numBits & 63)));
+    }
+    return maybeToSmall(toBoxed(valueLong).shiftRightUnsigned(numBits), valueLong, valueLong);
   }
 
   public static NativeLong $times(NativeLong leftLong, NativeLong rightLong) {
-    return leftLong.multiply(rightLong);
+    if (isSmall(leftLong) && isSmall(rightLong)) {
+      // A product that rounds to a safe integer is exact.
+      double result = asDouble(leftLong) * asDouble(rightLong);
+      if (isSafeInteger(result)) {
+        return toSmall(result);
+      }
+    }
+    return maybeToSmall(toBoxed(leftLong).multiply(toBoxed(rightLong)), leftLong, rightLong);
   }
 
   public static NativeLong $xor(NativeLong leftLong, NativeLong rightLong) {
-    return leftLong.xor(rightLong);
+    if (isSmall(leftLong) && isSmall(rightLong)) {
+      double left = asDouble(leftLong);
+      double right = asDouble(rightLong);
+      return fromBits(toInt32(left) ^ toInt32(right), getHighBits(left) ^ getHighBits(right));
+    }
+    return maybeToSmall(toBoxed(leftLong).xor(toBoxed(rightLong)), leftLong, rightLong);
   }
 
   public static int $getHighBits(NativeLong valueLong) {
-    return valueLong.getHighBits();
+    return isSmall(valueLong) ? getHighBits(asDouble(valueLong)) : valueLong.getHighBits();
   }
 
   public static int $getLowBits(NativeLong valueLong) {
-    return valueLong.getLowBits();
+    return isSmall(valueLong) ? toInt32(asDouble(valueLong)) : valueLong.getLowBits();
   }
 
   public static String $toString(NativeLong valueLong) {
-    return valueLong.toString();
+    // Safe integers are converted to strings without fraction nor exponent.
+    return isSmall(valueLong) ? String.valueOf(asDouble(valueLong)) : valueLong.toString();
   }
 
   public static void checkDivisorZero(NativeLong divisor) {
-    InternalPreconditions.checkArithmetic(!divisor.isZero());
+    InternalPreconditions.checkArithmetic(
+        isSmall(divisor) ? asDouble(divisor) != 0 : !divisor.isZero());
+  }
+
+  private static boolean isSafeInteger(double value) {
+    return Math.abs(value) <= MAX_SAFE_INTEGER;
+  }
+
+  private static double toNumber(NativeLong value) {
+    // Comparing a small long with the (possibly rounded) number value of a boxed long is exact,
+    // since boxed longs that are not safe integers round to numbers outside of the safe range.
+    return isSmall(value) ? asDouble(value) : value.toNumber();
+  }
+
+  /** Returns the upper 32 bits of a safe integer. */
+  private static int getHighBits(double value) {
+    return toInt32(Math.floor(value / TWO_PWR_32));
+  }
+
+  /** Returns the long with the given bits, which is small if it is a safe integer. */
+  private static NativeLong fromBits(int lowBits, int highBits) {
+    double value = highBits * TWO_PWR_32 + toUint32(lowBits);
+    return isSafeInteger(value) ? toSmall(value) : NativeLong.fromBits(lowBits, highBits);
+  }
+
+  private static NativeLong toBoxed(NativeLong value) {
+    return isSmall(value) ? NativeLong.fromNumber(asDouble(value)) : value;
+  }
+
+  /**
+   * Returns the result of an operation that fell back to goog.math.Long as a small long if any of
+   * the operands was small and the result fits, so that small longs do not get boxed permanently
+   * by a transient overflow or by operating with a boxed value (e.g. a long array element).
+   */
+  private static NativeLong maybeToSmall(NativeLong result, NativeLong left, NativeLong right) {
+    if (!isSmall(left) && !isSmall(right)) {
+      return result;
+    }
+    double value = result.toNumber();
+    return isSafeInteger(value) ? toSmall(value) : result;
   }
 
+  private static native boolean isSmall(NativeLong value);
+
+  private static native double asDouble(NativeLong smallValue);
+
+  /** Returns a safe integer as a small long, normalizing -0 to 0. */
+  private static native NativeLong toSmall(double safeInteger);
+
+  /** Returns the lower 32 bits of an integral number, as a signed int. */
+  private static native int toInt32(double value);
+
+  /** Returns the value of an int interpreted as an unsigned 32 bit number. */
+  private static native double toUint32(int value);
+
   @JsType(isNative = true, name = "Long", namespace = "nativebootstrap")
   static class NativeLong {
     public static native NativeLong fromBits(int lowBits, int highBits);
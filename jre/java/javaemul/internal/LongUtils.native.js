@@ -0,0 +1,42 @@
+/**
+ * @param {*} value
+ * @return {boolean}
+ */
+LongUtils.m_isSmall__javaemul_internal_LongUtils_NativeLong = function(value) {
+  return typeof value == 'number';
+};
+
+/**
+ * @param {*} smallValue
+ * @return {number}
+ */
+LongUtils.m_asDouble__javaemul_internal_LongUtils_NativeLong = function(
+    smallValue) {
+  return /** @type {number} */ (smallValue);
+};
+
+/**
+ * @param {number} safeInteger
+ * @return {?}
+ */
+LongUtils.m_toSmall__double = function(safeInteger) {
+  // Longs have no negative zero; results like -0 * 5 or Math.ceil(-0.5) are normalized to 0 so
+  // that they are not observable, e.g. when converted to double.
+  return safeInteger + 0;
+};
+
+/**
+ * @param {number} value
+ * @return {number}
+ */
+LongUtils.m_toInt32__double = function(value) {
+  return value | 0;
+};
+
+/**
+ * @param {number} value
+ * @return {number}
+ */
+LongUtils.m_toUint32__int = function(value) {
+  return value >>> 0;
+};
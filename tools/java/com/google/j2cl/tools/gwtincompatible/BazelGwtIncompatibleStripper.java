@@ -34,9 +34,12 @@ public class BazelGwtIncompatibleStripper extends BazelWorker {
       usage = "The location into which to place output srcjar.")
   protected String outputPath;
 
+  @Option(name = "-threads", hidden = true)
+  protected int threadCount = 1;
+
   @Override
   protected Problems run() {
-    return GwtIncompatibleStripper.strip(files, outputPath);
+    return GwtIncompatibleStripper.strip(files, outputPath, threadCount);
   }
 
   public static void main(String[] workerArgs) throws Exception {
@@ -16,10 +16,9 @@ package com.google.j2cl.tools.gwtincompatible;
 import com.google.common.collect.ImmutableList;
 import com.google.j2cl.common.FrontendUtils;
 import com.google.j2cl.common.FrontendUtils.FileInfo;
+import com.google.j2cl.common.Output;
 import com.google.j2cl.common.Problems;
-import com.google.j2cl.common.Problems.FatalError;
-import java.io.IOException;
-import java.nio.file.FileSystem;
+import java.nio.file.Paths;
 import java.util.List;
 
 /**
@@ -28,21 +27,16 @@ import java.util.List;
  */
 public class GwtIncompatibleStripper {
 
-  static Problems strip(List<String> files, String outputPath) {
+  static Problems strip(List<String> files, String outputPath, int threadCount) {
     try {
       Problems problems = new Problems();
-      FileSystem outputZipFileSystem = FrontendUtils.initZipOutput(outputPath, problems);
+      Output output = Output.zip(Paths.get(outputPath), threadCount, problems);
       List<FileInfo> allPaths =
           FrontendUtils.getAllSources(files, problems)
               .filter(f -> f.targetPath().endsWith(".java"))
               .collect(ImmutableList.toImmutableList());
-      JavaPreprocessor.preprocessFiles(allPaths, outputZipFileSystem.getPath("/"), problems);
-
-      try {
-        outputZipFileSystem.close();
-      } catch (IOException e) {
-        problems.fatal(FatalError.CANNOT_CLOSE_ZIP, e.getMessage());
-      }
+      JavaPreprocessor.preprocessFiles(allPaths, output, threadCount, problems);
+      output.close(problems);
       return problems;
     } catch (Problems.Exit e) {
       return e.getProblems();
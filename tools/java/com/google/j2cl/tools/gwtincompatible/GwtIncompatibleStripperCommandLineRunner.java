@@ -34,6 +34,9 @@ final class GwtIncompatibleStripperCommandLineRunner extends CommandLineTool {
       usage = "The location into which to place output srcjar.")
   protected String outputPath;
 
+  @Option(name = "-threads", hidden = true)
+  protected int threadCount = 1;
+
   private GwtIncompatibleStripperCommandLineRunner() {
     super("gwt-incompatible-stripper");
   }
@@ -41,7 +44,7 @@ final class GwtIncompatibleStripperCommandLineRunner extends CommandLineTool {
   @Override
   protected Problems run() {
     checkSourceFiles(files, ".java", ".srcjar", "-src.jar");
-    return GwtIncompatibleStripper.strip(files, outputPath);
+    return GwtIncompatibleStripper.strip(files, outputPath, threadCount);
   }
 
   public static void main(String[] args) {
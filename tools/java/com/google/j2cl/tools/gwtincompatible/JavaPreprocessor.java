@@ -16,19 +16,19 @@
 package com.google.j2cl.tools.gwtincompatible;
 
 import static com.google.common.base.Preconditions.checkState;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
-import com.google.common.io.MoreFiles;
+import com.google.common.primitives.Bytes;
+import com.google.j2cl.common.ConcurrencyUtils;
 import com.google.j2cl.common.FrontendUtils.FileInfo;
-import com.google.j2cl.common.J2clUtils;
+import com.google.j2cl.common.Output;
 import com.google.j2cl.common.Problems;
 import com.google.j2cl.common.Problems.FatalError;
 import com.google.j2cl.frontend.jdt.GwtIncompatibleNodeCollector;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.io.UncheckedIOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -44,23 +44,66 @@ import org.eclipse.jdt.core.dom.ImportDeclaration;
  * with {@code GwtIncompatible}.
  */
 public class JavaPreprocessor {
-  /** Preprocess all provided files and put them to provided output path. */
-  public static void preprocessFiles(List<FileInfo> fileInfos, Path output, Problems problems) {
-    for (FileInfo fileInfo : fileInfos) {
-      String processedFileContent;
-      try {
-        String fileContent =
-            MoreFiles.asCharSource(Paths.get(fileInfo.sourcePath()), StandardCharsets.UTF_8).read();
-        processedFileContent = processFile(fileContent);
-      } catch (IOException e) {
-        problems.fatal(FatalError.CANNOT_OPEN_FILE, e.toString());
-        return;
-      }
+  private static final byte[] GWT_INCOMPATIBLE = "GwtIncompatible".getBytes(UTF_8);
+  private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(UTF_8);
+
+  /** Preprocess all provided files and put them to provided output. */
+  public static void preprocessFiles(List<FileInfo> fileInfos, Output output, Problems problems) {
+    preprocessFiles(fileInfos, output, 1, problems);
+  }
+
+  /**
+   * Preprocess all provided files using up to {@code threadCount} threads and put them to provided
+   * output.
+   *
+   * <p>Files are read and processed concurrently but they are written one at a time in the order
+   * of {@code fileInfos}, so the output does not depend on the number of threads.
+   */
+  public static void preprocessFiles(
+      List<FileInfo> fileInfos, Output output, int threadCount, Problems problems) {
+    try {
+      ConcurrencyUtils.forEachOrdered(
+          fileInfos,
+          threadCount,
+          fileInfo -> new ProcessedFile(fileInfo, readAndProcessFile(fileInfo)),
+          processedFile ->
+              output.write(
+                  processedFile.fileInfo.originalPath(), processedFile.content, problems));
+    } catch (UncheckedIOException e) {
+      problems.fatal(FatalError.CANNOT_OPEN_FILE, e.getCause().toString());
+    }
+  }
 
-      // Write the processed file to output
-      J2clUtils.writeToFile(
-          output.resolve(fileInfo.originalPath()), processedFileContent, problems);
+  private static final class ProcessedFile {
+    private final FileInfo fileInfo;
+    private final byte[] content;
+
+    private ProcessedFile(FileInfo fileInfo, byte[] content) {
+      this.fileInfo = fileInfo;
+      this.content = content;
+    }
+  }
+
+  private static byte[] readAndProcessFile(FileInfo fileInfo) {
+    byte[] fileContent;
+    try {
+      fileContent = fileInfo.asByteSource().read();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    // Processed files have always been written as a single line terminated by a line separator.
+    return Bytes.concat(processFile(fileContent), LINE_SEPARATOR);
+  }
+
+  @VisibleForTesting
+  static byte[] processFile(byte[] fileContent) {
+    // Avoid decoding the file if there are no textual references to GwtIncompatible. The name is
+    // ASCII, whose bytes never occur within a multi-byte UTF-8 sequence, so looking for it in the
+    // raw bytes is equivalent to looking for it in the decoded text.
+    if (Bytes.indexOf(fileContent, GWT_INCOMPATIBLE) == -1) {
+      return fileContent;
     }
+    return processFile(new String(fileContent, UTF_8)).getBytes(UTF_8);
   }
 
   @VisibleForTesting
@@ -14,13 +14,20 @@
 package com.google.j2cl.tools.minifier;
 
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.Iterables.getLast;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.collect.HashMultiset;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Multiset;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.google.j2cl.tools.rta.CodeRemovalInfo;
 import com.google.j2cl.tools.rta.LineRange;
 import com.google.j2cl.tools.rta.UnusedLines;
@@ -30,12 +37,13 @@ import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
-import java.util.Hashtable;
+import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A thread-safe, fast and pretty minifier/comment stripper for J2CL generated code.
@@ -50,6 +58,11 @@ import java.util.regex.Pattern;
  * well as be difficult to directly read and this minifier addresses that problem. Callers should
  * reuse the same minifier instance across multiple files to get consistent minification.
  *
+ * <p>The minifier can be used concurrently from multiple threads without contention. Note however
+ * that minified names are assigned in the order identifiers are first seen; callers that need the
+ * names to be stable for a given set of files regardless of thread scheduling should use {@link
+ * #minifyAll}.
+ *
  * <p>It is expected that minification opportunities will only be found in J2CL generated files
  * (files ending in .java.js) since only such files should contain references to mangled J2CL names.
  * So if some caller wants to optimize their minifier usage they might consider invoking it only on
@@ -63,35 +76,33 @@ import java.util.regex.Pattern;
  */
 public class J2clMinifier {
 
-  private interface TransitionFunction {
-    StringBuilder transition(
-        StringBuilder minifiedContentBuffer, StringBuilder identifierBuffer, char c, int state);
-  }
-
   private static final String MINIFICATION_SEPARATOR = "_$";
   private static final String ZIP_FILE_SEPARATOR = "!/";
   private static final int ZIP_FILE_SEPARATOR_OFFSET = ZIP_FILE_SEPARATOR.length();
 
+  private static final HashFunction CACHE_KEY_FUNCTION = Hashing.murmur3_128();
+  private static final HashCode NO_RTA_PRUNING_MANIFEST = HashCode.fromInt(0);
+
   private static final int[][] nextState;
 
-  private static int numberOfStates = 0;
-  private static final int S_BLOCK_COMMENT = numberOfStates++;
-  private static final int S_DOUBLE_QUOTED_STRING = numberOfStates++;
-  private static final int S_DOUBLE_QUOTED_STRING_ESCAPE = numberOfStates++;
-  private static final int S_IDENTIFIER = numberOfStates++;
-  private static final int S_LINE_COMMENT = numberOfStates++;
-  private static final int S_SOURCE_MAP = numberOfStates++;
-  private static final int S_MAYBE_BLOCK_COMMENT_END = numberOfStates++;
-  private static final int S_MAYBE_COMMENT_START = numberOfStates++;
-  private static final int S_NON_IDENTIFIER = numberOfStates++;
-  private static final int S_SINGLE_QUOTED_STRING = numberOfStates++;
-  private static final int S_SINGLE_QUOTED_STRING_ESCAPE = numberOfStates++;
-  private static final int S_END_STATE = numberOfStates++;
+  // States are compile time constants so that the scanning loop can switch over them.
+  private static final int S_BLOCK_COMMENT = 0;
+  private static final int S_DOUBLE_QUOTED_STRING = 1;
+  private static final int S_DOUBLE_QUOTED_STRING_ESCAPE = 2;
+  private static final int S_IDENTIFIER = 3;
+  private static final int S_LINE_COMMENT = 4;
+  private static final int S_SOURCE_MAP = 5;
+  private static final int S_MAYBE_BLOCK_COMMENT_END = 6;
+  private static final int S_MAYBE_COMMENT_START = 7;
+  private static final int S_NON_IDENTIFIER = 8;
+  private static final int S_SINGLE_QUOTED_STRING = 9;
+  private static final int S_SINGLE_QUOTED_STRING_ESCAPE = 10;
+  private static final int NUMBER_OF_STATES = 11;
 
   static {
     // Create and initialize state transitions table.
     {
-      nextState = new int[numberOfStates][256];
+      nextState = new int[NUMBER_OF_STATES][256];
 
       setDefaultTransitions(S_NON_IDENTIFIER, S_NON_IDENTIFIER);
       setIdentifierStartTransitions(S_NON_IDENTIFIER);
@@ -141,15 +152,6 @@ public class J2clMinifier {
     return filePath.endsWith(".java.js");
   }
 
-  private static StringBuilder bufferIdentifierChar(
-      @SuppressWarnings("unused") StringBuilder minifiedContentBuffer,
-      StringBuilder identifierBuffer,
-      char c,
-      int state) {
-    identifierBuffer.append(c);
-    return identifierBuffer;
-  }
-
   private static String computePrettyIdentifier(String identifier) {
     // Because we have a different mangling pattern for meta functions you can't extract the pretty
     // name with a single simple regex match group.
@@ -165,12 +167,6 @@ public class J2clMinifier {
     }
   }
 
-  private static char[] getChars(String content) {
-    char[] chars = new char[content.length()];
-    content.getChars(0, content.length(), chars, 0);
-    return chars;
-  }
-
   private static boolean isIdentifierChar(char c) {
     return c == '_'
         || c == '$'
@@ -179,29 +175,43 @@ public class J2clMinifier {
         || (c >= 'A' && c <= 'Z');
   }
 
-  private static boolean isMinifiableIdentifier(String identifier) {
-    char firstChar = identifier.charAt(0);
+  /** Whether the identifier in {@code content[start, end)} is a mangled J2CL name. */
+  private static boolean isMinifiableIdentifier(String content, int start, int end) {
+    char firstChar = content.charAt(start);
     if (firstChar != '$' && firstChar != 'm' && firstChar != 'f') {
       return false;
     }
 
     // This is faster than a regex and more readable as well.
-    if (startsLikeJavaMethodOrField(identifier)) {
-      int underScoreIndex = identifier.indexOf('_');
+    if (startsLikeJavaMethodOrField(content, start, end)) {
+      int underScoreIndex = content.indexOf('_', start);
       // Match mangled Java member names of the form:  m_<name>__<par1>_ ....
-      return identifier.indexOf("__", underScoreIndex + 1) != -1;
+      for (int i = underScoreIndex + 1; i < end - 1; i++) {
+        if (content.charAt(i) == '_' && content.charAt(i + 1) == '_') {
+          return true;
+        }
+      }
+      return false;
     }
 
-    return identifier.startsWith("$create__")
-        || identifier.startsWith("$ctor__")
-        || identifier.startsWith("$implements__")
-        || identifier.startsWith("$init__");
+    return startsWith(content, start, end, "$create__")
+        || startsWith(content, start, end, "$ctor__")
+        || startsWith(content, start, end, "$implements__")
+        || startsWith(content, start, end, "$init__");
   }
 
   private static boolean startsLikeJavaMethodOrField(String identifier) {
-    return identifier.startsWith("f_")
-        || identifier.startsWith("m_")
-        || identifier.startsWith("$f_");
+    return startsLikeJavaMethodOrField(identifier, 0, identifier.length());
+  }
+
+  private static boolean startsLikeJavaMethodOrField(String content, int start, int end) {
+    return startsWith(content, start, end, "f_")
+        || startsWith(content, start, end, "m_")
+        || startsWith(content, start, end, "$f_");
+  }
+
+  private static boolean startsWith(String content, int start, int end, String prefix) {
+    return end - start >= prefix.length() && content.startsWith(prefix, start);
   }
 
   private static void setDefaultTransitions(int currentState, int nextState) {
@@ -228,98 +238,79 @@ public class J2clMinifier {
     nextState[currentState]['"'] = S_DOUBLE_QUOTED_STRING;
   }
 
-  @SuppressWarnings("unused")
-  private static StringBuilder skipChar(
-      StringBuilder minifiedContentBuffer, StringBuilder identifierBuffer, char c, int state) {
-    return identifierBuffer;
-  }
-
-  private static StringBuilder skipCharUnlessNewLine(
-      StringBuilder minifiedContentBuffer, StringBuilder identifierBuffer, char c, int state) {
-    if (c == '\n') {
-      identifierBuffer = writeChar(minifiedContentBuffer, identifierBuffer, c, state);
-    }
-    return identifierBuffer;
-  }
-
-  @SuppressWarnings("unused")
-  private static StringBuilder startNewIdentifier(
-      StringBuilder minifiedContentBuffer, StringBuilder identifierBuffer, char c, int state) {
-    StringBuilder identifierBuilder = new StringBuilder();
-    identifierBuilder.append(c);
-    return identifierBuilder;
-  }
-
-  private static StringBuilder writeCharOrReplace(
-      StringBuilder minifiedContentBuffer, StringBuilder identifierBuffer, char c, int state) {
-    if ((c == '\n' || c == 0) && state == S_NON_IDENTIFIER) {
-      maybeReplaceGoogStatement(minifiedContentBuffer);
-    }
-    if (c != 0) {
-      minifiedContentBuffer.append(c);
-    }
-    return identifierBuffer;
-  }
-
-  private static final String MODULE_NAME = "['\"][\\w\\.$]+['\"]";
-  private static final Pattern GOOG_FORWARD_DECLARE =
-      Pattern.compile("((?:let|var) [\\w$]+) = goog.forwardDeclare\\(" + MODULE_NAME + "\\);");
-  private static final Pattern GOOG_REQUIRE =
-      Pattern.compile("goog.require\\(" + MODULE_NAME + "\\);");
-
-  private static void maybeReplaceGoogStatement(StringBuilder minifiedContentBuffer) {
-    int start = minifiedContentBuffer.lastIndexOf("\n") + 1;
-    int end = minifiedContentBuffer.length();
+  /**
+   * Rewrites the last line of the minified content if it is a goog statement that is only useful
+   * to the compiler or for bundling.
+   */
+  private static void maybeReplaceGoogStatement(MinifiedContentBuffer minifiedContentBuffer) {
+    char[] chars = minifiedContentBuffer.chars;
+    int end = minifiedContentBuffer.length;
+    int start = minifiedContentBuffer.lastIndexOf('\n') + 1;
     if (start == end) {
       return;
     }
 
-    // goog.forwardDeclare is only useful for compiler except the variable declaration.
-    Matcher m = GOOG_FORWARD_DECLARE.matcher(minifiedContentBuffer).region(start, end);
-    if (m.matches()) {
-      minifiedContentBuffer.replace(start, minifiedContentBuffer.length(), m.group(1)).append(';');
+    // goog.forwardDeclare is only useful for compiler except the variable declaration, i.e.
+    //   (let|var) <name> = goog.forwardDeclare('<module>');
+    if (matches(chars, start, end, "let ") || matches(chars, start, end, "var ")) {
+      int declarationEnd = start + 4;
+      while (declarationEnd < end && isIdentifierChar(chars[declarationEnd])) {
+        declarationEnd++;
+      }
+      if (declarationEnd > start + 4
+          && matchesStatement(chars, declarationEnd, end, " = goog.forwardDeclare(")) {
+        minifiedContentBuffer.length = declarationEnd;
+        minifiedContentBuffer.append(';');
+      }
       return;
     }
 
-    // Unassigned goog.require is only useful for compiler and bundling.
-    m = GOOG_REQUIRE.matcher(minifiedContentBuffer).region(start, end);
-    if (m.matches()) {
-      minifiedContentBuffer.delete(start, minifiedContentBuffer.length());
-      return;
+    // Unassigned goog.require is only useful for compiler and bundling, i.e.
+    //   goog.require('<module>');
+    if (matchesStatement(chars, start, end, "goog.require(")) {
+      minifiedContentBuffer.length = start;
     }
   }
 
-  private static StringBuilder writeChar(
-      StringBuilder minifiedContentBuffer, StringBuilder identifierBuffer, char c, int state) {
-    minifiedContentBuffer.append(c);
-    return identifierBuffer;
-  }
-
-  @SuppressWarnings("unused")
-  private static StringBuilder writeSlash(
-      StringBuilder minifiedContentBuffer, StringBuilder identifierBuffer, char c, int state) {
-    identifierBuffer = writeChar(minifiedContentBuffer, identifierBuffer, '/', state);
-    return identifierBuffer;
+  /** Whether {@code chars[start, end)} is exactly {@code <callPrefix>'<module>');}. */
+  private static boolean matchesStatement(char[] chars, int start, int end, String callPrefix) {
+    if (!matches(chars, start, end, callPrefix)) {
+      return false;
+    }
+    int moduleStart = start + callPrefix.length();
+    if (moduleStart >= end || !isQuote(chars[moduleStart])) {
+      return false;
+    }
+    int moduleEnd = moduleStart + 1;
+    while (moduleEnd < end && isModuleNameChar(chars[moduleEnd])) {
+      moduleEnd++;
+    }
+    return moduleEnd > moduleStart + 1
+        && moduleEnd < end
+        && isQuote(chars[moduleEnd])
+        && end - (moduleEnd + 1) == 2
+        && matches(chars, moduleEnd + 1, end, ");");
   }
 
-  private static StringBuilder writeSlashAndChar(
-      StringBuilder minifiedContentBuffer, StringBuilder identifierBuffer, char c, int state) {
-    identifierBuffer = writeChar(minifiedContentBuffer, identifierBuffer, '/', state);
-    identifierBuffer = writeChar(minifiedContentBuffer, identifierBuffer, c, state);
-    return identifierBuffer;
+  private static boolean matches(char[] chars, int start, int end, String literal) {
+    int length = literal.length();
+    if (end - start < length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (chars[start + i] != literal.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
   }
 
-  private static StringBuilder writeDoubleSlashAndChar(
-      StringBuilder minifiedContentBuffer, StringBuilder identifierBuffer, char c, int state) {
-    identifierBuffer = writeChar(minifiedContentBuffer, identifierBuffer, '/', state);
-    return writeSlashAndChar(minifiedContentBuffer, identifierBuffer, c, state);
+  private static boolean isQuote(char c) {
+    return c == '\'' || c == '"';
   }
 
-  private static StringBuilder writeSlashAndStartNewIdentifier(
-      StringBuilder minifiedContentBuffer, StringBuilder identifierBuffer, char c, int state) {
-    identifierBuffer = writeChar(minifiedContentBuffer, identifierBuffer, '/', state);
-    identifierBuffer = startNewIdentifier(minifiedContentBuffer, identifierBuffer, c, state);
-    return identifierBuffer;
+  private static boolean isModuleNameChar(char c) {
+    return c == '.' || isIdentifierChar(c);
   }
 
   private static String extractFileKey(String fullPath) {
@@ -342,10 +333,14 @@ public class J2clMinifier {
    * These fields contain the persistent state that allows for name collision dodging and consistent
    * renaming within and across multiple files.
    */
-  private final Multiset<String> countsByIdentifier = HashMultiset.create();
+  private final Map<String, AtomicInteger> countsByPrettyIdentifier = new ConcurrentHashMap<>();
 
   private final boolean minifierDisabled = Boolean.getBoolean("j2cl_minifier_disabled");
 
+  /** Upper bound, in chars, for the minified content kept in the cache. */
+  private final long cacheMaxChars =
+      Long.getLong("j2cl_minifier_cache_max_chars", 64L * 1024 * 1024);
+
   /** Set of file paths that are not used by the application. */
   private ImmutableSet<String> unusedFiles;
 
@@ -359,15 +354,26 @@ public class J2clMinifier {
   // the performance.
   private Map<String, boolean[]> unusedLinesPerFile;
 
+  /** Identifies the RTA pruning manifest, which along with the content determines the output. */
+  private HashCode rtaPruningManifestDigest;
+
   /**
    * This is a cache of previously minified content (presumably whole files). This makes reloads in
    * fast concatenating uncompiled JS servers extra-extra fast.
+   *
+   * <p>Entries are keyed by a digest of the content, rather than the content itself, and evicted
+   * in least recently used order once the minified content they hold exceeds {@code
+   * cacheMaxChars}.
    */
-  private final Map<String, String> minifiedContentByContent = new Hashtable<>();
+  private final Cache<HashCode, String> minifiedContentByDigest =
+      CacheBuilder.newBuilder()
+          .maximumWeight(cacheMaxChars)
+          .weigher((HashCode digest, String minifiedContent) -> minifiedContent.length())
+          .recordStats()
+          .build();
 
-  private final TransitionFunction[][] transFn;
-
-  @VisibleForTesting Map<String, String> minifiedIdentifiersByIdentifier = new HashMap<>();
+  @VisibleForTesting
+  final Map<String, String> minifiedIdentifiersByIdentifier = new ConcurrentHashMap<>();
 
   public J2clMinifier() {
     this(null);
@@ -379,64 +385,6 @@ public class J2clMinifier {
         System.getProperty("j2cl_rta_removal_code_info_file", codeRemovalFilePath);
     setupRtaCodeRemoval(readCodeRemovalInfoFile(codeRemovalFilePath));
 
-    transFn = new TransitionFunction[numberOfStates][numberOfStates];
-
-    transFn[S_NON_IDENTIFIER][S_IDENTIFIER] = J2clMinifier::startNewIdentifier;
-    transFn[S_NON_IDENTIFIER][S_NON_IDENTIFIER] = J2clMinifier::writeCharOrReplace;
-    transFn[S_NON_IDENTIFIER][S_MAYBE_COMMENT_START] = J2clMinifier::skipChar;
-    transFn[S_NON_IDENTIFIER][S_SINGLE_QUOTED_STRING] = J2clMinifier::writeChar;
-    transFn[S_NON_IDENTIFIER][S_DOUBLE_QUOTED_STRING] = J2clMinifier::writeChar;
-    transFn[S_NON_IDENTIFIER][S_END_STATE] = J2clMinifier::writeCharOrReplace;
-
-    transFn[S_IDENTIFIER][S_IDENTIFIER] = J2clMinifier::bufferIdentifierChar;
-    transFn[S_IDENTIFIER][S_NON_IDENTIFIER] = this::writeIdentifierAndChar;
-    transFn[S_IDENTIFIER][S_MAYBE_COMMENT_START] = this::writeIdentifier;
-    transFn[S_IDENTIFIER][S_SINGLE_QUOTED_STRING] = this::writeIdentifierAndChar;
-    transFn[S_IDENTIFIER][S_DOUBLE_QUOTED_STRING] = this::writeIdentifierAndChar;
-    transFn[S_IDENTIFIER][S_END_STATE] = this::writeIdentifier;
-
-    transFn[S_MAYBE_COMMENT_START][S_IDENTIFIER] = J2clMinifier::writeSlashAndStartNewIdentifier;
-    transFn[S_MAYBE_COMMENT_START][S_MAYBE_COMMENT_START] = J2clMinifier::writeChar;
-    transFn[S_MAYBE_COMMENT_START][S_LINE_COMMENT] = J2clMinifier::skipChar;
-    transFn[S_MAYBE_COMMENT_START][S_BLOCK_COMMENT] = J2clMinifier::skipChar;
-    transFn[S_MAYBE_COMMENT_START][S_NON_IDENTIFIER] = J2clMinifier::writeSlashAndChar;
-    transFn[S_MAYBE_COMMENT_START][S_SINGLE_QUOTED_STRING] = J2clMinifier::writeSlashAndChar;
-    transFn[S_MAYBE_COMMENT_START][S_DOUBLE_QUOTED_STRING] = J2clMinifier::writeSlashAndChar;
-    transFn[S_MAYBE_COMMENT_START][S_END_STATE] = J2clMinifier::writeSlash;
-
-    transFn[S_LINE_COMMENT][S_LINE_COMMENT] = J2clMinifier::skipChar;
-    transFn[S_LINE_COMMENT][S_SOURCE_MAP] = J2clMinifier::writeDoubleSlashAndChar;
-    transFn[S_LINE_COMMENT][S_NON_IDENTIFIER] = J2clMinifier::writeChar;
-    transFn[S_LINE_COMMENT][S_END_STATE] = J2clMinifier::skipChar;
-
-    transFn[S_SOURCE_MAP][S_SOURCE_MAP] = J2clMinifier::writeChar;
-    transFn[S_SOURCE_MAP][S_NON_IDENTIFIER] = J2clMinifier::writeChar;
-    transFn[S_SOURCE_MAP][S_END_STATE] = J2clMinifier::skipChar;
-
-    transFn[S_BLOCK_COMMENT][S_BLOCK_COMMENT] = J2clMinifier::skipCharUnlessNewLine;
-    transFn[S_BLOCK_COMMENT][S_MAYBE_BLOCK_COMMENT_END] = J2clMinifier::skipCharUnlessNewLine;
-    transFn[S_BLOCK_COMMENT][S_END_STATE] = J2clMinifier::skipChar;
-
-    transFn[S_MAYBE_BLOCK_COMMENT_END][S_BLOCK_COMMENT] = J2clMinifier::skipCharUnlessNewLine;
-    transFn[S_MAYBE_BLOCK_COMMENT_END][S_NON_IDENTIFIER] = J2clMinifier::skipChar;
-    transFn[S_MAYBE_BLOCK_COMMENT_END][S_MAYBE_BLOCK_COMMENT_END] = J2clMinifier::skipChar;
-    transFn[S_MAYBE_BLOCK_COMMENT_END][S_END_STATE] = J2clMinifier::skipChar;
-
-    transFn[S_SINGLE_QUOTED_STRING][S_SINGLE_QUOTED_STRING] = J2clMinifier::writeChar;
-    transFn[S_SINGLE_QUOTED_STRING][S_SINGLE_QUOTED_STRING_ESCAPE] = J2clMinifier::writeChar;
-    transFn[S_SINGLE_QUOTED_STRING][S_NON_IDENTIFIER] = J2clMinifier::writeChar;
-    transFn[S_SINGLE_QUOTED_STRING][S_END_STATE] = J2clMinifier::skipChar;
-
-    transFn[S_DOUBLE_QUOTED_STRING][S_DOUBLE_QUOTED_STRING] = J2clMinifier::writeChar;
-    transFn[S_DOUBLE_QUOTED_STRING][S_DOUBLE_QUOTED_STRING_ESCAPE] = J2clMinifier::writeChar;
-    transFn[S_DOUBLE_QUOTED_STRING][S_NON_IDENTIFIER] = J2clMinifier::writeChar;
-    transFn[S_DOUBLE_QUOTED_STRING][S_END_STATE] = J2clMinifier::skipChar;
-
-    transFn[S_SINGLE_QUOTED_STRING_ESCAPE][S_SINGLE_QUOTED_STRING] = J2clMinifier::writeChar;
-    transFn[S_SINGLE_QUOTED_STRING_ESCAPE][S_END_STATE] = J2clMinifier::skipChar;
-
-    transFn[S_DOUBLE_QUOTED_STRING_ESCAPE][S_DOUBLE_QUOTED_STRING] = J2clMinifier::writeChar;
-    transFn[S_DOUBLE_QUOTED_STRING_ESCAPE][S_END_STATE] = J2clMinifier::skipChar;
   }
 
   /**
@@ -465,28 +413,38 @@ public class J2clMinifier {
       return "";
     }
 
+    boolean[] unusedLines = unusedLinesPerFile.get(fileKey);
+
     // Return a previously cached version of minified output, if possible.
-    String minifiedContent = minifiedContentByContent.get(content);
+    HashCode cacheKey = computeCacheKey(fileKey, unusedLines, content);
+    String minifiedContent = minifiedContentByDigest.getIfPresent(cacheKey);
     if (minifiedContent != null) {
       return minifiedContent;
     }
 
-    boolean[] unusedLines = unusedLinesPerFile.get(fileKey);
+    minifiedContent = scan(content, unusedLines);
+    // Update the minified content cache for next time.
+    minifiedContentByDigest.put(cacheKey, minifiedContent);
+
+    return minifiedContent;
+  }
 
-    char[] chars = getChars(content);
-    StringBuilder minifiedContentBuffer = new StringBuilder();
-    StringBuilder identifierBuffer = new StringBuilder();
+  /**
+   * Loop over the chars in the content, keeping track of the parse state, copying non-identifier
+   * chars immediately and copying identifiers, minified if needed, when they end.
+   *
+   * <p>Identifiers are tracked as offsets into the content and everything is written into a single
+   * buffer, so that only the minifiable identifiers need a string of their own.
+   */
+  private String scan(String content, boolean[] unusedLines) {
+    MinifiedContentBuffer minifiedContentBuffer = new MinifiedContentBuffer(content.length());
     int lastParseState = S_NON_IDENTIFIER;
+    int identifierStart = 0;
     int lineNumber = 0;
     boolean skippingLine = unusedLines != null && unusedLines[lineNumber];
 
-    /**
-     * Loop over the chars in the content, keeping track of in/not-in identifier state, copying
-     * non-identifier chars immediately and accumulating identifiers chars for minifying and copying
-     * when the identifier ends.
-     */
-    for (int i = 0; i < chars.length; i++) {
-      char c = chars[i];
+    for (int i = 0, length = content.length(); i < length; i++) {
+      char c = content.charAt(i);
 
       // Skip unused lines if necessary. Any unused line should not effect the state machine.
       if (unusedLines != null) {
@@ -500,9 +458,55 @@ public class J2clMinifier {
 
       int parseState = nextState[lastParseState][c < 256 ? c : 0];
 
-      TransitionFunction transitionFunction = transFn[lastParseState][parseState];
-      identifierBuffer =
-          transitionFunction.transition(minifiedContentBuffer, identifierBuffer, c, lastParseState);
+      switch (lastParseState) {
+        case S_NON_IDENTIFIER:
+          if (parseState == S_IDENTIFIER) {
+            identifierStart = i;
+          } else if (parseState != S_MAYBE_COMMENT_START) {
+            if (c == '\n' && parseState == S_NON_IDENTIFIER) {
+              maybeReplaceGoogStatement(minifiedContentBuffer);
+            }
+            minifiedContentBuffer.append(c);
+          }
+          break;
+        case S_IDENTIFIER:
+          if (parseState != S_IDENTIFIER) {
+            writeIdentifier(minifiedContentBuffer, content, identifierStart, i);
+            if (parseState != S_MAYBE_COMMENT_START) {
+              minifiedContentBuffer.append(c);
+            }
+          }
+          break;
+        case S_MAYBE_COMMENT_START:
+          if (parseState == S_IDENTIFIER) {
+            minifiedContentBuffer.append('/');
+            identifierStart = i;
+          } else if (parseState != S_LINE_COMMENT && parseState != S_BLOCK_COMMENT) {
+            minifiedContentBuffer.append('/');
+            minifiedContentBuffer.append(c);
+          }
+          break;
+        case S_LINE_COMMENT:
+          if (parseState == S_SOURCE_MAP) {
+            minifiedContentBuffer.append('/');
+            minifiedContentBuffer.append('/');
+            minifiedContentBuffer.append(c);
+          } else if (parseState == S_NON_IDENTIFIER) {
+            minifiedContentBuffer.append(c);
+          }
+          break;
+        case S_BLOCK_COMMENT:
+        case S_MAYBE_BLOCK_COMMENT_END:
+          // Block comments are stripped but their new lines are preserved.
+          if (c == '\n') {
+            minifiedContentBuffer.append(c);
+          }
+          break;
+        default:
+          // Strings and source map comments are copied as is.
+          minifiedContentBuffer.append(c);
+          break;
+      }
 
       lastParseState = parseState;
     }
@@ -510,66 +514,162 @@ public class J2clMinifier {
     // if we used RTA to remove lines, ensure that we removed everything expected by RTA.
     checkState(unusedLines == null || lineNumber >= unusedLines.length - 1);
 
-    // Transition to the end state
-    TransitionFunction transitionFunction = transFn[lastParseState][S_END_STATE];
-    transitionFunction.transition(
-        minifiedContentBuffer, identifierBuffer, (char) 0, lastParseState);
+    // Flush whatever is pending at the end of the content.
+    switch (lastParseState) {
+      case S_NON_IDENTIFIER:
+        maybeReplaceGoogStatement(minifiedContentBuffer);
+        break;
+      case S_IDENTIFIER:
+        writeIdentifier(minifiedContentBuffer, content, identifierStart, content.length());
+        break;
+      case S_MAYBE_COMMENT_START:
+        minifiedContentBuffer.append('/');
+        break;
+      default:
+        break;
+    }
 
-    minifiedContent = minifiedContentBuffer.toString();
-    // Update the minified content cache for next time.
-    minifiedContentByContent.put(content, minifiedContent);
+    return minifiedContentBuffer.toString();
+  }
 
-    return minifiedContent;
+  private void writeIdentifier(
+      MinifiedContentBuffer minifiedContentBuffer, String content, int start, int end) {
+    if (isMinifiableIdentifier(content, start, end)) {
+      minifiedContentBuffer.append(getMinifiedIdentifier(content.substring(start, end)));
+    } else {
+      minifiedContentBuffer.append(content, start, end);
+    }
+  }
+
+  private HashCode computeCacheKey(String fileKey, boolean[] unusedLines, String content) {
+    Hasher hasher = CACHE_KEY_FUNCTION.newHasher();
+    hasher.putBytes(rtaPruningManifestDigest.asBytes());
+    if (unusedLines != null) {
+      // The lines that are pruned depend on the file, not only on its content.
+      hasher.putUnencodedChars(fileKey).putChar('\0');
+    }
+    return hasher.putUnencodedChars(content).hash();
+  }
+
+  /** Returns the hit, miss and eviction counts of the minified content cache. */
+  public CacheStats getContentCacheStats() {
+    return minifiedContentByDigest.stats();
   }
 
   /**
-   * The minifier might be used from multiple threads so make sure that this function (which along
-   * with the makeUnique function, which is also only called from here, is the only place that
-   * mutates class state) is synchronized.
+   * Processes the contents of a set of files, fanning out the work across the common fork join
+   * pool, and returns the minified contents keyed and ordered by file path.
+   *
+   * <p>The minified names are the same as if the files had been minified one after the other in
+   * iteration order, which makes them stable for the same input set regardless of how the work was
+   * scheduled.
    */
-  private synchronized String getMinifiedIdentifier(String identifier) {
-    if (minifiedIdentifiersByIdentifier.containsKey(identifier)) {
-      return minifiedIdentifiersByIdentifier.get(identifier);
+  public ImmutableMap<String, String> minifyAll(Map<String, String> contentByFilePath) {
+    ImmutableList<Map.Entry<String, String>> entries =
+        ImmutableList.copyOf(contentByFilePath.entrySet());
+
+    // Find the identifiers in parallel but assign their names sequentially, in the order they would
+    // have been encountered by minifying the files one by one. After that, all the name lookups
+    // done while minifying are reads.
+    List<List<String>> identifiersByFile =
+        entries.parallelStream()
+            .map(e -> collectMinifiableIdentifiers(e.getKey(), e.getValue()))
+            .collect(toImmutableList());
+    identifiersByFile.forEach(identifiers -> identifiers.forEach(this::getMinifiedIdentifier));
+
+    String[] minifiedContents =
+        entries.parallelStream().map(e -> minify(e.getKey(), e.getValue())).toArray(String[]::new);
+
+    ImmutableMap.Builder<String, String> minifiedContentByFilePath = ImmutableMap.builder();
+    for (int i = 0; i < minifiedContents.length; i++) {
+      minifiedContentByFilePath.put(entries.get(i).getKey(), minifiedContents[i]);
     }
+    return minifiedContentByFilePath.build();
+  }
 
-    String prettyIdentifier = computePrettyIdentifier(identifier);
-    if (prettyIdentifier.isEmpty()) {
-      // The identifier must contain something strange like triple _'s. Leave the whole thing alone
-      // just to be safe.
-      minifiedIdentifiersByIdentifier.put(identifier, identifier);
-      return identifier;
+  /**
+   * Returns the minifiable identifiers in the content, in order of appearance, following the same
+   * parse and line pruning as {@link #minify(String, String)}.
+   */
+  private List<String> collectMinifiableIdentifiers(String filePath, String content) {
+    String fileKey = extractFileKey(filePath);
+    if (minifierDisabled || unusedFiles.contains(fileKey)) {
+      return ImmutableList.of();
     }
 
-    String uniquePrettyIdentifier = makeUnique(prettyIdentifier);
-    minifiedIdentifiersByIdentifier.put(identifier, uniquePrettyIdentifier);
+    // The identifiers are collected even if the minified content is cached, since the entry might
+    // be evicted before the content is looked up again; the names must not depend on the cache.
+    boolean[] unusedLines = unusedLinesPerFile.get(fileKey);
+    List<String> identifiers = new ArrayList<>();
+    int lastParseState = S_NON_IDENTIFIER;
+    int identifierStart = 0;
+    int lineNumber = 0;
+    boolean skippingLine = unusedLines != null && unusedLines[lineNumber];
+    for (int i = 0; i < content.length(); i++) {
+      char c = content.charAt(i);
+
+      if (unusedLines != null) {
+        if (c == '\n') {
+          lineNumber++;
+          skippingLine = unusedLines.length > lineNumber && unusedLines[lineNumber];
+        } else if (skippingLine) {
+          continue;
+        }
+      }
 
-    return uniquePrettyIdentifier;
+      int parseState = nextState[lastParseState][c < 256 ? c : 0];
+      if (parseState == S_IDENTIFIER && lastParseState != S_IDENTIFIER) {
+        identifierStart = i;
+      } else if (parseState != S_IDENTIFIER && lastParseState == S_IDENTIFIER) {
+        addIfMinifiable(identifiers, content, identifierStart, i);
+      }
+      lastParseState = parseState;
+    }
+    if (lastParseState == S_IDENTIFIER) {
+      addIfMinifiable(identifiers, content, identifierStart, content.length());
+    }
+    return identifiers;
   }
 
-  private String makeUnique(String identifier) {
-    int count = countsByIdentifier.add(identifier, 1) + 1;
-    return identifier + MINIFICATION_SEPARATOR + count;
+  private static void addIfMinifiable(
+      List<String> identifiers, String content, int start, int end) {
+    if (isMinifiableIdentifier(content, start, end)) {
+      identifiers.add(content.substring(start, end));
+    }
   }
 
-  private StringBuilder writeIdentifier(
-      StringBuilder minifiedContentBuffer,
-      StringBuilder identifierBuffer,
-      @SuppressWarnings("unused") char c,
-      int state) {
-    String identifier = identifierBuffer.toString();
-    if (isMinifiableIdentifier(identifier)) {
-      minifiedContentBuffer.append(getMinifiedIdentifier(identifier));
-    } else {
-      minifiedContentBuffer.append(identifier);
+  /**
+   * Returns the minified name for the identifier, assigning one the first time it is seen.
+   *
+   * <p>The minifier might be used from multiple threads; each identifier is assigned a name exactly
+   * once and names that share the same pretty identifier are numbered by an atomic counter, so
+   * lookups of already seen identifiers never block.
+   */
+  private String getMinifiedIdentifier(String identifier) {
+    String minifiedIdentifier = minifiedIdentifiersByIdentifier.get(identifier);
+    if (minifiedIdentifier != null) {
+      return minifiedIdentifier;
     }
-    return identifierBuffer;
+    return minifiedIdentifiersByIdentifier.computeIfAbsent(
+        identifier, this::computeMinifiedIdentifier);
   }
 
-  private StringBuilder writeIdentifierAndChar(
-      StringBuilder minifiedContentBuffer, StringBuilder identifierBuffer, char c, int state) {
-    writeIdentifier(minifiedContentBuffer, identifierBuffer, c, state);
-    minifiedContentBuffer.append(c);
-    return identifierBuffer;
+  private String computeMinifiedIdentifier(String identifier) {
+    String prettyIdentifier = computePrettyIdentifier(identifier);
+    if (prettyIdentifier.isEmpty()) {
+      // The identifier must contain something strange like triple _'s. Leave the whole thing alone
+      // just to be safe.
+      return identifier;
+    }
+    return makeUnique(prettyIdentifier);
+  }
+
+  private String makeUnique(String identifier) {
+    int count =
+        countsByPrettyIdentifier
+            .computeIfAbsent(identifier, k -> new AtomicInteger())
+            .incrementAndGet();
+    return identifier + MINIFICATION_SEPARATOR + count;
   }
 
   private static CodeRemovalInfo readCodeRemovalInfoFile(String codeRemovalInfoFilePath) {
@@ -589,9 +689,11 @@ public class J2clMinifier {
     if (codeRemovalInfo != null) {
       unusedFiles = ImmutableSet.copyOf(codeRemovalInfo.getUnusedFilesList());
       unusedLinesPerFile = createUnusedLinesPerFileMap(codeRemovalInfo);
+      rtaPruningManifestDigest = CACHE_KEY_FUNCTION.hashBytes(codeRemovalInfo.toByteArray());
     } else {
       unusedFiles = ImmutableSet.of();
       unusedLinesPerFile = ImmutableMap.of();
+      rtaPruningManifestDigest = NO_RTA_PRUNING_MANIFEST;
     }
   }
 
@@ -617,6 +719,55 @@ public class J2clMinifier {
     return unusedLinesPerFile;
   }
 
+  /** A growable buffer for the minified content, pre-sized to the length of the original. */
+  private static final class MinifiedContentBuffer {
+    private char[] chars;
+    private int length;
+
+    MinifiedContentBuffer(int expectedLength) {
+      // Minification mostly shrinks the content, but it might grow when names get long suffixes.
+      chars = new char[Math.max(expectedLength, 16)];
+    }
+
+    void append(char c) {
+      if (length == chars.length) {
+        grow(1);
+      }
+      chars[length++] = c;
+    }
+
+    void append(String s) {
+      append(s, 0, s.length());
+    }
+
+    void append(String s, int start, int end) {
+      int count = end - start;
+      if (length + count > chars.length) {
+        grow(count);
+      }
+      s.getChars(start, end, chars, length);
+      length += count;
+    }
+
+    int lastIndexOf(char c) {
+      for (int i = length - 1; i >= 0; i--) {
+        if (chars[i] == c) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    private void grow(int minGrowth) {
+      chars = Arrays.copyOf(chars, Math.max(chars.length * 2, length + minGrowth));
+    }
+
+    @Override
+    public String toString() {
+      return new String(chars, 0, length);
+    }
+  }
+
   /**
    * Entry point to the minifier standalone binary.
    *
@@ -17,6 +17,9 @@ package com.google.j2cl.tools.rta;
 
 import static com.google.common.collect.ImmutableList.toImmutableList;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.io.CharSink;
 import com.google.common.io.Files;
 import com.google.j2cl.bazel.BazelWorker;
@@ -41,6 +44,22 @@ public class BazelJ2clRta extends BazelWorker {
   private static final FileCache<LibraryInfo> libraryInfoCache =
       new FileCache<>(BazelJ2clRta::readLibraryInfo, CACHE_SIZE);
 
+  private static final boolean INCREMENTAL =
+      Boolean.parseBoolean(System.getProperty("j2cl.rta.incremental", "true"));
+
+  private static final int MAX_CACHED_TYPE_GRAPHS =
+      Integer.parseInt(System.getProperty("j2cl.rta.maxCachedTypeGraphs", "4"));
+
+  /**
+   * Keeps the type graph of the previous request of each target, identified by its output, which is
+   * reused for the unchanged inputs. The requests for different targets might run concurrently.
+   */
+  private static final LoadingCache<String, IncrementalRapidTypeAnalyser>
+      incrementalRapidTypeAnalyserByOutput =
+          CacheBuilder.newBuilder()
+              .maximumSize(MAX_CACHED_TYPE_GRAPHS)
+              .build(CacheLoader.from(IncrementalRapidTypeAnalyser::new));
+
   @Option(
       name = "--unusedTypesOutput",
       usage = "Path of output file containing the list of unused types",
@@ -61,7 +80,12 @@ public class BazelJ2clRta extends BazelWorker {
     List<LibraryInfo> libraryInfos =
         inputs.parallelStream().map(libraryInfoCache::get).collect(toImmutableList());
 
-    RtaResult rtaResult = RapidTypeAnalyser.analyse(libraryInfos);
+    RtaResult rtaResult =
+        INCREMENTAL
+            ? incrementalRapidTypeAnalyserByOutput
+                .getUnchecked(unusedTypesOutputFilePath)
+                .analyse(libraryInfos)
+            : RapidTypeAnalyser.analyse(libraryInfos);
 
     writeToFile(unusedTypesOutputFilePath, rtaResult.getUnusedTypes());
     writeToFile(removalCodeInfoOutputFilePath, rtaResult.getCodeRemovalInfo());
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.j2cl.tools.rta;
+
+import com.google.common.collect.ImmutableList;
+import com.google.j2cl.libraryinfo.LibraryInfo;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs RTA reusing the type graph of the previous analysis.
+ *
+ * <p>Libraries are considered unchanged when they are the same {@link LibraryInfo} instances, as
+ * returned by {@link FileCache} for files that were not modified. If none of the libraries changed
+ * the previous graph is analysed as is; otherwise the types of the unchanged libraries are reused
+ * and only the changed libraries are read again before linking the graph.
+ *
+ * <p>The liveness is always recomputed over the whole graph; with the graph already built this is
+ * a small fraction of the analysis.
+ */
+final class IncrementalRapidTypeAnalyser {
+
+  private List<LibraryInfo> libraryInfos = ImmutableList.of();
+  private Map<LibraryInfo, List<Type>> typesByLibraryInfo = new IdentityHashMap<>();
+  private IndexedTypeGraph graph;
+
+  synchronized RtaResult analyse(List<LibraryInfo> libraryInfos) {
+    if (graph == null || !isSameLibraries(libraryInfos)) {
+      updateGraph(libraryInfos);
+    }
+    return RapidTypeAnalyser.analyse(graph);
+  }
+
+  private boolean isSameLibraries(List<LibraryInfo> libraryInfos) {
+    if (libraryInfos.size() != this.libraryInfos.size()) {
+      return false;
+    }
+    for (int i = 0; i < libraryInfos.size(); i++) {
+      if (libraryInfos.get(i) != this.libraryInfos.get(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void updateGraph(List<LibraryInfo> libraryInfos) {
+    // Linking modifies the reused types; make sure a failure doesn't leave a stale graph behind.
+    this.graph = null;
+
+    // Only keep the types of the libraries that are part of this analysis.
+    Map<LibraryInfo, List<Type>> previousTypesByLibraryInfo = typesByLibraryInfo;
+    Map<LibraryInfo, List<Type>> newTypesByLibraryInfo = new IdentityHashMap<>();
+    for (LibraryInfo libraryInfo : libraryInfos) {
+      List<Type> types = previousTypesByLibraryInfo.get(libraryInfo);
+      newTypesByLibraryInfo.put(
+          libraryInfo, types != null ? types : TypeGraphBuilder.createTypes(libraryInfo));
+    }
+
+    this.graph =
+        IndexedTypeGraph.build(TypeGraphBuilder.build(libraryInfos, newTypesByLibraryInfo::get));
+    this.libraryInfos = ImmutableList.copyOf(libraryInfos);
+    this.typesByLibraryInfo = newTypesByLibraryInfo;
+  }
+}
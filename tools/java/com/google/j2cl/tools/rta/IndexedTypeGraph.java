@@ -0,0 +1,279 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.j2cl.tools.rta;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A dense view of the type graph where types, members and member names are identified by indices.
+ *
+ * <p>Adjacency lists are stored in compressed form: the targets of node {@code i} are the entries
+ * of the targets array between {@code start[i]} (inclusive) and {@code start[i + 1]} (exclusive).
+ */
+final class IndexedTypeGraph {
+  static final int NONE = -1;
+
+  private final ImmutableList<Type> types;
+  private final ImmutableList<Member> members;
+
+  // Types.
+  private final int[] superClass;
+  private final int[] superInterfacesStart;
+  private final int[] superInterfaces;
+  private final int[] subtypesStart;
+  private final int[] subtypes;
+  private final int[] clinit;
+  /** Members of each type, sorted by name index to allow for lookups by name. */
+  private final int[] membersByNameStart;
+  private final int[] membersByName;
+
+  // Members.
+  private final int[] declaringType;
+  private final int[] memberName;
+  private final boolean[] polymorphic;
+  private final boolean[] constructor;
+  private final boolean[] jsAccessible;
+  private final int[] referencedMembersStart;
+  private final int[] referencedMembers;
+  private final int[] referencedTypesStart;
+  private final int[] referencedTypes;
+
+  static IndexedTypeGraph build(Collection<Type> types) {
+    return new IndexedTypeGraph(types);
+  }
+
+  private IndexedTypeGraph(Collection<Type> typeCollection) {
+    types = ImmutableList.copyOf(typeCollection);
+    members =
+        types.stream().flatMap(t -> t.getMembers().stream()).collect(toImmutableList());
+
+    Map<Type, Integer> typeIndices = indexByIdentity(types);
+    Map<Member, Integer> memberIndices = indexByIdentity(members);
+    Map<String, Integer> nameIndices = new HashMap<>();
+
+    int typeCount = types.size();
+    int memberCount = members.size();
+
+    declaringType = new int[memberCount];
+    memberName = new int[memberCount];
+    polymorphic = new boolean[memberCount];
+    constructor = new boolean[memberCount];
+    jsAccessible = new boolean[memberCount];
+    for (int i = 0; i < memberCount; i++) {
+      Member member = members.get(i);
+      declaringType[i] = typeIndices.get(member.getDeclaringType());
+      memberName[i] = nameIndices.computeIfAbsent(member.getName(), n -> nameIndices.size());
+      polymorphic[i] = member.isPolymorphic();
+      constructor[i] = member.isConstructor();
+      jsAccessible[i] = member.isJsAccessible();
+    }
+
+    superClass = new int[typeCount];
+    clinit = new int[typeCount];
+    membersByNameStart = new int[typeCount + 1];
+    membersByName = new int[memberCount];
+    // The members of a type are contiguous; sort each range by name, packing the name index in the
+    // high bits of the sort key.
+    long[] sortKeys = new long[memberCount];
+    for (int i = 0; i < memberCount; i++) {
+      sortKeys[i] = ((long) memberName[i] << 32) | i;
+    }
+    Integer clinitName = nameIndices.get("$clinit");
+    for (int i = 0, start = 0; i < typeCount; i++) {
+      Type type = types.get(i);
+      superClass[i] = type.getSuperClass() == null ? NONE : typeIndices.get(type.getSuperClass());
+
+      int end = start + type.getMembers().size();
+      Arrays.sort(sortKeys, start, end);
+      for (int j = start; j < end; j++) {
+        membersByName[j] = (int) sortKeys[j];
+      }
+      membersByNameStart[i] = start;
+      membersByNameStart[i + 1] = end;
+      start = end;
+
+      clinit[i] = clinitName == null ? NONE : getMemberByName(i, clinitName);
+    }
+
+    int[][] superInterfacesAdjacency =
+        buildAdjacency(types, Type::getSuperInterfaces, typeIndices);
+    superInterfacesStart = superInterfacesAdjacency[0];
+    superInterfaces = superInterfacesAdjacency[1];
+    int[][] subtypesAdjacency = buildAdjacency(types, Type::getImmediateSubtypes, typeIndices);
+    subtypesStart = subtypesAdjacency[0];
+    subtypes = subtypesAdjacency[1];
+    int[][] referencedMembersAdjacency =
+        buildAdjacency(members, Member::getReferencedMembers, memberIndices);
+    referencedMembersStart = referencedMembersAdjacency[0];
+    referencedMembers = referencedMembersAdjacency[1];
+    int[][] referencedTypesAdjacency =
+        buildAdjacency(members, Member::getReferencedTypes, typeIndices);
+    referencedTypesStart = referencedTypesAdjacency[0];
+    referencedTypes = referencedTypesAdjacency[1];
+  }
+
+  private static <T> Map<T, Integer> indexByIdentity(List<T> nodes) {
+    Map<T, Integer> indices = new IdentityHashMap<>(nodes.size());
+    for (int i = 0; i < nodes.size(); i++) {
+      indices.put(nodes.get(i), i);
+    }
+    return indices;
+  }
+
+  /** Returns the {start, targets} arrays of the compressed adjacency lists. */
+  private static <T, U> int[][] buildAdjacency(
+      List<T> nodes, Function<T, List<U>> edgesFunction, Map<U, Integer> targetIndices) {
+    int[] start = new int[nodes.size() + 1];
+    List<U> allTargets = new ArrayList<>();
+    for (int i = 0; i < nodes.size(); i++) {
+      start[i] = allTargets.size();
+      allTargets.addAll(edgesFunction.apply(nodes.get(i)));
+    }
+    start[nodes.size()] = allTargets.size();
+
+    int[] targets = new int[allTargets.size()];
+    for (int i = 0; i < targets.length; i++) {
+      targets[i] = checkNotNull(targetIndices.get(checkNotNull(allTargets.get(i))));
+    }
+    return new int[][] {start, targets};
+  }
+
+  ImmutableList<Type> getTypes() {
+    return types;
+  }
+
+  int getTypeCount() {
+    return types.size();
+  }
+
+  Type getType(int type) {
+    return types.get(type);
+  }
+
+  int getSuperClass(int type) {
+    return superClass[type];
+  }
+
+  int getSuperInterfacesStart(int type) {
+    return superInterfacesStart[type];
+  }
+
+  int getSuperInterfacesEnd(int type) {
+    return superInterfacesStart[type + 1];
+  }
+
+  int getSuperInterface(int index) {
+    return superInterfaces[index];
+  }
+
+  int getSubtypesStart(int type) {
+    return subtypesStart[type];
+  }
+
+  int getSubtypesEnd(int type) {
+    return subtypesStart[type + 1];
+  }
+
+  int getSubtype(int index) {
+    return subtypes[index];
+  }
+
+  /** Returns the static initializer of the type, or {@link #NONE}. */
+  int getClinit(int type) {
+    return clinit[type];
+  }
+
+  /** Returns the member of the type with the given name index, or {@link #NONE}. */
+  int getMemberByName(int type, int name) {
+    int low = membersByNameStart[type];
+    int high = membersByNameStart[type + 1] - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int middleName = memberName[membersByName[middle]];
+      if (middleName < name) {
+        low = middle + 1;
+      } else if (middleName > name) {
+        high = middle - 1;
+      } else {
+        return membersByName[middle];
+      }
+    }
+    return NONE;
+  }
+
+  int getMemberCount() {
+    return members.size();
+  }
+
+  Member getMember(int member) {
+    return members.get(member);
+  }
+
+  int getDeclaringType(int member) {
+    return declaringType[member];
+  }
+
+  int getMemberName(int member) {
+    return memberName[member];
+  }
+
+  boolean isPolymorphic(int member) {
+    return polymorphic[member];
+  }
+
+  boolean isConstructor(int member) {
+    return constructor[member];
+  }
+
+  boolean isJsAccessible(int member) {
+    return jsAccessible[member];
+  }
+
+  int getReferencedMembersStart(int member) {
+    return referencedMembersStart[member];
+  }
+
+  int getReferencedMembersEnd(int member) {
+    return referencedMembersStart[member + 1];
+  }
+
+  int getReferencedMember(int index) {
+    return referencedMembers[index];
+  }
+
+  int getReferencedTypesStart(int member) {
+    return referencedTypesStart[member];
+  }
+
+  int getReferencedTypesEnd(int member) {
+    return referencedTypesStart[member + 1];
+  }
+
+  int getReferencedType(int index) {
+    return referencedTypes[index];
+  }
+}
@@ -21,21 +21,22 @@ import java.util.ArrayList;
 import java.util.List;
 
 final class Member {
-  static Member buildFrom(MemberInfo memberInfo, Type declaringType) {
+  static Member buildFrom(MemberInfo memberInfo, String name, Type declaringType) {
     Member member = new Member();
     member.memberInfo = memberInfo;
+    member.name = name;
     member.declaringType = declaringType;
     member.isStatic = memberInfo.getStatic();
-    member.isConstructor = memberInfo.getName().equals("constructor");
+    member.isConstructor = name.equals("constructor");
     return member;
   }
 
   private MemberInfo memberInfo;
+  private String name;
   private Type declaringType;
   private boolean isStatic;
   private boolean isConstructor;
 
-  private boolean fullyTraversed;
   private boolean live;
   private final List<Type> referencedTypes = new ArrayList<>();
   private final List<Member> referencedMembers = new ArrayList<>();
@@ -51,7 +52,7 @@ final class Member {
   }
 
   String getName() {
-    return memberInfo.getName();
+    return name;
   }
 
   boolean hasPosition() {
@@ -74,16 +75,8 @@ final class Member {
     return live;
   }
 
-  void markLive() {
-    this.live = true;
-  }
-
-  boolean isFullyTraversed() {
-    return fullyTraversed;
-  }
-
-  void markFullyTraversed() {
-    this.fullyTraversed = true;
+  void setLive(boolean live) {
+    this.live = live;
   }
 
   List<Type> getReferencedTypes() {
@@ -101,4 +94,10 @@ final class Member {
   void addReferencedMember(Member referencedMember) {
     referencedMembers.add(referencedMember);
   }
+
+  /** Removes the references to other types and members. */
+  void unlink() {
+    referencedTypes.clear();
+    referencedMembers.clear();
+  }
 }
@@ -15,104 +15,216 @@
  */
 package com.google.j2cl.tools.rta;
 
-
 import com.google.j2cl.libraryinfo.LibraryInfo;
-import java.util.Collection;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 
+/**
+ * Computes the live types and members of an application.
+ *
+ * <p>The analysis runs over the {@link IndexedTypeGraph} and uses explicit worklists instead of
+ * recursion, so that its cost does not depend on the depth of the call graph. Newly live members
+ * are processed in breadth first order.
+ */
 final class RapidTypeAnalyser {
 
   static RtaResult analyse(List<LibraryInfo> libraryInfos) {
-    Collection<Type> types = TypeGraphBuilder.build(libraryInfos);
+    return analyse(IndexedTypeGraph.build(TypeGraphBuilder.build(libraryInfos)));
+  }
 
+  /**
+   * Analyses an already built graph. The results are recorded in its types and members, so the
+   * graph should not be analysed concurrently.
+   */
+  static RtaResult analyse(IndexedTypeGraph graph) {
+    new RapidTypeAnalyser(graph).analyse();
+    return RtaResult.build(graph.getTypes());
+  }
+
+  private final IndexedTypeGraph graph;
+  private final BitSet liveTypes;
+  private final BitSet instantiatedTypes;
+  private final BitSet liveMembers;
+  private final BitSet fullyTraversedMembers;
+  /** Members to mark live when their type gets instantiated, indexed by type. */
+  private final IntList[] potentiallyLiveMembersByType;
+
+  /** Queue of the members that are live but whose references have not been processed yet. */
+  private final int[] liveMemberQueue;
+
+  private int liveMemberQueueHead;
+  private int liveMemberQueueTail;
+
+  private final IntList subtypeStack = new IntList();
+  private final IntList superInterfaceStack = new IntList();
+
+  private RapidTypeAnalyser(IndexedTypeGraph graph) {
+    this.graph = graph;
+    this.liveTypes = new BitSet(graph.getTypeCount());
+    this.instantiatedTypes = new BitSet(graph.getTypeCount());
+    this.liveMembers = new BitSet(graph.getMemberCount());
+    this.fullyTraversedMembers = new BitSet(graph.getMemberCount());
+    this.potentiallyLiveMembersByType = new IntList[graph.getTypeCount()];
+    // Members are queued only once, when they become live.
+    this.liveMemberQueue = new int[graph.getMemberCount()];
+  }
+
+  private void analyse() {
     // Go over the entry points to start the traversal.
-    types.stream()
-        .flatMap(t -> t.getMembers().stream())
-        .filter(Member::isJsAccessible)
-        .forEach(m -> onMemberReference(m));
+    for (int member = 0; member < graph.getMemberCount(); member++) {
+      if (graph.isJsAccessible(member)) {
+        onMemberReference(member);
+      }
+    }
+
+    while (liveMemberQueueHead < liveMemberQueueTail) {
+      processLiveMember(liveMemberQueue[liveMemberQueueHead++]);
+    }
 
-    return RtaResult.build(types);
+    // Record the results in the type graph, overwriting those of previous analyses.
+    for (int type = 0; type < graph.getTypeCount(); type++) {
+      graph.getType(type).setLive(liveTypes.get(type));
+    }
+    for (int member = 0; member < graph.getMemberCount(); member++) {
+      graph.getMember(member).setLive(liveMembers.get(member));
+    }
   }
 
-  private static void onMemberReference(Member member) {
-    if (member.isPolymorphic()) {
-      traversePolymorphicReference(member.getDeclaringType(), member.getName());
+  private void onMemberReference(int member) {
+    int declaringType = graph.getDeclaringType(member);
+    if (graph.isPolymorphic(member)) {
+      traversePolymorphicReference(declaringType, graph.getMemberName(member));
     } else {
-      markTypeLive(member.getDeclaringType());
-      markMemberLive(member.getDeclaringType().getMemberByName("$clinit"));
+      markTypeLive(declaringType);
+      int clinit = graph.getClinit(declaringType);
+      if (clinit != IndexedTypeGraph.NONE) {
+        markMemberLive(clinit);
+      }
       markMemberLive(member);
     }
   }
 
-  private static void markMemberLive(Member member) {
-    if (member.isLive()) {
+  private void markMemberLive(int member) {
+    if (liveMembers.get(member)) {
       return;
     }
+    liveMembers.set(member);
+    liveMemberQueue[liveMemberQueueTail++] = member;
+  }
 
-    member.markLive();
-
-    Type declaringType = member.getDeclaringType();
-    if (!declaringType.isInstantiated() && member.isConstructor()) {
-      declaringType.instantiate();
-      declaringType.getPotentiallyLiveMembers().forEach(RapidTypeAnalyser::markMemberLive);
+  private void processLiveMember(int member) {
+    int declaringType = graph.getDeclaringType(member);
+    if (graph.isConstructor(member) && !instantiatedTypes.get(declaringType)) {
+      instantiatedTypes.set(declaringType);
+      IntList potentiallyLiveMembers = potentiallyLiveMembersByType[declaringType];
+      if (potentiallyLiveMembers != null) {
+        potentiallyLiveMembersByType[declaringType] = null;
+        for (int i = 0; i < potentiallyLiveMembers.size; i++) {
+          markMemberLive(potentiallyLiveMembers.elements[i]);
+        }
+      }
     }
 
-    member.getReferencedMembers().forEach(RapidTypeAnalyser::onMemberReference);
-    member.getReferencedTypes().forEach(RapidTypeAnalyser::markTypeLive);
+    for (int i = graph.getReferencedMembersStart(member);
+        i < graph.getReferencedMembersEnd(member);
+        i++) {
+      onMemberReference(graph.getReferencedMember(i));
+    }
+    for (int i = graph.getReferencedTypesStart(member);
+        i < graph.getReferencedTypesEnd(member);
+        i++) {
+      markTypeLive(graph.getReferencedType(i));
+    }
   }
 
-  private static void traversePolymorphicReference(Type type, String memberName) {
-    Member member = type.getMemberByName(memberName);
-    if (member != null) {
-      if (member.isFullyTraversed()) {
-        return;
-      }
-      member.markFullyTraversed();
+  private void traversePolymorphicReference(int type, int memberName) {
+    // Unfold the overriding chain.
+    subtypeStack.add(type);
+    while (subtypeStack.size > 0) {
+      int currentType = subtypeStack.elements[--subtypeStack.size];
 
-      markMemberPotentiallyLive(member);
-    }
+      int member = graph.getMemberByName(currentType, memberName);
+      if (member != IndexedTypeGraph.NONE) {
+        if (fullyTraversedMembers.get(member)) {
+          continue;
+        }
+        fullyTraversedMembers.set(member);
+
+        markMemberPotentiallyLive(member);
+      }
 
-    // Recursively unfold the overriding chain.
-    type.getImmediateSubtypes()
-        .forEach(subtype -> traversePolymorphicReference(subtype, memberName));
+      for (int i = graph.getSubtypesStart(currentType);
+          i < graph.getSubtypesEnd(currentType);
+          i++) {
+        subtypeStack.add(graph.getSubtype(i));
+      }
 
-    markOverriddenMembersPotentiallyLive(type, memberName);
+      markOverriddenMembersPotentiallyLive(currentType, memberName);
+    }
   }
 
-  private static void markOverriddenMembersPotentiallyLive(Type type, String memberName) {
-    while ((type = type.getSuperClass()) != null) {
-      Member member = type.getMemberByName(memberName);
-      if (member == null) {
+  private void markOverriddenMembersPotentiallyLive(int type, int memberName) {
+    while ((type = graph.getSuperClass(type)) != IndexedTypeGraph.NONE) {
+      int member = graph.getMemberByName(type, memberName);
+      if (member == IndexedTypeGraph.NONE) {
         continue;
       }
-      if (!member.isPolymorphic()) {
+      if (!graph.isPolymorphic(member)) {
         return;
       }
       markMemberPotentiallyLive(member);
     }
   }
 
-  private static void markMemberPotentiallyLive(Member member) {
-    Type declaringType = member.getDeclaringType();
-    if (declaringType.isInstantiated()) {
+  private void markMemberPotentiallyLive(int member) {
+    int declaringType = graph.getDeclaringType(member);
+    if (instantiatedTypes.get(declaringType)) {
       markMemberLive(member);
     } else {
       // Type is not instantiated, defer making it live until the type is instantiated.
-      declaringType.addPotentiallyLiveMember(member);
+      IntList potentiallyLiveMembers = potentiallyLiveMembersByType[declaringType];
+      if (potentiallyLiveMembers == null) {
+        potentiallyLiveMembers = new IntList();
+        potentiallyLiveMembersByType[declaringType] = potentiallyLiveMembers;
+      }
+      potentiallyLiveMembers.add(member);
     }
   }
 
-  private static void markTypeLive(Type type) {
-    if (type.isLive()) {
+  private void markTypeLive(int type) {
+    if (liveTypes.get(type)) {
       return;
     }
-
-    type.markLive();
+    liveTypes.set(type);
 
     // When a type is marked as live, we need to explicitly mark the super interfaces as live since
     // we need markImplementor call (which are not tracked in AST).
-    type.getSuperInterfaces().forEach(RapidTypeAnalyser::markTypeLive);
+    superInterfaceStack.add(type);
+    while (superInterfaceStack.size > 0) {
+      int currentType = superInterfaceStack.elements[--superInterfaceStack.size];
+      for (int i = graph.getSuperInterfacesStart(currentType);
+          i < graph.getSuperInterfacesEnd(currentType);
+          i++) {
+        int superInterface = graph.getSuperInterface(i);
+        if (!liveTypes.get(superInterface)) {
+          liveTypes.set(superInterface);
+          superInterfaceStack.add(superInterface);
+        }
+      }
+    }
   }
 
-  private RapidTypeAnalyser() {}
+  /** A growable list of ints. */
+  private static final class IntList {
+    private int[] elements = new int[8];
+    private int size;
+
+    void add(int element) {
+      if (size == elements.length) {
+        elements = Arrays.copyOf(elements, size * 2);
+      }
+      elements[size++] = element;
+    }
+  }
 }
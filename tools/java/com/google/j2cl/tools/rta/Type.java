@@ -17,6 +17,7 @@ package com.google.j2cl.tools.rta;
 
 import static com.google.common.base.Preconditions.checkState;
 
+import com.google.j2cl.libraryinfo.LibraryInfo;
 import com.google.j2cl.libraryinfo.TypeInfo;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -32,17 +33,21 @@ final class Type {
   private String implSourceFile;
   private String headerSourceFile;
   private boolean live;
-  private boolean instantiated;
-  private final List<Member> potentiallyLiveMembers = new ArrayList<>();
 
-  static Type buildFrom(TypeInfo typeInfo, String name) {
+  static Type buildFrom(LibraryInfo libraryInfo, TypeInfo typeInfo) {
     Type type = new Type();
-    type.name = name;
+    type.name = libraryInfo.getTypeMap(typeInfo.getTypeId());
     type.headerSourceFile = typeInfo.getHeaderSourceFilePath();
     type.implSourceFile = typeInfo.getImplSourceFilePath();
     typeInfo
         .getMemberList()
-        .forEach(memberInfo -> type.addMember(Member.buildFrom(memberInfo, type)));
+        .forEach(
+            memberInfo ->
+                type.addMember(
+                    Member.buildFrom(
+                        memberInfo,
+                        TypeGraphBuilder.getMemberName(libraryInfo, memberInfo),
+                        type)));
 
     return type;
   }
@@ -90,32 +95,14 @@ final class Type {
     this.superInterfaces.add(superInterface);
   }
 
-  void markLive() {
-    this.live = true;
+  void setLive(boolean live) {
+    this.live = live;
   }
 
   boolean isLive() {
     return live;
   }
 
-  boolean isInstantiated() {
-    return instantiated;
-  }
-
-  void instantiate() {
-    this.instantiated = true;
-  }
-
-  /** Returns the list of members that need to mark as live when the type becomes live. */
-  List<Member> getPotentiallyLiveMembers() {
-    return potentiallyLiveMembers;
-  }
-
-  void addPotentiallyLiveMember(Member member) {
-    checkState(!isInstantiated());
-    potentiallyLiveMembers.add(member);
-  }
-
   public void addImmediateSubtype(Type type) {
     immediateSubtypes.add(type);
   }
@@ -123,4 +110,12 @@ final class Type {
   public List<Type> getImmediateSubtypes() {
     return immediateSubtypes;
   }
+
+  /** Removes the references to other types, including those of the members. */
+  void unlink() {
+    superClass = null;
+    superInterfaces.clear();
+    immediateSubtypes.clear();
+    getMembers().forEach(Member::unlink);
+  }
 }
@@ -16,7 +16,9 @@
 package com.google.j2cl.tools.rta;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 
+import com.google.common.collect.ImmutableList;
 import com.google.j2cl.libraryinfo.LibraryInfo;
 import com.google.j2cl.libraryinfo.LibraryInfoBuilder;
 import com.google.j2cl.libraryinfo.MemberInfo;
@@ -26,17 +28,27 @@ import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 /** Give information about inheritance relationships between types. */
 public class TypeGraphBuilder {
 
   static Collection<Type> build(List<LibraryInfo> libraryInfos) {
+    return build(libraryInfos, TypeGraphBuilder::createTypes);
+  }
+
+  /**
+   * Builds the graph from the types of each library, which might come from a previous build and are
+   * unlinked before use.
+   */
+  static Collection<Type> build(
+      List<LibraryInfo> libraryInfos, Function<LibraryInfo, List<Type>> typesByLibraryInfo) {
     Map<String, Type> typesByName = new LinkedHashMap<>();
 
     // Create all types and members.
     for (LibraryInfo libraryInfo : libraryInfos) {
-      for (TypeInfo typeInfo : libraryInfo.getTypeList()) {
-        Type type = Type.buildFrom(typeInfo, libraryInfo.getTypeMap(typeInfo.getTypeId()));
+      for (Type type : typesByLibraryInfo.apply(libraryInfo)) {
+        type.unlink();
         typesByName.put(type.getName(), type);
       }
     }
@@ -49,6 +61,13 @@ public class TypeGraphBuilder {
     return typesByName.values();
   }
 
+  /** Creates the types and members of a library, without any references to other types. */
+  static ImmutableList<Type> createTypes(LibraryInfo libraryInfo) {
+    return libraryInfo.getTypeList().stream()
+        .map(typeInfo -> Type.buildFrom(libraryInfo, typeInfo))
+        .collect(toImmutableList());
+  }
+
   private static void buildCrossReferences(Map<String, Type> typesByName, LibraryInfo libraryInfo) {
     for (TypeInfo typeInfo : libraryInfo.getTypeList()) {
       Type type = typesByName.get(libraryInfo.getTypeMap(typeInfo.getTypeId()));
@@ -67,22 +86,43 @@ public class TypeGraphBuilder {
       }
 
       for (MemberInfo memberInfo : typeInfo.getMemberList()) {
-        Member member = type.getMemberByName(memberInfo.getName());
+        Member member = type.getMemberByName(getMemberName(libraryInfo, memberInfo));
 
         for (int referencedId : memberInfo.getReferencedTypesList()) {
           Type referencedType = typesByName.get(libraryInfo.getTypeMap(referencedId));
           member.addReferencedType(checkNotNull(referencedType));
         }
 
-        for (MethodInvocation methodInvocation : memberInfo.getInvokedMethodsList()) {
-          Type enclosingType =
-              typesByName.get(libraryInfo.getTypeMap(methodInvocation.getEnclosingType()));
-          Member referencedMember = enclosingType.getMemberByName(methodInvocation.getMethod());
-          member.addReferencedMember(referencedMember);
+        if (isVersion2(libraryInfo)) {
+          for (int i = 0; i < memberInfo.getInvokedMethodIdsCount(); i += 2) {
+            Type enclosingType =
+                typesByName.get(libraryInfo.getTypeMap(memberInfo.getInvokedMethodIds(i)));
+            member.addReferencedMember(
+                enclosingType.getMemberByName(
+                    libraryInfo.getMemberNameMap(memberInfo.getInvokedMethodIds(i + 1))));
+          }
+        } else {
+          for (MethodInvocation methodInvocation : memberInfo.getInvokedMethodsList()) {
+            Type enclosingType =
+                typesByName.get(libraryInfo.getTypeMap(methodInvocation.getEnclosingType()));
+            Member referencedMember = enclosingType.getMemberByName(methodInvocation.getMethod());
+            member.addReferencedMember(referencedMember);
+          }
         }
       }
     }
   }
 
+  /** Returns the name of a member, which is interned in the library from version 2 onwards. */
+  static String getMemberName(LibraryInfo libraryInfo, MemberInfo memberInfo) {
+    return isVersion2(libraryInfo)
+        ? libraryInfo.getMemberNameMap(memberInfo.getNameId())
+        : memberInfo.getName();
+  }
+
+  private static boolean isVersion2(LibraryInfo libraryInfo) {
+    return libraryInfo.getVersion() >= LibraryInfoBuilder.VERSION_2;
+  }
+
   private TypeGraphBuilder() {}
 }
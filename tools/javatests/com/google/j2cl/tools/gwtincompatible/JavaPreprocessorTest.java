@@ -15,7 +15,10 @@
  */
 package com.google.j2cl.tools.gwtincompatible;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 import com.google.common.base.Joiner;
 import com.google.common.base.Strings;
@@ -39,6 +42,27 @@ public class JavaPreprocessorTest {
     assertEquals(content, JavaPreprocessor.processFile(content));
   }
 
+  @Test
+  public void testNoProcessBytes() {
+    byte[] content = "public class Foo { String s = \"மெ.பை.\"; }".getBytes(UTF_8);
+    assertSame(content, JavaPreprocessor.processFile(content));
+  }
+
+  @Test
+  public void testProcessBytes() {
+    String before =
+        Joiner.on("\n")
+            .join(
+                "public class Foo {",
+                "  @GwtIncompatible",
+                "  //மெ.பை.",
+                "  public B n() {}",
+                "}");
+    assertArrayEquals(
+        JavaPreprocessor.processFile(before).getBytes(UTF_8),
+        JavaPreprocessor.processFile(before.getBytes(UTF_8)));
+  }
+
   @Test
   public void testProcessClass() {
     String before =
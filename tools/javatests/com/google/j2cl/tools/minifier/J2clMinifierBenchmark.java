@@ -0,0 +1,104 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.j2cl.tools.minifier;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Enumeration;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the throughput of minifying the transpiled JRE and box2d.
+ *
+ * <p>Besides operations per second, the {@code chars} counter reports the chars minified per second,
+ * which for the mostly ASCII generated code is the throughput in bytes per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class J2clMinifierBenchmark {
+
+  /** Counts the minified content, which JMH reports per second. */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class Counters {
+    public long chars;
+  }
+
+  @Param({"jre", "box2d"})
+  public String input;
+
+  private ImmutableMap<String, String> contentByFilePath;
+  private long totalChars;
+
+  @Setup
+  public void setUp() throws IOException {
+    ImmutableMap.Builder<String, String> contentByFilePathBuilder = ImmutableMap.builder();
+    String jsZip = System.getProperty("j2cl.benchmarks." + input + ".js");
+    try (ZipFile zipFile = new ZipFile(jsZip)) {
+      Enumeration<? extends ZipEntry> entries = zipFile.entries();
+      while (entries.hasMoreElements()) {
+        ZipEntry entry = entries.nextElement();
+        if (!entry.getName().endsWith(".js")) {
+          continue;
+        }
+        try (InputStream inputStream = zipFile.getInputStream(entry)) {
+          contentByFilePathBuilder.put(
+              entry.getName(), new String(ByteStreams.toByteArray(inputStream), UTF_8));
+        }
+      }
+    }
+    contentByFilePath = contentByFilePathBuilder.build();
+    totalChars = contentByFilePath.values().stream().mapToLong(String::length).sum();
+  }
+
+  @Benchmark
+  public void minify(Blackhole blackhole, Counters counters) {
+    // A new minifier for each operation, as its identifier mapping is built incrementally.
+    J2clMinifier minifier = new J2clMinifier();
+    contentByFilePath.forEach(
+        (filePath, content) -> blackhole.consume(minifier.minify(filePath, content)));
+    counters.chars += totalChars;
+  }
+
+  @Benchmark
+  public void minifyAll(Blackhole blackhole, Counters counters) {
+    blackhole.consume(new J2clMinifier().minifyAll(contentByFilePath));
+    counters.chars += totalChars;
+  }
+}
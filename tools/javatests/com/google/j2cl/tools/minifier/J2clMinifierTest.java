@@ -13,6 +13,8 @@
  */
 package com.google.j2cl.tools.minifier;
 
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
 import junit.framework.TestCase;
 
 /** Tests for {@link J2clMinifier}. */
@@ -77,6 +79,15 @@ public class J2clMinifierTest extends TestCase {
     assertChange("/**\n*/", "\n");
   }
 
+  public void testContentCache() {
+    assertChange("this.m_foo__();", "this.foo_$1();");
+    assertChange("this.m_foo__();", "this.foo_$1();");
+    assertChange("this.m_bar__();", "this.bar_$1();");
+
+    assertEquals(1, minifier.getContentCacheStats().hitCount());
+    assertEquals(2, minifier.getContentCacheStats().missCount());
+  }
+
   public void testConsistency() {
     assertChange("this.m_foo__();", "this.foo_$1();");
     assertChange("this.m_foo__();", "this.foo_$1();");
@@ -185,6 +196,67 @@ public class J2clMinifierTest extends TestCase {
     assertNoChange("\"goog.require('java.lang.Foo');\"");
   }
 
+  public void testMinifyAll() {
+    ImmutableMap<String, String> contentByFilePath =
+        ImmutableMap.of(
+            "a.java.js", "this.m_foo__java_lang_String(); this.m_bar__();",
+            "b.java.js", "/* */this.m_foo__java_lang_Object(); this.m_foo__java_lang_String();",
+            "c.java.js", "this.m_bar__java_lang_Object(); this.m_foo__java_lang_Object();");
+
+    // Names are assigned as if the files were minified in order, however the work is scheduled.
+    for (int i = 0; i < 10; i++) {
+      assertEquals(
+          ImmutableMap.of(
+              "a.java.js", "this.foo_$1(); this.bar_$1();",
+              "b.java.js", "this.foo_$2(); this.foo_$1();",
+              "c.java.js", "this.bar_$2(); this.foo_$2();"),
+          new J2clMinifier().minifyAll(contentByFilePath));
+    }
+
+    // And consistent with files minified individually by the same minifier.
+    assertChange("this.m_bar__java_lang_String();", "this.bar_$1();");
+    assertEquals(
+        ImmutableMap.of("d.java.js", "this.bar_$1(); this.bar_$2();"),
+        minifier.minifyAll(
+            ImmutableMap.of(
+                "d.java.js", "this.m_bar__java_lang_String(); this.m_bar__java_lang_Object();")));
+  }
+
+  public void testMinifyAllWithSmallCache() {
+    // Keep room for a couple of files only, so that entries are evicted while minifying.
+    System.setProperty("j2cl_minifier_cache_max_chars", "200");
+    try {
+      ImmutableMap.Builder<String, String> contentByFilePathBuilder = ImmutableMap.builder();
+      for (int i = 0; i < 50; i++) {
+        contentByFilePathBuilder.put(
+            "f" + i + ".java.js",
+            String.format(
+                "this.m_foo__T%d(); this.m_bar__T%d(); this.m_foo__T%d();",
+                i, i % 7, (i * 3) % 11));
+      }
+      ImmutableMap<String, String> contentByFilePath = contentByFilePathBuilder.build();
+      ImmutableMap<String, String> firstHalf =
+          ImmutableMap.copyOf(Iterables.limit(contentByFilePath.entrySet(), 25));
+
+      // The names are the same as if the files were minified one after the other.
+      J2clMinifier sequentialMinifier = new J2clMinifier();
+      firstHalf.forEach(sequentialMinifier::minify);
+      ImmutableMap.Builder<String, String> expected = ImmutableMap.builder();
+      contentByFilePath.forEach(
+          (filePath, content) ->
+              expected.put(filePath, sequentialMinifier.minify(filePath, content)));
+
+      for (int i = 0; i < 10; i++) {
+        J2clMinifier minifier = new J2clMinifier();
+        minifier.minifyAll(firstHalf);
+        assertEquals(expected.build(), minifier.minifyAll(contentByFilePath));
+        assertTrue(minifier.getContentCacheStats().evictionCount() > 0);
+      }
+    } finally {
+      System.clearProperty("j2cl_minifier_cache_max_chars");
+    }
+  }
+
   public void testNoChanges() {
     assertNoChange("foo");
     assertNoChange("m_foo");
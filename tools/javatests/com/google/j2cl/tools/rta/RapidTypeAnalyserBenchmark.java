@@ -0,0 +1,70 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.j2cl.tools.rta;
+
+import com.google.common.collect.ImmutableList;
+import com.google.j2cl.libraryinfo.LibraryInfo;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Measures the throughput of the rapid type analysis of the transpiled JRE. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RapidTypeAnalyserBenchmark {
+
+  private ImmutableList<LibraryInfo> libraryInfos;
+  private final IncrementalRapidTypeAnalyser incrementalRapidTypeAnalyser =
+      new IncrementalRapidTypeAnalyser();
+
+  @Setup
+  public void setUp() throws IOException {
+    try (InputStream inputStream =
+        Files.newInputStream(Paths.get(System.getProperty("j2cl.benchmarks.jre.libraryinfo")))) {
+      libraryInfos = ImmutableList.of(LibraryInfo.parseFrom(inputStream));
+    }
+  }
+
+  @Benchmark
+  public void analyse(Blackhole blackhole) {
+    // The result is consumed through the blackhole since its type is not visible to the code that
+    // JMH generates.
+    blackhole.consume(RapidTypeAnalyser.analyse(libraryInfos));
+  }
+
+  @Benchmark
+  public void analyseUnchangedInputs(Blackhole blackhole) {
+    // Measures a worker request whose inputs did not change since the previous one.
+    blackhole.consume(incrementalRapidTypeAnalyser.analyse(libraryInfos));
+  }
+}
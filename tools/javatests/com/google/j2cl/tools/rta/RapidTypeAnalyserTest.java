@@ -0,0 +1,258 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.j2cl.tools.rta;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.j2cl.libraryinfo.LibraryInfo;
+import com.google.j2cl.libraryinfo.LibraryInfoBuilder;
+import com.google.j2cl.libraryinfo.MemberInfo;
+import com.google.j2cl.libraryinfo.MethodInvocation;
+import com.google.j2cl.libraryinfo.SourcePosition;
+import com.google.j2cl.libraryinfo.TypeInfo;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.FutureTask;
+import javax.annotation.Nullable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link RapidTypeAnalyser}. */
+@RunWith(JUnit4.class)
+public class RapidTypeAnalyserTest {
+  private static final String UNUSED_METHODS_PROPERTY =
+      "j2clrta.generate_unused_methods_for_testing";
+
+  private static final int CHAIN_LENGTH = 10_000;
+  // Far less than a recursive traversal of the chains would need.
+  private static final long SMALL_STACK_SIZE = 256 * 1024;
+
+  @Before
+  public void setUp() {
+    // Report the unused members of the live types as well, so that results are compared in full.
+    System.setProperty(UNUSED_METHODS_PROPERTY, "true");
+  }
+
+  @After
+  public void tearDown() {
+    System.clearProperty(UNUSED_METHODS_PROPERTY);
+  }
+
+  @Test
+  public void testDeepCallChain() throws Exception {
+    LibraryInfoTestBuilder library =
+        new LibraryInfoTestBuilder().addType("Main", null).addEntryPoint("main", "Calls#m0");
+    library.addType("Calls", null);
+    for (int i = 0; i < CHAIN_LENGTH - 1; i++) {
+      library.addStaticMethod("m" + i, "Calls#m" + (i + 1));
+    }
+    library.addStaticMethod("m" + (CHAIN_LENGTH - 1));
+
+    RtaResult result = analyseWithSmallStack(ImmutableList.of(library.build()));
+
+    assertThat(result.getUnusedTypes()).isEmpty();
+  }
+
+  @Test
+  public void testDeepInheritanceChain() throws Exception {
+    String leafType = "C" + (CHAIN_LENGTH - 1);
+    LibraryInfoTestBuilder library =
+        new LibraryInfoTestBuilder()
+            .addType("Main", null)
+            .addEntryPoint("main", leafType + "#constructor", "C0#m");
+    library.addType("C0", null).addConstructor().addMethod("m");
+    for (int i = 1; i < CHAIN_LENGTH; i++) {
+      String superClass = "C" + (i - 1);
+      library
+          .addType("C" + i, superClass)
+          .addConstructor(superClass + "#constructor")
+          .addMethod("m");
+    }
+
+    RtaResult result = analyseWithSmallStack(ImmutableList.of(library.build()));
+
+    // All the types are instantiated by the chain of super constructor calls, hence all the
+    // overrides of m() are live.
+    assertThat(result.getUnusedTypes()).isEmpty();
+  }
+
+  @Test
+  public void testVersion1AndVersion2GiveTheSameResult() {
+    ImmutableList<LibraryInfo> version1LibraryInfos =
+        ImmutableList.of(createApp(), createLib(true), createExtra());
+    ImmutableList<LibraryInfo> version2LibraryInfos =
+        version1LibraryInfos.stream()
+            .map(LibraryInfoBuilder::toVersion2)
+            .collect(toImmutableList());
+    // Cached outputs of previous builds might still be in version 1.
+    ImmutableList<LibraryInfo> mixedLibraryInfos =
+        ImmutableList.of(
+            version1LibraryInfos.get(0), version2LibraryInfos.get(1), version1LibraryInfos.get(2));
+
+    RtaResult result = RapidTypeAnalyser.analyse(version1LibraryInfos);
+
+    assertThat(result.getUnusedTypes()).containsExactly("I#m", "Main#unusedStatic");
+    assertThat(RapidTypeAnalyser.analyse(version2LibraryInfos)).isEqualTo(result);
+    assertThat(RapidTypeAnalyser.analyse(mixedLibraryInfos)).isEqualTo(result);
+  }
+
+  @Test
+  public void testIncrementalAnalysisMatchesFullAnalysis() {
+    LibraryInfo app = createApp();
+    LibraryInfo lib = createLib(false);
+    LibraryInfo extra = createExtra();
+    LibraryInfo changedLib = createLib(true);
+    IncrementalRapidTypeAnalyser incrementalRapidTypeAnalyser = new IncrementalRapidTypeAnalyser();
+
+    for (List<LibraryInfo> libraryInfos :
+        ImmutableList.of(
+            ImmutableList.of(app, lib),
+            // Unchanged.
+            ImmutableList.of(app, lib),
+            // Added library, which makes members of the others live.
+            ImmutableList.of(app, lib, extra),
+            // Changed library.
+            ImmutableList.of(app, changedLib, extra),
+            // Removed library.
+            ImmutableList.of(app, changedLib))) {
+      assertThat(incrementalRapidTypeAnalyser.analyse(libraryInfos))
+          .isEqualTo(RapidTypeAnalyser.analyse(libraryInfos));
+    }
+  }
+
+  private static RtaResult analyseWithSmallStack(List<LibraryInfo> libraryInfos) throws Exception {
+    FutureTask<RtaResult> analysis =
+        new FutureTask<>(() -> RapidTypeAnalyser.analyse(libraryInfos));
+    Thread thread = new Thread(null, analysis, "rta", SMALL_STACK_SIZE);
+    thread.start();
+    // A StackOverflowError fails the test with an ExecutionException.
+    return analysis.get();
+  }
+
+  private static LibraryInfo createApp() {
+    return new LibraryInfoTestBuilder()
+        .addType("I", null)
+        .addMethod("m")
+        .addType("A", null, "I")
+        .addConstructor()
+        .addMethod("m")
+        .addMethod("unused")
+        .addType("Main", null)
+        .addEntryPoint("main", "A#constructor", "I#m")
+        .addStaticMethod("unusedStatic")
+        .build();
+  }
+
+  private static LibraryInfo createLib(boolean changed) {
+    LibraryInfoTestBuilder library =
+        new LibraryInfoTestBuilder().addType("B", "A").addConstructor("A#constructor");
+    if (changed) {
+      library.addMethod("m", "B#n").addMethod("n");
+    } else {
+      library.addMethod("m");
+    }
+    return library.build();
+  }
+
+  private static LibraryInfo createExtra() {
+    return new LibraryInfoTestBuilder()
+        .addType("Extra", null)
+        .addEntryPoint("run", "B#constructor", "A#unused")
+        .build();
+  }
+
+  /** Builds version 1 library infos, where invoked methods are written as "Type#member". */
+  private static final class LibraryInfoTestBuilder {
+    private final LibraryInfo.Builder libraryInfo =
+        LibraryInfo.newBuilder().addTypeMap("<no-type>");
+    private final Map<String, Integer> typeIds = new HashMap<>();
+    private TypeInfo.Builder currentType;
+    private int line;
+
+    LibraryInfoTestBuilder addType(
+        String name, @Nullable String superClass, String... superInterfaces) {
+      currentType =
+          libraryInfo
+              .addTypeBuilder()
+              .setTypeId(getTypeId(name))
+              .setHeaderSourceFilePath(name + ".java.js")
+              .setImplSourceFilePath(name + ".impl.java.js");
+      if (superClass != null) {
+        currentType.setExtendsType(getTypeId(superClass));
+      }
+      for (String superInterface : superInterfaces) {
+        currentType.addImplementsType(getTypeId(superInterface));
+      }
+      return this;
+    }
+
+    LibraryInfoTestBuilder addConstructor(String... invokedMethods) {
+      return addMember("constructor", false, false, invokedMethods);
+    }
+
+    LibraryInfoTestBuilder addMethod(String name, String... invokedMethods) {
+      return addMember(name, false, false, invokedMethods);
+    }
+
+    LibraryInfoTestBuilder addStaticMethod(String name, String... invokedMethods) {
+      return addMember(name, true, false, invokedMethods);
+    }
+
+    LibraryInfoTestBuilder addEntryPoint(String name, String... invokedMethods) {
+      return addMember(name, true, true, invokedMethods);
+    }
+
+    private LibraryInfoTestBuilder addMember(
+        String name, boolean isStatic, boolean isJsAccessible, String... invokedMethods) {
+      MemberInfo.Builder memberInfo =
+          currentType
+              .addMemberBuilder()
+              .setName(name)
+              .setStatic(isStatic)
+              .setJsAccessible(isJsAccessible)
+              .setPosition(SourcePosition.newBuilder().setStart(line).setEnd(line + 1));
+      line += 2;
+      for (String invokedMethod : invokedMethods) {
+        List<String> typeAndMember = Splitter.on('#').splitToList(invokedMethod);
+        memberInfo.addInvokedMethods(
+            MethodInvocation.newBuilder()
+                .setEnclosingType(getTypeId(typeAndMember.get(0)))
+                .setMethod(typeAndMember.get(1)));
+      }
+      return this;
+    }
+
+    private int getTypeId(String name) {
+      return typeIds.computeIfAbsent(
+          name,
+          n -> {
+            libraryInfo.addTypeMap(n);
+            return libraryInfo.getTypeMapCount() - 1;
+          });
+    }
+
+    LibraryInfo build() {
+      return libraryInfo.build();
+    }
+  }
+}
@@ -79,9 +79,15 @@ public abstract class ArrayTypeDescriptor extends TypeDescriptor {
   @Override
   public abstract boolean isNullable();
 
+  private final LazyDescriptors.Memo<ArrayTypeDescriptor> toRawTypeDescriptor =
+      new LazyDescriptors.Memo<>();
+
   @Override
-  @Memoized
   public ArrayTypeDescriptor toRawTypeDescriptor() {
+    return toRawTypeDescriptor.get(this::computeToRawTypeDescriptor);
+  }
+
+  private ArrayTypeDescriptor computeToRawTypeDescriptor() {
     return toBuilder()
         .setComponentTypeDescriptor(getComponentTypeDescriptor().toRawTypeDescriptor())
         .setNullable(true)
@@ -99,9 +105,15 @@ public abstract class ArrayTypeDescriptor extends TypeDescriptor {
     return true;
   }
 
+  private final LazyDescriptors.Memo<ArrayTypeDescriptor> toUnparameterizedTypeDescriptor =
+      new LazyDescriptors.Memo<>();
+
   @Override
-  @Memoized
   public ArrayTypeDescriptor toUnparameterizedTypeDescriptor() {
+    return toUnparameterizedTypeDescriptor.get(this::computeToUnparameterizedTypeDescriptor);
+  }
+
+  private ArrayTypeDescriptor computeToUnparameterizedTypeDescriptor() {
     return toBuilder()
         .setComponentTypeDescriptor(getComponentTypeDescriptor().toUnparameterizedTypeDescriptor())
         .setNullable(true)
@@ -135,9 +147,14 @@ public abstract class ArrayTypeDescriptor extends TypeDescriptor {
     return prefix + Strings.repeat("[]", getDimensions()) + getLeafTypeDescriptor().getUniqueId();
   }
 
+  private final LazyDescriptors.Memo<String> readableDescription = new LazyDescriptors.Memo<>();
+
   @Override
-  @Memoized
   public String getReadableDescription() {
+    return readableDescription.get(this::computeReadableDescription);
+  }
+
+  private String computeReadableDescription() {
     return synthesizeArrayName(getLeafTypeDescriptor().getReadableDescription());
   }
 
@@ -17,14 +17,15 @@ package com.google.j2cl.ast;
 
 import com.google.j2cl.ast.annotations.Visitable;
 import com.google.j2cl.ast.processors.common.Processor;
+import com.google.j2cl.common.CompilationScope;
 
 /** Boolean literal node. */
 @Visitable
 public class BooleanLiteral extends Literal {
-  private static final ThreadLocal<BooleanLiteral> FALSE =
-      ThreadLocal.withInitial(() -> new BooleanLiteral(false));
-  private static final ThreadLocal<BooleanLiteral> TRUE =
-      ThreadLocal.withInitial(() -> new BooleanLiteral(true));
+  private static final CompilationScope.Local<BooleanLiteral> FALSE =
+      CompilationScope.Local.withInitial(() -> new BooleanLiteral(false));
+  private static final CompilationScope.Local<BooleanLiteral> TRUE =
+      CompilationScope.Local.withInitial(() -> new BooleanLiteral(true));
   private final boolean value;
 
   private BooleanLiteral(boolean value) {
@@ -181,21 +181,30 @@ public abstract class DeclaredTypeDescriptor extends TypeDescriptor
   @Nullable
   abstract DescriptorFactory<DeclaredTypeDescriptor> getSuperTypeDescriptorFactory();
 
+  private final LazyDescriptors.Memo<ImmutableList<DeclaredTypeDescriptor>>
+      interfaceTypeDescriptors = new LazyDescriptors.Memo<>();
+
   /**
    * Returns a list of the type descriptors of interfaces that are explicitly implemented directly
    * on this type.
    */
-  @Memoized
   public ImmutableList<DeclaredTypeDescriptor> getInterfaceTypeDescriptors() {
-    return getInterfaceTypeDescriptorsFactory().get(this);
+    return interfaceTypeDescriptors.getFromFrontend(
+        () -> getInterfaceTypeDescriptorsFactory().get(this));
   }
 
+  private final LazyDescriptors.Memo<Set<DeclaredTypeDescriptor>>
+      transitiveInterfaceTypeDescriptors = new LazyDescriptors.Memo<>();
+
   /**
    * Returns a set of the type descriptors of interfaces that are explicitly implemented either
    * directly on this type or on some super type or super interface.
    */
-  @Memoized
   public Set<DeclaredTypeDescriptor> getTransitiveInterfaceTypeDescriptors() {
+    return transitiveInterfaceTypeDescriptors.get(this::computeTransitiveInterfaceTypeDescriptors);
+  }
+
+  private Set<DeclaredTypeDescriptor> computeTransitiveInterfaceTypeDescriptors() {
     Set<DeclaredTypeDescriptor> typeDescriptors = new LinkedHashSet<>();
 
     // Recursively gather from super interfaces.
@@ -213,30 +222,52 @@ public abstract class DeclaredTypeDescriptor extends TypeDescriptor
     return typeDescriptors;
   }
 
+  private final LazyDescriptors.Memo<MethodDescriptor> singleAbstractMethodDescriptor =
+      new LazyDescriptors.Memo<>();
+
   @Nullable
-  @Memoized
   public MethodDescriptor getSingleAbstractMethodDescriptor() {
+    return singleAbstractMethodDescriptor.getFromFrontend(
+        this::computeSingleAbstractMethodDescriptor);
+  }
+
+  private MethodDescriptor computeSingleAbstractMethodDescriptor() {
     return getSingleAbstractMethodDescriptorFactory().get(this);
   }
 
+  private final LazyDescriptors.Memo<MethodDescriptor> singleConstructor =
+      new LazyDescriptors.Memo<>();
+
   /** Returns the single declared constructor fo this class. */
-  @Memoized
   public MethodDescriptor getSingleConstructor() {
+    return singleConstructor.get(this::computeSingleConstructor);
+  }
+
+  private MethodDescriptor computeSingleConstructor() {
     return getDeclaredMethodDescriptors()
         .stream()
         .filter(MethodDescriptor::isConstructor)
         .collect(MoreCollectors.onlyElement());
   }
 
-  @Memoized
+  private final LazyDescriptors.Memo<MethodDescriptor> jsFunctionMethodDescriptor =
+      new LazyDescriptors.Memo<>();
+
   @Nullable
   public MethodDescriptor getJsFunctionMethodDescriptor() {
-    return getJsFunctionMethodDescriptorFactory().get(this);
+    return jsFunctionMethodDescriptor.getFromFrontend(
+        () -> getJsFunctionMethodDescriptorFactory().get(this));
   }
 
+  private final LazyDescriptors.Memo<DeclaredTypeDescriptor> functionalInterface =
+      new LazyDescriptors.Memo<>();
+
   @Override
-  @Memoized
   public DeclaredTypeDescriptor getFunctionalInterface() {
+    return functionalInterface.get(this::computeFunctionalInterface);
+  }
+
+  private DeclaredTypeDescriptor computeFunctionalInterface() {
     return isFunctionalInterface()
         ? this
         : getInterfaceTypeDescriptors()
@@ -303,9 +334,15 @@ public abstract class DeclaredTypeDescriptor extends TypeDescriptor
     return getTypeDeclaration().extendsNativeClass();
   }
 
+  private final LazyDescriptors.Memo<Set<TypeVariable>> allTypeVariables =
+      new LazyDescriptors.Memo<>();
+
   @Override
-  @Memoized
   public Set<TypeVariable> getAllTypeVariables() {
+    return allTypeVariables.get(this::computeAllTypeVariables);
+  }
+
+  private Set<TypeVariable> computeAllTypeVariables() {
     Set<TypeVariable> typeVariables = new LinkedHashSet<>();
     collectAllTypeVariables(this, typeVariables);
     return typeVariables;
@@ -371,10 +408,12 @@ public abstract class DeclaredTypeDescriptor extends TypeDescriptor
     return getTypeDeclaration().getQualifiedBinaryName();
   }
 
-  @Memoized
+  private final LazyDescriptors.Memo<DeclaredTypeDescriptor> superTypeDescriptor =
+      new LazyDescriptors.Memo<>();
+
   @Nullable
   public DeclaredTypeDescriptor getSuperTypeDescriptor() {
-    return getSuperTypeDescriptorFactory().get(this);
+    return superTypeDescriptor.getFromFrontend(() -> getSuperTypeDescriptorFactory().get(this));
   }
 
   public abstract TypeDeclaration getTypeDeclaration();
@@ -420,21 +459,34 @@ public abstract class DeclaredTypeDescriptor extends TypeDescriptor
         .collect(joining(", ", "<", ">"));
   }
 
+  private final LazyDescriptors.Memo<Map<String, MethodDescriptor>>
+      declaredMethodDescriptorsBySignature = new LazyDescriptors.Memo<>();
+
   /**
    * The list of methods declared in the type from the JDT. Note: this does not include methods we
    * synthesize and add to the type like bridge methods.
    */
-  @Memoized
   Map<String, MethodDescriptor> getDeclaredMethodDescriptorsBySignature() {
+    return declaredMethodDescriptorsBySignature.getFromFrontend(
+        this::computeDeclaredMethodDescriptorsBySignature);
+  }
+
+  private Map<String, MethodDescriptor> computeDeclaredMethodDescriptorsBySignature() {
     return getDeclaredMethodDescriptorsFactory().get(this);
   }
 
+  private final LazyDescriptors.Memo<Map<String, MethodDescriptor>> methodDescriptorsBySignature =
+      new LazyDescriptors.Memo<>();
+
   /**
    * The list of methods in the type from the JDT. Note: this does not include methods we synthesize
    * and add to the type like bridge methods.
    */
-  @Memoized
   Map<String, MethodDescriptor> getMethodDescriptorsBySignature() {
+    return methodDescriptorsBySignature.get(this::computeMethodDescriptorsBySignature);
+  }
+
+  private Map<String, MethodDescriptor> computeMethodDescriptorsBySignature() {
     // TODO(rluble): update this code to handle package private methods, bridges and verify that it
     // correctly handles default methods.
     Map<String, MethodDescriptor> methodDescriptorsBySignature = new LinkedHashMap<>();
@@ -456,26 +508,37 @@ public abstract class DeclaredTypeDescriptor extends TypeDescriptor
     return methodDescriptorsBySignature;
   }
 
+  private final LazyDescriptors.Memo<Collection<MethodDescriptor>> declaredMethodDescriptors =
+      new LazyDescriptors.Memo<>();
+
   /**
    * The list of methods declared in the type. Note: this does not include methods synthetic methods
    * (like bridge methods) nor supertype methods that are not overridden in the type.
    */
-  @Memoized
   public Collection<MethodDescriptor> getDeclaredMethodDescriptors() {
-    return getDeclaredMethodDescriptorsBySignature().values();
+    return declaredMethodDescriptors.get(() -> getDeclaredMethodDescriptorsBySignature().values());
   }
 
+  private final LazyDescriptors.Memo<Collection<FieldDescriptor>> declaredFieldDescriptors =
+      new LazyDescriptors.Memo<>();
+
   /**
    * The list of fields declared in the type. Note: this does not include methods synthetic fields
    * (like captures) nor supertype fields.
    */
-  @Memoized
   public Collection<FieldDescriptor> getDeclaredFieldDescriptors() {
-    return getDeclaredFieldDescriptorsFactory().get(this);
+    return declaredFieldDescriptors.getFromFrontend(
+        () -> getDeclaredFieldDescriptorsFactory().get(this));
   }
 
-  @Memoized
+  private final LazyDescriptors.Memo<Collection<MemberDescriptor>> declaredMemberDescriptors =
+      new LazyDescriptors.Memo<>();
+
   public Collection<MemberDescriptor> getDeclaredMemberDescriptors() {
+    return declaredMemberDescriptors.get(this::computeDeclaredMemberDescriptors);
+  }
+
+  private Collection<MemberDescriptor> computeDeclaredMemberDescriptors() {
     return ImmutableSet.<MemberDescriptor>builder()
         .addAll(getDeclaredMethodDescriptors())
         .addAll(getDeclaredFieldDescriptors())
@@ -497,9 +560,15 @@ public abstract class DeclaredTypeDescriptor extends TypeDescriptor
     return getMethodDescriptorsBySignature().values();
   }
 
+  private final LazyDescriptors.Memo<MethodDescriptor> defaultConstructorMethodDescriptor =
+      new LazyDescriptors.Memo<>();
+
   /** Returns the default (parameterless) constructor for the type.. */
-  @Memoized
   public MethodDescriptor getDefaultConstructorMethodDescriptor() {
+    return defaultConstructorMethodDescriptor.get(this::computeDefaultConstructorMethodDescriptor);
+  }
+
+  private MethodDescriptor computeDefaultConstructorMethodDescriptor() {
     return getDeclaredMethodDescriptors()
         .stream()
         .filter(MethodDescriptor::isConstructor)
@@ -508,10 +577,16 @@ public abstract class DeclaredTypeDescriptor extends TypeDescriptor
         .orElse(null);
   }
 
+  private final LazyDescriptors.Memo<List<MethodDescriptor>> jsConstructorMethodDescriptors =
+      new LazyDescriptors.Memo<>();
+
   /** Returns the JsConstructors for this class. */
-  @Memoized
   @Nullable
   public List<MethodDescriptor> getJsConstructorMethodDescriptors() {
+    return jsConstructorMethodDescriptors.get(this::computeJsConstructorMethodDescriptors);
+  }
+
+  private List<MethodDescriptor> computeJsConstructorMethodDescriptors() {
     return getDeclaredMethodDescriptors()
         .stream()
         .filter(MethodDescriptor::isJsConstructor)
@@ -526,13 +601,19 @@ public abstract class DeclaredTypeDescriptor extends TypeDescriptor
         .build();
   }
 
+  private final LazyDescriptors.Memo<PrimitiveTypeDescriptor> toUnboxedType =
+      new LazyDescriptors.Memo<>();
+
   /**
    * Returns the corresponding primitive type if the {@code setTypeDescriptor} is a boxed type;
    * throws an exception otherwise.
    */
-  @Memoized
   @Override
   public PrimitiveTypeDescriptor toUnboxedType() {
+    return toUnboxedType.get(this::computeToUnboxedType);
+  }
+
+  private PrimitiveTypeDescriptor computeToUnboxedType() {
     checkState(TypeDescriptors.isBoxedType(this));
     return checkNotNull(TypeDescriptors.getPrimitiveTypeFromBoxType(this));
   }
@@ -591,9 +672,16 @@ public abstract class DeclaredTypeDescriptor extends TypeDescriptor
     return false;
   }
 
-  @Memoized
+  private final LazyDescriptors.Memo<Map<TypeVariable, TypeDescriptor>>
+      specializedTypeArgumentByTypeParameters = new LazyDescriptors.Memo<>();
+
   @Override
   public Map<TypeVariable, TypeDescriptor> getSpecializedTypeArgumentByTypeParameters() {
+    return specializedTypeArgumentByTypeParameters.get(
+        this::computeSpecializedTypeArgumentByTypeParameters);
+  }
+
+  private Map<TypeVariable, TypeDescriptor> computeSpecializedTypeArgumentByTypeParameters() {
     Map<TypeVariable, TypeDescriptor> specializedTypeArgumentByTypeParameters = new HashMap<>();
 
     Map<TypeVariable, TypeDescriptor> immediateSpecializedTypeArgumentByTypeParameters =
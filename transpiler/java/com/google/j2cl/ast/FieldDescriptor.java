@@ -99,9 +99,15 @@ public abstract class FieldDescriptor extends MemberDescriptor {
   // the details.
   abstract FieldDescriptor getDeclarationFieldDescriptorOrNullIfSelf();
 
+  private final LazyDescriptors.Memo<FieldDescriptor> toRawMemberDescriptor =
+      new LazyDescriptors.Memo<>();
+
   @Override
-  @Memoized
   public FieldDescriptor toRawMemberDescriptor() {
+    return toRawMemberDescriptor.get(this::computeToRawMemberDescriptor);
+  }
+
+  private FieldDescriptor computeToRawMemberDescriptor() {
     return toBuilder()
         .setEnclosingTypeDescriptor(getEnclosingTypeDescriptor().toRawTypeDescriptor())
         .setTypeDescriptor(getTypeDescriptor().toRawTypeDescriptor())
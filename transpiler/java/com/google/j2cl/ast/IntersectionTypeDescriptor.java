@@ -50,10 +50,12 @@ public abstract class IntersectionTypeDescriptor extends TypeDescriptor {
     return getIntersectionTypeDescriptors().stream().allMatch(TypeDescriptor::isNullable);
   }
 
+  private final LazyDescriptors.Memo<DeclaredTypeDescriptor> toRawTypeDescriptor =
+      new LazyDescriptors.Memo<>();
+
   @Override
-  @Memoized
   public DeclaredTypeDescriptor toRawTypeDescriptor() {
-    return getFirstType().toRawTypeDescriptor();
+    return toRawTypeDescriptor.get(() -> getFirstType().toRawTypeDescriptor());
   }
 
   /**
@@ -78,9 +80,15 @@ public abstract class IntersectionTypeDescriptor extends TypeDescriptor {
     return true;
   }
 
+  private final LazyDescriptors.Memo<DeclaredTypeDescriptor> functionalInterface =
+      new LazyDescriptors.Memo<>();
+
   @Override
-  @Memoized
   public DeclaredTypeDescriptor getFunctionalInterface() {
+    return functionalInterface.get(this::computeFunctionalInterface);
+  }
+
+  private DeclaredTypeDescriptor computeFunctionalInterface() {
     return getIntersectionTypeDescriptors()
         .stream()
         .filter(DeclaredTypeDescriptor::isFunctionalInterface)
@@ -94,9 +102,15 @@ public abstract class IntersectionTypeDescriptor extends TypeDescriptor {
     return toRawTypeDescriptor().getMetadataTypeDeclaration();
   }
 
+  private final LazyDescriptors.Memo<IntersectionTypeDescriptor> toUnparameterizedTypeDescriptor =
+      new LazyDescriptors.Memo<>();
+
   @Override
-  @Memoized
   public IntersectionTypeDescriptor toUnparameterizedTypeDescriptor() {
+    return toUnparameterizedTypeDescriptor.get(this::computeToUnparameterizedTypeDescriptor);
+  }
+
+  private IntersectionTypeDescriptor computeToUnparameterizedTypeDescriptor() {
     return newBuilder()
         .setIntersectionTypeDescriptors(
             TypeDescriptors.toUnparameterizedTypeDescriptors(getIntersectionTypeDescriptors()))
@@ -110,9 +124,15 @@ public abstract class IntersectionTypeDescriptor extends TypeDescriptor {
         .anyMatch(typeDescriptor -> typeDescriptor.isAssignableTo(that));
   }
 
+  private final LazyDescriptors.Memo<Set<TypeVariable>> allTypeVariables =
+      new LazyDescriptors.Memo<>();
+
   @Override
-  @Memoized
   public Set<TypeVariable> getAllTypeVariables() {
+    return allTypeVariables.get(this::computeAllTypeVariables);
+  }
+
+  private Set<TypeVariable> computeAllTypeVariables() {
     return getIntersectionTypeDescriptors()
         .stream()
         .map(TypeDescriptor::getAllTypeVariables)
@@ -126,9 +146,14 @@ public abstract class IntersectionTypeDescriptor extends TypeDescriptor {
     return synthesizeIntersectionName(TypeDescriptor::getUniqueId);
   }
 
+  private final LazyDescriptors.Memo<String> readableDescription = new LazyDescriptors.Memo<>();
+
   @Override
-  @Memoized
   public String getReadableDescription() {
+    return readableDescription.get(this::computeReadableDescription);
+  }
+
+  private String computeReadableDescription() {
     return synthesizeIntersectionName(TypeDescriptor::getReadableDescription);
   }
 
@@ -155,9 +180,16 @@ public abstract class IntersectionTypeDescriptor extends TypeDescriptor {
         .anyMatch(TypeDescriptor::canBeReferencedExternally);
   }
 
-  @Memoized
+  private final LazyDescriptors.Memo<Map<TypeVariable, TypeDescriptor>>
+      specializedTypeArgumentByTypeParameters = new LazyDescriptors.Memo<>();
+
   @Override
   public Map<TypeVariable, TypeDescriptor> getSpecializedTypeArgumentByTypeParameters() {
+    return specializedTypeArgumentByTypeParameters.get(
+        this::computeSpecializedTypeArgumentByTypeParameters);
+  }
+
+  private Map<TypeVariable, TypeDescriptor> computeSpecializedTypeArgumentByTypeParameters() {
     ImmutableMap.Builder<TypeVariable, TypeDescriptor> mapBuilder = ImmutableMap.builder();
     for (TypeDescriptor typeDescriptor : getIntersectionTypeDescriptors()) {
       mapBuilder.putAll(typeDescriptor.getSpecializedTypeArgumentByTypeParameters());
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.j2cl.ast;
+
+import com.google.j2cl.common.CompilationScope;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Supplier;
+
+/**
+ * Lazily computed descriptor properties that might reach the frontend.
+ *
+ * <p>Descriptors are shared by all the threads that participate in a compilation, but some of
+ * their properties are computed by factories backed by frontend structures (JDT bindings, javac
+ * symbols) that are not safe to access concurrently. Those factories run under a single lock per
+ * compilation.
+ *
+ * <p>Properties that only depend on the state of the descriptor and never reach the frontend use
+ * AutoValue's {@code @Memoized}. The rest can't: {@code @Memoized} holds the lock of the descriptor
+ * while computing, and a frontend factory holding the compilation lock may need a property of that
+ * same descriptor, which would deadlock. Properties derived from frontend-backed ones are instead
+ * computed without holding any lock.
+ */
+final class LazyDescriptors {
+  private static final CompilationScope.Local<Object> frontendLock =
+      CompilationScope.Local.withInitial(Object::new);
+
+  /** A descriptor property that is computed on first use. */
+  static final class Memo<T> {
+    private static final Object UNSET = new Object();
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<Memo, Object> valueUpdater =
+        AtomicReferenceFieldUpdater.newUpdater(Memo.class, Object.class, "value");
+
+    private volatile Object value = UNSET;
+
+    /**
+     * Returns the property, computing it without holding any lock.
+     *
+     * <p>Threads that ask for the property concurrently might all compute it, but all of them get
+     * the value that was computed first.
+     */
+    @SuppressWarnings("unchecked")
+    T get(Supplier<T> factory) {
+      Object value = this.value;
+      if (value == UNSET) {
+        Object computedValue = factory.get();
+        value = valueUpdater.compareAndSet(this, UNSET, computedValue) ? computedValue : this.value;
+      }
+      return (T) value;
+    }
+
+    /** Returns the property, computing it exactly once from the frontend. */
+    @SuppressWarnings("unchecked")
+    T getFromFrontend(Supplier<T> factory) {
+      Object value = this.value;
+      if (value == UNSET) {
+        synchronized (frontendLock.get()) {
+          value = this.value;
+          if (value == UNSET) {
+            value = factory.get();
+            this.value = value;
+          }
+        }
+      }
+      return (T) value;
+    }
+  }
+
+  private LazyDescriptors() {}
+}
@@ -55,8 +55,14 @@ public abstract class MethodDescriptor extends MemberDescriptor {
 
     public abstract boolean isDoNotAutobox();
 
-    @Memoized
+    private final LazyDescriptors.Memo<ParameterDescriptor> toRawParameterDescriptor =
+        new LazyDescriptors.Memo<>();
+
     public ParameterDescriptor toRawParameterDescriptor() {
+      return toRawParameterDescriptor.get(this::computeToRawParameterDescriptor);
+    }
+
+    private ParameterDescriptor computeToRawParameterDescriptor() {
       return toBuilder().setTypeDescriptor(getTypeDescriptor().toRawTypeDescriptor()).build();
     }
 
@@ -238,9 +244,15 @@ public abstract class MethodDescriptor extends MemberDescriptor {
   // the details.
   abstract MethodDescriptor getDeclarationMethodDescriptorOrNullIfSelf();
 
+  private final LazyDescriptors.Memo<MethodDescriptor> toRawMemberDescriptor =
+      new LazyDescriptors.Memo<>();
+
   @Override
-  @Memoized
   public MethodDescriptor toRawMemberDescriptor() {
+    return toRawMemberDescriptor.get(this::computeToRawMemberDescriptor);
+  }
+
+  private MethodDescriptor computeToRawMemberDescriptor() {
     return toBuilder()
         .setEnclosingTypeDescriptor(getEnclosingTypeDescriptor().toRawTypeDescriptor())
         .setTypeParameterTypeDescriptors(ImmutableList.of())
@@ -288,9 +300,15 @@ public abstract class MethodDescriptor extends MemberDescriptor {
 
   public abstract boolean isEnumSyntheticMethod();
 
+  private final LazyDescriptors.Memo<Boolean> isOrOverridesJavaLangObjectMethod =
+      new LazyDescriptors.Memo<>();
+
   @Override
-  @Memoized
   public boolean isOrOverridesJavaLangObjectMethod() {
+    return isOrOverridesJavaLangObjectMethod.get(this::computeIsOrOverridesJavaLangObjectMethod);
+  }
+
+  private boolean computeIsOrOverridesJavaLangObjectMethod() {
     if (!isPolymorphic()) {
       return false;
     }
@@ -465,9 +483,14 @@ public abstract class MethodDescriptor extends MemberDescriptor {
     return parameterTypeDescriptor.getReadableDescription();
   }
 
+  private final LazyDescriptors.Memo<String> overrideSignature = new LazyDescriptors.Memo<>();
+
   /** Returns a signature suitable for override checking from the Java source perspective. */
-  @Memoized
   public String getOverrideSignature() {
+    return overrideSignature.get(this::computeOverrideSignature);
+  }
+
+  private String computeOverrideSignature() {
     return getParameterTypeDescriptors().stream()
         .map(MethodDescriptor::getSignatureStringForParameter)
         .collect(joining(";", getName() + "(", ")"));
@@ -477,9 +500,15 @@ public abstract class MethodDescriptor extends MemberDescriptor {
     return Sets.filter(getOverriddenMethodDescriptors(), MethodDescriptor::isJsMember);
   }
 
+  private final LazyDescriptors.Memo<Set<MethodDescriptor>> overriddenMethodDescriptors =
+      new LazyDescriptors.Memo<>();
+
   /** Returns a set of the method descriptors that are overridden by {@code methodDescriptor}. */
-  @Memoized
   public Set<MethodDescriptor> getOverriddenMethodDescriptors() {
+    return overriddenMethodDescriptors.get(this::computeOverriddenMethodDescriptors);
+  }
+
+  private Set<MethodDescriptor> computeOverriddenMethodDescriptors() {
     return getEnclosingTypeDescriptor().getTypeDeclaration().getOverriddenMethodDescriptors(this);
   }
 
@@ -21,6 +21,7 @@ import com.google.auto.value.AutoValue;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.j2cl.ast.TypeDescriptors.BootstrapType;
+import com.google.j2cl.common.CompilationScope;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -302,9 +303,9 @@ public class RuntimeMethods {
         BootstrapType.NATIVE_UTIL.getDescriptor(), methodName, arguments);
   }
 
-  private static final ThreadLocal<Map<TypeDescriptor, Map<String, MethodInfo>>>
+  private static final CompilationScope.Local<Map<TypeDescriptor, Map<String, MethodInfo>>>
       runtimeMethodInfoByMethodNameByType =
-          ThreadLocal.withInitial(
+          CompilationScope.Local.withInitial(
               () ->
                   ImmutableMap.<TypeDescriptor, Map<String, MethodInfo>>builder()
                       .put(
@@ -466,6 +467,18 @@ public class RuntimeMethods {
                           BootstrapType.LONG_UTILS.getDescriptor(),
                           // LongUtils methods
                           ImmutableMap.<String, MethodInfo>builder()
+                              .put(
+                                  "$fromSafeInteger",
+                                  MethodInfo.newBuilder()
+                                      .setReturnType(PrimitiveTypes.LONG)
+                                      .setParameters(PrimitiveTypes.DOUBLE)
+                                      .build())
+                              .put(
+                                  "$fromDouble",
+                                  MethodInfo.newBuilder()
+                                      .setReturnType(PrimitiveTypes.LONG)
+                                      .setParameters(PrimitiveTypes.DOUBLE)
+                                      .build())
                               .put(
                                   "$negate",
                                   MethodInfo.newBuilder()
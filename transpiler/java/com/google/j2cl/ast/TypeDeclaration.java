@@ -85,8 +85,13 @@ public abstract class TypeDeclaration extends Node
     return false;
   }
 
-  @Memoized
+  private final LazyDescriptors.Memo<Boolean> declaresDefaultMethods = new LazyDescriptors.Memo<>();
+
   public boolean declaresDefaultMethods() {
+    return declaresDefaultMethods.get(this::computeDeclaresDefaultMethods);
+  }
+
+  private boolean computeDeclaresDefaultMethods() {
     return isInterface()
         && getDeclaredMethodDescriptors().stream().anyMatch(MethodDescriptor::isDefaultMethod);
   }
@@ -119,9 +124,15 @@ public abstract class TypeDeclaration extends Node
     return getQualifiedJsName();
   }
 
+  private final LazyDescriptors.Memo<TypeDeclaration> enclosingModule =
+      new LazyDescriptors.Memo<>();
+
   /** Returns the type descriptor for the module that needs to be required for this type */
-  @Memoized
   public TypeDeclaration getEnclosingModule() {
+    return enclosingModule.get(this::computeEnclosingModule);
+  }
+
+  private TypeDeclaration computeEnclosingModule() {
     String moduleRelativeJsName = getModuleRelativeJsName();
     if (!isNative() || !moduleRelativeJsName.contains(".")) {
       return this;
@@ -221,8 +232,14 @@ public abstract class TypeDeclaration extends Node
   /** Returns whether the described type has the @FunctionalInterface annotation. */
   public abstract boolean isAnnotatedWithFunctionalInterface();
 
-  @Memoized
+  private final LazyDescriptors.Memo<Boolean> isJsFunctionImplementation =
+      new LazyDescriptors.Memo<>();
+
   public boolean isJsFunctionImplementation() {
+    return isJsFunctionImplementation.get(this::computeIsJsFunctionImplementation);
+  }
+
+  private boolean computeIsJsFunctionImplementation() {
     return isClass()
         && getInterfaceTypeDescriptors().stream().anyMatch(TypeDescriptor::isJsFunctionInterface);
   }
@@ -283,8 +300,13 @@ public abstract class TypeDeclaration extends Node
     return !getTypeParameterDescriptors().isEmpty();
   }
 
-  @Memoized
+  private final LazyDescriptors.Memo<Boolean> extendsNativeClass = new LazyDescriptors.Memo<>();
+
   public boolean extendsNativeClass() {
+    return extendsNativeClass.get(this::computeExtendsNativeClass);
+  }
+
+  private boolean computeExtendsNativeClass() {
     DeclaredTypeDescriptor superTypeDescriptor = getSuperTypeDescriptor();
     if (superTypeDescriptor == null) {
       return false;
@@ -392,8 +414,14 @@ public abstract class TypeDeclaration extends Node
   @Nullable
   abstract String getCustomizedJsNamespace();
 
-  @Memoized
+  private final LazyDescriptors.Memo<TypeDeclaration> metadataTypeDeclaration =
+      new LazyDescriptors.Memo<>();
+
   public TypeDeclaration getMetadataTypeDeclaration() {
+    return metadataTypeDeclaration.get(this::computeMetadataTypeDeclaration);
+  }
+
+  private TypeDeclaration computeMetadataTypeDeclaration() {
     DeclaredTypeDescriptor rawTypeDescriptor = toRawTypeDescriptor();
 
     if (rawTypeDescriptor.isNative() || rawTypeDescriptor.isJsEnum()) {
@@ -409,14 +437,27 @@ public abstract class TypeDeclaration extends Node
     return rawTypeDescriptor.getTypeDeclaration();
   }
 
-  @Memoized
+  private final LazyDescriptors.Memo<TypeDeclaration> overlayImplementationTypeDeclaration =
+      new LazyDescriptors.Memo<>();
+
   public TypeDeclaration getOverlayImplementationTypeDeclaration() {
+    return overlayImplementationTypeDeclaration.get(
+        this::computeOverlayImplementationTypeDeclaration);
+  }
+
+  private TypeDeclaration computeOverlayImplementationTypeDeclaration() {
     return TypeDescriptors.createOverlayImplementationTypeDeclaration(
         toUnparameterizedTypeDescriptor());
   }
 
-  @Memoized
+  private final LazyDescriptors.Memo<Boolean> hasOverlayImplementationType =
+      new LazyDescriptors.Memo<>();
+
   public boolean hasOverlayImplementationType() {
+    return hasOverlayImplementationType.get(this::computeHasOverlayImplementationType);
+  }
+
+  private boolean computeHasOverlayImplementationType() {
     // TODO(b/116825224): this should just be
     //           isNative() || isJsFunctionInteface() && declaresJsOverlayMembers.
     // but there are some synthetic type descriptors created by
@@ -431,18 +472,26 @@ public abstract class TypeDeclaration extends Node
         || getDeclaredFieldDescriptors().stream().anyMatch(FieldDescriptor::isJsOverlay);
   }
 
+  private final LazyDescriptors.Memo<ImmutableList<DeclaredTypeDescriptor>>
+      interfaceTypeDescriptors = new LazyDescriptors.Memo<>();
+
   /**
    * Returns a list of the type descriptors of interfaces that are explicitly implemented directly
    * on this type.
    */
-  @Memoized
   public ImmutableList<DeclaredTypeDescriptor> getInterfaceTypeDescriptors() {
-    return getInterfaceTypeDescriptorsFactory().get(this);
+    return interfaceTypeDescriptors.getFromFrontend(
+        () -> getInterfaceTypeDescriptorsFactory().get(this));
   }
 
+  private final LazyDescriptors.Memo<Integer> maxInterfaceDepth = new LazyDescriptors.Memo<>();
+
   /** Returns the height of the largest inheritance chain of any interface implemented here. */
-  @Memoized
   public int getMaxInterfaceDepth() {
+    return maxInterfaceDepth.get(this::computeMaxInterfaceDepth);
+  }
+
+  private int computeMaxInterfaceDepth() {
     return 1
         + getInterfaceTypeDescriptors()
             .stream()
@@ -451,12 +500,18 @@ public abstract class TypeDeclaration extends Node
             .orElse(0);
   }
 
+  private final LazyDescriptors.Memo<Set<DeclaredTypeDescriptor>>
+      transitiveInterfaceTypeDescriptors = new LazyDescriptors.Memo<>();
+
   /**
    * Returns a set of the type descriptors of interfaces that are explicitly implemented either
    * directly on this type or on some super type or super interface.
    */
-  @Memoized
   public Set<DeclaredTypeDescriptor> getTransitiveInterfaceTypeDescriptors() {
+    return transitiveInterfaceTypeDescriptors.get(this::computeTransitiveInterfaceTypeDescriptors);
+  }
+
+  private Set<DeclaredTypeDescriptor> computeTransitiveInterfaceTypeDescriptors() {
     Set<DeclaredTypeDescriptor> typeDescriptors = new LinkedHashSet<>();
 
     // Recursively gather from super interfaces.
@@ -474,12 +529,18 @@ public abstract class TypeDeclaration extends Node
     return typeDescriptors;
   }
 
+  private final LazyDescriptors.Memo<DeclaredTypeDescriptor> toRawTypeDescriptor =
+      new LazyDescriptors.Memo<>();
+
   /**
    * Returns the erasure type (see definition of erasure type at
    * http://help.eclipse.org/luna/index.jsp) with an empty type arguments list.
    */
-  @Memoized
   public DeclaredTypeDescriptor toRawTypeDescriptor() {
+    return toRawTypeDescriptor.get(this::computeToRawTypeDescriptor);
+  }
+
+  private DeclaredTypeDescriptor computeToRawTypeDescriptor() {
     return DeclaredTypeDescriptor.newBuilder()
         .setTypeDeclaration(this)
         .setEnclosingTypeDescriptor(
@@ -532,12 +593,17 @@ public abstract class TypeDeclaration extends Node
         Streams.concat(Stream.of(getPackageName()), getClassComponents().stream()));
   }
 
-  @Memoized
+  private final LazyDescriptors.Memo<DeclaredTypeDescriptor> superTypeDescriptor =
+      new LazyDescriptors.Memo<>();
+
   @Nullable
   public DeclaredTypeDescriptor getSuperTypeDescriptor() {
-    return getSuperTypeDescriptorFactory().get(this);
+    return superTypeDescriptor.getFromFrontend(() -> getSuperTypeDescriptorFactory().get(this));
   }
 
+  private final LazyDescriptors.Memo<DeclaredTypeDescriptor> toUnparameterizedTypeDescriptor =
+      new LazyDescriptors.Memo<>();
+
   /**
    * Returns the usage site TypeDescriptor corresponding to this declaration site TypeDeclaration.
    *
@@ -547,8 +613,12 @@ public abstract class TypeDeclaration extends Node
    * real JDT usage site TypeBinding has already been processed somewhere and we attempt to retrieve
    * the matching TypeDescriptor.
    */
-  @Memoized
   public DeclaredTypeDescriptor toUnparameterizedTypeDescriptor() {
+    return toUnparameterizedTypeDescriptor.getFromFrontend(
+        this::computeToUnparameterizedTypeDescriptor);
+  }
+
+  private DeclaredTypeDescriptor computeToUnparameterizedTypeDescriptor() {
     return getUnparameterizedTypeDescriptorFactory().get(this);
   }
 
@@ -575,21 +645,34 @@ public abstract class TypeDeclaration extends Node
     return getUniqueId().hashCode();
   }
 
+  private final LazyDescriptors.Memo<Map<String, MethodDescriptor>>
+      declaredMethodDescriptorsBySignature = new LazyDescriptors.Memo<>();
+
   /**
    * The list of methods declared in the type from the JDT. Note: this does not include methods we
    * synthesize and add to the type like bridge methods.
    */
-  @Memoized
   Map<String, MethodDescriptor> getDeclaredMethodDescriptorsBySignature() {
+    return declaredMethodDescriptorsBySignature.getFromFrontend(
+        this::computeDeclaredMethodDescriptorsBySignature);
+  }
+
+  private Map<String, MethodDescriptor> computeDeclaredMethodDescriptorsBySignature() {
     return getDeclaredMethodDescriptorsFactory().get(this);
   }
 
+  private final LazyDescriptors.Memo<Map<String, MethodDescriptor>> methodDescriptorsBySignature =
+      new LazyDescriptors.Memo<>();
+
   /**
    * The list of methods in the type from the JDT. Note: this does not include methods we synthesize
    * and add to the type like bridge methods.
    */
-  @Memoized
   Map<String, MethodDescriptor> getMethodDescriptorsBySignature() {
+    return methodDescriptorsBySignature.get(this::computeMethodDescriptorsBySignature);
+  }
+
+  private Map<String, MethodDescriptor> computeMethodDescriptorsBySignature() {
     // TODO(rluble): update this code to handle package private methods, bridges and verify that it
     // correctly handles default methods.
     Map<String, MethodDescriptor> methodDescriptorsBySignature = new LinkedHashMap<>();
@@ -633,8 +716,14 @@ public abstract class TypeDeclaration extends Node
         || getAllSuperTypesIncludingSelf().contains(that);
   }
 
-  @Memoized
+  private final LazyDescriptors.Memo<Set<TypeDeclaration>> allSuperTypesIncludingSelf =
+      new LazyDescriptors.Memo<>();
+
   protected Set<TypeDeclaration> getAllSuperTypesIncludingSelf() {
+    return allSuperTypesIncludingSelf.get(this::computeAllSuperTypesIncludingSelf);
+  }
+
+  private Set<TypeDeclaration> computeAllSuperTypesIncludingSelf() {
     Set<TypeDeclaration> allSupertypesIncludingSelf = new LinkedHashSet<>();
     allSupertypesIncludingSelf.add(this);
     if (getSuperTypeDescriptor() != null) {
@@ -648,31 +737,43 @@ public abstract class TypeDeclaration extends Node
     return allSupertypesIncludingSelf;
   }
 
+  private final LazyDescriptors.Memo<Collection<MethodDescriptor>> declaredMethodDescriptors =
+      new LazyDescriptors.Memo<>();
+
   /**
    * The list of methods declared in the type. Note: this does not include methods synthetic methods
    * (like bridge methods) nor supertype methods that are not overridden in the type.
    */
-  @Memoized
   public Collection<MethodDescriptor> getDeclaredMethodDescriptors() {
-    return getDeclaredMethodDescriptorsBySignature().values();
+    return declaredMethodDescriptors.get(() -> getDeclaredMethodDescriptorsBySignature().values());
   }
 
+  private final LazyDescriptors.Memo<List<MethodDescriptor>> jsConstructorMethodDescriptors =
+      new LazyDescriptors.Memo<>();
+
   /** Returns the JsConstructor for this class if any. */
-  @Memoized
   @Nullable
   public List<MethodDescriptor> getJsConstructorMethodDescriptors() {
+    return jsConstructorMethodDescriptors.get(this::computeJsConstructorMethodDescriptors);
+  }
+
+  private List<MethodDescriptor> computeJsConstructorMethodDescriptors() {
     return getDeclaredMethodDescriptors()
         .stream()
         .filter(MethodDescriptor::isJsConstructor)
         .collect(ImmutableList.toImmutableList());
   }
+
+  private final LazyDescriptors.Memo<Collection<FieldDescriptor>> declaredFieldDescriptors =
+      new LazyDescriptors.Memo<>();
+
   /**
    * The list of fields declared in the type. Note: this does not include methods synthetic fields
    * (like captures) nor supertype fields.
    */
-  @Memoized
   public Collection<FieldDescriptor> getDeclaredFieldDescriptors() {
-    return getDeclaredFieldDescriptorsFactory().get(this);
+    return declaredFieldDescriptors.getFromFrontend(
+        () -> getDeclaredFieldDescriptorsFactory().get(this));
   }
 
   /** The list of all methods available on a given type. */
@@ -680,9 +781,15 @@ public abstract class TypeDeclaration extends Node
     return getMethodDescriptorsBySignature().values();
   }
 
+  private final LazyDescriptors.Memo<MethodDescriptor> defaultConstructorMethodDescriptor =
+      new LazyDescriptors.Memo<>();
+
   /** Returns the default (parameterless) constructor for the type.. */
-  @Memoized
   public MethodDescriptor getDefaultConstructorMethodDescriptor() {
+    return defaultConstructorMethodDescriptor.get(this::computeDefaultConstructorMethodDescriptor);
+  }
+
+  private MethodDescriptor computeDefaultConstructorMethodDescriptor() {
     return getDeclaredMethodDescriptors()
         .stream()
         .filter(MethodDescriptor::isConstructor)
@@ -691,6 +798,9 @@ public abstract class TypeDeclaration extends Node
         .orElse(null);
   }
 
+  private final LazyDescriptors.Memo<List<MethodDescriptor>>
+      accidentallyOverriddenMethodDescriptors = new LazyDescriptors.Memo<>();
+
   /**
    * Returns the method descriptors in this type's interfaces that are accidentally overridden.
    *
@@ -698,8 +808,12 @@ public abstract class TypeDeclaration extends Node
    * method and the method it inherits does not really override, but just has the same signature as
    * the overridden method.
    */
-  @Memoized
   public List<MethodDescriptor> getAccidentallyOverriddenMethodDescriptors() {
+    return accidentallyOverriddenMethodDescriptors.get(
+        this::computeAccidentallyOverriddenMethodDescriptors);
+  }
+
+  private List<MethodDescriptor> computeAccidentallyOverriddenMethodDescriptors() {
     List<MethodDescriptor> accidentalOverriddenMethods = new ArrayList<>();
 
     Set<DeclaredTypeDescriptor> transitiveSuperTypeInterfaceTypeDescriptors =
@@ -716,12 +830,19 @@ public abstract class TypeDeclaration extends Node
     return accidentalOverriddenMethods;
   }
 
+  private final LazyDescriptors.Memo<Multimap<String, MethodDescriptor>>
+      methodDescriptorsByOverrideSignature = new LazyDescriptors.Memo<>();
+
   /**
    * Builds and caches a mapping from method override signature to matching method descriptors from
    * the entire super-type hierarchy. This map can *greatly* speed up method override checks.
    */
-  @Memoized
   Multimap<String, MethodDescriptor> getMethodDescriptorsByOverrideSignature() {
+    return methodDescriptorsByOverrideSignature.get(
+        this::computeMethodDescriptorsByOverrideSignature);
+  }
+
+  private Multimap<String, MethodDescriptor> computeMethodDescriptorsByOverrideSignature() {
     Multimap<String, MethodDescriptor> methodDescriptorsByOverrideSignature =
         LinkedHashMultimap.create();
 
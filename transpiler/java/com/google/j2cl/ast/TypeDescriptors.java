@@ -24,6 +24,7 @@ import com.google.common.collect.HashBiMap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.j2cl.common.CompilationScope;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -82,7 +83,8 @@ public class TypeDescriptors {
   private final BiMap<PrimitiveTypeDescriptor, DeclaredTypeDescriptor> boxedTypeByPrimitiveType =
       HashBiMap.create();
 
-  private static final ThreadLocal<TypeDescriptors> typeDescriptors = new ThreadLocal<>();
+  private static final CompilationScope.Local<TypeDescriptors> typeDescriptors =
+      new CompilationScope.Local<>();
 
   private static void set(TypeDescriptors typeDescriptors) {
     checkState(
@@ -16,7 +16,6 @@
 package com.google.j2cl.ast;
 
 import com.google.auto.value.AutoValue;
-import com.google.auto.value.extension.memoized.Memoized;
 import com.google.common.collect.ImmutableSet;
 import com.google.j2cl.ast.annotations.Visitable;
 import com.google.j2cl.ast.processors.common.Processor;
@@ -42,8 +41,14 @@ public abstract class TypeVariable extends TypeDescriptor implements HasName {
 
   public abstract String getName();
 
-  @Memoized
+  private final LazyDescriptors.Memo<TypeDescriptor> boundTypeDescriptor =
+      new LazyDescriptors.Memo<>();
+
   public TypeDescriptor getBoundTypeDescriptor() {
+    return boundTypeDescriptor.getFromFrontend(this::computeBoundTypeDescriptor);
+  }
+
+  private TypeDescriptor computeBoundTypeDescriptor() {
     TypeDescriptor boundTypeDescriptor = getBoundTypeDescriptorSupplier().get();
     return boundTypeDescriptor != null ? boundTypeDescriptor : TypeDescriptors.get().javaLangObject;
   }
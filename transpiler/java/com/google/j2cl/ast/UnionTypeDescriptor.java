@@ -59,9 +59,15 @@ public abstract class UnionTypeDescriptor extends TypeDescriptor {
     return getUnionTypeDescriptors().stream().anyMatch(TypeDescriptor::isNullable);
   }
 
+  private final LazyDescriptors.Memo<DeclaredTypeDescriptor> toRawTypeDescriptor =
+      new LazyDescriptors.Memo<>();
+
   @Override
-  @Memoized
   public DeclaredTypeDescriptor toRawTypeDescriptor() {
+    return toRawTypeDescriptor.get(this::computeToRawTypeDescriptor);
+  }
+
+  private DeclaredTypeDescriptor computeToRawTypeDescriptor() {
     DeclaredTypeDescriptor typeDescriptor =
         (DeclaredTypeDescriptor) getUnionTypeDescriptors().get(0).toRawTypeDescriptor();
     // Find the closest common ancestor of all the types in the union.
@@ -82,9 +88,15 @@ public abstract class UnionTypeDescriptor extends TypeDescriptor {
     return true;
   }
 
+  private final LazyDescriptors.Memo<UnionTypeDescriptor> toUnparameterizedTypeDescriptor =
+      new LazyDescriptors.Memo<>();
+
   @Override
-  @Memoized
   public UnionTypeDescriptor toUnparameterizedTypeDescriptor() {
+    return toUnparameterizedTypeDescriptor.get(this::computeToUnparameterizedTypeDescriptor);
+  }
+
+  private UnionTypeDescriptor computeToUnparameterizedTypeDescriptor() {
     return newBuilder()
         .setUnionTypeDescriptors(
             TypeDescriptors.toUnparameterizedTypeDescriptors(getUnionTypeDescriptors()))
@@ -98,9 +110,15 @@ public abstract class UnionTypeDescriptor extends TypeDescriptor {
         .allMatch(typeDescriptor -> typeDescriptor.isAssignableTo(that));
   }
 
+  private final LazyDescriptors.Memo<Set<TypeVariable>> allTypeVariables =
+      new LazyDescriptors.Memo<>();
+
   @Override
-  @Memoized
   public Set<TypeVariable> getAllTypeVariables() {
+    return allTypeVariables.get(this::computeAllTypeVariables);
+  }
+
+  private Set<TypeVariable> computeAllTypeVariables() {
     return getUnionTypeDescriptors()
         .stream()
         .map(TypeDescriptor::getAllTypeVariables)
@@ -114,9 +132,14 @@ public abstract class UnionTypeDescriptor extends TypeDescriptor {
     return synthesizeUnionName(TypeDescriptor::getUniqueId);
   }
 
+  private final LazyDescriptors.Memo<String> readableDescription = new LazyDescriptors.Memo<>();
+
   @Override
-  @Memoized
   public String getReadableDescription() {
+    return readableDescription.get(this::computeReadableDescription);
+  }
+
+  private String computeReadableDescription() {
     return synthesizeUnionName(TypeDescriptor::getReadableDescription);
   }
 
@@ -139,9 +162,16 @@ public abstract class UnionTypeDescriptor extends TypeDescriptor {
     return false;
   }
 
-  @Memoized
+  private final LazyDescriptors.Memo<Map<TypeVariable, TypeDescriptor>>
+      specializedTypeArgumentByTypeParameters = new LazyDescriptors.Memo<>();
+
   @Override
   public Map<TypeVariable, TypeDescriptor> getSpecializedTypeArgumentByTypeParameters() {
+    return specializedTypeArgumentByTypeParameters.get(
+        this::computeSpecializedTypeArgumentByTypeParameters);
+  }
+
+  private Map<TypeVariable, TypeDescriptor> computeSpecializedTypeArgumentByTypeParameters() {
     ImmutableMap.Builder<TypeVariable, TypeDescriptor> mapBuilder = ImmutableMap.builder();
     for (TypeDescriptor typeDescriptor : getUnionTypeDescriptors()) {
       mapBuilder.putAll(typeDescriptor.getSpecializedTypeArgumentByTypeParameters());
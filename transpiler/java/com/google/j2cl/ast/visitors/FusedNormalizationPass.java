@@ -0,0 +1,83 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.j2cl.ast.visitors;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+import com.google.common.collect.ImmutableList;
+import com.google.j2cl.ast.AbstractRewriter;
+import com.google.j2cl.ast.CompilationUnit;
+import com.google.j2cl.ast.Node;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Runs a sequence of local normalization passes in a single traversal of the AST. */
+public final class FusedNormalizationPass extends NormalizationPass {
+
+  /**
+   * Returns {@code passes} with each run of consecutive {@link LocalNormalizationPass}es replaced
+   * by the corresponding fused pass.
+   */
+  public static ImmutableList<NormalizationPass> fuseLocalPasses(List<NormalizationPass> passes) {
+    ImmutableList.Builder<NormalizationPass> fusedPasses = ImmutableList.builder();
+    List<LocalNormalizationPass> localPasses = new ArrayList<>();
+    for (NormalizationPass pass : passes) {
+      if (pass instanceof LocalNormalizationPass) {
+        localPasses.add((LocalNormalizationPass) pass);
+        continue;
+      }
+      addLocalPasses(fusedPasses, localPasses);
+      fusedPasses.add(pass);
+    }
+    addLocalPasses(fusedPasses, localPasses);
+    return fusedPasses.build();
+  }
+
+  private static void addLocalPasses(
+      ImmutableList.Builder<NormalizationPass> fusedPasses,
+      List<LocalNormalizationPass> localPasses) {
+    if (localPasses.size() == 1) {
+      fusedPasses.add(localPasses.get(0));
+    } else if (localPasses.size() > 1) {
+      fusedPasses.add(new FusedNormalizationPass(localPasses));
+    }
+    localPasses.clear();
+  }
+
+  private final ImmutableList<LocalNormalizationPass> passes;
+
+  private FusedNormalizationPass(List<LocalNormalizationPass> passes) {
+    this.passes = ImmutableList.copyOf(passes);
+  }
+
+  @Override
+  public void applyTo(CompilationUnit compilationUnit) {
+    ImmutableList<AbstractRewriter> rewriters =
+        passes.stream().map(LocalNormalizationPass::createRewriter).collect(toImmutableList());
+    compilationUnit.accept(
+        new AbstractRewriter() {
+          @Override
+          public Node rewriteNode(Node node) {
+            // The descendants have already been rewritten by all the passes; each pass rewrites
+            // the replacement returned by the previous one.
+            for (AbstractRewriter rewriter : rewriters) {
+              node = rewriter.rewriteShallow(node);
+            }
+            return node;
+          }
+        });
+  }
+}
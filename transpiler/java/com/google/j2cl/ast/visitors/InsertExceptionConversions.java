@@ -18,7 +18,6 @@ package com.google.j2cl.ast.visitors;
 import com.google.j2cl.ast.AbstractRewriter;
 import com.google.j2cl.ast.BinaryExpression;
 import com.google.j2cl.ast.CatchClause;
-import com.google.j2cl.ast.CompilationUnit;
 import com.google.j2cl.ast.Expression;
 import com.google.j2cl.ast.MethodCall;
 import com.google.j2cl.ast.Node;
@@ -51,43 +50,42 @@ import com.google.j2cl.ast.ThrowStatement;
  * the browser dev tools (doesn't work well with custom error objects) and callers from JavaScript
  * side.
  */
-public class InsertExceptionConversions extends NormalizationPass {
+public class InsertExceptionConversions extends LocalNormalizationPass {
   @Override
-  public void applyTo(CompilationUnit compilationUnit) {
-    compilationUnit.accept(
-        new AbstractRewriter() {
-          @Override
-          public Node rewriteCatchClause(CatchClause catchClause) {
-            if (catchClause.getBody().isEmpty()) {
-              return catchClause;
-            }
+  AbstractRewriter createRewriter() {
+    return new AbstractRewriter() {
+      @Override
+      public Node rewriteCatchClause(CatchClause catchClause) {
+        if (catchClause.getBody().isEmpty()) {
+          return catchClause;
+        }
 
-            MethodCall toJavaCall =
-                RuntimeMethods.createExceptionsMethodCall(
-                    "toJava", catchClause.getExceptionVariable().getReference());
+        MethodCall toJavaCall =
+            RuntimeMethods.createExceptionsMethodCall(
+                "toJava", catchClause.getExceptionVariable().getReference());
 
-            Expression assignment =
-                BinaryExpression.Builder.asAssignmentTo(catchClause.getExceptionVariable())
-                    .setRightOperand(toJavaCall)
-                    .build();
+        Expression assignment =
+            BinaryExpression.Builder.asAssignmentTo(catchClause.getExceptionVariable())
+                .setRightOperand(toJavaCall)
+                .build();
 
-            catchClause
-                .getBody()
-                .getStatements()
-                .add(0, assignment.makeStatement(catchClause.getBody().getSourcePosition()));
+        catchClause
+            .getBody()
+            .getStatements()
+            .add(0, assignment.makeStatement(catchClause.getBody().getSourcePosition()));
 
-            return catchClause;
-          }
+        return catchClause;
+      }
 
-          @Override
-          public Node rewriteThrowStatement(ThrowStatement throwStatement) {
+      @Override
+      public Node rewriteThrowStatement(ThrowStatement throwStatement) {
 
-            MethodCall toJsCall =
-                RuntimeMethods.createExceptionsMethodCall("toJs", throwStatement.getExpression());
+        MethodCall toJsCall =
+            RuntimeMethods.createExceptionsMethodCall("toJs", throwStatement.getExpression());
 
-            return new ThrowStatement(throwStatement.getSourcePosition(), toJsCall);
-          }
-        });
+        return new ThrowStatement(throwStatement.getSourcePosition(), toJsCall);
+      }
+    };
   }
 
 }
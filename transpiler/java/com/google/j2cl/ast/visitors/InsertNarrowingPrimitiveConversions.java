@@ -24,6 +24,7 @@ import com.google.j2cl.ast.PrimitiveTypeDescriptor;
 import com.google.j2cl.ast.PrimitiveTypes;
 import com.google.j2cl.ast.RuntimeMethods;
 import com.google.j2cl.ast.TypeDescriptor;
+import com.google.j2cl.ast.TypeDescriptors;
 import java.util.Set;
 
 /**
@@ -31,6 +32,16 @@ import java.util.Set;
  * type slot in assignment and cast conversion contexts.
  */
 public class InsertNarrowingPrimitiveConversions extends NormalizationPass {
+  private final boolean unboxSmallLongs;
+
+  /**
+   * Creates the pass; when {@code unboxSmallLongs} is set, floating point values narrowed to long
+   * are kept as plain numbers whenever the result is a safe integer.
+   */
+  public InsertNarrowingPrimitiveConversions(boolean unboxSmallLongs) {
+    this.unboxSmallLongs = unboxSmallLongs;
+  }
+
   @Override
   public void applyTo(CompilationUnit compilationUnit) {
     compilationUnit.accept(new ConversionContextVisitor(getContextRewriter()));
@@ -108,6 +119,12 @@ public class InsertNarrowingPrimitiveConversions extends NormalizationPass {
           return new NumberLiteral(literalTypeDescriptor, ((NumberLiteral) expression).getValue());
         }
 
+        if (unboxSmallLongs && TypeDescriptors.isPrimitiveLong(toTypeDescriptor)) {
+          // Only float and double are narrowed to long.
+          // LongUtils.$fromDouble(expr);
+          return RuntimeMethods.createLongUtilsMethodCall("$fromDouble", expression);
+        }
+
         return RuntimeMethods.createPrimitivesNarrowingMethodCall(
             expression, (PrimitiveTypeDescriptor) toTypeDescriptor);
       }
@@ -31,12 +31,22 @@ import com.google.j2cl.ast.TypeDescriptors;
  * contexts.
  */
 public class InsertWideningPrimitiveConversions extends NormalizationPass {
+  private final boolean unboxSmallLongs;
+
+  /**
+   * Creates the pass; when {@code unboxSmallLongs} is set, values widened to long are kept as plain
+   * numbers since they are always safe integers.
+   */
+  public InsertWideningPrimitiveConversions(boolean unboxSmallLongs) {
+    this.unboxSmallLongs = unboxSmallLongs;
+  }
+
   @Override
   public void applyTo(CompilationUnit compilationUnit) {
     compilationUnit.accept(new ConversionContextVisitor(getContextRewriter()));
   }
 
-  private static ConversionContextVisitor.ContextRewriter getContextRewriter() {
+  private ConversionContextVisitor.ContextRewriter getContextRewriter() {
     return new ConversionContextVisitor.ContextRewriter() {
 
       @Override
@@ -93,7 +103,7 @@ public class InsertWideningPrimitiveConversions extends NormalizationPass {
         .isWiderThan((PrimitiveTypeDescriptor) fromTypeDescriptor);
   }
 
-  private static Expression widenTo(TypeDescriptor toTypeDescriptor, Expression expression) {
+  private Expression widenTo(TypeDescriptor toTypeDescriptor, Expression expression) {
     TypeDescriptor fromTypeDescriptor = expression.getTypeDescriptor();
     // Don't emit known NOOP widenings.
     if (fromTypeDescriptor.isAssignableTo(toTypeDescriptor)) {
@@ -106,6 +116,11 @@ public class InsertWideningPrimitiveConversions extends NormalizationPass {
       return new NumberLiteral(literalTypeDescriptor, ((NumberLiteral) expression).getValue());
     }
 
+    if (unboxSmallLongs && TypeDescriptors.isPrimitiveLong(toTypeDescriptor)) {
+      // LongUtils.$fromSafeInteger(expr);
+      return RuntimeMethods.createLongUtilsMethodCall("$fromSafeInteger", expression);
+    }
+
     return RuntimeMethods.createWideningPrimitivesMethodCall(
         expression, (PrimitiveTypeDescriptor) toTypeDescriptor);
   }
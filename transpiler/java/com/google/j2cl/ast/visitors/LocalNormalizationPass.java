@@ -0,0 +1,45 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.j2cl.ast.visitors;
+
+import com.google.j2cl.ast.AbstractRewriter;
+import com.google.j2cl.ast.CompilationUnit;
+
+/**
+ * The base class for normalization passes whose rewrites are local to each node, which allows
+ * consecutive local passes to be run in a single traversal (see {@link FusedNormalizationPass}).
+ *
+ * <p>When fused, each node is rewritten by all the passes in order, after its descendants have
+ * been rewritten by all of them. Hence a pass can only be local if its rewriter:
+ *
+ * <ul>
+ *   <li>does not depend on the enclosing context nor on state collected from other nodes,
+ *   <li>only looks at properties of the descendants that other local passes preserve, e.g. their
+ *       type descriptors, and
+ *   <li>synthesizes nodes that, other than the replacement it returns, do not need to be rewritten
+ *       by the local passes that run after it.
+ * </ul>
+ */
+public abstract class LocalNormalizationPass extends NormalizationPass {
+
+  /** Returns a new rewriter that implements this pass. */
+  abstract AbstractRewriter createRewriter();
+
+  @Override
+  public final void applyTo(CompilationUnit compilationUnit) {
+    compilationUnit.accept(createRewriter());
+  }
+}
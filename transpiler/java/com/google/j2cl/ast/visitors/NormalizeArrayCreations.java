@@ -21,7 +21,6 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.j2cl.ast.AbstractRewriter;
 import com.google.j2cl.ast.ArrayLiteral;
-import com.google.j2cl.ast.CompilationUnit;
 import com.google.j2cl.ast.Expression;
 import com.google.j2cl.ast.JsDocCastExpression;
 import com.google.j2cl.ast.JsInfo;
@@ -35,19 +34,18 @@ import com.google.j2cl.ast.TypeDescriptors;
 import java.util.List;
 
 /** Normalizes array creations. */
-public class NormalizeArrayCreations extends NormalizationPass {
+public class NormalizeArrayCreations extends LocalNormalizationPass {
   @Override
-  public void applyTo(CompilationUnit compilationUnit) {
-    compilationUnit.accept(
-        new AbstractRewriter() {
-          @Override
-          public Expression rewriteNewArray(NewArray newArray) {
-            if (newArray.getArrayLiteral() != null) {
-              return rewriteArrayInit(newArray);
-            }
-            return rewriteArrayCreate(newArray);
-          }
-        });
+  AbstractRewriter createRewriter() {
+    return new AbstractRewriter() {
+      @Override
+      public Expression rewriteNewArray(NewArray newArray) {
+        if (newArray.getArrayLiteral() != null) {
+          return rewriteArrayInit(newArray);
+        }
+        return rewriteArrayCreate(newArray);
+      }
+    };
   }
 
   /** We transform new Object[100][100]; to Arrays.$create([100, 100], Object); */
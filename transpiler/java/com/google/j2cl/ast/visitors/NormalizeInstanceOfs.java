@@ -21,7 +21,6 @@ import com.google.j2cl.ast.AbstractRewriter;
 import com.google.j2cl.ast.ArrayTypeDescriptor;
 import com.google.j2cl.ast.BinaryExpression;
 import com.google.j2cl.ast.BinaryOperator;
-import com.google.j2cl.ast.CompilationUnit;
 import com.google.j2cl.ast.DeclaredTypeDescriptor;
 import com.google.j2cl.ast.Expression;
 import com.google.j2cl.ast.InstanceOfExpression;
@@ -39,30 +38,29 @@ import com.google.j2cl.ast.TypeDescriptor;
 import com.google.j2cl.ast.TypeDescriptors;
 
 /** Replaces instanceof expression with corresponding $isInstance method call. */
-public class NormalizeInstanceOfs extends NormalizationPass {
+public class NormalizeInstanceOfs extends LocalNormalizationPass {
   @Override
-  public void applyTo(CompilationUnit compilationUnit) {
-    compilationUnit.accept(
-        new AbstractRewriter() {
-          @Override
-          public Node rewriteInstanceOfExpression(InstanceOfExpression expression) {
-            Expression subject = expression.getExpression();
-            // Replace trivial instanceof expression with a null check.
-            if (subject.getTypeDescriptor().isAssignableTo(expression.getTestTypeDescriptor())) {
-              return BinaryExpression.newBuilder()
-                  .setLeftOperand(subject)
-                  .setOperator(BinaryOperator.NOT_EQUALS)
-                  .setRightOperand(NullLiteral.get())
-                  .build();
-            }
+  AbstractRewriter createRewriter() {
+    return new AbstractRewriter() {
+      @Override
+      public Node rewriteInstanceOfExpression(InstanceOfExpression expression) {
+        Expression subject = expression.getExpression();
+        // Replace trivial instanceof expression with a null check.
+        if (subject.getTypeDescriptor().isAssignableTo(expression.getTestTypeDescriptor())) {
+          return BinaryExpression.newBuilder()
+              .setLeftOperand(subject)
+              .setOperator(BinaryOperator.NOT_EQUALS)
+              .setRightOperand(NullLiteral.get())
+              .build();
+        }
 
-            if (expression.getTestTypeDescriptor().isArray()) {
-              return rewriteArrayInstanceOfExpression(expression);
-            } else {
-              return rewriteRegularInstanceOfExpression(expression);
-            }
-          }
-        });
+        if (expression.getTestTypeDescriptor().isArray()) {
+          return rewriteArrayInstanceOfExpression(expression);
+        } else {
+          return rewriteRegularInstanceOfExpression(expression);
+        }
+      }
+    };
   }
 
   private static Node rewriteRegularInstanceOfExpression(
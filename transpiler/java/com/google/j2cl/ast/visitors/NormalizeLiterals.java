@@ -16,45 +16,66 @@
 package com.google.j2cl.ast.visitors;
 
 import com.google.j2cl.ast.AbstractRewriter;
-import com.google.j2cl.ast.CompilationUnit;
 import com.google.j2cl.ast.Expression;
 import com.google.j2cl.ast.NumberLiteral;
+import com.google.j2cl.ast.PrimitiveTypes;
 import com.google.j2cl.ast.RuntimeMethods;
 import com.google.j2cl.ast.TypeDescriptors;
 import com.google.j2cl.common.J2clUtils;
 
 /** Replaces literals that are required to be emulated. */
-public class NormalizeLiterals extends NormalizationPass {
+public class NormalizeLiterals extends LocalNormalizationPass {
+  // Largest magnitude of an integer that is exactly representable as a JavaScript number.
+  private static final long MAX_SAFE_INTEGER = (1L << 53) - 1;
+
+  private final boolean unboxSmallLongs;
+
+  /**
+   * Creates the pass; when {@code unboxSmallLongs} is set, long literals that are safe integers are
+   * emitted as plain numbers instead of goog.math.Long instances.
+   */
+  public NormalizeLiterals(boolean unboxSmallLongs) {
+    this.unboxSmallLongs = unboxSmallLongs;
+  }
 
   @Override
-  public void applyTo(CompilationUnit compilationUnit) {
-    compilationUnit.accept(
-        new AbstractRewriter() {
-          @Override
-          public Expression rewriteNumberLiteral(NumberLiteral numberLiteral) {
-            if (TypeDescriptors.isPrimitiveLong(numberLiteral.getTypeDescriptor())) {
-              long longValue = numberLiteral.getValue().longValue();
-              int intValue = numberLiteral.getValue().intValue();
+  AbstractRewriter createRewriter() {
+    return new AbstractRewriter() {
+      @Override
+      public Expression rewriteNumberLiteral(NumberLiteral numberLiteral) {
+        if (TypeDescriptors.isPrimitiveLong(numberLiteral.getTypeDescriptor())) {
+          long longValue = numberLiteral.getValue().longValue();
+          int intValue = numberLiteral.getValue().intValue();
 
-              if (longValue == intValue) {
-                return RuntimeMethods.createNativeLongMethodCall(
-                    "fromInt", NumberLiteral.fromInt(intValue));
-              } else {
-                long lowOrderBits = longValue << 32 >> 32;
-                long highOrderBits = longValue >> 32;
-                return RuntimeMethods.createNativeLongMethodCall(
-                        "fromBits",
-                        NumberLiteral.fromInt((int) lowOrderBits),
-                        NumberLiteral.fromInt((int) highOrderBits))
-                    .withComment(String.valueOf(longValue));
-              }
-            } else if (TypeDescriptors.isPrimitiveChar(numberLiteral.getTypeDescriptor())) {
-              return numberLiteral.withComment(
-                  "'" + J2clUtils.escapeJavaChar((char) numberLiteral.getValue().intValue()) + "'");
-            } else {
-              return numberLiteral;
+          if (unboxSmallLongs
+              && longValue >= -MAX_SAFE_INTEGER
+              && longValue <= MAX_SAFE_INTEGER) {
+            if (longValue == intValue) {
+              return RuntimeMethods.createLongUtilsMethodCall(
+                  "$fromSafeInteger", NumberLiteral.fromInt(intValue));
             }
+            return RuntimeMethods.createLongUtilsMethodCall(
+                    "$fromSafeInteger", new NumberLiteral(PrimitiveTypes.DOUBLE, longValue))
+                .withComment(String.valueOf(longValue));
+          } else if (longValue == intValue) {
+            return RuntimeMethods.createNativeLongMethodCall(
+                "fromInt", NumberLiteral.fromInt(intValue));
+          } else {
+            long lowOrderBits = longValue << 32 >> 32;
+            long highOrderBits = longValue >> 32;
+            return RuntimeMethods.createNativeLongMethodCall(
+                    "fromBits",
+                    NumberLiteral.fromInt((int) lowOrderBits),
+                    NumberLiteral.fromInt((int) highOrderBits))
+                .withComment(String.valueOf(longValue));
           }
-        });
+        } else if (TypeDescriptors.isPrimitiveChar(numberLiteral.getTypeDescriptor())) {
+          return numberLiteral.withComment(
+              "'" + J2clUtils.escapeJavaChar((char) numberLiteral.getValue().intValue()) + "'");
+        } else {
+          return numberLiteral;
+        }
+      }
+    };
   }
 }
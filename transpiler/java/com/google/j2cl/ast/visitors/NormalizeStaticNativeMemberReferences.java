@@ -19,7 +19,6 @@ import static com.google.common.base.Preconditions.checkArgument;
 
 import com.google.j2cl.ast.AbstractRewriter;
 import com.google.j2cl.ast.AstUtils;
-import com.google.j2cl.ast.CompilationUnit;
 import com.google.j2cl.ast.FieldAccess;
 import com.google.j2cl.ast.FieldDescriptor;
 import com.google.j2cl.ast.JavaScriptConstructorReference;
@@ -42,50 +41,47 @@ import com.google.j2cl.ast.Node;
  * <p>A.abs() really refers to Javascript built-in Math.abs(). This pass replaces all method calls
  * to A.abs() with Math.abs().
  */
-public class NormalizeStaticNativeMemberReferences extends NormalizationPass {
+public class NormalizeStaticNativeMemberReferences extends LocalNormalizationPass {
   @Override
-  public void applyTo(CompilationUnit compilationUnit) {
-    compilationUnit.accept(
-        new AbstractRewriter() {
-          @Override
-          public Node rewriteFieldAccess(FieldAccess fieldAccess) {
-            FieldDescriptor fieldDescriptor = fieldAccess.getTarget();
-            if (!fieldDescriptor.isStatic()
-                || !fieldDescriptor.isNative()
-                || !fieldDescriptor.hasJsNamespace()) {
-              return fieldAccess;
-            }
+  AbstractRewriter createRewriter() {
+    return new AbstractRewriter() {
+      @Override
+      public Node rewriteFieldAccess(FieldAccess fieldAccess) {
+        FieldDescriptor fieldDescriptor = fieldAccess.getTarget();
+        if (!fieldDescriptor.isStatic()
+            || !fieldDescriptor.isNative()
+            || !fieldDescriptor.hasJsNamespace()) {
+          return fieldAccess;
+        }
 
-            // A.abs -> Math.abs.
-            FieldDescriptor newFieldDescriptor =
-                FieldDescriptor.Builder.from(fieldDescriptor)
-                    .setEnclosingTypeDescriptor(
-                        AstUtils.getNamespaceAsTypeDescriptor(fieldDescriptor))
-                    .build();
-            checkArgument(fieldAccess.getQualifier() instanceof JavaScriptConstructorReference);
-            return FieldAccess.Builder.from(newFieldDescriptor).build();
-          }
+        // A.abs -> Math.abs.
+        FieldDescriptor newFieldDescriptor =
+            FieldDescriptor.Builder.from(fieldDescriptor)
+                .setEnclosingTypeDescriptor(AstUtils.getNamespaceAsTypeDescriptor(fieldDescriptor))
+                .build();
+        checkArgument(fieldAccess.getQualifier() instanceof JavaScriptConstructorReference);
+        return FieldAccess.Builder.from(newFieldDescriptor).build();
+      }
 
-          @Override
-          public Node rewriteMethodCall(MethodCall methodCall) {
-            MethodDescriptor methodDescriptor = methodCall.getTarget();
-            if (!methodDescriptor.isStatic()
-                || !methodDescriptor.isNative()
-                || !methodDescriptor.hasJsNamespace()) {
-              return methodCall;
-            }
-            // A.abs() -> Math.abs().
-            MethodDescriptor newMethodDescriptor =
-                MethodDescriptor.Builder.from(methodDescriptor)
-                    .setEnclosingTypeDescriptor(
-                        AstUtils.getNamespaceAsTypeDescriptor(methodDescriptor))
-                    .build();
-            checkArgument(methodCall.getQualifier() instanceof JavaScriptConstructorReference);
-            return MethodCall.Builder.from(newMethodDescriptor)
-                .setArguments(methodCall.getArguments())
+      @Override
+      public Node rewriteMethodCall(MethodCall methodCall) {
+        MethodDescriptor methodDescriptor = methodCall.getTarget();
+        if (!methodDescriptor.isStatic()
+            || !methodDescriptor.isNative()
+            || !methodDescriptor.hasJsNamespace()) {
+          return methodCall;
+        }
+        // A.abs() -> Math.abs().
+        MethodDescriptor newMethodDescriptor =
+            MethodDescriptor.Builder.from(methodDescriptor)
+                .setEnclosingTypeDescriptor(AstUtils.getNamespaceAsTypeDescriptor(methodDescriptor))
                 .build();
-          }
-        });
+        checkArgument(methodCall.getQualifier() instanceof JavaScriptConstructorReference);
+        return MethodCall.Builder.from(newMethodDescriptor)
+            .setArguments(methodCall.getArguments())
+            .build();
+      }
+    };
   }
 
 }
@@ -16,20 +16,33 @@
 package com.google.j2cl.bazel;
 
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Splitter;
 import com.google.common.collect.Iterables;
+import com.google.common.io.BaseEncoding;
+import com.google.common.io.FileWriteMode;
 import com.google.common.io.Files;
+import com.google.devtools.build.lib.worker.WorkerProtocol.Input;
 import com.google.devtools.build.lib.worker.WorkerProtocol.WorkRequest;
 import com.google.devtools.build.lib.worker.WorkerProtocol.WorkResponse;
+import com.google.j2cl.common.CompilationScope;
+import com.google.j2cl.common.InputDigests;
 import com.google.j2cl.common.Problems;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 import org.kohsuke.args4j.CmdLineException;
 import org.kohsuke.args4j.CmdLineParser;
@@ -38,10 +51,26 @@ import org.kohsuke.args4j.CmdLineParser;
  * A base class for running processes as blaze workers. Used for both the transpiler
  * and @GwtIncompatible stripper tool.
  *
+ * <p>Persistent workers also support multiplexing: requests with a request id run concurrently in
+ * the same JVM, so they share its warmed up code and caches.
+ *
  * <p>Partially adapted from {@code com.google.devtools.build.buildjar.BazelJavaBuilder}.
  */
 public abstract class BazelWorker {
 
+  /** The maximum number of multiplexed requests that are processed at the same time. */
+  private static final int MAX_CONCURRENT_REQUESTS =
+      Integer.getInteger(
+          "j2cl.worker.maxConcurrentRequests", Runtime.getRuntime().availableProcessors());
+
+  /**
+   * Where to append a line of JSON with the metrics of each request (see {@link RequestMetrics}),
+   * if anywhere.
+   */
+  private static final String WORKER_LOG = System.getProperty("j2cl.worker.log");
+
+  private static final AtomicInteger requestsInFlight = new AtomicInteger();
+
   protected abstract Problems run();
 
   /**
@@ -63,13 +92,25 @@ public abstract class BazelWorker {
       return run();
     } catch (Problems.Exit e) {
       return e.getProblems();
+    } finally {
+      // Releases the resources held for the request, e.g. its open source jars.
+      CompilationScope.current().close();
     }
   }
 
   public static final void start(String[] args, Supplier<BazelWorker> workerSupplier)
       throws Exception {
     if (args.length == 1 && args[0].equals("--persistent_worker")) {
-      runPersistentWorker(workerSupplier);
+      GcPolicy gcPolicy;
+      try {
+        gcPolicy = GcPolicy.fromSystemProperties();
+      } catch (IllegalArgumentException e) {
+        // Bazel shows the error output of a worker that fails to start.
+        System.err.println(e.getMessage());
+        System.exit(1);
+        return;
+      }
+      runPersistentWorker(workerSupplier, System.in, System.out, MAX_CONCURRENT_REQUESTS, gcPolicy);
     } else {
       runStandaloneWorker(workerSupplier, expandFlagFile(args));
     }
@@ -82,29 +123,135 @@ public abstract class BazelWorker {
     System.exit(exitCode);
   }
 
-  private static void runPersistentWorker(Supplier<BazelWorker> workerSupplier) throws IOException {
+  @VisibleForTesting
+  static void runPersistentWorker(
+      Supplier<BazelWorker> workerSupplier,
+      InputStream input,
+      PrintStream output,
+      int maxConcurrentRequests,
+      GcPolicy gcPolicy)
+      throws IOException, InterruptedException {
+    // Multiplexed requests run concurrently, sharing the caches of the worker. The threads are only
+    // started once Bazel sends the first one.
+    ExecutorService multiplexExecutorService = null;
     while (true) {
-      WorkRequest request = WorkRequest.parseDelimitedFrom(System.in);
+      WorkRequest request = WorkRequest.parseDelimitedFrom(input);
 
       if (request == null) {
         break;
       }
 
+      recordInputDigests(request);
+      requestsInFlight.incrementAndGet();
+
+      if (request.getRequestId() == 0) {
+        handleRequest(workerSupplier, request, output, gcPolicy);
+        continue;
+      }
+
+      if (multiplexExecutorService == null) {
+        multiplexExecutorService = Executors.newFixedThreadPool(maxConcurrentRequests);
+      }
+      multiplexExecutorService.execute(
+          () -> handleRequest(workerSupplier, request, output, gcPolicy));
+    }
+
+    if (multiplexExecutorService != null) {
+      // Let the requests in flight finish and respond before exiting.
+      multiplexExecutorService.shutdown();
+      multiplexExecutorService.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private static void handleRequest(
+      Supplier<BazelWorker> workerSupplier,
+      WorkRequest request,
+      PrintStream output,
+      GcPolicy gcPolicy) {
+    RequestMetrics metrics = new RequestMetrics(request.getRequestId());
+    WorkResponse response =
+        request.getRequestId() == 0
+            ? processRequest(workerSupplier, request)
+            : processMultiplexRequest(workerSupplier, request);
+    writeResponse(response, output);
+    metrics.stop(response.getExitCode());
+
+    // After a compile completes lots of objects should be available for collection, which makes it
+    // a good time to run a gc; but a full collection on a large heap is not cheap, so it is up to
+    // the policy.
+    boolean isIdle = requestsInFlight.decrementAndGet() == 0;
+    if (gcPolicy.shouldCollect(metrics.getUsedHeapBytes(), metrics.getMaxHeapBytes(), isIdle)) {
+      metrics.collectGarbage();
+    }
+    log(metrics);
+  }
+
+  private static WorkResponse processRequest(
+      Supplier<BazelWorker> workerSupplier, WorkRequest request) {
+    StringWriter sw = new StringWriter();
+    PrintWriter pw = new PrintWriter(sw);
+    String[] args = request.getArgumentsList().toArray(new String[0]);
+    int exitCode = workerSupplier.get().processRequest(args).reportAndGetExitCode(pw);
+    return WorkResponse.newBuilder()
+        .setOutput(sw.toString())
+        .setExitCode(exitCode)
+        .setRequestId(request.getRequestId())
+        .build();
+  }
+
+  private static WorkResponse processMultiplexRequest(
+      Supplier<BazelWorker> workerSupplier, WorkRequest request) {
+    try {
+      return processRequest(workerSupplier, request);
+    } catch (RuntimeException | Error e) {
+      // A crash would otherwise leave Bazel waiting forever for the response, since the worker
+      // keeps running the other requests.
       StringWriter sw = new StringWriter();
-      PrintWriter pw = new PrintWriter(sw);
-      String[] args = request.getArgumentsList().toArray(new String[0]);
-      int exitCode = workerSupplier.get().processRequest(args).reportAndGetExitCode(pw);
-      WorkResponse.newBuilder()
+      e.printStackTrace(new PrintWriter(sw));
+      return WorkResponse.newBuilder()
           .setOutput(sw.toString())
-          .setExitCode(exitCode)
-          .build()
-          .writeDelimitedTo(System.out);
-      System.out.flush();
-
-      // Hint to the system that now would be a good time to run a gc.  After a compile
-      // completes lots of objects should be available for collection and it should be cheap to
-      // collect them.
-      System.gc();
+          .setExitCode(1)
+          .setRequestId(request.getRequestId())
+          .build();
+    }
+  }
+
+  private static void writeResponse(WorkResponse response, PrintStream output) {
+    // Responses of concurrent requests must not interleave.
+    synchronized (output) {
+      try {
+        response.writeDelimitedTo(output);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      output.flush();
+    }
+  }
+
+  /** Appends the metrics of a request to the worker log, if enabled. */
+  private static synchronized void log(RequestMetrics metrics) {
+    if (WORKER_LOG == null) {
+      return;
+    }
+    try {
+      Files.asCharSink(new File(WORKER_LOG), StandardCharsets.UTF_8, FileWriteMode.APPEND)
+          .write(metrics.toJson() + System.lineSeparator());
+    } catch (IOException e) {
+      // The log is just informative; stderr ends up in Bazel's log for the worker.
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Records the digests of the inputs of the request, which allow information derived from inputs
+   * that did not change to be reused by subsequent requests.
+   */
+  private static void recordInputDigests(WorkRequest request) {
+    for (Input input : request.getInputsList()) {
+      if (!input.getDigest().isEmpty()) {
+        String digest = BaseEncoding.base16().lowerCase().encode(input.getDigest().toByteArray());
+        InputDigests.record(input.getPath(), digest);
+      }
     }
   }
 
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.j2cl.bazel;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ascii;
+import com.google.common.base.Enums;
+import com.google.common.primitives.Doubles;
+import com.google.common.primitives.Ints;
+import java.util.Properties;
+
+/**
+ * Decides whether a persistent worker should collect garbage between requests.
+ *
+ * <p>After a request completes most of what it allocated is garbage, which makes it a good time to
+ * collect it; but a full collection on a large heap takes long enough to noticeably delay the
+ * build. By default the worker only collects once the heap is mostly full or after a number of
+ * requests, leaving the rest to the regular collections of the JVM.
+ *
+ * <p>The policy is configured with {@code -Dj2cl.worker.gc=never|always|adaptive}, and the adaptive
+ * policy with {@code -Dj2cl.worker.gcHeapOccupancy} (the fraction of the maximum heap in use after
+ * a request that triggers a collection) and {@code -Dj2cl.worker.gcRequestInterval} (the number of
+ * requests after which a collection is triggered regardless, 0 to disable).
+ */
+final class GcPolicy {
+
+  enum Mode {
+    NEVER,
+    ALWAYS,
+    ADAPTIVE
+  }
+
+  /** Returns the policy configured by the system properties. */
+  static GcPolicy fromSystemProperties() {
+    return fromProperties(System.getProperties());
+  }
+
+  /**
+   * Returns the policy configured by {@code properties}.
+   *
+   * @throws IllegalArgumentException if a property has an invalid value
+   */
+  @VisibleForTesting
+  static GcPolicy fromProperties(Properties properties) {
+    String modeValue = properties.getProperty("j2cl.worker.gc", "adaptive");
+    Mode mode = Enums.getIfPresent(Mode.class, Ascii.toUpperCase(modeValue)).orNull();
+    checkArgument(
+        mode != null,
+        "Invalid j2cl.worker.gc '%s', expected never, always or adaptive.",
+        modeValue);
+
+    String heapOccupancyValue = properties.getProperty("j2cl.worker.gcHeapOccupancy", "0.75");
+    Double heapOccupancy = Doubles.tryParse(heapOccupancyValue);
+    checkArgument(
+        heapOccupancy != null && heapOccupancy >= 0 && heapOccupancy <= 1,
+        "Invalid j2cl.worker.gcHeapOccupancy '%s', expected a fraction between 0 and 1.",
+        heapOccupancyValue);
+
+    String requestIntervalValue = properties.getProperty("j2cl.worker.gcRequestInterval", "50");
+    Integer requestInterval = Ints.tryParse(requestIntervalValue);
+    checkArgument(
+        requestInterval != null && requestInterval >= 0,
+        "Invalid j2cl.worker.gcRequestInterval '%s', expected a number of requests or 0.",
+        requestIntervalValue);
+
+    return new GcPolicy(mode, heapOccupancy, requestInterval);
+  }
+
+  private final Mode mode;
+  private final double heapOccupancyThreshold;
+  private final int requestInterval;
+  private int requestsSinceLastCollection = 0;
+
+  GcPolicy(Mode mode, double heapOccupancyThreshold, int requestInterval) {
+    this.mode = mode;
+    this.heapOccupancyThreshold = heapOccupancyThreshold;
+    this.requestInterval = requestInterval;
+  }
+
+  /**
+   * Records the completion of a request and returns whether garbage should be collected now, given
+   * the heap usage after the request. Garbage is only collected when no other request is running,
+   * since a collection would pause it.
+   */
+  synchronized boolean shouldCollect(long usedHeapBytes, long maxHeapBytes, boolean isIdle) {
+    requestsSinceLastCollection++;
+    if (!isIdle) {
+      return false;
+    }
+    boolean shouldCollect;
+    switch (mode) {
+      case NEVER:
+        shouldCollect = false;
+        break;
+      case ALWAYS:
+        shouldCollect = true;
+        break;
+      case ADAPTIVE:
+        shouldCollect =
+            (maxHeapBytes > 0 && usedHeapBytes > heapOccupancyThreshold * maxHeapBytes)
+                || (requestInterval > 0 && requestsSinceLastCollection >= requestInterval);
+        break;
+      default:
+        throw new AssertionError(mode);
+    }
+    if (shouldCollect) {
+      requestsSinceLastCollection = 0;
+    }
+    return shouldCollect;
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.j2cl.bazel;
+
+import com.google.gson.JsonObject;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+
+/**
+ * Measures the duration, heap usage and garbage collection time of a worker request.
+ *
+ * <p>Garbage collections are process wide; when requests run concurrently the collections during a
+ * request are shared with the others in flight.
+ */
+final class RequestMetrics {
+
+  private static final MemoryMXBean memoryMxBean = ManagementFactory.getMemoryMXBean();
+
+  private final int requestId;
+  private final long startNanos = System.nanoTime();
+  private final long startUsedHeapBytes = getHeapUsage().getUsed();
+  private final long startGcCount = getGcCount();
+  private final long startGcMillis = getGcMillis();
+
+  private long durationNanos;
+  private long usedHeapBytes;
+  private long maxHeapBytes;
+  private long gcCount;
+  private long gcMillis;
+  private int exitCode;
+  private long explicitGcNanos = -1;
+  private long usedHeapBytesAfterExplicitGc;
+
+  /** Starts measuring a request. */
+  RequestMetrics(int requestId) {
+    this.requestId = requestId;
+  }
+
+  /** Finishes measuring the request. */
+  void stop(int exitCode) {
+    this.durationNanos = System.nanoTime() - startNanos;
+    MemoryUsage heapUsage = getHeapUsage();
+    this.usedHeapBytes = heapUsage.getUsed();
+    this.maxHeapBytes = heapUsage.getMax();
+    this.gcCount = getGcCount() - startGcCount;
+    this.gcMillis = getGcMillis() - startGcMillis;
+    this.exitCode = exitCode;
+  }
+
+  long getUsedHeapBytes() {
+    return usedHeapBytes;
+  }
+
+  long getMaxHeapBytes() {
+    return maxHeapBytes;
+  }
+
+  /** Collects garbage, recording how long it took and how much heap remains in use. */
+  void collectGarbage() {
+    long gcStartNanos = System.nanoTime();
+    System.gc();
+    this.explicitGcNanos = System.nanoTime() - gcStartNanos;
+    this.usedHeapBytesAfterExplicitGc = getHeapUsage().getUsed();
+  }
+
+  JsonObject toJson() {
+    JsonObject json = new JsonObject();
+    json.addProperty("requestId", requestId);
+    json.addProperty("exitCode", exitCode);
+    json.addProperty("durationMillis", durationNanos / 1_000_000);
+    json.addProperty("startUsedHeapBytes", startUsedHeapBytes);
+    json.addProperty("usedHeapBytes", usedHeapBytes);
+    json.addProperty("maxHeapBytes", maxHeapBytes);
+    json.addProperty("gcCount", gcCount);
+    json.addProperty("gcMillis", gcMillis);
+    if (explicitGcNanos >= 0) {
+      json.addProperty("explicitGcMillis", explicitGcNanos / 1_000_000);
+      json.addProperty("usedHeapBytesAfterExplicitGc", usedHeapBytesAfterExplicitGc);
+    }
+    return json;
+  }
+
+  private static MemoryUsage getHeapUsage() {
+    return memoryMxBean.getHeapMemoryUsage();
+  }
+
+  private static long getGcCount() {
+    long count = 0;
+    for (GarbageCollectorMXBean gcMxBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+      count += Math.max(0, gcMxBean.getCollectionCount());
+    }
+    return count;
+  }
+
+  private static long getGcMillis() {
+    long millis = 0;
+    for (GarbageCollectorMXBean gcMxBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+      millis += Math.max(0, gcMxBean.getCollectionTime());
+    }
+    return millis;
+  }
+}
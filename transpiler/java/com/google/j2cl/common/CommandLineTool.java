@@ -58,6 +58,9 @@ public abstract class CommandLineTool {
       return run();
     } catch (Problems.Exit e) {
       return e.getProblems();
+    } finally {
+      // Releases the resources held for the request, e.g. its open source jars.
+      CompilationScope.current().close();
     }
   }
 
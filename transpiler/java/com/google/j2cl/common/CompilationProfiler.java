@@ -0,0 +1,233 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.j2cl.common;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Measures the wall time, cpu time and allocated bytes spent in the different parts of a
+ * compilation.
+ *
+ * <p>Profiling is opt-in; unless it is enabled for the current compilation all measurements are
+ * no-ops. Phases are the coarse grained parts of the compilation (e.g. parsing) and are recorded
+ * individually, whereas steps (e.g. a normalization pass on a compilation unit) are only recorded
+ * as aggregates by name across all units and threads.
+ *
+ * <p>Cpu time and allocations are those of the measuring thread, hence they exclude the work that
+ * a phase hands to other threads; that work is accounted for in the steps it is made of.
+ */
+public final class CompilationProfiler {
+
+  private static final CompilationScope.Local<CompilationProfiler> profiler =
+      new CompilationScope.Local<>();
+
+  private static final CompilationProfiler DISABLED = new CompilationProfiler(false);
+
+  private static final Measurement NO_OP_MEASUREMENT = DISABLED.new Measurement(null, false);
+
+  /** Enables profiling for the current compilation. */
+  public static void enable() {
+    profiler.set(new CompilationProfiler(true));
+  }
+
+  /** Returns the profiler for the current compilation. */
+  public static CompilationProfiler get() {
+    CompilationProfiler compilationProfiler = profiler.get();
+    return compilationProfiler != null ? compilationProfiler : DISABLED;
+  }
+
+  private final boolean enabled;
+  private final ThreadMXBean threadMxBean = ManagementFactory.getThreadMXBean();
+  private final long originNanos = System.nanoTime();
+  private final Map<String, Aggregate> aggregateByName = new ConcurrentHashMap<>();
+  private final List<JsonObject> traceEvents = new ArrayList<>();
+
+  private CompilationProfiler(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public <T> T phase(String name, Supplier<T> phase) {
+    try (Measurement measurement = startPhase(name)) {
+      return phase.get();
+    }
+  }
+
+  public void phase(String name, Runnable phase) {
+    try (Measurement measurement = startPhase(name)) {
+      phase.run();
+    }
+  }
+
+  public <T> T step(String name, Supplier<T> step) {
+    try (Measurement measurement = startStep(name)) {
+      return step.get();
+    }
+  }
+
+  public void step(String name, Runnable step) {
+    try (Measurement measurement = startStep(name)) {
+      step.run();
+    }
+  }
+
+  /** Starts measuring a phase, which ends when the returned measurement is closed. */
+  public Measurement startPhase(String name) {
+    return enabled ? new Measurement(name, true) : NO_OP_MEASUREMENT;
+  }
+
+  /** Starts measuring a step, which ends when the returned measurement is closed. */
+  public Measurement startStep(String name) {
+    return enabled ? new Measurement(name, false) : NO_OP_MEASUREMENT;
+  }
+
+  /** An ongoing measurement. */
+  public final class Measurement implements AutoCloseable {
+    private final String name;
+    private final boolean isPhase;
+    private final long startNanos;
+    private final long startCpuNanos;
+    private final long startAllocatedBytes;
+
+    private Measurement(String name, boolean isPhase) {
+      this.name = name;
+      this.isPhase = isPhase;
+      this.startNanos = enabled ? System.nanoTime() : 0;
+      this.startCpuNanos = enabled ? getCurrentThreadCpuNanos() : 0;
+      this.startAllocatedBytes = enabled ? getCurrentThreadAllocatedBytes() : 0;
+    }
+
+    @Override
+    public void close() {
+      if (!enabled) {
+        return;
+      }
+      long wallNanos = System.nanoTime() - startNanos;
+      long cpuNanos = getCurrentThreadCpuNanos() - startCpuNanos;
+      long allocatedBytes = getCurrentThreadAllocatedBytes() - startAllocatedBytes;
+      aggregateByName
+          .computeIfAbsent(name, Aggregate::new)
+          .add(wallNanos, cpuNanos, allocatedBytes);
+      if (isPhase) {
+        recordTraceEvent(name, startNanos, wallNanos, cpuNanos, allocatedBytes);
+      }
+    }
+  }
+
+  private void recordTraceEvent(
+      String name, long startNanos, long wallNanos, long cpuNanos, long allocatedBytes) {
+    JsonObject args = new JsonObject();
+    args.addProperty("cpuMicros", cpuNanos / 1000);
+    args.addProperty("allocatedBytes", allocatedBytes);
+
+    // A "complete" event, see the Trace Event Format specification.
+    JsonObject event = new JsonObject();
+    event.addProperty("name", name);
+    event.addProperty("cat", "j2cl");
+    event.addProperty("ph", "X");
+    event.addProperty("ts", (startNanos - originNanos) / 1000);
+    event.addProperty("dur", wallNanos / 1000);
+    event.addProperty("pid", 1);
+    event.addProperty("tid", Thread.currentThread().getId());
+    event.add("args", args);
+    synchronized (traceEvents) {
+      traceEvents.add(event);
+    }
+  }
+
+  private long getCurrentThreadCpuNanos() {
+    return threadMxBean.isCurrentThreadCpuTimeSupported()
+        ? threadMxBean.getCurrentThreadCpuTime()
+        : 0;
+  }
+
+  private long getCurrentThreadAllocatedBytes() {
+    if (!(threadMxBean instanceof com.sun.management.ThreadMXBean)) {
+      return 0;
+    }
+    return ((com.sun.management.ThreadMXBean) threadMxBean)
+        .getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  /**
+   * Returns the measurements in the Chrome trace event format; phases form the timeline and the
+   * aggregates, sorted by descending wall time, are included in the trace metadata.
+   */
+  public String toJson() {
+    JsonArray events = new JsonArray();
+    synchronized (traceEvents) {
+      traceEvents.forEach(events::add);
+    }
+
+    JsonArray aggregates = new JsonArray();
+    aggregateByName.values().stream()
+        .sorted(Comparator.comparingLong((Aggregate a) -> a.wallNanos).reversed())
+        .map(Aggregate::toJson)
+        .forEach(aggregates::add);
+
+    JsonObject otherData = new JsonObject();
+    otherData.add("aggregates", aggregates);
+
+    JsonObject trace = new JsonObject();
+    trace.add("traceEvents", events);
+    trace.addProperty("displayTimeUnit", "ms");
+    trace.add("otherData", otherData);
+    return new GsonBuilder().setPrettyPrinting().create().toJson(trace);
+  }
+
+  /** The accumulated measurements for all the phases or steps with the same name. */
+  private static class Aggregate {
+    private final String name;
+    private long count;
+    private long wallNanos;
+    private long cpuNanos;
+    private long allocatedBytes;
+
+    Aggregate(String name) {
+      this.name = name;
+    }
+
+    synchronized void add(long wallNanos, long cpuNanos, long allocatedBytes) {
+      this.count++;
+      this.wallNanos += wallNanos;
+      this.cpuNanos += cpuNanos;
+      this.allocatedBytes += allocatedBytes;
+    }
+
+    synchronized JsonObject toJson() {
+      JsonObject aggregate = new JsonObject();
+      aggregate.addProperty("name", name);
+      aggregate.addProperty("count", count);
+      aggregate.addProperty("wallMicros", wallNanos / 1000);
+      aggregate.addProperty("cpuMicros", cpuNanos / 1000);
+      aggregate.addProperty("allocatedBytes", allocatedBytes);
+      return aggregate;
+    }
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.j2cl.common;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.MapMaker;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Identifies the state that is global to a single compilation, e.g. interners and well known type
+ * descriptors.
+ *
+ * <p>Each thread starts in a scope of its own, so compilations that run on different threads are
+ * isolated from each other. Tasks that are handed to worker threads as part of a compilation run in
+ * the scope of the thread that created them (see {@link #wrap}) and hence share its state.
+ */
+public final class CompilationScope {
+
+  private static final ThreadLocal<CompilationScope> currentScope =
+      ThreadLocal.withInitial(CompilationScope::new);
+
+  /** Returns the scope of the current thread. */
+  public static CompilationScope current() {
+    return currentScope.get();
+  }
+
+  private final List<Runnable> closeTasks = new ArrayList<>();
+
+  private CompilationScope() {}
+
+  /** Returns a task that runs {@code task} in this scope, regardless of the executing thread. */
+  public <V> Callable<V> wrap(Callable<V> task) {
+    return () -> {
+      CompilationScope previousScope = currentScope.get();
+      currentScope.set(this);
+      try {
+        return task.call();
+      } finally {
+        currentScope.set(previousScope);
+      }
+    };
+  }
+
+  /**
+   * Registers a task that runs when the compilation in this scope completes, e.g. to give back
+   * resources that are needed for its whole duration.
+   */
+  public synchronized void onClose(Runnable task) {
+    closeTasks.add(checkNotNull(task));
+  }
+
+  /**
+   * Marks the compilation in this scope as complete, running the tasks registered by {@link
+   * #onClose} in the reverse order of their registration.
+   */
+  public void close() {
+    List<Runnable> tasks;
+    synchronized (this) {
+      tasks = new ArrayList<>(closeTasks);
+      closeTasks.clear();
+    }
+    Lists.reverse(tasks).forEach(Runnable::run);
+  }
+
+  /**
+   * A variable that holds a value per compilation scope.
+   *
+   * <p>It is the analogous of a {@link ThreadLocal} but the value is shared by all the threads that
+   * run in the same scope, hence it needs to be safe to access concurrently.
+   */
+  public static final class Local<T> {
+    // Scopes are compared by identity and are released with the last thread or task referencing
+    // them, which in turn releases the values they hold.
+    private final ConcurrentMap<CompilationScope, T> valueByScope =
+        new MapMaker().weakKeys().makeMap();
+
+    private final Supplier<? extends T> initialValueSupplier;
+
+    public static <T> Local<T> withInitial(Supplier<? extends T> initialValueSupplier) {
+      return new Local<>(initialValueSupplier);
+    }
+
+    public Local() {
+      this(() -> null);
+    }
+
+    private Local(Supplier<? extends T> initialValueSupplier) {
+      this.initialValueSupplier = checkNotNull(initialValueSupplier);
+    }
+
+    public T get() {
+      CompilationScope scope = current();
+      T value = valueByScope.get(scope);
+      if (value != null) {
+        return value;
+      }
+      T initialValue = initialValueSupplier.get();
+      if (initialValue == null) {
+        return null;
+      }
+      // Threads in the same scope might race to initialize the value, all of them observe the
+      // first one that is stored.
+      T existingValue = valueByScope.putIfAbsent(scope, initialValue);
+      return existingValue != null ? existingValue : initialValue;
+    }
+
+    public void set(T value) {
+      valueByScope.put(current(), checkNotNull(value));
+    }
+
+    public void remove() {
+      valueByScope.remove(current());
+    }
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.j2cl.common;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/** Utilities to process the independent parts of a compilation concurrently. */
+public class ConcurrencyUtils {
+
+  /**
+   * Applies {@code function} to each of the {@code inputs} using up to {@code threadCount} threads
+   * and returns the results in the order of the inputs.
+   *
+   * <p>The function runs in the {@link CompilationScope} of the caller, so it observes the same
+   * interners and well known descriptors. If the function fails, the failure corresponding to the
+   * earliest input is rethrown as is, which matches the behavior of a sequential run.
+   */
+  public static <T, R> List<R> map(
+      List<T> inputs, int threadCount, Function<? super T, ? extends R> function) {
+    if (threadCount <= 1 || inputs.size() <= 1) {
+      List<R> results = new ArrayList<>(inputs.size());
+      for (T input : inputs) {
+        results.add(function.apply(input));
+      }
+      return results;
+    }
+
+    CompilationScope scope = CompilationScope.current();
+    ExecutorService executorService =
+        Executors.newFixedThreadPool(Math.min(threadCount, inputs.size()));
+    try {
+      List<Future<R>> futures = new ArrayList<>(inputs.size());
+      for (T input : inputs) {
+        futures.add(executorService.submit(scope.wrap(() -> function.apply(input))));
+      }
+      List<R> results = new ArrayList<>(inputs.size());
+      for (Future<R> future : futures) {
+        results.add(getDone(future));
+      }
+      return results;
+    } finally {
+      // Cancel the pending tasks if any of them failed, and release the threads.
+      executorService.shutdownNow();
+    }
+  }
+
+  /** Like {@link #map} but for functions that do not produce a result. */
+  public static <T> void forEach(List<T> inputs, int threadCount, Consumer<? super T> consumer) {
+    map(
+        inputs,
+        threadCount,
+        input -> {
+          consumer.accept(input);
+          return null;
+        });
+  }
+
+  /**
+   * Applies {@code function} to each of the {@code inputs} using up to {@code threadCount} threads
+   * and hands the results to {@code consumer} in the order of the inputs.
+   *
+   * <p>The consumer runs on the calling thread as soon as the next result in order is available,
+   * while later inputs are still being processed. The number of results waiting to be consumed is
+   * bounded so that they are not all retained at once.
+   */
+  public static <T, R> void forEachOrdered(
+      List<T> inputs,
+      int threadCount,
+      Function<? super T, ? extends R> function,
+      Consumer<? super R> consumer) {
+    if (threadCount <= 1) {
+      for (T input : inputs) {
+        consumer.accept(function.apply(input));
+      }
+      return;
+    }
+
+    CompilationScope scope = CompilationScope.current();
+    ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+    try {
+      Deque<Future<R>> pendingResults = new ArrayDeque<>();
+      Iterator<T> iterator = inputs.iterator();
+      while (iterator.hasNext() || !pendingResults.isEmpty()) {
+        // Keep all the threads busy while the oldest result is consumed.
+        while (iterator.hasNext() && pendingResults.size() < 2 * threadCount) {
+          T input = iterator.next();
+          pendingResults.add(executorService.submit(scope.wrap(() -> function.apply(input))));
+        }
+        consumer.accept(getDone(pendingResults.remove()));
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  private static <R> R getDone(Future<R> future) {
+    try {
+      return Uninterruptibles.getUninterruptibly(future);
+    } catch (ExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new InternalCompilerError(e.getCause(), "Unexpected failure in a concurrent task.");
+    }
+  }
+
+  private ConcurrencyUtils() {}
+}
@@ -15,21 +15,25 @@
  */
 package com.google.j2cl.common;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
 import com.google.auto.value.AutoValue;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteSource;
+import com.google.common.io.MoreFiles;
 import com.google.j2cl.common.Problems.FatalError;
-import java.io.File;
 import java.io.IOException;
-import java.net.URI;
-import java.nio.file.FileSystem;
-import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import javax.annotation.Nullable;
 
 /**
  * This class contains reusable utilities for tools needing to read from zip files and write from
@@ -41,64 +45,120 @@ public class FrontendUtils {
   @AutoValue
   public abstract static class FileInfo implements Comparable<FileInfo> {
 
-    private static FileInfo create(String sourcePath, String originalPath) {
-      return create(sourcePath, originalPath, originalPath);
+    private static FileInfo create(String sourcePath, String originalPath, String targetPath) {
+      return new AutoValue_FrontendUtils_FileInfo(sourcePath, originalPath, targetPath, null);
     }
 
-    private static FileInfo create(String sourcePath, String originalPath, String targetPath) {
-      return new AutoValue_FrontendUtils_FileInfo(sourcePath, originalPath, targetPath);
+    private static FileInfo createInJar(SourceJar sourceJar, String entryName) {
+      return new AutoValue_FrontendUtils_FileInfo(
+          sourceJar.path + "!/" + entryName, entryName, entryName, sourceJar);
     }
 
+    /**
+     * The path of the file, or for entries of source jars the path of the jar followed by {@code
+     * !/} and the name of the entry, in which case there is no such file on disk.
+     */
     public abstract String sourcePath();
 
     public abstract String originalPath();
 
     public abstract String targetPath();
 
+    /** The jar the file is an entry of, or null for regular files. */
+    @Nullable
+    abstract SourceJar sourceJar();
+
+    /** Returns whether the file is an entry of a source jar rather than a file on disk. */
+    public boolean isInJar() {
+      return sourceJar() != null;
+    }
+
+    /** Returns the contents of the file, which are read in place for entries of source jars. */
+    public ByteSource asByteSource() {
+      return isInJar()
+          ? sourceJar().asByteSource(originalPath())
+          : MoreFiles.asByteSource(Paths.get(sourcePath()));
+    }
+
     @Override
     public int compareTo(FileInfo o) {
       return targetPath().compareTo(o.targetPath());
     }
   }
 
-  /** Returns all individual sources where source jars extracted and flattened. */
+  /**
+   * An open source jar whose entries are read in place.
+   *
+   * <p>The jar stays open until the compilation scope that opened it is closed (see {@link
+   * CompilationScope#onClose}). Keeping it open lets all the reads share its index, i.e. its parsed
+   * central directory, instead of reading it again for each entry.
+   */
+  static final class SourceJar {
+    private final String path;
+    private final ZipFile zipFile;
+
+    private SourceJar(String path) throws IOException {
+      this.path = path;
+      this.zipFile = new ZipFile(path);
+    }
+
+    private ByteSource asByteSource(String entryName) {
+      return ZipFiles.asByteSource(zipFile, checkNotNull(zipFile.getEntry(entryName)));
+    }
+
+    private void close() {
+      try {
+        zipFile.close();
+      } catch (IOException e) {
+        // The jar is only read, so failing to close it does not affect the compilation.
+      }
+    }
+  }
+
+  /**
+   * Returns all individual sources where source jars are flattened.
+   *
+   * <p>The source jars are kept open until the current compilation scope is closed.
+   */
   public static Stream<FileInfo> getAllSources(List<String> sources, Problems problems) {
-    // Make sure to extract all of the Jars into a single temp dir so that when later sorting
-    // sourceFilePaths there is no instability introduced by differences in randomly generated
-    // temp dir prefixes.
-    Path sourcesDir;
-    try {
-      sourcesDir = Files.createTempDirectory("j2cl_sources");
-    } catch (IOException e) {
-      problems.fatal(FatalError.CANNOT_CREATE_TEMP_DIR, e.getMessage());
-      return null;
+    // Entries of source jars are not extracted but read in place, except by the JDT frontend which
+    // only parses files on disk and hence writes the Java sources it parses to a temporary
+    // directory. As when they used to be extracted to a single directory, an entry shadows the
+    // entries with the same name in the jars that precede it.
+    Map<String, FileInfo> jarEntriesByName = new LinkedHashMap<>();
+    ImmutableList.Builder<FileInfo> files = ImmutableList.builder();
+    for (String source : sources) {
+      if (source.endsWith("jar") || source.endsWith("zip")) {
+        for (FileInfo jarEntry : getJarEntries(source, problems)) {
+          jarEntriesByName.put(jarEntry.originalPath(), jarEntry);
+        }
+      } else {
+        files.add(FileInfo.create(source, source, getJavaPath(source)));
+      }
     }
 
     // Sort source file paths so that our input is always in a stable order. If this is not done
     // and you can't trust the input to have been provided already in a stable order then the result
     // is that you will create an output Foo.js.zip with randomly ordered entries, and this will
     // cause unstable optimization in JSCompiler.
-    return sources
-        .stream()
-        .flatMap(
-            f ->
-                f.endsWith("jar") || f.endsWith("zip")
-                    ? extractZip(f, sourcesDir, problems).stream()
-                    : Stream.of(FileInfo.create(f, f, getJavaPath(f))))
+    return Stream.concat(files.build().stream(), jarEntriesByName.values().stream())
         .sorted()
         .distinct();
   }
 
-  private static ImmutableList<FileInfo> extractZip(
-      String zipPath, Path sourcesDir, Problems problems) {
+  private static ImmutableList<FileInfo> getJarEntries(String zipPath, Problems problems) {
     try {
-      ZipFiles.unzipFile(new File(zipPath), sourcesDir.toFile());
-      try (Stream<Path> stream = Files.walk(sourcesDir)) {
-        return stream
-            .filter(Files::isRegularFile)
-            .map(p -> FileInfo.create(p.toString(), sourcesDir.relativize(p).toString()))
-            .collect(ImmutableList.toImmutableList());
+      SourceJar sourceJar = new SourceJar(zipPath);
+      CompilationScope.current().onClose(sourceJar::close);
+      ImmutableList.Builder<FileInfo> jarEntries = ImmutableList.builder();
+      for (ZipEntry entry : ZipFiles.entries(sourceJar.zipFile)) {
+        if (entry.isDirectory()) {
+          continue;
+        }
+        ZipFiles.checkName(entry.getName());
+        jarEntries.add(FileInfo.createInJar(sourceJar, entry.getName()));
       }
+      return jarEntries.build();
     } catch (IOException e) {
       problems.fatal(FatalError.CANNOT_EXTRACT_ZIP, zipPath);
       return null;
@@ -130,25 +190,6 @@ public class FrontendUtils {
     return index == -1 ? path.length() : index + rootPath.length();
   }
 
-  public static FileSystem initZipOutput(String output, Problems problems) {
-    Path outputPath = Paths.get(output);
-    if (Files.isDirectory(outputPath)) {
-      problems.fatal(FatalError.OUTPUT_LOCATION, outputPath);
-    }
-
-    // Ensures that we will not fail if the zip already exists.
-    outputPath.toFile().delete();
-
-    try {
-      return FileSystems.newFileSystem(
-          URI.create("jar:" + outputPath.toAbsolutePath().toUri()),
-          ImmutableMap.of("create", "true"));
-    } catch (IOException e) {
-      problems.fatal(FatalError.CANNOT_CREATE_ZIP, outputPath, e.getMessage());
-      return null;
-    }
-  }
-
   public static void checkSourceFiles(List<String> sourceFiles, String... validExtensions) {
     for (String sourceFile : sourceFiles) {
       if (Arrays.stream(validExtensions).noneMatch(x -> sourceFile.endsWith(x))) {
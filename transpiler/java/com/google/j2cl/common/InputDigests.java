@@ -0,0 +1,64 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.j2cl.common;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Identifies the content of input files, so that the information derived from them can be reused
+ * by the compilations that run in the same process, e.g. in a persistent Bazel worker, for as long
+ * as the files do not change.
+ *
+ * <p>The build system may provide the digests of the inputs of each compilation; files without a
+ * known digest are identified by their path, size and modification time instead.
+ */
+public final class InputDigests {
+
+  private static final Map<Path, String> digestByPath = new ConcurrentHashMap<>();
+
+  /** Records the digest of an input, which replaces any digest previously known for it. */
+  public static void record(String path, String digest) {
+    digestByPath.put(normalize(Paths.get(path)), digest);
+  }
+
+  /** Returns a key that changes whenever the content of the file changes. */
+  public static String getContentKey(Path path) throws IOException {
+    Path normalizedPath = normalize(path);
+    String digest = digestByPath.get(normalizedPath);
+    if (digest != null) {
+      return "digest:" + digest;
+    }
+    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+    return "stamp:"
+        + normalizedPath
+        + ":"
+        + attributes.size()
+        + ":"
+        + attributes.lastModifiedTime().toMillis();
+  }
+
+  private static Path normalize(Path path) {
+    return path.toAbsolutePath().normalize();
+  }
+
+  private InputDigests() {}
+}
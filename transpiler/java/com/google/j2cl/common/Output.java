@@ -0,0 +1,107 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.j2cl.common;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.io.ByteSource;
+import com.google.common.primitives.Bytes;
+import com.google.j2cl.common.Problems.FatalError;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The destination of the files generated by a tool, which is either a directory or a zip file.
+ *
+ * <p>Files are identified by their path relative to the root of the output. The output needs to be
+ * closed once all the files are written.
+ */
+public abstract class Output {
+
+  private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(UTF_8);
+
+  /** Returns an output that writes the files into {@code directory}. */
+  public static Output directory(Path directory) {
+    return new DirectoryOutput(directory);
+  }
+
+  /**
+   * Returns an output that writes the files to a new zip file at {@code zipPath}, which replaces
+   * any existing file. Up to {@code threadCount} threads are used to compress the files.
+   *
+   * <p>The files are compressed as chosen by {@code -Dj2cl.zipOutputCompression}, which is either
+   * {@code stored} or {@code deflated} (the default).
+   */
+  public static Output zip(Path zipPath, int threadCount, Problems problems) {
+    if (Files.isDirectory(zipPath)) {
+      problems.fatal(FatalError.OUTPUT_LOCATION, zipPath);
+    }
+    String compressionName = System.getProperty("j2cl.zipOutputCompression", "deflated");
+    ZipOutput.Compression compression = ZipOutput.Compression.forName(compressionName);
+    if (compression == null) {
+      problems.fatal(
+          FatalError.CANNOT_CREATE_ZIP,
+          zipPath,
+          "unknown j2cl.zipOutputCompression '" + compressionName + "'");
+    }
+    try {
+      return new ZipOutput(zipPath, compression, threadCount);
+    } catch (IOException e) {
+      problems.fatal(FatalError.CANNOT_CREATE_ZIP, zipPath, e.getMessage());
+      return null;
+    }
+  }
+
+  /** Writes a text file, terminating its content with a line separator. */
+  public void write(String path, String content, Problems problems) {
+    write(path, Bytes.concat(content.getBytes(UTF_8), LINE_SEPARATOR), problems);
+  }
+
+  /** Writes a file. */
+  public abstract void write(String path, byte[] content, Problems problems);
+
+  /** Writes a file with the content of {@code source}, e.g. an input file. */
+  public void copy(ByteSource source, String path, Problems problems) {
+    byte[] content;
+    try {
+      content = source.read();
+    } catch (IOException e) {
+      problems.fatal(FatalError.CANNOT_COPY_FILE, e.toString());
+      return;
+    }
+    write(path, content, problems);
+  }
+
+  /** Finishes writing the output. */
+  public abstract void close(Problems problems);
+
+  private static final class DirectoryOutput extends Output {
+    private final Path directory;
+
+    private DirectoryOutput(Path directory) {
+      this.directory = directory;
+    }
+
+    @Override
+    public void write(String path, byte[] content, Problems problems) {
+      J2clUtils.writeToFile(directory.resolve(path), content, problems);
+    }
+
+    @Override
+    public void close(Problems problems) {}
+  }
+}
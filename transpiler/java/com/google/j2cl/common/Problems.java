@@ -19,6 +19,7 @@ import static com.google.common.base.Preconditions.checkArgument;
 
 import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Multimaps;
 import com.google.errorprone.annotations.FormatMethod;
 import com.google.errorprone.annotations.FormatString;
 import java.io.PrintStream;
@@ -89,7 +90,9 @@ public class Problems {
     }
   }
 
-  private final Multimap<Severity, String> problemsBySeverity = LinkedHashMultimap.create();
+  // Problems might be reported concurrently from the threads that process the compilation units.
+  private final Multimap<Severity, String> problemsBySeverity =
+      Multimaps.synchronizedMultimap(LinkedHashMultimap.create());
 
   public void fatal(FatalError fatalError, Object... args) {
     checkArgument(fatalError.getNumberOfArguments() == args.length);
@@ -167,17 +170,19 @@ public class Problems {
 
   /** Prints all problems to provided output and returns the exit code. */
   public int reportAndGetExitCode(PrintWriter output) {
-    for (Map.Entry<Severity, String> severityMessagePair : problemsBySeverity.entries()) {
-      output.println(severityMessagePair.getValue());
+    synchronized (problemsBySeverity) {
+      for (Map.Entry<Severity, String> severityMessagePair : problemsBySeverity.entries()) {
+        output.println(severityMessagePair.getValue());
+      }
+      if (hasErrors() || hasWarnings()) {
+        output.printf(
+            "%d error(s), %d warning(s).\n",
+            problemsBySeverity.get(Severity.ERROR).size(),
+            problemsBySeverity.get(Severity.WARNING).size());
+      }
+
+      return hasErrors() ? 1 : 0;
     }
-    if (hasErrors() || hasWarnings()) {
-      output.printf(
-          "%d error(s), %d warning(s).\n",
-          problemsBySeverity.get(Severity.ERROR).size(),
-          problemsBySeverity.get(Severity.WARNING).size());
-    }
-
-    return hasErrors() ? 1 : 0;
   }
 
   public boolean hasWarnings() {
@@ -223,12 +228,14 @@ public class Problems {
   }
 
   private List<String> getMessages(Collection<Severity> severities) {
-    return problemsBySeverity
-        .entries()
-        .stream()
-        .filter(e -> severities.contains(e.getKey()))
-        .map(Map.Entry::getValue)
-        .collect(Collectors.toList());
+    synchronized (problemsBySeverity) {
+      return problemsBySeverity
+          .entries()
+          .stream()
+          .filter(e -> severities.contains(e.getKey()))
+          .map(Map.Entry::getValue)
+          .collect(Collectors.toList());
+    }
   }
 
   /**
@@ -18,12 +18,17 @@ package com.google.j2cl.common;
 import com.google.common.collect.Interner;
 import com.google.common.collect.Interners;
 
-/** An interner that provides per thread isolation. */
+/**
+ * An interner that provides per compilation isolation.
+ *
+ * <p>Threads that run in the same {@link CompilationScope} share the underlying interner, which is
+ * safe to use concurrently.
+ */
 // TODO(rlubble): This class should extend com.google.common.collect.Interner<T> but that class
 // is marked @GwtIncompatible.
 public class ThreadLocalInterner<T> {
-  private final ThreadLocal<Interner<T>> interner =
-      ThreadLocal.withInitial(Interners::newStrongInterner);
+  private final CompilationScope.Local<Interner<T>> interner =
+      CompilationScope.Local.withInitial(Interners::newStrongInterner);
 
   public T intern(T t) {
     return interner.get().intern(t);
@@ -16,13 +16,12 @@
 
 package com.google.j2cl.common;
 
-import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import com.google.common.base.Optional;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.Iterators;
 import com.google.common.io.ByteSource;
-import com.google.common.io.Files;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -50,40 +49,14 @@ final class ZipFiles {
     }
 
     @Override
-    public String toString() {
-      return "ZipFiles.asByteSource(" + file + ", " + entry + ")";
+    public Optional<Long> sizeIfKnown() {
+      // Lets the contents be read into a buffer of the right size.
+      return entry.getSize() == -1 ? Optional.absent() : Optional.of(entry.getSize());
     }
-  }
 
-  public static void unzipFile(File zipFile, File targetDirectory) throws IOException {
-    checkNotNull(zipFile);
-    checkNotNull(targetDirectory);
-    checkArgument(
-        targetDirectory.isDirectory(),
-        "%s is not a valid directory",
-        targetDirectory.getAbsolutePath());
-    final ZipFile zipFileObj = new ZipFile(zipFile);
-    try {
-      for (ZipEntry entry : entries(zipFileObj)) {
-        checkName(entry.getName());
-        File targetFile = new File(targetDirectory, entry.getName());
-        if (entry.isDirectory()) {
-          if (!targetFile.isDirectory() && !targetFile.mkdirs()) {
-            throw new IOException("Failed to create directory: " + targetFile.getAbsolutePath());
-          }
-        } else {
-          File parentFile = targetFile.getParentFile();
-          if (!parentFile.isDirectory()) {
-            if (!parentFile.mkdirs()) {
-              throw new IOException("Failed to create directory: " + parentFile.getAbsolutePath());
-            }
-          }
-          // Write the file to the destination.
-          asByteSource(zipFileObj, entry).copyTo(Files.asByteSink(targetFile));
-        }
-      }
-    } finally {
-      zipFileObj.close();
+    @Override
+    public String toString() {
+      return "ZipFiles.asByteSource(" + file + ", " + entry + ")";
     }
   }
 
@@ -91,7 +64,7 @@ final class ZipFiles {
    * Returns a new {@link ByteSource} for reading the contents of the given entry in the given zip
    * file.
    */
-  private static ByteSource asByteSource(ZipFile file, ZipEntry entry) {
+  static ByteSource asByteSource(ZipFile file, ZipEntry entry) {
     return new ZipEntryByteSource(file, entry);
   }
 
@@ -115,7 +88,7 @@ final class ZipFiles {
    *
    * @throws IOException if the name is illegal
    */
-  private static void checkName(String name) throws IOException {
+  static void checkName(String name) throws IOException {
     // First just check whether the entry name string contains "..".
     // This should weed out the the vast majority of entries, which will not
     // contain "..".
@@ -0,0 +1,319 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.j2cl.common;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Ascii;
+import com.google.common.base.Enums;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.google.j2cl.common.Problems.FatalError;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a zip file by appending the entries to it as they are written.
+ *
+ * <p>Unlike the zip file system, entries are not buffered until the file is closed and no entries
+ * are created for directories. Entries appear in the order in which they are written and have a
+ * fixed timestamp, so the zip only depends on its contents.
+ *
+ * <p>Entries are either stored or deflated, as chosen by {@code -Dj2cl.zipOutputCompression}
+ * ({@code stored} suits local builds where the zip is read right away, {@code deflated}, the
+ * default, suits remote builds where it is transferred). Deflating happens on a pool of threads
+ * while the entries are still appended in order.
+ *
+ * <p>Since the entries are appended as they are written, each path can only be written once.
+ */
+final class ZipOutput extends Output {
+
+  /** The way entries are compressed. */
+  enum Compression {
+    STORED,
+    DEFLATED;
+
+    /** Returns the compression named {@code name}, if there is one. */
+    static Compression forName(String name) {
+      return Enums.getIfPresent(Compression.class, Ascii.toUpperCase(name)).orNull();
+    }
+  }
+
+  private static final int LOCAL_FILE_HEADER_SIGNATURE = 0x04034b50;
+  private static final int CENTRAL_DIRECTORY_HEADER_SIGNATURE = 0x02014b50;
+  private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06064b50;
+  private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE = 0x07064b50;
+  private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+  private static final short ZIP64_EXTRA_FIELD_ID = 0x0001;
+
+  private static final short VERSION = 20;
+  private static final short ZIP64_VERSION = 45;
+  private static final short UTF_8_NAMES_FLAG = 1 << 11;
+  private static final short METHOD_STORED = 0;
+  private static final short METHOD_DEFLATED = 8;
+  // 1980-01-01 00:00, the earliest date that can be represented.
+  private static final short DOS_TIME = 0;
+  private static final short DOS_DATE = (1 << 5) | 1;
+
+  private static final long MAX_UNSIGNED_INT = 0xFFFFFFFFL;
+  private static final int MAX_UNSIGNED_SHORT = 0xFFFF;
+
+  private static final ThreadLocal<Deflater> deflater =
+      ThreadLocal.withInitial(() -> new Deflater(Deflater.DEFAULT_COMPRESSION, /* nowrap= */ true));
+
+  private final Path zipPath;
+  private final Compression compression;
+  private final OutputStream outputStream;
+  private long offset = 0;
+  private final Set<String> paths = new HashSet<>();
+  private final List<Entry> entries = new ArrayList<>();
+
+  // Entries that are being compressed on other threads, in the order they were written.
+  private final Deque<Future<Entry>> pendingEntries = new ArrayDeque<>();
+  private final ExecutorService executorService;
+  private final int maxPendingEntryCount;
+
+  ZipOutput(Path zipPath, Compression compression, int threadCount) throws IOException {
+    this.zipPath = zipPath;
+    this.compression = compression;
+    // Replaces any existing file.
+    this.outputStream = new BufferedOutputStream(Files.newOutputStream(zipPath), 1 << 16);
+    if (compression == Compression.DEFLATED && threadCount > 1) {
+      this.executorService =
+          Executors.newFixedThreadPool(
+              threadCount, new ThreadFactoryBuilder().setDaemon(true).build());
+      this.maxPendingEntryCount = 2 * threadCount;
+    } else {
+      this.executorService = null;
+      this.maxPendingEntryCount = 0;
+    }
+  }
+
+  @Override
+  public synchronized void write(String path, byte[] content, Problems problems) {
+    if (!paths.add(path)) {
+      // The previous entry has already been appended and cannot be replaced.
+      problems.error("Cannot write '%s' more than once to zip '%s'.", path, zipPath);
+      return;
+    }
+    try {
+      if (executorService == null) {
+        writeEntry(createEntry(path, content));
+        return;
+      }
+      pendingEntries.add(executorService.submit(() -> createEntry(path, content)));
+      // Keep all the threads busy while appending the entries that are ready, in order.
+      while (!pendingEntries.isEmpty()
+          && (pendingEntries.peek().isDone() || pendingEntries.size() > maxPendingEntryCount)) {
+        writeEntry(getDone(pendingEntries.remove()));
+      }
+    } catch (IOException e) {
+      problems.fatal(FatalError.CANNOT_WRITE_FILE, e.toString());
+    }
+  }
+
+  @Override
+  public synchronized void close(Problems problems) {
+    try {
+      while (!pendingEntries.isEmpty()) {
+        writeEntry(getDone(pendingEntries.remove()));
+      }
+      writeCentralDirectory();
+      outputStream.close();
+    } catch (IOException e) {
+      problems.fatal(FatalError.CANNOT_CLOSE_ZIP, zipPath + ": " + e.getMessage());
+    } finally {
+      if (executorService != null) {
+        executorService.shutdownNow();
+      }
+    }
+  }
+
+  /** An entry, which is compressed but not yet written when created. */
+  private static final class Entry {
+    private final String name;
+    private final byte[] encodedName;
+    private final short method;
+    private final int crc;
+    private final int size;
+    private byte[] data;
+    private int compressedSize;
+    private long localHeaderOffset;
+
+    private Entry(String name, short method, int crc, int size, byte[] data, int compressedSize) {
+      this.name = name;
+      this.encodedName = name.getBytes(UTF_8);
+      this.method = method;
+      this.crc = crc;
+      this.size = size;
+      this.data = data;
+      this.compressedSize = compressedSize;
+    }
+  }
+
+  private Entry createEntry(String name, byte[] content) {
+    CRC32 crc32 = new CRC32();
+    crc32.update(content);
+    int crc = (int) crc32.getValue();
+
+    if (compression == Compression.DEFLATED) {
+      Deflater deflater = ZipOutput.deflater.get();
+      deflater.reset();
+      deflater.setInput(content);
+      deflater.finish();
+      // Content that does not shrink is stored instead.
+      byte[] data = new byte[content.length];
+      int compressedSize = 0;
+      while (!deflater.finished() && compressedSize < data.length) {
+        compressedSize += deflater.deflate(data, compressedSize, data.length - compressedSize);
+      }
+      if (deflater.finished() && compressedSize < content.length) {
+        return new Entry(name, METHOD_DEFLATED, crc, content.length, data, compressedSize);
+      }
+    }
+    return new Entry(name, METHOD_STORED, crc, content.length, content, content.length);
+  }
+
+  private void writeEntry(Entry entry) throws IOException {
+    entry.localHeaderOffset = offset;
+    ByteBuffer header = newBuffer(30 + entry.encodedName.length);
+    header.putInt(LOCAL_FILE_HEADER_SIGNATURE);
+    header.putShort(VERSION);
+    header.putShort(UTF_8_NAMES_FLAG);
+    header.putShort(entry.method);
+    header.putShort(DOS_TIME);
+    header.putShort(DOS_DATE);
+    header.putInt(entry.crc);
+    header.putInt(entry.compressedSize);
+    header.putInt(entry.size);
+    header.putShort((short) entry.encodedName.length);
+    header.putShort((short) 0);
+    header.put(entry.encodedName);
+    write(header);
+    outputStream.write(entry.data, 0, entry.compressedSize);
+    offset += entry.compressedSize;
+    // Only the metadata is needed from now on.
+    entry.data = null;
+    entries.add(entry);
+  }
+
+  private void writeCentralDirectory() throws IOException {
+    long centralDirectoryOffset = offset;
+    for (Entry entry : entries) {
+      boolean needsZip64 = entry.localHeaderOffset >= MAX_UNSIGNED_INT;
+      int extraLength = needsZip64 ? 12 : 0;
+      ByteBuffer header = newBuffer(46 + entry.encodedName.length + extraLength);
+      header.putInt(CENTRAL_DIRECTORY_HEADER_SIGNATURE);
+      header.putShort(needsZip64 ? ZIP64_VERSION : VERSION);
+      header.putShort(needsZip64 ? ZIP64_VERSION : VERSION);
+      header.putShort(UTF_8_NAMES_FLAG);
+      header.putShort(entry.method);
+      header.putShort(DOS_TIME);
+      header.putShort(DOS_DATE);
+      header.putInt(entry.crc);
+      header.putInt(entry.compressedSize);
+      header.putInt(entry.size);
+      header.putShort((short) entry.encodedName.length);
+      header.putShort((short) extraLength);
+      header.putShort((short) 0); // comment length
+      header.putShort((short) 0); // disk number
+      header.putShort((short) 0); // internal attributes
+      header.putInt(0); // external attributes
+      header.putInt((int) (needsZip64 ? MAX_UNSIGNED_INT : entry.localHeaderOffset));
+      header.put(entry.encodedName);
+      if (needsZip64) {
+        header.putShort(ZIP64_EXTRA_FIELD_ID);
+        header.putShort((short) 8);
+        header.putLong(entry.localHeaderOffset);
+      }
+      write(header);
+    }
+    long centralDirectorySize = offset - centralDirectoryOffset;
+    int entryCount = entries.size();
+
+    boolean needsZip64 =
+        entryCount >= MAX_UNSIGNED_SHORT
+            || centralDirectoryOffset >= MAX_UNSIGNED_INT
+            || centralDirectorySize >= MAX_UNSIGNED_INT;
+    if (needsZip64) {
+      long zip64EndOfCentralDirectoryOffset = offset;
+      ByteBuffer zip64EndOfCentralDirectory = newBuffer(56 + 20);
+      zip64EndOfCentralDirectory.putInt(ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+      zip64EndOfCentralDirectory.putLong(44); // size of the rest of the record
+      zip64EndOfCentralDirectory.putShort(ZIP64_VERSION);
+      zip64EndOfCentralDirectory.putShort(ZIP64_VERSION);
+      zip64EndOfCentralDirectory.putInt(0); // disk number
+      zip64EndOfCentralDirectory.putInt(0); // disk with the central directory
+      zip64EndOfCentralDirectory.putLong(entryCount); // entries on this disk
+      zip64EndOfCentralDirectory.putLong(entryCount);
+      zip64EndOfCentralDirectory.putLong(centralDirectorySize);
+      zip64EndOfCentralDirectory.putLong(centralDirectoryOffset);
+      zip64EndOfCentralDirectory.putInt(ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE);
+      zip64EndOfCentralDirectory.putInt(0); // disk with the zip64 end of central directory
+      zip64EndOfCentralDirectory.putLong(zip64EndOfCentralDirectoryOffset);
+      zip64EndOfCentralDirectory.putInt(1); // number of disks
+      write(zip64EndOfCentralDirectory);
+    }
+
+    ByteBuffer endOfCentralDirectory = newBuffer(22);
+    endOfCentralDirectory.putInt(END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+    endOfCentralDirectory.putShort((short) 0); // disk number
+    endOfCentralDirectory.putShort((short) 0); // disk with the central directory
+    short shortEntryCount = (short) Math.min(entryCount, MAX_UNSIGNED_SHORT);
+    endOfCentralDirectory.putShort(shortEntryCount); // entries on this disk
+    endOfCentralDirectory.putShort(shortEntryCount);
+    endOfCentralDirectory.putInt((int) Math.min(centralDirectorySize, MAX_UNSIGNED_INT));
+    endOfCentralDirectory.putInt((int) Math.min(centralDirectoryOffset, MAX_UNSIGNED_INT));
+    endOfCentralDirectory.putShort((short) 0); // comment length
+    write(endOfCentralDirectory);
+  }
+
+  private static ByteBuffer newBuffer(int size) {
+    return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  private void write(ByteBuffer buffer) throws IOException {
+    outputStream.write(buffer.array(), 0, buffer.position());
+    offset += buffer.position();
+  }
+
+  private static Entry getDone(Future<Entry> future) {
+    try {
+      return Uninterruptibles.getUninterruptibly(future);
+    } catch (ExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new InternalCompilerError(e.getCause(), "Unexpected failure compressing a zip entry.");
+    }
+  }
+}
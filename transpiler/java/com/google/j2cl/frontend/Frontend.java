@@ -16,8 +16,10 @@
 package com.google.j2cl.frontend;
 
 import com.google.j2cl.ast.CompilationUnit;
+import com.google.j2cl.common.CompilationProfiler;
 import com.google.j2cl.common.FrontendUtils.FileInfo;
 import com.google.j2cl.common.Problems;
+import com.google.j2cl.frontend.common.ClasspathJarCache;
 import com.google.j2cl.frontend.common.PackageInfoCache;
 import com.google.j2cl.frontend.javac.JavacParser;
 import com.google.j2cl.frontend.jdt.CompilationUnitBuilder;
@@ -33,9 +35,11 @@ public enum Frontend {
         List<String> classPath,
         List<FileInfo> sources,
         boolean useTargetClassPath,
+        int threadCount,
         Problems problems) {
       CompilationUnitsAndTypeBindings jdtUnitsAndResolvedBindings =
-          createJdtUnitsAndResolveBindings(classPath, sources, useTargetClassPath, problems);
+          createJdtUnitsAndResolveBindings(
+              classPath, sources, useTargetClassPath, threadCount, problems);
       return convertUnits(jdtUnitsAndResolvedBindings, classPath, problems);
     }
 
@@ -44,17 +48,23 @@ public enum Frontend {
         List<String> classPath,
         Problems problems) {
       init(classPath, problems);
-      return CompilationUnitBuilder.build(compilationUnitsAndTypeBindings);
+      return CompilationProfiler.get()
+          .phase(
+              "CompilationUnitBuilder.build",
+              () -> CompilationUnitBuilder.build(compilationUnitsAndTypeBindings));
     }
 
     private CompilationUnitsAndTypeBindings createJdtUnitsAndResolveBindings(
         List<String> classPath,
         List<FileInfo> sources,
         boolean useTargetClassPath,
+        int threadCount,
         Problems problems) {
-      JdtParser parser = new JdtParser(classPath, problems);
+      ClasspathJarCache.retain(classPath);
+      JdtParser parser = new JdtParser(classPath, threadCount, problems);
       CompilationUnitsAndTypeBindings compilationUnitsAndTypeBindings =
-          parser.parseFiles(sources, useTargetClassPath);
+          CompilationProfiler.get()
+              .phase("JdtParser.parseFiles", () -> parser.parseFiles(sources, useTargetClassPath));
       problems.abortIfHasErrors();
       return compilationUnitsAndTypeBindings;
     }
@@ -65,16 +75,22 @@ public enum Frontend {
         List<String> classPath,
         List<FileInfo> sources,
         boolean useTargetClassPath,
+        int threadCount,
         Problems problems) {
       init(classPath, problems);
       return new JavacParser(classPath, problems).parseFiles(sources, useTargetClassPath);
     }
   };
 
+  /**
+   * Returns the units for {@code sources}, using up to {@code threadCount} threads if the frontend
+   * supports it.
+   */
   public abstract List<CompilationUnit> getCompilationUnits(
       List<String> classPath,
       List<FileInfo> sources,
       boolean useTargetClassPath,
+      int threadCount,
       Problems problems);
 
   private static void init(List<String> classPath, Problems problems) {
@@ -0,0 +1,410 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.j2cl.frontend.common;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+import com.google.common.base.Joiner;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+import com.google.j2cl.common.InputDigests;
+import com.google.j2cl.common.Problems;
+import com.google.j2cl.common.Problems.FatalError;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import javax.annotation.Nullable;
+import jsinterop.annotations.JsPackage;
+
+/**
+ * An index of the packages provided by the class path entries of a compilation, which tells where
+ * a type comes from and what the package-info class of its package declares, without loading any
+ * class.
+ *
+ * <p>Jars are indexed from their central directory and only the package-info classes are read. The
+ * index of a jar only depends on its content, hence it is shared by all the compilations that run
+ * in the same process for as long as the jar digest stays the same (see {@link InputDigests}).
+ */
+final class ClasspathIndex {
+
+  private static final long MAX_WEIGHT = Long.getLong("j2cl.classpathIndex.maxWeight", 4_000_000);
+
+  private static final Cache<String, EntryIndex> entryIndexByContentKey =
+      CacheBuilder.newBuilder()
+          .maximumWeight(MAX_WEIGHT)
+          .weigher((String contentKey, EntryIndex entryIndex) -> entryIndex.weight)
+          .build();
+
+  private static final String JS_PACKAGE_DESCRIPTOR =
+      "L" + JsPackage.class.getName().replace('.', '/') + ";";
+
+  private static final String PACKAGE_INFO_CLASS = "package-info.class";
+  private static final String CLASS_SUFFIX = ".class";
+
+  /** Returns the index of {@code classPathEntries}, reusing the indexes of unchanged jars. */
+  static ClasspathIndex create(List<String> classPathEntries, Problems problems) {
+    Map<String, EntryIndex> entryIndexByClassPathEntry = new LinkedHashMap<>();
+    for (String classPathEntry : classPathEntries) {
+      if (!entryIndexByClassPathEntry.containsKey(classPathEntry)) {
+        entryIndexByClassPathEntry.put(classPathEntry, getEntryIndex(classPathEntry, problems));
+      }
+    }
+    return new ClasspathIndex(entryIndexByClassPathEntry);
+  }
+
+  private final Map<String, EntryIndex> entryIndexByClassPathEntry;
+
+  private ClasspathIndex(Map<String, EntryIndex> entryIndexByClassPathEntry) {
+    this.entryIndexByClassPathEntry = entryIndexByClassPathEntry;
+  }
+
+  /**
+   * Returns the first class path entry that provides the class file for the given type, which must
+   * be a top level type and referenced by fully qualified source name.
+   */
+  @Nullable
+  String findOriginClassPathEntry(String topLevelTypeSourceName) {
+    int lastDotIndex = topLevelTypeSourceName.lastIndexOf('.');
+    String packagePath =
+        lastDotIndex == -1 ? "" : topLevelTypeSourceName.substring(0, lastDotIndex);
+    String simpleName = topLevelTypeSourceName.substring(lastDotIndex + 1);
+
+    for (Map.Entry<String, EntryIndex> entry : entryIndexByClassPathEntry.entrySet()) {
+      PackageIndex packageIndex = entry.getValue().packageIndexByPath.get(packagePath);
+      if (packageIndex != null && packageIndex.containsClass(simpleName)) {
+        return entry.getKey();
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the namespace declared by {@code @JsPackage} in the package-info class of the package
+   * in the class path entry, if any.
+   */
+  @Nullable
+  String getJsNamespace(String classPathEntry, String packagePath) {
+    EntryIndex entryIndex = entryIndexByClassPathEntry.get(classPathEntry);
+    PackageIndex packageIndex =
+        entryIndex == null ? null : entryIndex.packageIndexByPath.get(packagePath);
+    return packageIndex == null ? null : packageIndex.jsNamespace;
+  }
+
+  /** What is known about the packages provided by a class path entry. */
+  private static final class EntryIndex {
+    private static final EntryIndex EMPTY = new EntryIndex(ImmutableMap.of());
+
+    private final ImmutableMap<String, PackageIndex> packageIndexByPath;
+    private final int weight;
+
+    private EntryIndex(ImmutableMap<String, PackageIndex> packageIndexByPath) {
+      this.packageIndexByPath = packageIndexByPath;
+      this.weight =
+          packageIndexByPath.size()
+              + packageIndexByPath.values().stream().mapToInt(p -> p.classNames.length).sum();
+    }
+  }
+
+  /** What is known about a package in a class path entry. */
+  private static final class PackageIndex {
+    /** The sorted names of the class files in the package, without the class suffix. */
+    private final String[] classNames;
+
+    @Nullable private final String jsNamespace;
+
+    private PackageIndex(String[] classNames, @Nullable String jsNamespace) {
+      this.classNames = classNames;
+      this.jsNamespace = jsNamespace;
+    }
+
+    private boolean containsClass(String simpleName) {
+      return Arrays.binarySearch(classNames, simpleName) >= 0;
+    }
+  }
+
+  private static EntryIndex getEntryIndex(String classPathEntry, Problems problems) {
+    Path path = Paths.get(classPathEntry);
+    if (Files.isDirectory(path)) {
+      // Directories are not cached, there is no cheap way of knowing whether they changed.
+      return indexDirectory(path, problems);
+    }
+
+    String contentKey;
+    try {
+      contentKey = InputDigests.getContentKey(path);
+    } catch (IOException e) {
+      // Missing entries are reported by the frontend.
+      return EntryIndex.EMPTY;
+    }
+    EntryIndex entryIndex = entryIndexByContentKey.getIfPresent(contentKey);
+    if (entryIndex == null) {
+      // Compilations that run concurrently might index the same jar, either index will do.
+      entryIndex = indexJar(path, problems);
+      entryIndexByContentKey.put(contentKey, entryIndex);
+    }
+    return entryIndex;
+  }
+
+  private static EntryIndex indexJar(Path path, Problems problems) {
+    EntryIndexBuilder builder = new EntryIndexBuilder();
+    try (ZipFile zipFile = new ZipFile(path.toFile())) {
+      for (Enumeration<? extends ZipEntry> entries = zipFile.entries();
+          entries.hasMoreElements(); ) {
+        ZipEntry entry = entries.nextElement();
+        String name = entry.getName();
+        if (entry.isDirectory() || !name.endsWith(CLASS_SUFFIX)) {
+          continue;
+        }
+        String jsNamespace = null;
+        if (isPackageInfo(name)) {
+          try (InputStream inputStream = zipFile.getInputStream(entry)) {
+            jsNamespace = readJsNamespace(ByteStreams.toByteArray(inputStream));
+          } catch (IOException | RuntimeException e) {
+            problems.fatal(FatalError.PACKAGE_INFO_PARSE, path + "!/" + name);
+          }
+        }
+        builder.add(name, jsNamespace);
+      }
+    } catch (IOException e) {
+      // Not a jar, there are no classes that can be found in it.
+      return EntryIndex.EMPTY;
+    }
+    return builder.build();
+  }
+
+  private static EntryIndex indexDirectory(Path path, Problems problems) {
+    List<Path> classFiles;
+    try (Stream<Path> files = Files.walk(path)) {
+      classFiles =
+          files
+              .filter(f -> f.toString().endsWith(CLASS_SUFFIX) && Files.isRegularFile(f))
+              .collect(toImmutableList());
+    } catch (IOException e) {
+      return EntryIndex.EMPTY;
+    }
+
+    EntryIndexBuilder builder = new EntryIndexBuilder();
+    for (Path classFile : classFiles) {
+      String name = Joiner.on('/').join(path.relativize(classFile));
+      String jsNamespace = null;
+      if (isPackageInfo(name)) {
+        try {
+          jsNamespace = readJsNamespace(Files.readAllBytes(classFile));
+        } catch (IOException | RuntimeException e) {
+          problems.fatal(FatalError.PACKAGE_INFO_PARSE, classFile);
+        }
+      }
+      builder.add(name, jsNamespace);
+    }
+    return builder.build();
+  }
+
+  private static boolean isPackageInfo(String classFilePath) {
+    return classFilePath.equals(PACKAGE_INFO_CLASS)
+        || classFilePath.endsWith("/" + PACKAGE_INFO_CLASS);
+  }
+
+  /** Collects the classes of a class path entry, identified by the path of their class files. */
+  private static final class EntryIndexBuilder {
+    private final Map<String, List<String>> classNamesByPackagePath = new HashMap<>();
+    private final Map<String, String> jsNamespaceByPackagePath = new HashMap<>();
+
+    private void add(String classFilePath, @Nullable String jsNamespace) {
+      if (classFilePath.startsWith("META-INF/")) {
+        // Multi-release jars and the like, which are not part of the regular class path.
+        return;
+      }
+      int lastSlashIndex = classFilePath.lastIndexOf('/');
+      String packagePath =
+          lastSlashIndex == -1 ? "" : classFilePath.substring(0, lastSlashIndex).replace('/', '.');
+      String className =
+          classFilePath.substring(
+              lastSlashIndex + 1, classFilePath.length() - CLASS_SUFFIX.length());
+      classNamesByPackagePath.computeIfAbsent(packagePath, p -> new ArrayList<>()).add(className);
+      if (jsNamespace != null) {
+        jsNamespaceByPackagePath.put(packagePath, jsNamespace);
+      }
+    }
+
+    private EntryIndex build() {
+      ImmutableMap.Builder<String, PackageIndex> packageIndexByPath = ImmutableMap.builder();
+      classNamesByPackagePath.forEach(
+          (packagePath, classNames) ->
+              packageIndexByPath.put(
+                  packagePath,
+                  new PackageIndex(
+                      classNames.stream().sorted().distinct().toArray(String[]::new),
+                      jsNamespaceByPackagePath.get(packagePath))));
+      return new EntryIndex(packageIndexByPath.build());
+    }
+  }
+
+  /**
+   * Returns the namespace of the {@code @JsPackage} annotation in a package-info class file, if
+   * any, as described by the JVM specification (chapter 4).
+   */
+  @Nullable
+  static String readJsNamespace(byte[] classFile) throws IOException {
+    DataInputStream input = new DataInputStream(new ByteArrayInputStream(classFile));
+    if (input.readInt() != 0xCAFEBABE) {
+      throw new IOException("Not a class file.");
+    }
+    input.readUnsignedShort(); // minor_version
+    input.readUnsignedShort(); // major_version
+
+    // Only the Utf8 constants are of interest, the others are skipped.
+    int constantPoolCount = input.readUnsignedShort();
+    String[] utf8Constants = new String[constantPoolCount];
+    for (int i = 1; i < constantPoolCount; i++) {
+      int tag = input.readUnsignedByte();
+      switch (tag) {
+        case 1: // Utf8
+          utf8Constants[i] = input.readUTF();
+          break;
+        case 7: // Class
+        case 8: // String
+        case 16: // MethodType
+        case 19: // Module
+        case 20: // Package
+          skip(input, 2);
+          break;
+        case 15: // MethodHandle
+          skip(input, 3);
+          break;
+        case 3: // Integer
+        case 4: // Float
+        case 9: // Fieldref
+        case 10: // Methodref
+        case 11: // InterfaceMethodref
+        case 12: // NameAndType
+        case 17: // Dynamic
+        case 18: // InvokeDynamic
+          skip(input, 4);
+          break;
+        case 5: // Long
+        case 6: // Double
+          skip(input, 8);
+          // These take two entries in the constant pool.
+          i++;
+          break;
+        default:
+          throw new IOException("Unknown constant pool tag " + tag + ".");
+      }
+    }
+
+    skip(input, 6); // access_flags, this_class, super_class
+    skip(input, 2 * input.readUnsignedShort()); // interfaces
+    skipMembers(input); // fields
+    skipMembers(input); // methods
+
+    int attributeCount = input.readUnsignedShort();
+    for (int i = 0; i < attributeCount; i++) {
+      String attributeName = utf8Constants[input.readUnsignedShort()];
+      int attributeLength = input.readInt();
+      if (!"RuntimeVisibleAnnotations".equals(attributeName)
+          && !"RuntimeInvisibleAnnotations".equals(attributeName)) {
+        skip(input, attributeLength);
+        continue;
+      }
+      int annotationCount = input.readUnsignedShort();
+      for (int j = 0; j < annotationCount; j++) {
+        String annotationType = utf8Constants[input.readUnsignedShort()];
+        int elementValuePairCount = input.readUnsignedShort();
+        for (int k = 0; k < elementValuePairCount; k++) {
+          String elementName = utf8Constants[input.readUnsignedShort()];
+          if (JS_PACKAGE_DESCRIPTOR.equals(annotationType) && "namespace".equals(elementName)) {
+            int elementTag = input.readUnsignedByte();
+            if (elementTag != 's') {
+              throw new IOException("Unexpected JsPackage namespace tag " + elementTag + ".");
+            }
+            return utf8Constants[input.readUnsignedShort()];
+          }
+          skipElementValue(input);
+        }
+      }
+    }
+    return null;
+  }
+
+  private static void skipMembers(DataInputStream input) throws IOException {
+    int memberCount = input.readUnsignedShort();
+    for (int i = 0; i < memberCount; i++) {
+      skip(input, 6); // access_flags, name_index, descriptor_index
+      int attributeCount = input.readUnsignedShort();
+      for (int j = 0; j < attributeCount; j++) {
+        skip(input, 2); // attribute_name_index
+        skip(input, input.readInt());
+      }
+    }
+  }
+
+  private static void skipElementValue(DataInputStream input) throws IOException {
+    int tag = input.readUnsignedByte();
+    switch (tag) {
+      case 'B':
+      case 'C':
+      case 'D':
+      case 'F':
+      case 'I':
+      case 'J':
+      case 'S':
+      case 'Z':
+      case 's':
+      case 'c':
+        skip(input, 2);
+        break;
+      case 'e':
+        skip(input, 4);
+        break;
+      case '@':
+        skip(input, 2); // type_index
+        int elementValuePairCount = input.readUnsignedShort();
+        for (int i = 0; i < elementValuePairCount; i++) {
+          skip(input, 2); // element_name_index
+          skipElementValue(input);
+        }
+        break;
+      case '[':
+        int valueCount = input.readUnsignedShort();
+        for (int i = 0; i < valueCount; i++) {
+          skipElementValue(input);
+        }
+        break;
+      default:
+        throw new IOException("Unknown element value tag " + tag + ".");
+    }
+  }
+
+  private static void skip(DataInputStream input, int byteCount) throws IOException {
+    input.readFully(new byte[byteCount]);
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.j2cl.frontend.common;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.google.j2cl.common.InputDigests;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.zip.ZipFile;
+
+/**
+ * Keeps the classpath jars open across the compilations that run in the same process, e.g. in a
+ * Bazel worker.
+ *
+ * <p>The JDK shares the index of a jar, i.e. its parsed central directory, among all the {@link
+ * ZipFile}s that are open on the same unmodified file. JDT and the package-info lookups open the
+ * classpath jars anew for every compilation; keeping them open here lets those compilations reuse
+ * the indexes built for previous ones instead of reading and indexing the jars again. Jars are
+ * reopened when their content changes (see {@link InputDigests}).
+ *
+ * <p>Memory is bounded by the number of entries of the jars kept open; the least recently used
+ * jars are closed first.
+ */
+public final class ClasspathJarCache {
+
+  private static final long MAX_ENTRY_COUNT =
+      Long.getLong("j2cl.classpathJarCache.maxEntryCount", 2_000_000);
+
+  private static final Cache<Path, OpenJar> openJarByPath =
+      CacheBuilder.newBuilder()
+          .maximumWeight(MAX_ENTRY_COUNT)
+          .weigher((Path path, OpenJar openJar) -> openJar.zipFile.size())
+          .removalListener(
+              (RemovalNotification<Path, OpenJar> notification) ->
+                  notification.getValue().close())
+          .build();
+
+  /** Opens the jars in {@code classpathEntries}, or keeps them open if they already were. */
+  public static synchronized void retain(List<String> classpathEntries) {
+    for (String classpathEntry : classpathEntries) {
+      retain(Paths.get(classpathEntry));
+    }
+  }
+
+  private static void retain(Path path) {
+    if (!Files.isRegularFile(path)) {
+      // Missing entries are reported by the frontend.
+      return;
+    }
+    String contentKey;
+    try {
+      contentKey = InputDigests.getContentKey(path);
+    } catch (IOException e) {
+      return;
+    }
+
+    OpenJar openJar = openJarByPath.getIfPresent(path);
+    if (openJar != null && openJar.contentKey.equals(contentKey)) {
+      return;
+    }
+
+    try {
+      // Replacing the entry closes the stale jar, if any.
+      openJarByPath.put(path, new OpenJar(contentKey, new ZipFile(path.toFile())));
+    } catch (IOException e) {
+      // Not a jar, let the frontend deal with it.
+      openJarByPath.invalidate(path);
+    }
+  }
+
+  /** Returns the jar kept open for {@code path}, if any. */
+  @VisibleForTesting
+  static synchronized ZipFile getOpenJar(String path) {
+    OpenJar openJar = openJarByPath.getIfPresent(Paths.get(path));
+    return openJar != null ? openJar.zipFile : null;
+  }
+
+  private static class OpenJar {
+    private final String contentKey;
+    private final ZipFile zipFile;
+
+    OpenJar(String contentKey, ZipFile zipFile) {
+      this.contentKey = contentKey;
+      this.zipFile = zipFile;
+    }
+
+    void close() {
+      try {
+        zipFile.close();
+      } catch (IOException e) {
+        // Nothing else can be done, the jar is not used anymore.
+      }
+    }
+  }
+
+  private ClasspathJarCache() {}
+}
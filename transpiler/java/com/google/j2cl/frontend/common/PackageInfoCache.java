@@ -20,20 +20,12 @@ import static com.google.common.base.Preconditions.checkState;
 
 import com.google.auto.value.AutoValue;
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.collect.Iterables;
+import com.google.j2cl.common.CompilationScope;
 import com.google.j2cl.common.Problems;
-import com.google.j2cl.common.Problems.FatalError;
-import java.lang.annotation.Annotation;
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.net.URLClassLoader;
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.Nullable;
-import jsinterop.annotations.JsPackage;
 
 /**
  * A cache for information on package-info files that are needed for transpilation, like JsInterop
@@ -83,8 +75,12 @@ public class PackageInfoCache {
    */
   private static final PackageReport DEFAULT_PACKAGE_REPORT = PackageReport.newBuilder().build();
 
-  /** Allows for the initialization/retrieval of one shared PackageInfoCache instance per thread. */
-  private static final ThreadLocal<PackageInfoCache> packageInfoCacheStorage = new ThreadLocal<>();
+  /**
+   * Allows for the initialization/retrieval of one shared PackageInfoCache instance per
+   * compilation.
+   */
+  private static final CompilationScope.Local<PackageInfoCache> packageInfoCacheStorage =
+      new CompilationScope.Local<>();
 
   @VisibleForTesting
   public static void clear() {
@@ -98,37 +94,22 @@ public class PackageInfoCache {
   public static void init(List<String> classPathEntries, Problems problems) {
     checkState(
         packageInfoCacheStorage.get() == null,
-        "PackageInfoCache should only be initialized once per thread.");
-
-    // Constructs a URLClassLoader to do the dirty work of finding package-info.class files in the
-    // classpath of the compile.
-    List<URL> classPathUrls = new ArrayList<>();
-    for (String classPathEntry : classPathEntries) {
-      try {
-        classPathUrls.add(new URL("file:" + classPathEntry));
-      } catch (MalformedURLException e) {
-        problems.fatal(FatalError.CANNOT_OPEN_FILE, e.toString());
-      }
-    }
-    URLClassLoader resourcesClassLoader =
-        new URLClassLoader(
-            Iterables.toArray(classPathUrls, URL.class), PackageInfoCache.class.getClassLoader());
+        "PackageInfoCache should only be initialized once per compilation.");
 
-    packageInfoCacheStorage.set(new PackageInfoCache(resourcesClassLoader, problems));
+    packageInfoCacheStorage.set(
+        new PackageInfoCache(ClasspathIndex.create(classPathEntries, problems)));
   }
 
   private static String toSpecificPackagePath(String classPathEntry, String packagePath) {
     return classPathEntry + ":" + packagePath;
   }
 
-  private final Problems problems;
   private final Map<String, PackageReport> packageReportBySpecificPackagePath = new HashMap<>();
   private final Map<String, PackageReport> packageReportByTypeName = new HashMap<>();
-  private final ClassLoader resourcesClassLoader;
+  private final ClasspathIndex classpathIndex;
 
-  private PackageInfoCache(ClassLoader resourcesClassLoader, Problems problems) {
-    this.resourcesClassLoader = resourcesClassLoader;
-    this.problems = problems;
+  private PackageInfoCache(ClasspathIndex classpathIndex) {
+    this.classpathIndex = classpathIndex;
   }
 
   /**
@@ -161,61 +142,9 @@ public class PackageInfoCache {
         PackageReport.newBuilder().setJsNamespace(packageJsNamespace).build());
   }
 
-  @SuppressWarnings({"resource", "unused"})
-  private Annotation[] findBytecodePackageAnnotations(String classPathEntry, String packagePath) {
-    checkNotNull(classPathEntry);
-    String packageInfoRelativeFilePath = packagePath.replace('.', '/') + "/package-info.class";
-    String packageInfoSourceName = packagePath + ".package-info";
-
-    Annotation[] annotations = {};
-    try {
-      URLClassLoader entryClassLoader =
-          new URLClassLoader(new URL[] {new URL(classPathEntry)}, resourcesClassLoader);
-
-      // This find does not recurse up the class loader parent chain. We want to know if *exactly*
-      // this class path entry contains the package-info class.
-      URL packageInfoResource = entryClassLoader.findResource(packageInfoRelativeFilePath);
-      if (packageInfoResource == null) {
-        return annotations;
-      }
-
-      // This load *does* recurse up the class loader parent chain and this is important to be able
-      // to load the annotations that are referenced. They are almost certain to not be available in
-      // just the particular target class path entry.
-      Class<?> packageInfoClass = entryClassLoader.loadClass(packageInfoSourceName);
-      annotations = packageInfoClass.getAnnotations();
-    } catch (ClassNotFoundException e) {
-      problems.fatal(FatalError.PACKAGE_INFO_PARSE, packageInfoRelativeFilePath);
-    } catch (MalformedURLException e) {
-      problems.fatal(FatalError.CLASS_PATH_URL, classPathEntry);
-    }
-    return annotations;
-  }
-
   /** Returns the first classpath entry that provides class file for the given type. */
   private String findOriginClassPathEntry(String typeName) {
-    String classFilePath = typeName.replace(".", "/") + ".class";
-
-    URL typeResource = resourcesClassLoader.getResource(classFilePath);
-    if (typeResource == null) {
-      return null;
-    } else {
-      if (typeResource.getProtocol().equals("jrt")) {
-        // Java 9 SDK url, ignore for now.
-        // TODO(rluble): revisit when compiling under -source 9.
-        return null;
-      }
-      String resourcePath = typeResource.getFile();
-      String originClassPathEntry =
-          resourcePath.substring(0, resourcePath.length() - classFilePath.length());
-      if (originClassPathEntry.endsWith("/")) {
-        originClassPathEntry = originClassPathEntry.substring(0, originClassPathEntry.length() - 1);
-      }
-      if (originClassPathEntry.endsWith("!")) {
-        originClassPathEntry = originClassPathEntry.substring(0, originClassPathEntry.length() - 1);
-      }
-      return originClassPathEntry;
-    }
+    return classpathIndex.findOriginClassPathEntry(typeName);
   }
 
   private String getPackagePath(String topLevelTypeSourceName) {
@@ -254,25 +183,11 @@ public class PackageInfoCache {
 
   private void parsePackageInfo(
       String classPathEntry, String packagePath, String topLevelTypeSourceName) {
-    Annotation[] packageAnnotations = findBytecodePackageAnnotations(classPathEntry, packagePath);
-
-    setPackageJsNamespace(classPathEntry, packagePath, getPackageJsNamespace(packageAnnotations));
+    setPackageJsNamespace(
+        classPathEntry, packagePath, classpathIndex.getJsNamespace(classPathEntry, packagePath));
     propagateSpecificInfo(classPathEntry, topLevelTypeSourceName);
   }
 
-  private static String getPackageJsNamespace(Annotation[] packageAnnotations) {
-    if (packageAnnotations == null) {
-      return null;
-    }
-
-    return Arrays.stream(packageAnnotations)
-        .filter(JsPackage.class::isInstance)
-        .findFirst()
-        .map(JsPackage.class::cast)
-        .map(JsPackage::namespace)
-        .orElse(null);
-  }
-
   /**
    * Propagate cached info about a specific package path (which is a combination of a class path
    * entry and a package path) to apply to an exact type name. This saves the cost of needing to do
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.j2cl.frontend.javac;
+
+import static java.util.stream.Collectors.toList;
+
+import com.google.j2cl.common.CompilationScope;
+import com.google.j2cl.common.InputDigests;
+import com.sun.tools.javac.file.JavacFileManager;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.tools.DiagnosticListener;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+/**
+ * Keeps javac file managers for reuse by the compilations that run in the same process, e.g. in a
+ * Bazel worker.
+ *
+ * <p>A file manager opens and indexes each classpath jar the first time it is searched and keeps
+ * it open until the file manager is closed; reusing file managers lets subsequent compilations
+ * skip that work for the jars they share. A file manager is only used by one compilation at a time
+ * and returns to the pool when the {@link CompilationScope} of that compilation is closed. It is
+ * reset, closing all its jars, when a jar it has seen changes (see {@link InputDigests}) or when it
+ * has seen too many of them.
+ */
+final class JavacFileManagerPool {
+
+  private static final int MAX_JAR_COUNT = Integer.getInteger("j2cl.javac.maxCachedJarCount", 5000);
+
+  private static final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+
+  private static final Deque<PooledFileManager> idleFileManagers = new ArrayDeque<>();
+
+  /**
+   * Returns a file manager searching {@code classpathEntries}, which is owned by the current
+   * compilation until its scope is closed and reports its diagnostics to {@code
+   * diagnosticListener}.
+   */
+  static JavacFileManager acquire(
+      List<String> classpathEntries, DiagnosticListener<? super JavaFileObject> diagnosticListener)
+      throws IOException {
+    PooledFileManager pooledFileManager = take();
+    pooledFileManager.diagnosticListener = diagnosticListener;
+    try {
+      pooledFileManager.setClasspath(classpathEntries);
+    } catch (IOException e) {
+      pooledFileManager.fileManager.close();
+      throw e;
+    }
+    // Javac completes symbols lazily, i.e. the file manager is still read after parsing while the
+    // compilation resolves types, so it can only be given back once the compilation is done.
+    CompilationScope.current().onClose(() -> release(pooledFileManager));
+    return pooledFileManager.fileManager;
+  }
+
+  static JavaCompiler getCompiler() {
+    return compiler;
+  }
+
+  private static synchronized PooledFileManager take() {
+    PooledFileManager pooledFileManager = idleFileManagers.pollFirst();
+    return pooledFileManager != null ? pooledFileManager : new PooledFileManager();
+  }
+
+  private static synchronized void release(PooledFileManager pooledFileManager) {
+    // The most recently used file manager is the most likely to have the jars of the next
+    // compilation open.
+    pooledFileManager.diagnosticListener = null;
+    idleFileManagers.addFirst(pooledFileManager);
+  }
+
+  private static final class PooledFileManager {
+    /** Listener of the compilation that owns the file manager. */
+    private volatile DiagnosticListener<? super JavaFileObject> diagnosticListener;
+
+    private final JavacFileManager fileManager =
+        (JavacFileManager)
+            compiler.getStandardFileManager(
+                diagnostic -> {
+                  DiagnosticListener<? super JavaFileObject> listener = diagnosticListener;
+                  if (listener != null) {
+                    listener.report(diagnostic);
+                  }
+                },
+                null,
+                StandardCharsets.UTF_8);
+    private final Map<Path, String> contentKeyByJar = new HashMap<>();
+
+    private void setClasspath(List<String> classpathEntries) throws IOException {
+      Map<Path, String> contentKeyByClasspathJar = new HashMap<>();
+      boolean hasChangedJars = false;
+      for (String classpathEntry : classpathEntries) {
+        Path path = Paths.get(classpathEntry);
+        if (!Files.isRegularFile(path)) {
+          // Directories are not kept open and missing entries are reported by javac.
+          continue;
+        }
+        String contentKey = InputDigests.getContentKey(path);
+        String previousContentKey = contentKeyByJar.get(path);
+        hasChangedJars |= previousContentKey != null && !previousContentKey.equals(contentKey);
+        contentKeyByClasspathJar.put(path, contentKey);
+      }
+
+      if (hasChangedJars || contentKeyByJar.size() > MAX_JAR_COUNT) {
+        // Closing releases all the open jars; the file manager remains usable and reopens the
+        // jars as they are needed.
+        fileManager.close();
+        contentKeyByJar.clear();
+      }
+      contentKeyByJar.putAll(contentKeyByClasspathJar);
+
+      List<File> searchpath = classpathEntries.stream().map(File::new).collect(toList());
+      fileManager.setLocation(StandardLocation.PLATFORM_CLASS_PATH, searchpath);
+      fileManager.setLocation(StandardLocation.CLASS_PATH, searchpath);
+    }
+  }
+
+  private JavacFileManagerPool() {}
+}
@@ -18,8 +18,10 @@ package com.google.j2cl.frontend.javac;
 import static java.util.stream.Collectors.toList;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.j2cl.ast.CompilationUnit;
+import com.google.j2cl.common.CompilationProfiler;
 import com.google.j2cl.common.FrontendUtils.FileInfo;
 import com.google.j2cl.common.Problems;
 import com.google.j2cl.common.Problems.FatalError;
@@ -27,21 +29,18 @@ import com.google.j2cl.frontend.common.FrontendConstants;
 import com.sun.source.tree.CompilationUnitTree;
 import com.sun.tools.javac.api.JavacTaskImpl;
 import com.sun.tools.javac.file.JavacFileManager;
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 import javax.tools.Diagnostic;
 import javax.tools.Diagnostic.Kind;
 import javax.tools.DiagnosticCollector;
-import javax.tools.JavaCompiler;
 import javax.tools.JavaFileObject;
-import javax.tools.StandardLocation;
-import javax.tools.ToolProvider;
+import javax.tools.SimpleJavaFileObject;
 
 /**
  * A delegator of Javac ASTParser that provides a more convenient interface for parsing source files
@@ -65,50 +64,80 @@ public class JavacParser {
       return ImmutableList.of();
     }
 
-    // The map must be ordered because it will be iterated over later and if it was not ordered then
-    // our output would be unstable
-    final Map<String, String> targetPathBySourcePath =
-        filePaths.stream().collect(Collectors.toMap(FileInfo::sourcePath, FileInfo::targetPath));
-
     try {
-      JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
       DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
-      JavacFileManager fileManager =
-          (JavacFileManager)
-              compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8);
-      List<File> searchpath = classpathEntries.stream().map(File::new).collect(toList());
-      fileManager.setLocation(StandardLocation.PLATFORM_CLASS_PATH, searchpath);
-      fileManager.setLocation(StandardLocation.CLASS_PATH, searchpath);
+      JavacFileManager fileManager = JavacFileManagerPool.acquire(classpathEntries, diagnostics);
       JavacTaskImpl task =
           (JavacTaskImpl)
-              compiler.getTask(
-                  null,
-                  fileManager,
-                  diagnostics,
-                  // TODO(b/143213486): Remove -source 8 and figure out how to configure
-                  // SYSTEM_MODULES and MODULE_PATH to prevent searching for modules.
-                  ImmutableList.of("-source", "8"),
-                  null,
-                  fileManager.getJavaFileObjectsFromFiles(
-                      targetPathBySourcePath.keySet().stream().map(File::new).collect(toList())));
-      List<CompilationUnitTree> javacCompilationUnits = Lists.newArrayList(task.parse());
-      task.analyze();
+              JavacFileManagerPool.getCompiler()
+                  .getTask(
+                      null,
+                      fileManager,
+                      diagnostics,
+                      // TODO(b/143213486): Remove -source 8 and figure out how to configure
+                      // SYSTEM_MODULES and MODULE_PATH to prevent searching for modules.
+                      ImmutableList.of("-source", "8"),
+                      null,
+                      filePaths.stream()
+                          .map(f -> toJavaFileObject(f, fileManager))
+                          .collect(toList()));
+      CompilationProfiler profiler = CompilationProfiler.get();
+      List<CompilationUnitTree> javacCompilationUnits;
+      try (CompilationProfiler.Measurement measurement = profiler.startPhase("JavacTask.parse")) {
+        javacCompilationUnits = Lists.newArrayList(task.parse());
+      }
+      try (CompilationProfiler.Measurement measurement = profiler.startPhase("JavacTask.analyze")) {
+        task.analyze();
+      }
       if (hasErrors(diagnostics, javacCompilationUnits)) {
         return ImmutableList.of();
       }
 
       JavaEnvironment javaEnvironment =
           new JavaEnvironment(task.getContext(), FrontendConstants.WELL_KNOWN_CLASS_NAMES);
-      List<CompilationUnit> compilationUnits =
-          CompilationUnitBuilder.build(javacCompilationUnits, javaEnvironment);
-
-      return compilationUnits;
+      try (CompilationProfiler.Measurement measurement =
+          profiler.startPhase("CompilationUnitBuilder.build")) {
+        return CompilationUnitBuilder.build(javacCompilationUnits, javaEnvironment);
+      }
     } catch (IOException e) {
       problems.fatal(FatalError.valueOf(e.getMessage()));
       return null;
     }
   }
 
+  private static JavaFileObject toJavaFileObject(FileInfo file, JavacFileManager fileManager) {
+    return file.isInJar()
+        ? new SourceJarEntryFileObject(file)
+        : Iterables.getOnlyElement(fileManager.getJavaFileObjects(file.sourcePath()));
+  }
+
+  /** A source that is read in place from a source jar. */
+  private static final class SourceJarEntryFileObject extends SimpleJavaFileObject {
+    private final FileInfo file;
+
+    SourceJarEntryFileObject(FileInfo file) {
+      // The URI only identifies the entry, it is never opened. Its path ends with the name of the
+      // entry, which is what javac checks the names of the public types against.
+      super(Paths.get(file.sourcePath()).toAbsolutePath().toUri(), Kind.SOURCE);
+      this.file = file;
+    }
+
+    @Override
+    public String getName() {
+      return file.sourcePath();
+    }
+
+    @Override
+    public InputStream openInputStream() throws IOException {
+      return file.asByteSource().openStream();
+    }
+
+    @Override
+    public CharSequence getCharContent(boolean ignoreEncodingErrors) throws IOException {
+      return file.asByteSource().asCharSource(StandardCharsets.UTF_8).read();
+    }
+  }
+
   private boolean hasErrors(
       DiagnosticCollector<JavaFileObject> diagnosticCollector,
       List<CompilationUnitTree> javacCompilationUnits) {
@@ -15,22 +15,41 @@
  */
 package com.google.j2cl.frontend.jdt;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.MultimapBuilder;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import com.google.j2cl.common.ConcurrencyUtils;
 import com.google.j2cl.common.FrontendUtils.FileInfo;
 import com.google.j2cl.common.Problems;
 import com.google.j2cl.common.Problems.FatalError;
 import com.google.j2cl.frontend.common.FrontendConstants;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
 import org.eclipse.jdt.core.BindingKey;
 import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.ToolFactory;
 import org.eclipse.jdt.core.compiler.IProblem;
+import org.eclipse.jdt.core.compiler.IScanner;
+import org.eclipse.jdt.core.compiler.ITerminalSymbols;
+import org.eclipse.jdt.core.compiler.InvalidInputException;
 import org.eclipse.jdt.core.dom.AST;
 import org.eclipse.jdt.core.dom.ASTParser;
 import org.eclipse.jdt.core.dom.CompilationUnit;
@@ -49,43 +68,128 @@ public class JdtParser {
   private final Problems problems;
   private final Map<String, String> compilerOptions = new HashMap<>();
   private final List<String> classpathEntries;
+  private final int threadCount;
 
   /** Create and initialize a JdtParser based on passed parameters. */
   public JdtParser(List<String> classpathEntries, Problems problems) {
+    this(classpathEntries, 1, problems);
+  }
+
+  /**
+   * Create and initialize a JdtParser that parses and resolves the sources using up to {@code
+   * threadCount} threads.
+   */
+  public JdtParser(List<String> classpathEntries, int threadCount, Problems problems) {
     compilerOptions.put(JavaCore.COMPILER_SOURCE, JAVA_VERSION);
     compilerOptions.put(JavaCore.COMPILER_CODEGEN_TARGET_PLATFORM, JAVA_VERSION);
     compilerOptions.put(JavaCore.COMPILER_COMPLIANCE, JAVA_VERSION);
 
     this.classpathEntries = ImmutableList.copyOf(classpathEntries);
+    this.threadCount = threadCount;
     this.problems = problems;
   }
 
-  /** Returns a map from file paths to compilation units after JDT parsing. */
+  /**
+   * Returns a map from file paths to compilation units after JDT parsing.
+   *
+   * <p>When more than one thread is available the sources are split into batches of whole packages
+   * that are parsed and resolved concurrently, each by its own JDT parser. A batch finds the types
+   * declared by the sources of the other batches in a source path that lays out all the sources by
+   * package, and the classpath jars are shared by all of them (see {@link
+   * com.google.j2cl.frontend.common.ClasspathJarCache}). The results are merged and the problems
+   * reported in the order of the sources, hence they are the same regardless of the batching.
+   */
   public CompilationUnitsAndTypeBindings parseFiles(
       List<FileInfo> filePaths, boolean useTargetPath) {
 
-    // Parse and create a compilation unit for every file.
-    ASTParser parser = newASTParser(true);
-
     // The map must be ordered because it will be iterated over later and if it was not ordered then
     // our output would be unstable
     final Map<String, CompilationUnit> compilationUnitsByFilePath = new LinkedHashMap<>();
-    final List<ITypeBinding> wellKnownTypeBindings = new ArrayList<>();
-    final Map<String, String> targetPathBySourcePath =
-        filePaths.stream().collect(Collectors.toMap(FileInfo::sourcePath, FileInfo::targetPath));
 
+    // JDT only reads sources from disk, so the entries of source jars are written to a temporary
+    // directory for the duration of the parse.
+    Path jarEntriesDirectory = null;
+    Path sourcepathDirectory = null;
+    final Map<String, FileInfo> fileInfoByParsedPath = new LinkedHashMap<>();
+    final Map<String, ParsedUnit> parsedUnitByParsedPath = new ConcurrentHashMap<>();
+    List<ITypeBinding> wellKnownTypeBindings;
+    try {
+      try {
+        for (FileInfo fileInfo : filePaths) {
+          if (!fileInfo.isInJar()) {
+            fileInfoByParsedPath.put(fileInfo.sourcePath(), fileInfo);
+            continue;
+          }
+          if (jarEntriesDirectory == null) {
+            jarEntriesDirectory = Files.createTempDirectory("j2cl_sources");
+          }
+          Path parsedPath = jarEntriesDirectory.resolve(fileInfo.originalPath());
+          Files.createDirectories(parsedPath.getParent());
+          fileInfo.asByteSource().copyTo(MoreFiles.asByteSink(parsedPath));
+          fileInfoByParsedPath.put(parsedPath.toString(), fileInfo);
+        }
+      } catch (IOException e) {
+        problems.fatal(FatalError.CANNOT_WRITE_FILE, e.toString());
+      }
+
+      List<String> parsedPaths = ImmutableList.copyOf(fileInfoByParsedPath.keySet());
+      Map<String, String> packageNameByParsedPath = getPackageNames(parsedPaths);
+      List<List<String>> batches = partitionByPackage(parsedPaths, packageNameByParsedPath);
+      if (batches.size() == 1) {
+        wellKnownTypeBindings = parseBatch(parsedPaths, new String[0], parsedUnitByParsedPath);
+      } else {
+        try {
+          sourcepathDirectory = createSourcepath(parsedPaths, packageNameByParsedPath);
+        } catch (IOException e) {
+          problems.fatal(FatalError.CANNOT_WRITE_FILE, e.toString());
+        }
+        String[] sourcepathEntries = {sourcepathDirectory.toString()};
+        // All the batches resolve the well known types and any of them will do: the descriptors
+        // created from the bindings of different batches are the same, since type declarations
+        // and descriptors are identified, and interned, by name rather than by binding (see
+        // TypeDeclaration.getUniqueId).
+        wellKnownTypeBindings =
+            ConcurrencyUtils.map(
+                    batches,
+                    threadCount,
+                    batch -> parseBatch(batch, sourcepathEntries, parsedUnitByParsedPath))
+                .get(0);
+      }
+    } finally {
+      deleteDirectory(jarEntriesDirectory);
+      deleteDirectory(sourcepathDirectory);
+    }
+
+    for (Map.Entry<String, FileInfo> entry : fileInfoByParsedPath.entrySet()) {
+      ParsedUnit parsedUnit = parsedUnitByParsedPath.get(entry.getKey());
+      if (parsedUnit == null) {
+        continue;
+      }
+      FileInfo fileInfo = entry.getValue();
+      if (compilationHasErrors(fileInfo.sourcePath(), parsedUnit)) {
+        continue;
+      }
+      String filePathKey = useTargetPath ? fileInfo.targetPath() : fileInfo.sourcePath();
+      compilationUnitsByFilePath.put(filePathKey, parsedUnit.compilationUnit);
+    }
+    return new CompilationUnitsAndTypeBindings(compilationUnitsByFilePath, wellKnownTypeBindings);
+  }
+
+  /**
+   * Parses and resolves {@code parsedPaths}, recording their units in {@code
+   * parsedUnitByParsedPath}, and returns the bindings of the well known types.
+   */
+  private List<ITypeBinding> parseBatch(
+      List<String> parsedPaths,
+      String[] sourcepathEntries,
+      Map<String, ParsedUnit> parsedUnitByParsedPath) {
+    ASTParser parser = newASTParser(true, sourcepathEntries);
+    List<ITypeBinding> wellKnownTypeBindings = new ArrayList<>();
     FileASTRequestor astRequestor =
         new FileASTRequestor() {
           @Override
           public void acceptAST(String filePath, CompilationUnit compilationUnit) {
-            if (compilationHasErrors(filePath, compilationUnit)) {
-              return;
-            }
-            String filePathKey = filePath;
-            if (useTargetPath) {
-              filePathKey = targetPathBySourcePath.get(filePath);
-            }
-            compilationUnitsByFilePath.put(filePathKey, compilationUnit);
+            parsedUnitByParsedPath.put(filePath, new ParsedUnit(compilationUnit));
           }
 
           @Override
@@ -94,23 +198,170 @@ public class JdtParser {
           }
         };
     parser.createASTs(
-        filePaths.stream().map(f -> f.sourcePath()).toArray(String[]::new),
-        getEncodings(filePaths.size()),
+        parsedPaths.toArray(new String[0]),
+        getEncodings(parsedPaths.size()),
         FrontendConstants.WELL_KNOWN_CLASS_NAMES.stream()
             .map(BindingKey::createTypeBindingKey)
             .toArray(String[]::new),
         astRequestor,
         null);
-    return new CompilationUnitsAndTypeBindings(compilationUnitsByFilePath, wellKnownTypeBindings);
+    return wellKnownTypeBindings;
+  }
+
+  /**
+   * Returns the package declared by each of the sources, or an empty map if the sources are to be
+   * parsed in a single batch.
+   */
+  private Map<String, String> getPackageNames(List<String> parsedPaths) {
+    if (threadCount <= 1) {
+      return ImmutableMap.of();
+    }
+    List<String> packageNames =
+        ConcurrencyUtils.map(parsedPaths, threadCount, JdtParser::readPackageName);
+    if (packageNames.contains(null)) {
+      // Leave it to the parser to report the problem.
+      return ImmutableMap.of();
+    }
+    Map<String, String> packageNameByParsedPath = new HashMap<>();
+    for (int i = 0; i < parsedPaths.size(); i++) {
+      packageNameByParsedPath.put(parsedPaths.get(i), packageNames.get(i));
+    }
+    return packageNameByParsedPath;
+  }
+
+  /** Returns the package declared in {@code parsedPath}, or null if it can't be determined. */
+  @VisibleForTesting
+  static String readPackageName(String parsedPath) {
+    IScanner scanner = ToolFactory.createScanner(false, false, false, JAVA_VERSION);
+    try {
+      scanner.setSource(
+          new String(Files.readAllBytes(Paths.get(parsedPath)), StandardCharsets.UTF_8)
+              .toCharArray());
+      // The package declaration, if any, precedes the imports and the type declarations and can
+      // only be preceded by annotations.
+      int previousToken = ITerminalSymbols.TokenNameEOF;
+      while (true) {
+        int token = scanner.getNextToken();
+        if (previousToken == ITerminalSymbols.TokenNameDOT) {
+          // A class literal in an annotation, e.g. @Foo(Bar.class).
+          previousToken = token;
+          continue;
+        }
+        previousToken = token;
+        switch (token) {
+          case ITerminalSymbols.TokenNamepackage:
+            StringBuilder packageName = new StringBuilder();
+            for (token = scanner.getNextToken();
+                token != ITerminalSymbols.TokenNameSEMICOLON;
+                token = scanner.getNextToken()) {
+              if (token == ITerminalSymbols.TokenNameEOF) {
+                return null;
+              }
+              packageName.append(scanner.getCurrentTokenSource());
+            }
+            return packageName.toString();
+          case ITerminalSymbols.TokenNameimport:
+          case ITerminalSymbols.TokenNameclass:
+          case ITerminalSymbols.TokenNameinterface:
+          case ITerminalSymbols.TokenNameenum:
+          case ITerminalSymbols.TokenNameEOF:
+            return "";
+          default:
+            break;
+        }
+      }
+    } catch (IOException | InvalidInputException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Splits the sources into at most {@code threadCount} batches of similar size, keeping the
+   * sources of a package together so that the types that are only visible within a package, which
+   * can't be found in the source path, are resolved within the same batch.
+   */
+  private List<List<String>> partitionByPackage(
+      List<String> parsedPaths, Map<String, String> packageNameByParsedPath) {
+    if (packageNameByParsedPath.isEmpty()) {
+      return ImmutableList.of(parsedPaths);
+    }
+    ListMultimap<String, String> parsedPathsByPackageName =
+        MultimapBuilder.linkedHashKeys().arrayListValues().build();
+    for (String parsedPath : parsedPaths) {
+      parsedPathsByPackageName.put(packageNameByParsedPath.get(parsedPath), parsedPath);
+    }
+    int batchCount = Math.min(threadCount, parsedPathsByPackageName.keySet().size());
+    if (batchCount <= 1) {
+      return ImmutableList.of(parsedPaths);
+    }
+
+    // Assign the largest packages first, each to the batch that is smallest at that point.
+    List<List<String>> batches = new ArrayList<>();
+    for (int i = 0; i < batchCount; i++) {
+      batches.add(new ArrayList<>());
+    }
+    parsedPathsByPackageName.asMap().values().stream()
+        .sorted(Comparator.comparingInt((Collection<String> paths) -> paths.size()).reversed())
+        .forEach(
+            paths -> batches.stream().min(Comparator.comparingInt(List::size)).get().addAll(paths));
+
+    // Parse the sources of each batch in their original order.
+    Map<String, Integer> indexByParsedPath = new HashMap<>();
+    for (String parsedPath : parsedPaths) {
+      indexByParsedPath.put(parsedPath, indexByParsedPath.size());
+    }
+    batches.forEach(batch -> batch.sort(Comparator.comparing(indexByParsedPath::get)));
+    return batches;
   }
 
-  private ASTParser newASTParser(boolean resolveBinding) {
+  /**
+   * Creates a directory where each source is found at the location that corresponds to its
+   * package, which is how JDT looks for the types that are not part of the sources it parses.
+   */
+  private static Path createSourcepath(
+      List<String> parsedPaths, Map<String, String> packageNameByParsedPath) throws IOException {
+    Path sourcepathDirectory = Files.createTempDirectory("j2cl_sourcepath");
+    for (String parsedPath : parsedPaths) {
+      Path path = Paths.get(parsedPath).toAbsolutePath();
+      Path packageDirectory =
+          sourcepathDirectory.resolve(packageNameByParsedPath.get(parsedPath).replace('.', '/'));
+      Path sourcepathPath = packageDirectory.resolve(path.getFileName().toString());
+      if (Files.exists(sourcepathPath, LinkOption.NOFOLLOW_LINKS)) {
+        // Sources with the same name in the same package are in the same batch, and only one of
+        // them can declare the public type that other batches look up.
+        continue;
+      }
+      Files.createDirectories(packageDirectory);
+      try {
+        Files.createSymbolicLink(sourcepathPath, path);
+      } catch (UnsupportedOperationException | IOException e) {
+        Files.copy(path, sourcepathPath);
+      }
+    }
+    return sourcepathDirectory;
+  }
+
+  private static void deleteDirectory(Path directory) {
+    if (directory == null) {
+      return;
+    }
+    try {
+      MoreFiles.deleteRecursively(directory, RecursiveDeleteOption.ALLOW_INSECURE);
+    } catch (IOException e) {
+      // The directory is temporary and leaving it behind does not affect the compilation.
+    }
+  }
+
+  private ASTParser newASTParser(boolean resolveBinding, String[] sourcepathEntries) {
     ASTParser parser = ASTParser.newParser(AST_JLS_VERSION);
 
     parser.setCompilerOptions(compilerOptions);
     parser.setResolveBindings(resolveBinding);
     parser.setEnvironment(
-        Iterables.toArray(classpathEntries, String.class), new String[0], new String[0], false);
+        Iterables.toArray(classpathEntries, String.class),
+        sourcepathEntries,
+        getEncodings(sourcepathEntries.length),
+        false);
     return parser;
   }
 
@@ -120,16 +371,27 @@ public class JdtParser {
     return encodings;
   }
 
-  private boolean compilationHasErrors(String filename, CompilationUnit unit) {
+  /** A unit as produced by JDT, together with the checks that are done as it is produced. */
+  private static class ParsedUnit {
+    private final CompilationUnit compilationUnit;
+    private final boolean hasGwtIncompatibleNodes;
+
+    ParsedUnit(CompilationUnit compilationUnit) {
+      this.compilationUnit = compilationUnit;
+      // Here we check for instances of @GwtIncompatible in the ast, which should have been stripped
+      // by the build system already.
+      GwtIncompatibleNodeCollector collector = new GwtIncompatibleNodeCollector();
+      compilationUnit.accept(collector);
+      this.hasGwtIncompatibleNodes = !collector.getNodes().isEmpty();
+    }
+  }
+
+  private boolean compilationHasErrors(String filename, ParsedUnit parsedUnit) {
     boolean hasErrors = false;
-    // Here we check for instances of @GwtIncompatible in the ast. If that is the case, we throw an
-    // error since these should have been stripped by the build system already.
-    GwtIncompatibleNodeCollector collector = new GwtIncompatibleNodeCollector();
-    unit.accept(collector);
-    if (!collector.getNodes().isEmpty()) {
+    if (parsedUnit.hasGwtIncompatibleNodes) {
       problems.fatal(FatalError.GWT_INCOMPATIBLE_FOUND_IN_COMPILE, filename);
     }
-    for (IProblem problem : unit.getProblems()) {
+    for (IProblem problem : parsedUnit.compilationUnit.getProblems()) {
       if (problem.isError()) {
         problems.error(problem.getSourceLineNumber(), filename, "%s", problem.getMessage());
         hasErrors = true;
@@ -47,6 +47,7 @@ import com.google.j2cl.ast.TypeDescriptors;
 import com.google.j2cl.ast.TypeVariable;
 import com.google.j2cl.ast.Variable;
 import com.google.j2cl.ast.Visibility;
+import com.google.j2cl.common.CompilationScope;
 import com.google.j2cl.common.InternalCompilerError;
 import com.google.j2cl.common.SourcePosition;
 import com.google.j2cl.frontend.common.PackageInfoCache;
@@ -54,12 +55,12 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
-import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 import org.eclipse.jdt.core.dom.AST;
 import org.eclipse.jdt.core.dom.Assignment;
@@ -830,14 +831,16 @@ class JdtUtils {
       overriddenMethods.addAll(getOverriddenMethodsInType(methodBinding, interfaceBinding));
     }
 
+    // When the sources are parsed in concurrent batches, java.lang.Object might have been resolved
+    // by a different batch than the method, hence the types are compared by key.
     ITypeBinding javaLangObjectTypeBinding = JdtUtils.javaLangObjectTypeBinding.get();
-    if (typeBinding != javaLangObjectTypeBinding) {
+    if (!typeBinding.getKey().equals(javaLangObjectTypeBinding.getKey())) {
       for (IMethodBinding objectMethodBinding : javaLangObjectTypeBinding.getDeclaredMethods()) {
         if (!isPolymorphic(objectMethodBinding)) {
           continue;
         }
         checkState(!getVisibility(objectMethodBinding).isPackagePrivate());
-        if (methodBinding.isSubsignature(objectMethodBinding)) {
+        if (hasSameSignature(methodBinding, objectMethodBinding)) {
           overriddenMethods.add(objectMethodBinding);
         }
       }
@@ -846,6 +849,27 @@ class JdtUtils {
     return overriddenMethods;
   }
 
+  /**
+   * Returns whether {@code methodBinding} has the same signature as {@code objectMethodBinding},
+   * which is what makes it a subsignature of a method of java.lang.Object since none is generic.
+   */
+  private static boolean hasSameSignature(
+      IMethodBinding methodBinding, IMethodBinding objectMethodBinding) {
+    ITypeBinding[] parameterTypes = methodBinding.getParameterTypes();
+    ITypeBinding[] objectParameterTypes = objectMethodBinding.getParameterTypes();
+    if (!methodBinding.getName().equals(objectMethodBinding.getName())
+        || methodBinding.getTypeParameters().length != 0
+        || parameterTypes.length != objectParameterTypes.length) {
+      return false;
+    }
+    for (int i = 0; i < parameterTypes.length; i++) {
+      if (!parameterTypes[i].getKey().equals(objectParameterTypes[i].getKey())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   private static boolean isPolymorphic(IMethodBinding methodBinding) {
     return !methodBinding.isConstructor()
         && !isStatic(methodBinding)
@@ -905,7 +929,8 @@ class JdtUtils {
     return createTypeDescriptors(Arrays.asList(typeBindings), clazz);
   }
 
-  private static ThreadLocal<ITypeBinding> javaLangObjectTypeBinding = new ThreadLocal<>();
+  private static final CompilationScope.Local<ITypeBinding> javaLangObjectTypeBinding =
+      new CompilationScope.Local<>();
 
   public static void initWellKnownTypes(AST ast, Iterable<ITypeBinding> typeBindings) {
     javaLangObjectTypeBinding.set(ast.resolveWellKnownType("java.lang.Object"));
@@ -946,19 +971,27 @@ class JdtUtils {
   }
 
   /**
-   * This cache is a Hashtable so is already synchronized and safe to use from multiple threads. We
-   * don't need a separate cache for each thread (like interners have) since JDT's ITypeBinding
-   * instances (which we are using as keys) are unique per JDT parse.
+   * Type descriptors created for the bindings of the current compilation.
+   *
+   * <p>JDT's ITypeBinding instances (which we are using as keys) are unique per JDT parse, so the
+   * cache is per compilation and is released with it. Lookups are lock free and might happen
+   * concurrently from the threads that process the compilation units. When the sources are parsed
+   * in concurrent batches each batch has its own binding for a type; the descriptors created for
+   * them are interned into the same one.
    */
-  @SuppressWarnings("JdkObsolete")
-  private static Map<ITypeBinding, DeclaredTypeDescriptor>
-      cachedDeclaredTypeDescriptorByTypeBinding = new Hashtable<>();
+  private static final CompilationScope.Local<Map<ITypeBinding, DeclaredTypeDescriptor>>
+      cachedDeclaredTypeDescriptorByTypeBinding =
+          CompilationScope.Local.withInitial(ConcurrentHashMap::new);
 
   // This is only used by TypeProxyUtils, and cannot be used elsewhere. Because to create a
   // TypeDescriptor from a TypeBinding, it should go through the path to check array type.
   private static DeclaredTypeDescriptor createDeclaredType(final ITypeBinding typeBinding) {
-    if (cachedDeclaredTypeDescriptorByTypeBinding.containsKey(typeBinding)) {
-      return cachedDeclaredTypeDescriptorByTypeBinding.get(typeBinding);
+    Map<ITypeBinding, DeclaredTypeDescriptor> cachedDeclaredTypeDescriptorByTypeBinding =
+        JdtUtils.cachedDeclaredTypeDescriptorByTypeBinding.get();
+    DeclaredTypeDescriptor cachedTypeDescriptor =
+        cachedDeclaredTypeDescriptorByTypeBinding.get(typeBinding);
+    if (cachedTypeDescriptor != null) {
+      return cachedTypeDescriptor;
     }
 
     checkArgument(!typeBinding.isArray());
@@ -1017,8 +1050,11 @@ class JdtUtils {
             .setDeclaredFieldDescriptorsFactory(declaredFields)
             .setDeclaredMethodDescriptorsFactory(declaredMethods)
             .build();
-    cachedDeclaredTypeDescriptorByTypeBinding.put(typeBinding, typeDescriptor);
-    return typeDescriptor;
+    // Creating the descriptor recursively creates others (e.g. for the enclosing type), so it can
+    // not be done atomically with the insertion; if two threads race, both get the first stored.
+    DeclaredTypeDescriptor existingTypeDescriptor =
+        cachedDeclaredTypeDescriptorByTypeBinding.putIfAbsent(typeBinding, typeDescriptor);
+    return existingTypeDescriptor != null ? existingTypeDescriptor : typeDescriptor;
   }
 
   private static Kind getKindFromTypeBinding(ITypeBinding typeBinding) {
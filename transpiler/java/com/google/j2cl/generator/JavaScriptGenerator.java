@@ -53,7 +53,7 @@ public abstract class JavaScriptGenerator {
     environment = new GenerationEnvironment(imports, uniqueNameByVariable);
   }
 
-  public Map<SourcePosition, SourcePosition> getSourceMappings() {
+  public SourceMappings getSourceMappings() {
     return sourceBuilder.getMappings();
   }
 
@@ -15,23 +15,29 @@
  */
 package com.google.j2cl.generator;
 
+import com.google.common.io.ByteSource;
+import com.google.common.io.MoreFiles;
 import com.google.j2cl.ast.CompilationUnit;
 import com.google.j2cl.ast.Type;
 import com.google.j2cl.ast.TypeDeclaration;
+import com.google.j2cl.common.CompilationProfiler;
+import com.google.j2cl.common.ConcurrencyUtils;
 import com.google.j2cl.common.FrontendUtils;
 import com.google.j2cl.common.FrontendUtils.FileInfo;
 import com.google.j2cl.common.J2clUtils;
+import com.google.j2cl.common.Output;
 import com.google.j2cl.common.Problems;
-import com.google.j2cl.common.Problems.FatalError;
 import com.google.j2cl.common.SourcePosition;
 import com.google.j2cl.libraryinfo.LibraryInfoBuilder;
-import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 /**
  * The OutputGeneratorStage contains all necessary information for generating the JavaScript output
@@ -39,28 +45,34 @@ import java.util.Optional;
  * generating header, implementation and sourcemap files for each Java Type.
  */
 public class OutputGeneratorStage {
+  private final Map<String, FileInfo> javaSourcesByPath = new HashMap<>();
   private final List<FileInfo> nativeJavaScriptFiles;
   private final Problems problems;
-  private final Path outputPath;
+  private final Output output;
   private final Optional<Path> libraryInfoOutputPath;
   private final boolean shouldGenerateReadableSourceMaps;
   private final boolean shouldGenerateReadableLibraryInfo;
   private final boolean generateKytheIndexingMetadata;
+  private final int threadCount;
 
   public OutputGeneratorStage(
+      List<FileInfo> javaSources,
       List<FileInfo> nativeJavaScriptFiles,
-      Path outputPath,
+      Output output,
       Optional<Path> libraryInfoOutputPath,
       boolean shouldGenerateReadableLibraryInfo,
       boolean shouldGenerateReadableSourceMaps,
       boolean generateKytheIndexingMetadata,
+      int threadCount,
       Problems problems) {
+    javaSources.forEach(f -> javaSourcesByPath.putIfAbsent(f.sourcePath(), f));
     this.nativeJavaScriptFiles = nativeJavaScriptFiles;
-    this.outputPath = outputPath;
+    this.output = output;
     this.libraryInfoOutputPath = libraryInfoOutputPath;
     this.shouldGenerateReadableLibraryInfo = shouldGenerateReadableLibraryInfo;
     this.shouldGenerateReadableSourceMaps = shouldGenerateReadableSourceMaps;
     this.generateKytheIndexingMetadata = generateKytheIndexingMetadata;
+    this.threadCount = threadCount;
     this.problems = problems;
   }
 
@@ -73,18 +85,22 @@ public class OutputGeneratorStage {
         NativeJavaScriptFile.getMap(nativeJavaScriptFiles, problems);
     LibraryInfoBuilder libraryInfoBuilder = new LibraryInfoBuilder();
 
+    // Native files are matched upfront so that the types can be rendered concurrently. Each
+    // rendering results in the action that writes its output, and these actions are run in order
+    // to keep the output deterministic.
+    //
+    // Errors about native files are also reported by actions in that sequence, and stop the
+    // collection just like they would stop a serial generation, so that the reported problems are
+    // the same regardless of the number of threads.
+    List<Supplier<Runnable>> renderers = new ArrayList<>();
+    boolean foundNativeFileError = false;
+    collectRenderers:
     for (CompilationUnit j2clCompilationUnit : j2clCompilationUnits) {
       for (Type type : j2clCompilationUnit.getTypes()) {
-        JavaScriptImplGenerator jsImplGenerator = new JavaScriptImplGenerator(problems, type);
-
-        // If the java type contains any native methods, search for matching native file.
-        String typeRelativePath = getRelativePath(type.getDeclaration());
-
         NativeJavaScriptFile matchingNativeFile =
             getMatchingNativeFile(nativeFilesByPath, j2clCompilationUnit, type);
 
         if (matchingNativeFile != null) {
-          jsImplGenerator.setNativeSource(matchingNativeFile);
           matchingNativeFile.setUsed();
 
           // Native JsTypes are mere references to external JavaScript types, adding native code
@@ -93,94 +109,52 @@ public class OutputGeneratorStage {
           // this case to avoid surprises.
           TypeDeclaration typeDeclaration = getUnderlyingTypeDeclaration(type);
           if (typeDeclaration.isNative() || typeDeclaration.isJsEnum()) {
-            problems.error(
-                "%s '%s' does not support having a '.native.js' file.",
-                typeDeclaration.isJsEnum() ? "JsEnum" : "Native JsType",
-                typeDeclaration.getReadableDescription());
-            return;
+            renderers.add(
+                () ->
+                    () ->
+                        problems.error(
+                            "%s '%s' does not support having a '.native.js' file.",
+                            typeDeclaration.isJsEnum() ? "JsEnum" : "Native JsType",
+                            typeDeclaration.getReadableDescription()));
+            foundNativeFileError = true;
+            break collectRenderers;
           }
         }
 
         // If not matching native file is found, and the java type contains non-JsMethod native
         // method, reports an error.
         if (matchingNativeFile == null && type.containsNonJsNativeMethods()) {
-          problems.error(
-              "Cannot find matching native file '%s'.",
-              typeRelativePath + NativeJavaScriptFile.NATIVE_EXTENSION);
-          return;
-        }
-
-        String javaScriptImplementationSource = jsImplGenerator.renderOutput();
-
-        JavaScriptHeaderGenerator jsHeaderGenerator = new JavaScriptHeaderGenerator(problems, type);
-        String javaScriptHeaderSource = jsHeaderGenerator.renderOutput();
-
-        if (generateKytheIndexingMetadata) {
-          // Inline metadata so that Kythe can create edges between these files and the Java source
-          // file.
-          javaScriptHeaderSource +=
-              renderKytheIndexingMetadata(jsHeaderGenerator.getSourceMappings());
-          javaScriptImplementationSource +=
-              renderKytheIndexingMetadata(jsImplGenerator.getSourceMappings());
-        } else {
-          String sourceMap = renderSourceMap(type, jsImplGenerator.getSourceMappings());
-
-          if (sourceMap != null) {
-            javaScriptImplementationSource +=
-                String.format(
-                    "%n//# sourceMappingURL=%s",
-                    type.getDeclaration().getSimpleBinaryName() + SOURCE_MAP_SUFFIX);
-            Path absolutePathForSourceMap =
-                outputPath.resolve(typeRelativePath + SOURCE_MAP_SUFFIX);
-            J2clUtils.writeToFile(absolutePathForSourceMap, sourceMap, problems);
-          }
-        }
-
-        if (shouldGenerateReadableSourceMaps) {
-          outputReadableSourceMap(
-              j2clCompilationUnit,
-              type,
-              javaScriptImplementationSource,
-              jsImplGenerator.getSourceMappings(),
-              matchingNativeFile);
-        }
-
-        String implRelativePath = typeRelativePath + jsImplGenerator.getSuffix();
-        J2clUtils.writeToFile(
-            outputPath.resolve(implRelativePath), javaScriptImplementationSource, problems);
-
-        String headerRelativePath = typeRelativePath + jsHeaderGenerator.getSuffix();
-        J2clUtils.writeToFile(
-            outputPath.resolve(headerRelativePath), javaScriptHeaderSource, problems);
-
-        if (libraryInfoOutputPath.isPresent() || shouldGenerateReadableLibraryInfo) {
-          libraryInfoBuilder.addType(
-              type,
-              headerRelativePath,
-              implRelativePath,
-              jsImplGenerator.getOutputSourceInfoByMember());
+          String nativeFilePath =
+              getRelativePath(type.getDeclaration()) + NativeJavaScriptFile.NATIVE_EXTENSION;
+          renderers.add(
+              () -> () -> problems.error("Cannot find matching native file '%s'.", nativeFilePath));
+          foundNativeFileError = true;
+          break collectRenderers;
         }
 
-        if (matchingNativeFile != null) {
-          copyNativeJsFileToOutput(matchingNativeFile);
-        }
+        renderers.add(
+            () ->
+                renderType(j2clCompilationUnit, type, matchingNativeFile, libraryInfoBuilder));
       }
 
       if (!generateKytheIndexingMetadata) {
-        copyJavaSourcesToOutput(j2clCompilationUnit);
+        renderers.add(() -> () -> copyJavaSourcesToOutput(j2clCompilationUnit));
       }
     }
 
+    ConcurrencyUtils.forEachOrdered(renderers, threadCount, Supplier::get, Runnable::run);
+
+    if (foundNativeFileError) {
+      return;
+    }
+
     if (libraryInfoOutputPath.isPresent()) {
       J2clUtils.writeToFile(
           libraryInfoOutputPath.get(), libraryInfoBuilder.toByteArray(), problems);
     }
 
     if (shouldGenerateReadableLibraryInfo) {
-      J2clUtils.writeToFile(
-          outputPath.resolve("library_info_debug.json"),
-          libraryInfoBuilder.toJson(problems),
-          problems);
+      output.write("library_info_debug.json", libraryInfoBuilder.toJson(problems), problems);
     }
 
     // Error if any of the native implementation files were not used.
@@ -191,25 +165,115 @@ public class OutputGeneratorStage {
     }
   }
 
+  /**
+   * Renders the header, implementation and source maps for {@code type} and returns the action
+   * that writes them to the output.
+   *
+   * <p>Rendering might happen concurrently for different types, hence all shared state is only
+   * modified by the returned action.
+   */
+  private Runnable renderType(
+      CompilationUnit j2clCompilationUnit,
+      Type type,
+      NativeJavaScriptFile matchingNativeFile,
+      LibraryInfoBuilder libraryInfoBuilder) {
+    JavaScriptImplGenerator jsImplGenerator = new JavaScriptImplGenerator(problems, type);
+    if (matchingNativeFile != null) {
+      jsImplGenerator.setNativeSource(matchingNativeFile);
+    }
+
+    String typeRelativePath = getRelativePath(type.getDeclaration());
+
+    CompilationProfiler profiler = CompilationProfiler.get();
+    String javaScriptImplementationSource =
+        profiler.step("JavaScriptImplGenerator", jsImplGenerator::renderOutput);
+
+    JavaScriptHeaderGenerator jsHeaderGenerator = new JavaScriptHeaderGenerator(problems, type);
+    String javaScriptHeaderSource =
+        profiler.step("JavaScriptHeaderGenerator", jsHeaderGenerator::renderOutput);
+
+    String sourceMap = null;
+    if (generateKytheIndexingMetadata) {
+      // Inline metadata so that Kythe can create edges between these files and the Java source
+      // file.
+      javaScriptHeaderSource += renderKytheIndexingMetadata(jsHeaderGenerator.getSourceMappings());
+      javaScriptImplementationSource +=
+          renderKytheIndexingMetadata(jsImplGenerator.getSourceMappings());
+    } else {
+      sourceMap =
+          profiler.step(
+              "SourceMapGeneratorStage",
+              () -> renderSourceMap(type, jsImplGenerator.getSourceMappings()));
+
+      if (sourceMap != null) {
+        javaScriptImplementationSource +=
+            String.format(
+                "%n//# sourceMappingURL=%s",
+                type.getDeclaration().getSimpleBinaryName() + SOURCE_MAP_SUFFIX);
+      }
+    }
+
+    String renderedSourceMap = sourceMap;
+    String renderedImplementationSource = javaScriptImplementationSource;
+    String renderedHeaderSource = javaScriptHeaderSource;
+
+    String readableSourceMap =
+        shouldGenerateReadableSourceMaps
+            ? profiler.step(
+                "ReadableSourceMapGenerator",
+                () ->
+                    renderReadableSourceMap(
+                        j2clCompilationUnit,
+                        renderedImplementationSource,
+                        jsImplGenerator.getSourceMappings(),
+                        matchingNativeFile))
+            : "";
+
+    String implRelativePath = typeRelativePath + jsImplGenerator.getSuffix();
+    String headerRelativePath = typeRelativePath + jsHeaderGenerator.getSuffix();
+
+    return () -> {
+      if (renderedSourceMap != null) {
+        output.write(typeRelativePath + SOURCE_MAP_SUFFIX, renderedSourceMap, problems);
+      }
+
+      if (!readableSourceMap.isEmpty()) {
+        output.write(typeRelativePath + READABLE_MAPPINGS_SUFFIX, readableSourceMap, problems);
+      }
+
+      output.write(implRelativePath, renderedImplementationSource, problems);
+
+      output.write(headerRelativePath, renderedHeaderSource, problems);
+
+      if (libraryInfoOutputPath.isPresent() || shouldGenerateReadableLibraryInfo) {
+        libraryInfoBuilder.addType(
+            type,
+            headerRelativePath,
+            implRelativePath,
+            jsImplGenerator.getOutputSourceInfoByMember());
+      }
+
+      if (matchingNativeFile != null) {
+        copyNativeJsFileToOutput(matchingNativeFile);
+      }
+    };
+  }
+
   private static final String SOURCE_MAP_SUFFIX = ".js.map";
 
   private static final String READABLE_MAPPINGS_SUFFIX = ".js.mappings";
 
-  private String renderKytheIndexingMetadata(
-      Map<SourcePosition, SourcePosition> javaSourcePositionByOutputSourcePosition) {
+  private String renderKytheIndexingMetadata(SourceMappings sourceMappings) {
     KytheIndexingMetadata metadata = new KytheIndexingMetadata();
 
-    for (Entry<SourcePosition, SourcePosition> entry :
-        javaSourcePositionByOutputSourcePosition.entrySet()) {
-
-      SourcePosition javaSourcePosition = entry.getValue();
-      SourcePosition javaScriptSourcePosition = entry.getKey();
+    for (int i = 0; i < sourceMappings.size(); i++) {
+      SourcePosition javaSourcePosition = sourceMappings.getJavaSourcePosition(i);
 
       metadata.addAnchorAnchor(
           javaSourcePosition.getStartFilePosition().getByteOffset(),
           javaSourcePosition.getEndFilePosition().getByteOffset(),
-          javaScriptSourcePosition.getStartFilePosition().getByteOffset(),
-          javaScriptSourcePosition.getEndFilePosition().getByteOffset(),
+          sourceMappings.getStartByteOffset(i),
+          sourceMappings.getEndByteOffset(i),
           null, // sourceCorpus
           javaSourcePosition.getFilePath(),
           null // sourceRoot
@@ -221,35 +285,30 @@ public class OutputGeneratorStage {
         "%n// Kythe Indexing Metadata:%n// %s", metadata.toJson());
   }
 
-  private String renderSourceMap(
-      Type type, Map<SourcePosition, SourcePosition> javaSourcePositionByOutputSourcePosition) {
-    try {
-      return SourceMapGeneratorStage.generateSourceMaps(
-          type, javaSourcePositionByOutputSourcePosition);
-    } catch (IOException e) {
-      problems.fatal(FatalError.CANNOT_WRITE_FILE, e.toString());
-      return null;
-    }
+  private String renderSourceMap(Type type, SourceMappings sourceMappings) {
+    return SourceMapGeneratorStage.generateSourceMaps(type, sourceMappings);
   }
 
-  private void outputReadableSourceMap(
+  private String renderReadableSourceMap(
       CompilationUnit j2clUnit,
-      Type type,
       String javaScriptImplementationFileContents,
-      Map<SourcePosition, SourcePosition> javaSourcePositionByOutputSourcePosition,
+      SourceMappings sourceMappings,
       NativeJavaScriptFile nativeJavaScriptFile) {
-    String readableOutput =
-        ReadableSourceMapGenerator.generate(
-            javaSourcePositionByOutputSourcePosition,
-            javaScriptImplementationFileContents,
-            nativeJavaScriptFile,
-            j2clUnit.getFilePath(),
-            problems);
-    if (!readableOutput.isEmpty()) {
-      Path absolutePathForReadableSourceMap =
-          outputPath.resolve(getRelativePath(type.getDeclaration()) + READABLE_MAPPINGS_SUFFIX);
-      J2clUtils.writeToFile(absolutePathForReadableSourceMap, readableOutput, problems);
-    }
+    return ReadableSourceMapGenerator.generate(
+        sourceMappings,
+        javaScriptImplementationFileContents,
+        nativeJavaScriptFile,
+        j2clUnit.getFilePath(),
+        getJavaSource(j2clUnit),
+        problems);
+  }
+
+  /** Returns the contents of the Java source of a unit, which might be an entry of a source jar. */
+  private ByteSource getJavaSource(CompilationUnit j2clUnit) {
+    FileInfo javaSource = javaSourcesByPath.get(j2clUnit.getFilePath());
+    return javaSource != null
+        ? javaSource.asByteSource()
+        : MoreFiles.asByteSource(Paths.get(j2clUnit.getFilePath()));
   }
 
   /**
@@ -257,14 +316,12 @@ public class OutputGeneratorStage {
    * and having it available as output simplifies the process of source debugging in the browser.
    */
   private void copyJavaSourcesToOutput(CompilationUnit j2clUnit) {
-    String relativePath = getRelativePath(j2clUnit);
-    Path absolutePath = outputPath.resolve(relativePath + ".java");
-    J2clUtils.copyFile(Paths.get(j2clUnit.getFilePath()), absolutePath, problems);
+    output.copy(getJavaSource(j2clUnit), getRelativePath(j2clUnit) + ".java", problems);
   }
 
   private void copyNativeJsFileToOutput(NativeJavaScriptFile nativeJavaScriptFile) {
-    Path absolutePath = outputPath.resolve(nativeJavaScriptFile.getRelativeFilePath());
-    J2clUtils.writeToFile(absolutePath, nativeJavaScriptFile.getContent(), problems);
+    output.write(
+        nativeJavaScriptFile.getRelativeFilePath(), nativeJavaScriptFile.getContent(), problems);
   }
 
   /** Returns the relative output path for a given type. */
@@ -21,17 +21,16 @@ import static com.google.common.base.Preconditions.checkState;
 import com.google.common.base.CharMatcher;
 import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteSource;
 import com.google.j2cl.common.Problems;
 import com.google.j2cl.common.Problems.FatalError;
 import com.google.j2cl.common.SourcePosition;
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Paths;
-import java.util.ArrayList;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 
 /**
  * Generates a readable version of the sourcemap.
@@ -39,37 +38,51 @@ import java.util.Map.Entry;
 public class ReadableSourceMapGenerator {
   /** The source location of the ast node to print, input or output. */
   public static String generate(
-      Map<SourcePosition, SourcePosition> javaSourcePositionByOutputSourcePosition,
+      SourceMappings sourceMappings,
       String javaScriptImplementationFileContents,
       NativeJavaScriptFile nativeJavaScriptFile,
       String j2clUnitFilePath,
+      ByteSource j2clUnitSource,
       Problems problems) {
 
     Map<String, List<String>> sourceLinesByFileName =
-        buildSourceLinesByFileName(nativeJavaScriptFile, j2clUnitFilePath, problems);
+        buildSourceLinesByFileName(
+            nativeJavaScriptFile, j2clUnitFilePath, j2clUnitSource, problems);
 
     StringBuilder sb = new StringBuilder();
 
-    List<Entry<SourcePosition, SourcePosition>> entries =
-        new ArrayList<>(javaSourcePositionByOutputSourcePosition.entrySet());
-    // remove the EOF marker.
-    SourcePosition eofMarker = entries.get(entries.size() - 1).getValue();
+    // Skip the EOF marker.
+    int lastMapping = sourceMappings.size() - 1;
+    SourcePosition eofMarker = sourceMappings.getJavaSourcePosition(lastMapping);
     // Make sure we are not removing a meaninful mapping instead of the eofMarker.
     checkState(eofMarker.getEndFilePosition().equals(eofMarker.getStartFilePosition()));
-    entries.remove(entries.size() - 1);
 
     List<String> javaScriptSourceLines =
         Arrays.asList(javaScriptImplementationFileContents.split("\n"));
-    for (Entry<SourcePosition, SourcePosition> entry : entries) {
-      SourcePosition javaSourcePosition = checkNotNull(entry.getValue());
-      SourcePosition javaScriptSourcePosition = checkNotNull(entry.getKey());
+    for (int i = 0; i < lastMapping; i++) {
+      SourcePosition javaSourcePosition = checkNotNull(sourceMappings.getJavaSourcePosition(i));
       List<String> javaSourceLines = sourceLinesByFileName.get(javaSourcePosition.getFileName());
 
       boolean hasName = javaSourcePosition.getName() != null;
 
-      sb.append(extract(javaSourcePosition, javaSourceLines, hasName))
+      sb.append(
+              extract(
+                  javaSourcePosition.getStartFilePosition().getLine(),
+                  javaSourcePosition.getStartFilePosition().getColumn(),
+                  javaSourcePosition.getEndFilePosition().getLine(),
+                  javaSourcePosition.getEndFilePosition().getColumn(),
+                  javaSourceLines,
+                  hasName))
           .append(" => ")
-          .append(extract(javaScriptSourcePosition, javaScriptSourceLines, hasName).trim());
+          .append(
+              extract(
+                      sourceMappings.getStartLine(i),
+                      sourceMappings.getStartColumn(i),
+                      sourceMappings.getEndLine(i),
+                      sourceMappings.getEndColumn(i),
+                      javaScriptSourceLines,
+                      hasName)
+                  .trim());
 
       if (hasName) {
         sb.append(" \"").append(javaSourcePosition.getName()).append("\"");
@@ -81,7 +94,10 @@ public class ReadableSourceMapGenerator {
   }
 
   private static Map<String, List<String>> buildSourceLinesByFileName(
-      NativeJavaScriptFile nativeJavaScriptFile, String j2clUnitFilePath, Problems problems) {
+      NativeJavaScriptFile nativeJavaScriptFile,
+      String j2clUnitFilePath,
+      ByteSource j2clUnitSource,
+      Problems problems) {
     ImmutableMap.Builder<String, List<String>> contentsByFileNameBuilder = ImmutableMap.builder();
 
     if (nativeJavaScriptFile != null) {
@@ -93,7 +109,7 @@ public class ReadableSourceMapGenerator {
     try {
       contentsByFileNameBuilder.put(
           new File(j2clUnitFilePath).getName(),
-          java.nio.file.Files.readAllLines(Paths.get(j2clUnitFilePath)));
+          j2clUnitSource.asCharSource(StandardCharsets.UTF_8).readLines());
     } catch (IOException e) {
       problems.fatal(FatalError.CANNOT_OPEN_FILE, e.toString());
     }
@@ -101,12 +117,13 @@ public class ReadableSourceMapGenerator {
   }
 
   private static String extract(
-      SourcePosition sourcePosition, List<String> lines, boolean condense) {
-    int startLine = sourcePosition.getStartFilePosition().getLine();
-    int endLine = sourcePosition.getEndFilePosition().getLine();
+      int startLine,
+      int startColumn,
+      int endLine,
+      int endColumn,
+      List<String> lines,
+      boolean condense) {
     String fragment = lines.get(startLine);
-    int endColumn = sourcePosition.getEndFilePosition().getColumn();
-    int startColumn = sourcePosition.getStartFilePosition().getColumn();
     if (endLine != startLine || endColumn == -1) {
       StringBuilder content =
           new StringBuilder(trimTrailingWhitespace(fragment.substring(startColumn)));
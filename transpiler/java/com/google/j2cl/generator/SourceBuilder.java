@@ -27,8 +27,6 @@ import com.google.j2cl.common.SourcePosition;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
-import java.util.SortedMap;
-import java.util.TreeMap;
 
 /** Builds source and tracks line numbers using a StringBuilder. */
 class SourceBuilder {
@@ -45,8 +43,7 @@ class SourceBuilder {
   private int currentLine = 0;
   private int currentColumn = 0;
   private int currentIndentation = 0;
-  private final SortedMap<SourcePosition, SourcePosition> javaSourceInfoByOutputSourceInfo =
-      new TreeMap<>();
+  private final SourceMappings sourceMappings = new SourceMappings();
   private final Map<Member, SourcePosition> outputSourceInfoByMember = new HashMap<>();
   private boolean finished = false;
 
@@ -61,13 +58,16 @@ class SourceBuilder {
   public void emitWithMapping(SourcePosition javaSourcePosition, Runnable codeEmitter) {
     checkNotNull(javaSourcePosition);
 
-    Optional<SourcePosition> jsSourcePosition = emit(codeEmitter);
+    int startByteOffset = sb.length();
+    int mapping = sourceMappings.start(currentLine, currentColumn, startByteOffset);
+    codeEmitter.run();
 
-    if (!jsSourcePosition.isPresent()) {
+    if (sb.length() == startByteOffset) {
       // Do not record empty mappings.
+      sourceMappings.discard(mapping);
       return;
     }
-    javaSourceInfoByOutputSourceInfo.put(jsSourcePosition.get(), javaSourcePosition);
+    sourceMappings.end(mapping, currentLine, currentColumn, sb.length(), javaSourcePosition);
   }
 
   public void emitWithMemberMapping(Member member, Runnable codeEmitter) {
@@ -117,11 +117,13 @@ class SourceBuilder {
               .build(),
           () -> append(" "));
     }
+    sourceMappings.finish();
     finished = true;
   }
 
-  public SortedMap<SourcePosition, SourcePosition> getMappings() {
-    return javaSourceInfoByOutputSourceInfo;
+  public SourceMappings getMappings() {
+    checkState(finished);
+    return sourceMappings;
   }
 
   public ImmutableMap<Member, SourcePosition> getOutputSourceInfoByMember() {
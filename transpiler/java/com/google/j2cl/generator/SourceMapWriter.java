@@ -0,0 +1,274 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.j2cl.generator;
+
+import com.google.j2cl.common.SourcePosition;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Writes version 3 source maps for generated files.
+ *
+ * <p>The output matches the one of Closure's {@code SourceMapGeneratorV3}, but the base64 VLQ
+ * segments are encoded directly from the {@link SourceMappings} instead of first building a
+ * mapping object per entry.
+ */
+final class SourceMapWriter {
+
+  private static final char[] BASE64_DIGITS =
+      "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+  private static final int VLQ_BASE_SHIFT = 5;
+  private static final int VLQ_BASE_MASK = (1 << VLQ_BASE_SHIFT) - 1;
+  private static final int VLQ_CONTINUATION_BIT = 1 << VLQ_BASE_SHIFT;
+
+  /** Stands for the parts of the generated file that are not mapped to the Java source. */
+  private static final int UNMAPPED = -1;
+
+  /** Returns the source map for {@code generatedFileName} described by {@code sourceMappings}. */
+  static String write(String generatedFileName, SourceMappings sourceMappings) {
+    SourceMapWriter writer = new SourceMapWriter(sourceMappings);
+    writer.writeMappings();
+
+    StringBuilder sb = new StringBuilder(writer.mappings.length() + 256);
+    sb.append("{\n\"version\":3");
+    sb.append(",\n\"file\":");
+    appendQuoted(sb, generatedFileName);
+    sb.append(",\n\"lineCount\":").append(writer.maxLine + 1);
+    sb.append(",\n\"mappings\":\"").append(writer.mappings).append('"');
+    sb.append(",\n\"sources\":");
+    appendQuotedList(sb, writer.sourceIdByFileName);
+    sb.append(",\n\"names\":");
+    appendQuotedList(sb, writer.nameIdByName);
+    sb.append("\n}\n");
+    return sb.toString();
+  }
+
+  private final SourceMappings sourceMappings;
+  private final StringBuilder mappings = new StringBuilder();
+  private final Map<String, Integer> sourceIdByFileName = new LinkedHashMap<>();
+  private final Map<String, Integer> nameIdByName = new LinkedHashMap<>();
+
+  // The position in the generated file up to which segments have been written.
+  private int line = 0;
+  private int column = 0;
+
+  // The values the fields of the next segment are relative to.
+  private int previousLine = -1;
+  private int previousColumn = 0;
+  private int previousSourceId = 0;
+  private int previousSourceLine = 0;
+  private int previousSourceColumn = 0;
+  private int previousNameId = 0;
+
+  private int maxLine = 0;
+
+  private SourceMapWriter(SourceMappings sourceMappings) {
+    this.sourceMappings = sourceMappings;
+  }
+
+  /**
+   * Writes a segment for each stretch of the generated file, attributed to the innermost mapping
+   * that covers it.
+   */
+  private void writeMappings() {
+    // Mappings are ordered by start and nested, so the ones that enclose the current mapping form a
+    // stack.
+    int[] enclosingMappings = new int[16];
+    int depth = 0;
+    for (int mapping = 0; mapping < sourceMappings.size(); mapping++) {
+      if (!hasSourceFile(mapping)) {
+        continue;
+      }
+      while (depth > 0 && !encloses(enclosingMappings[depth - 1], mapping)) {
+        writeUpToEnd(enclosingMappings[--depth]);
+      }
+      // The stretch before the start of this mapping belongs to the enclosing one, if any.
+      writeUpTo(
+          depth > 0 ? enclosingMappings[depth - 1] : UNMAPPED,
+          sourceMappings.getStartLine(mapping),
+          sourceMappings.getStartColumn(mapping));
+
+      if (depth == enclosingMappings.length) {
+        enclosingMappings = Arrays.copyOf(enclosingMappings, depth * 2);
+      }
+      enclosingMappings[depth++] = mapping;
+    }
+    while (depth > 0) {
+      writeUpToEnd(enclosingMappings[--depth]);
+    }
+  }
+
+  private boolean hasSourceFile(int mapping) {
+    SourcePosition javaSourcePosition = sourceMappings.getJavaSourcePosition(mapping);
+    return javaSourcePosition.getFileName() != null
+        && javaSourcePosition.getStartFilePosition().getLine() >= 0;
+  }
+
+  /** Whether {@code mapping} does not end before {@code other} starts. */
+  private boolean encloses(int mapping, int other) {
+    int endLine = sourceMappings.getEndLine(mapping);
+    int startLine = sourceMappings.getStartLine(other);
+    return endLine > startLine
+        || (endLine == startLine
+            && sourceMappings.getEndColumn(mapping) >= sourceMappings.getStartColumn(other));
+  }
+
+  private void writeUpToEnd(int mapping) {
+    writeUpTo(mapping, sourceMappings.getEndLine(mapping), sourceMappings.getEndColumn(mapping));
+  }
+
+  /** Attributes the stretch from the current position up to the given one to {@code mapping}. */
+  private void writeUpTo(int mapping, int nextLine, int nextColumn) {
+    if (line > nextLine || (line == nextLine && column >= nextColumn)) {
+      return;
+    }
+
+    if (previousLine != line) {
+      previousColumn = 0;
+    } else {
+      mappings.append(',');
+    }
+    writeSegment(mapping);
+    previousLine = line;
+
+    for (int i = line; i < nextLine; i++) {
+      mappings.append(';');
+    }
+    line = nextLine;
+    column = nextColumn;
+  }
+
+  private void writeSegment(int mapping) {
+    encode(column - previousColumn);
+    previousColumn = column;
+    if (mapping == UNMAPPED) {
+      return;
+    }
+
+    maxLine = Math.max(maxLine, sourceMappings.getEndLine(mapping));
+
+    SourcePosition javaSourcePosition = sourceMappings.getJavaSourcePosition(mapping);
+    int sourceId = getId(sourceIdByFileName, javaSourcePosition.getFileName());
+    encode(sourceId - previousSourceId);
+    previousSourceId = sourceId;
+
+    int sourceLine = javaSourcePosition.getStartFilePosition().getLine();
+    encode(sourceLine - previousSourceLine);
+    previousSourceLine = sourceLine;
+
+    int sourceColumn = javaSourcePosition.getStartFilePosition().getColumn();
+    encode(sourceColumn - previousSourceColumn);
+    previousSourceColumn = sourceColumn;
+
+    String name = javaSourcePosition.getName();
+    if (name != null) {
+      int nameId = getId(nameIdByName, name);
+      encode(nameId - previousNameId);
+      previousNameId = nameId;
+    }
+  }
+
+  private static int getId(Map<String, Integer> idByValue, String value) {
+    Integer id = idByValue.get(value);
+    if (id == null) {
+      id = idByValue.size();
+      idByValue.put(value, id);
+    }
+    return id;
+  }
+
+  /** Appends {@code value} as a base64 VLQ. */
+  private void encode(int value) {
+    // The sign is stored in the least significant bit.
+    int vlq = value < 0 ? ((-value) << 1) + 1 : value << 1;
+    do {
+      int digit = vlq & VLQ_BASE_MASK;
+      vlq >>>= VLQ_BASE_SHIFT;
+      if (vlq > 0) {
+        digit |= VLQ_CONTINUATION_BIT;
+      }
+      mappings.append(BASE64_DIGITS[digit]);
+    } while (vlq > 0);
+  }
+
+  private static void appendQuotedList(StringBuilder sb, Map<String, Integer> idByValue) {
+    sb.append('[');
+    boolean first = true;
+    for (String value : idByValue.keySet()) {
+      if (!first) {
+        sb.append(',');
+      }
+      appendQuoted(sb, value);
+      first = false;
+    }
+    sb.append(']');
+  }
+
+  /**
+   * Appends {@code value} as a JSON string literal, escaped like Closure's source map generator
+   * does, which also breaks sequences that are unsafe to inline in HTML.
+   */
+  private static void appendQuoted(StringBuilder sb, String value) {
+    sb.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '"':
+          sb.append("\\\"");
+          break;
+        case '\\':
+          sb.append("\\\\");
+          break;
+        case '\n':
+          sb.append("\\n");
+          break;
+        case '\r':
+          sb.append("\\r");
+          break;
+        case '\t':
+          sb.append("\\t");
+          break;
+        case '>':
+          // Breaks "-->" and "]]>".
+          if (i >= 2
+              && ((value.charAt(i - 1) == '-' && value.charAt(i - 2) == '-')
+                  || (value.charAt(i - 1) == ']' && value.charAt(i - 2) == ']'))) {
+            sb.append("\\>");
+          } else {
+            sb.append(c);
+          }
+          break;
+        case '<':
+          // Breaks "</script" and "<!--".
+          if (value.regionMatches(true, i + 1, "/script", 0, "/script".length())
+              || value.startsWith("!--", i + 1)) {
+            sb.append("<\\");
+          } else {
+            sb.append(c);
+          }
+          break;
+        default:
+          if (c < 0x20 || c > 0x7f) {
+            sb.append(String.format("\\u%04x", (int) c));
+          } else {
+            sb.append(c);
+          }
+      }
+    }
+    sb.append('"');
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.j2cl.generator;
+
+import static com.google.common.base.Preconditions.checkElementIndex;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.j2cl.common.SourcePosition;
+import java.util.Arrays;
+
+/**
+ * The mappings from ranges of a generated file to positions in the Java source, ordered by their
+ * start in the generated file.
+ *
+ * <p>A generated file has a mapping for most of the nodes it was rendered from, so the positions in
+ * the generated file are packed in an int array instead of being kept as {@link SourcePosition}
+ * objects; the Java source positions are the ones held by the AST.
+ */
+public final class SourceMappings {
+  // Layout of the packed output ranges, one record per mapping.
+  private static final int START_LINE = 0;
+  private static final int START_COLUMN = 1;
+  private static final int START_BYTE_OFFSET = 2;
+  private static final int END_LINE = 3;
+  private static final int END_COLUMN = 4;
+  private static final int END_BYTE_OFFSET = 5;
+  private static final int RECORD_SIZE = 6;
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  private int[] outputRanges = new int[INITIAL_CAPACITY * RECORD_SIZE];
+  private SourcePosition[] javaSourcePositions = new SourcePosition[INITIAL_CAPACITY];
+  private int size = 0;
+  private boolean finished = false;
+
+  /**
+   * Starts a mapping at the given output position and returns its index.
+   *
+   * <p>Mappings are started in the order of their output start position and each one is either
+   * ended or discarded once the code it covers has been emitted.
+   */
+  int start(int line, int column, int byteOffset) {
+    checkState(!finished);
+    if (size == javaSourcePositions.length) {
+      outputRanges = Arrays.copyOf(outputRanges, outputRanges.length * 2);
+      javaSourcePositions = Arrays.copyOf(javaSourcePositions, javaSourcePositions.length * 2);
+    }
+    int record = size * RECORD_SIZE;
+    outputRanges[record + START_LINE] = line;
+    outputRanges[record + START_COLUMN] = column;
+    outputRanges[record + START_BYTE_OFFSET] = byteOffset;
+    return size++;
+  }
+
+  /** Ends the mapping at the given output position, mapping its range to the Java position. */
+  void end(int index, int line, int column, int byteOffset, SourcePosition javaSourcePosition) {
+    checkElementIndex(index, size);
+    int record = index * RECORD_SIZE;
+    outputRanges[record + END_LINE] = line;
+    outputRanges[record + END_COLUMN] = column;
+    outputRanges[record + END_BYTE_OFFSET] = byteOffset;
+    javaSourcePositions[index] = checkNotNull(javaSourcePosition);
+  }
+
+  /** Drops a mapping that ended up covering no code. */
+  void discard(int index) {
+    // A mapping that covers no code can only contain mappings that cover no code either, which
+    // have already been discarded; hence it is always the last one.
+    checkState(index == size - 1);
+    size--;
+  }
+
+  /**
+   * Completes the mappings.
+   *
+   * <p>Mappings that start at the same output position are nested, and are collapsed into one
+   * that covers the range of the innermost and maps to the Java position of the outermost.
+   */
+  void finish() {
+    checkState(!finished);
+    int collapsedSize = 0;
+    for (int index = 0; index < size; index++) {
+      if (collapsedSize > 0
+          && getStartByteOffset(collapsedSize - 1) == getStartByteOffset(index)) {
+        // The later mapping is nested in the previous one; keep its end only.
+        System.arraycopy(
+            outputRanges,
+            index * RECORD_SIZE + END_LINE,
+            outputRanges,
+            (collapsedSize - 1) * RECORD_SIZE + END_LINE,
+            RECORD_SIZE - END_LINE);
+        continue;
+      }
+      if (collapsedSize != index) {
+        System.arraycopy(
+            outputRanges,
+            index * RECORD_SIZE,
+            outputRanges,
+            collapsedSize * RECORD_SIZE,
+            RECORD_SIZE);
+        javaSourcePositions[collapsedSize] = javaSourcePositions[index];
+      }
+      collapsedSize++;
+    }
+    Arrays.fill(javaSourcePositions, collapsedSize, size, null);
+    size = collapsedSize;
+    finished = true;
+  }
+
+  public int size() {
+    checkState(finished);
+    return size;
+  }
+
+  public SourcePosition getJavaSourcePosition(int index) {
+    checkElementIndex(index, size);
+    return javaSourcePositions[index];
+  }
+
+  public int getStartLine(int index) {
+    return getOutputRangeField(index, START_LINE);
+  }
+
+  public int getStartColumn(int index) {
+    return getOutputRangeField(index, START_COLUMN);
+  }
+
+  public int getStartByteOffset(int index) {
+    return getOutputRangeField(index, START_BYTE_OFFSET);
+  }
+
+  public int getEndLine(int index) {
+    return getOutputRangeField(index, END_LINE);
+  }
+
+  public int getEndColumn(int index) {
+    return getOutputRangeField(index, END_COLUMN);
+  }
+
+  public int getEndByteOffset(int index) {
+    return getOutputRangeField(index, END_BYTE_OFFSET);
+  }
+
+  private int getOutputRangeField(int index, int field) {
+    checkElementIndex(index, size);
+    return outputRanges[index * RECORD_SIZE + field];
+  }
+}
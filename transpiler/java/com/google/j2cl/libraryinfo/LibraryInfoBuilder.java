@@ -36,6 +36,7 @@ import com.google.protobuf.util.JsonFormat;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
@@ -45,6 +46,12 @@ import java.util.stream.Collectors;
 public final class LibraryInfoBuilder {
 
   public static final int NULL_TYPE = 0;
+
+  /** The original format, where member names are repeated in each member and invocation. */
+  public static final int VERSION_1 = 1;
+  /** The format where member names are interned and invocations are packed pairs of ids. */
+  public static final int VERSION_2 = 2;
+
   private final LibraryInfo.Builder libraryInfo = LibraryInfo.newBuilder();
   private final Map<String, Integer> types = new HashMap<>();
 
@@ -227,19 +234,60 @@ public final class LibraryInfoBuilder {
     return types.computeIfAbsent(typeDescriptor.getQualifiedJsName(), x -> types.size() + 1);
   }
 
-  private LibraryInfo build() {
+  private LibraryInfo build(int version) {
     libraryInfo.clearTypeMap();
     String[] typeMap = new String[types.size() + 1];
     typeMap[NULL_TYPE] = "<no-type>";
     types.forEach((name, i) -> typeMap[i] = name);
     libraryInfo.addAllTypeMap(Arrays.asList(typeMap));
-    return libraryInfo.build();
+
+    switch (version) {
+      case VERSION_1:
+        return libraryInfo.build();
+      case VERSION_2:
+        return toVersion2(libraryInfo.build());
+      default:
+        throw new IllegalArgumentException("Unsupported library info version: " + version);
+    }
+  }
+
+  /** Converts a library info in the version 1 format to the version 2 format. */
+  public static LibraryInfo toVersion2(LibraryInfo libraryInfo) {
+    Map<String, Integer> memberNameIds = new LinkedHashMap<>();
+    LibraryInfo.Builder libraryInfoBuilder =
+        libraryInfo.toBuilder().setVersion(VERSION_2).clearType();
+    for (TypeInfo typeInfo : libraryInfo.getTypeList()) {
+      TypeInfo.Builder typeInfoBuilder = typeInfo.toBuilder().clearMember();
+      for (MemberInfo memberInfo : typeInfo.getMemberList()) {
+        MemberInfo.Builder memberInfoBuilder =
+            memberInfo.toBuilder()
+                .clearName()
+                .clearInvokedMethods()
+                .setNameId(getMemberNameId(memberNameIds, memberInfo.getName()));
+        for (MethodInvocation methodInvocation : memberInfo.getInvokedMethodsList()) {
+          memberInfoBuilder
+              .addInvokedMethodIds(methodInvocation.getEnclosingType())
+              .addInvokedMethodIds(getMemberNameId(memberNameIds, methodInvocation.getMethod()));
+        }
+        typeInfoBuilder.addMember(memberInfoBuilder);
+      }
+      libraryInfoBuilder.addType(typeInfoBuilder);
+    }
+    return libraryInfoBuilder.addAllMemberNameMap(memberNameIds.keySet()).build();
+  }
+
+  private static int getMemberNameId(Map<String, Integer> memberNameIds, String memberName) {
+    return memberNameIds.computeIfAbsent(memberName, x -> memberNameIds.size());
   }
 
-  /** Serialize a LibraryInfo object into a JSON string. */
+  /**
+   * Serialize a LibraryInfo object into a JSON string.
+   *
+   * <p>The JSON is meant for humans, hence it is always in the more readable version 1 format.
+   */
   public String toJson(Problems problems) {
     try {
-      return JsonFormat.printer().print(build());
+      return JsonFormat.printer().print(build(VERSION_1));
     } catch (IOException e) {
       problems.fatal(FatalError.CANNOT_WRITE_FILE, e.toString());
       return null;
@@ -247,7 +295,11 @@ public final class LibraryInfoBuilder {
   }
 
   public byte[] toByteArray() {
-    return build().toByteArray();
+    return toByteArray(VERSION_2);
+  }
+
+  public byte[] toByteArray(int version) {
+    return build(version).toByteArray();
   }
 
   private static String getMemberId(MemberDescriptor memberDescriptor) {
@@ -19,7 +19,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.j2cl.bazel.BazelWorker;
 import com.google.j2cl.common.FrontendUtils;
 import com.google.j2cl.common.FrontendUtils.FileInfo;
-import com.google.j2cl.common.J2clUtils;
+import com.google.j2cl.common.Output;
 import com.google.j2cl.common.Problems;
 import com.google.j2cl.frontend.Frontend;
 import java.io.File;
@@ -74,6 +74,18 @@ final class BazelJ2clBuilder extends BazelWorker {
   @Option(name = "-generatekytheindexingmetadata", hidden = true)
   protected boolean generateKytheIndexingMetadata = false;
 
+  @Option(name = "-profileoutput", hidden = true)
+  protected String profileOutput = null;
+
+  @Option(name = "-threads", hidden = true)
+  protected int threadCount = 1;
+
+  @Option(name = "-unboxsmalllongs", hidden = true)
+  protected boolean unboxSmallLongs = false;
+
+  @Option(name = "-nofusepasses", hidden = true)
+  protected boolean noFusePasses = false;
+
   /** Temporary flag to select the frontend during the transition to javac. */
   private static final Frontend FRONTEND =
       Frontend.valueOf(Ascii.toUpperCase(System.getProperty("j2cl.frontend", "jdt")));
@@ -91,7 +103,7 @@ final class BazelJ2clBuilder extends BazelWorker {
       this.readableSourceMaps = false;
     }
 
-    Path outputPath = getZipOutput(this.output, problems);
+    Output output = Output.zip(Paths.get(this.output), this.threadCount, problems);
     Path libraryInfoOutputPath = Paths.get(this.libraryInfoOutput);
 
     List<FileInfo> allSources =
@@ -111,28 +123,29 @@ final class BazelJ2clBuilder extends BazelWorker {
     // Directly put all supplied js sources into the zip file.
     allSources.stream()
         .filter(p -> p.sourcePath().endsWith(".js") && !p.sourcePath().endsWith("native.js"))
-        .forEach(
-            f ->
-                J2clUtils.copyFile(
-                    Paths.get(f.sourcePath()), outputPath.resolve(f.targetPath()), problems));
+        .forEach(f -> output.copy(f.asByteSource(), f.targetPath(), problems));
 
-    return J2clTranspilerOptions.newBuilder()
+    J2clTranspilerOptions.Builder builder = J2clTranspilerOptions.newBuilder();
+    if (this.profileOutput != null) {
+      builder.setProfileOutput(Paths.get(this.profileOutput));
+    }
+
+    return builder
         .setSources(allJavaSources)
         .setNativeSources(allNativeSources)
         .setClasspaths(getPathEntries(this.classPath))
-        .setOutput(outputPath)
+        .setOutput(output)
         .setLibraryInfoOutput(libraryInfoOutputPath)
         .setEmitReadableLibraryInfo(readableLibraryInfo)
         .setEmitReadableSourceMap(this.readableSourceMaps)
         .setGenerateKytheIndexingMetadata(this.generateKytheIndexingMetadata)
         .setFrontend(FRONTEND)
+        .setThreadCount(this.threadCount)
+        .setUnboxSmallLongs(this.unboxSmallLongs)
+        .setFuseNormalizationPasses(!this.noFusePasses)
         .build();
   }
 
-  private static Path getZipOutput(String output, Problems problems) {
-    return FrontendUtils.initZipOutput(output, problems).getPath("/");
-  }
-
   private static List<String> getPathEntries(String path) {
     List<String> entries = new ArrayList<>();
     for (String entry : Splitter.on(File.pathSeparatorChar).omitEmptyStrings().split(path)) {
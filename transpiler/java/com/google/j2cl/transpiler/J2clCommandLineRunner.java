@@ -20,11 +20,11 @@ import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableList;
 import com.google.j2cl.common.CommandLineTool;
 import com.google.j2cl.common.FrontendUtils;
+import com.google.j2cl.common.Output;
 import com.google.j2cl.common.Problems;
 import com.google.j2cl.common.Problems.FatalError;
 import com.google.j2cl.frontend.Frontend;
 import java.io.File;
-import java.nio.file.FileSystem;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -79,6 +79,36 @@ public final class J2clCommandLineRunner extends CommandLineTool {
       hidden = true)
   protected Frontend frontEnd = Frontend.JDT;
 
+  @Option(
+      name = "-profileoutput",
+      metaVar = "<path>",
+      usage =
+          "Writes a profile of the compilation, in Chrome trace format, to the given file."
+              + " Normalization passes are not fused when profiling.",
+      hidden = true)
+  protected String profileOutput = null;
+
+  @Option(
+      name = "-threads",
+      metaVar = "<number>",
+      usage = "Number of threads used to process compilation units (default 1).",
+      hidden = true)
+  protected int threadCount = 1;
+
+  @Option(
+      name = "-unboxsmalllongs",
+      usage =
+          "Represents longs that are safe integers as JavaScript numbers instead of goog.math.Long"
+              + " (experimental).",
+      hidden = true)
+  protected boolean unboxSmallLongs = false;
+
+  @Option(
+      name = "-nofusepasses",
+      usage = "Runs each normalization pass in its own traversal of the AST.",
+      hidden = true)
+  protected boolean noFusePasses = false;
+
   private J2clCommandLineRunner() {
     super("j2cl");
   }
@@ -98,7 +128,12 @@ public final class J2clCommandLineRunner extends CommandLineTool {
       this.readableSourceMaps = false;
     }
 
-    return J2clTranspilerOptions.newBuilder()
+    J2clTranspilerOptions.Builder builder = J2clTranspilerOptions.newBuilder();
+    if (this.profileOutput != null) {
+      builder.setProfileOutput(Paths.get(this.profileOutput));
+    }
+
+    return builder
         .setSources(
             FrontendUtils.getAllSources(this.files, problems)
                 .filter(p -> p.sourcePath().endsWith(".java"))
@@ -110,26 +145,24 @@ public final class J2clCommandLineRunner extends CommandLineTool {
         .setClasspaths(getPathEntries(this.classPath))
         .setOutput(
             this.output.endsWith(".zip")
-                ? getZipOutput(this.output, problems)
+                ? Output.zip(Paths.get(this.output), this.threadCount, problems)
                 : getDirOutput(this.output, problems))
         .setEmitReadableSourceMap(this.readableSourceMaps)
         .setEmitReadableLibraryInfo(false)
         .setGenerateKytheIndexingMetadata(this.generateKytheIndexingMetadata)
         .setFrontend(this.frontEnd)
+        .setThreadCount(this.threadCount)
+        .setUnboxSmallLongs(this.unboxSmallLongs)
+        .setFuseNormalizationPasses(!this.noFusePasses)
         .build();
   }
 
-  private static Path getDirOutput(String output, Problems problems) {
+  private static Output getDirOutput(String output, Problems problems) {
     Path outputPath = Paths.get(output);
     if (Files.isRegularFile(outputPath)) {
       problems.fatal(FatalError.OUTPUT_LOCATION, outputPath);
     }
-    return outputPath;
-  }
-
-  private static Path getZipOutput(String output, Problems problems) {
-    FileSystem newFileSystem = FrontendUtils.initZipOutput(output, problems);
-    return newFileSystem == null ? null : newFileSystem.getPath("/");
+    return Output.directory(outputPath);
   }
 
   private static List<String> getPathEntries(String path) {
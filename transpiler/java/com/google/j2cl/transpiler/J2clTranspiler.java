@@ -14,6 +14,7 @@
 package com.google.j2cl.transpiler;
 
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.Futures;
 import com.google.j2cl.ast.CompilationUnit;
@@ -27,6 +28,7 @@ import com.google.j2cl.ast.visitors.DevirtualizeMethodCalls;
 import com.google.j2cl.ast.visitors.ExpandCompoundAssignments;
 import com.google.j2cl.ast.visitors.FilloutMissingSourceMapInformation;
 import com.google.j2cl.ast.visitors.FixSuperCallQualifiers;
+import com.google.j2cl.ast.visitors.FusedNormalizationPass;
 import com.google.j2cl.ast.visitors.ImplementAssertStatements;
 import com.google.j2cl.ast.visitors.ImplementInstanceInitialization;
 import com.google.j2cl.ast.visitors.ImplementLambdaExpressions;
@@ -87,11 +89,12 @@ import com.google.j2cl.ast.visitors.VerifyNormalizedUnits;
 import com.google.j2cl.ast.visitors.VerifyParamAndArgCounts;
 import com.google.j2cl.ast.visitors.VerifySingleAstReference;
 import com.google.j2cl.ast.visitors.VerifyVariableScoping;
+import com.google.j2cl.common.CompilationProfiler;
+import com.google.j2cl.common.CompilationScope;
+import com.google.j2cl.common.ConcurrencyUtils;
+import com.google.j2cl.common.J2clUtils;
 import com.google.j2cl.common.Problems;
-import com.google.j2cl.common.Problems.FatalError;
 import com.google.j2cl.generator.OutputGeneratorStage;
-import java.io.IOException;
-import java.nio.file.FileSystem;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -102,11 +105,18 @@ class J2clTranspiler {
 
   /** Runs the entire J2CL pipeline. */
   static Problems transpile(J2clTranspilerOptions options) {
-    // Compiler has no static state, but rather uses thread local variables.
-    // Because of this, we invoke the compiler on a different thread each time.
+    // Compiler has no static state, but rather uses state that is local to the compilation scope of
+    // the thread. Because of this, we invoke the compiler on a different thread each time.
     ExecutorService executorService = Executors.newSingleThreadExecutor();
     Future<Problems> result =
-        executorService.submit(() -> new J2clTranspiler(options).transpileImpl());
+        executorService.submit(
+            () -> {
+              try {
+                return new J2clTranspiler(options).transpileImpl();
+              } finally {
+                CompilationScope.current().close();
+              }
+            });
     // Shutdown the executor service since it will only run a single transpilation. If not shutdown
     // it prevents the JVM from ending the process (see Executors.newFixedThreadPool()). This is not
     // normally observed since the transpiler in normal circumstances ends with System.exit() which
@@ -124,25 +134,45 @@ class J2clTranspiler {
   }
 
   private Problems transpileImpl() {
+    if (options.getProfileOutput().isPresent()) {
+      CompilationProfiler.enable();
+    }
+    CompilationProfiler profiler = CompilationProfiler.get();
     try {
       List<CompilationUnit> j2clUnits =
-          options
-              .getFrontend()
-              .getCompilationUnits(
-                  options.getClasspaths(),
-                  options.getSources(),
-                  options.getGenerateKytheIndexingMetadata(),
-                  problems);
+          profiler.phase(
+              "Frontend",
+              () ->
+                  options
+                      .getFrontend()
+                      .getCompilationUnits(
+                          options.getClasspaths(),
+                          options.getSources(),
+                          options.getGenerateKytheIndexingMetadata(),
+                          options.getThreadCount(),
+                          problems));
       if (!j2clUnits.isEmpty()) {
-        checkUnits(j2clUnits);
-        normalizeUnits(j2clUnits);
+        profiler.phase("JsInteropRestrictionsChecker", () -> checkUnits(j2clUnits));
+        profiler.phase(
+            "Normalization",
+            () ->
+                normalizeUnits(
+                    j2clUnits,
+                    options.getThreadCount(),
+                    options.getUnboxSmallLongs(),
+                    // Fused passes are measured as a whole, so they are not fused when profiling
+                    // in order to measure each pass.
+                    options.getFuseNormalizationPasses() && !profiler.isEnabled()));
+      }
+      profiler.phase("OutputGeneratorStage", () -> generateOutputs(j2clUnits));
+      if (options.getProfileOutput().isPresent()) {
+        J2clUtils.writeToFile(options.getProfileOutput().get(), profiler.toJson(), problems);
       }
-      generateOutputs(j2clUnits);
       return problems;
     } catch (Problems.Exit e) {
       return e.getProblems();
     } finally {
-      maybeCloseFileSystem();
+      options.getOutput().close(problems);
     }
   }
 
@@ -151,150 +181,183 @@ class J2clTranspiler {
     problems.abortIfHasErrors();
   }
 
-  private static void normalizeUnits(List<CompilationUnit> j2clUnits) {
+  @VisibleForTesting
+  static void normalizeUnits(
+      List<CompilationUnit> j2clUnits,
+      int threadCount,
+      boolean unboxSmallLongs,
+      boolean fuseNormalizationPasses) {
+    // Units are normalized independently, except for the numbering of lambda adaptors which is
+    // sequential across units. Hence ImplementLambdaExpressions, which runs first, is applied to
+    // all units in order before the rest of the passes, which might run concurrently.
+    NormalizationPass implementLambdaExpressions = new ImplementLambdaExpressions();
+    if (threadCount == 1) {
+      List<NormalizationPass> passes =
+          createNormalizationPasses(unboxSmallLongs, fuseNormalizationPasses);
+      for (CompilationUnit j2clUnit : j2clUnits) {
+        verifyUnit(j2clUnit);
+        applyPass(implementLambdaExpressions, j2clUnit);
+        for (NormalizationPass pass : passes) {
+          applyPass(pass, j2clUnit);
+        }
+        verifyNormalizedUnit(j2clUnit);
+      }
+      return;
+    }
+
+    ConcurrencyUtils.forEach(j2clUnits, threadCount, J2clTranspiler::verifyUnit);
+    j2clUnits.forEach(j2clUnit -> applyPass(implementLambdaExpressions, j2clUnit));
+    ConcurrencyUtils.forEach(
+        j2clUnits,
+        threadCount,
+        j2clUnit -> {
+          // Some passes keep state, hence each unit gets its own instances.
+          for (NormalizationPass pass :
+              createNormalizationPasses(unboxSmallLongs, fuseNormalizationPasses)) {
+            applyPass(pass, j2clUnit);
+          }
+          verifyNormalizedUnit(j2clUnit);
+        });
+  }
+
+  /** Returns the passes that run after ImplementLambdaExpressions, see normalizeUnits. */
+  private static List<NormalizationPass> createNormalizationPasses(
+      boolean unboxSmallLongs, boolean fuseNormalizationPasses) {
+    List<NormalizationPass> passes = createUnfusedNormalizationPasses(unboxSmallLongs);
+    // Consecutive local passes are run in a single traversal.
+    return fuseNormalizationPasses ? FusedNormalizationPass.fuseLocalPasses(passes) : passes;
+  }
+
+  private static List<NormalizationPass> createUnfusedNormalizationPasses(boolean unboxSmallLongs) {
     // TODO(b/117155139): Review the ordering of passes.
-    List<NormalizationPass> passes =
-        ImmutableList.of(
-            // Class structure normalizations.
-            new ImplementLambdaExpressions(),
-            new OptimizeAnonymousInnerClassesToFunctionExpressions(),
-            new NormalizeFunctionExpressions(),
-            new NormalizeJsEnums(),
-            // Default constructors and explicit super calls should be synthesized first.
-            new CreateDefaultConstructors(),
-            new InsertExplicitSuperCalls(),
-            new DefaultMethodsResolver(),
-            new PackagePrivateMethodsDispatcher(),
-            new BridgeMethodsCreator(),
-            new JsBridgeMethodsCreator(),
-            // TODO(b/31865368): Remove RewriteStringEquals pass once delayed field initialization
-            //  is introduced and String.java gets updated to use it.
-            new RewriteStringEquals(),
-            new DevirtualizeBoxedTypesAndJsFunctionImplementations(),
-            new NormalizeTryWithResources(),
-            new NormalizeCatchClauses(),
-            // Runs before normalizing nested classes.
-            new InsertCastOnNewInstances(),
-            // Must run before Enum normalization
-            new FixSuperCallQualifiers(),
+    return ImmutableList.of(
+        // Class structure normalizations.
+        new OptimizeAnonymousInnerClassesToFunctionExpressions(),
+        new NormalizeFunctionExpressions(),
+        new NormalizeJsEnums(),
+        // Default constructors and explicit super calls should be synthesized first.
+        new CreateDefaultConstructors(),
+        new InsertExplicitSuperCalls(),
+        new DefaultMethodsResolver(),
+        new PackagePrivateMethodsDispatcher(),
+        new BridgeMethodsCreator(),
+        new JsBridgeMethodsCreator(),
+        // TODO(b/31865368): Remove RewriteStringEquals pass once delayed field initialization
+        //  is introduced and String.java gets updated to use it.
+        new RewriteStringEquals(),
+        new DevirtualizeBoxedTypesAndJsFunctionImplementations(),
+        new NormalizeTryWithResources(),
+        new NormalizeCatchClauses(),
+        // Runs before normalizing nested classes.
+        new InsertCastOnNewInstances(),
+        // Must run before Enum normalization
+        new FixSuperCallQualifiers(),
 
-            // Runs after all passes that synthesize overlays.
-            new NormalizeJsOverlayMembers(),
-            new NormalizeEnumClasses(),
-            new NormalizeInterfaceMethods(),
-            // End of class structure normalization.
+        // Runs after all passes that synthesize overlays.
+        new NormalizeJsOverlayMembers(),
+        new NormalizeEnumClasses(),
+        new NormalizeInterfaceMethods(),
+        // End of class structure normalization.
 
-            // Statement/Expression normalizations
-            new NormalizeArrayLiterals(),
-            new NormalizeStaticMemberQualifiers(),
-            // Runs after NormalizeStaticMemberQualifiersPass.
-            new DevirtualizeMethodCalls(),
-            new ControlStatementFormatter(),
-            new NormalizeMultiExpressions(),
-            // Runs after NormalizeMultiExpressions to make sure it only sees valid l-values.
-            new ExpandCompoundAssignments(),
-            new InsertErasureTypeSafetyCasts(),
-            // Runs before unboxing conversion.
-            new InsertStringConversions(),
-            new InsertNarrowingReferenceConversions(),
-            new InsertUnboxingConversions(),
-            new InsertBoxingConversions(),
-            new InsertNarrowingPrimitiveConversions(),
-            new InsertWideningPrimitiveConversions(),
-            new NormalizeLongs(),
-            new InsertDivisionCoercions(),
-            new InsertBitwiseOperatorBooleanCoercions(),
-            new InsertUnsignedRightShiftCoercions(),
-            new NormalizeJsFunctionPropertyInvocations(),
-            // Run before other passes that normalize JsEnum expressions, but after all the normal
-            // Java semantic conversions.
-            new InsertJsEnumBoxingAndUnboxingConversions(),
-            new NormalizeSwitchStatements(),
-            new ArrayAccessNormalizer(),
-            new ImplementAssertStatements(),
-            new ImplementSynchronizedStatements(),
-            new NormalizeFieldInitialization(),
-            new ImplementInstanceInitialization(),
-            new NormalizeNestedClassConstructors(),
-            new NormalizeConstructors(),
-            new NormalizeTypeLiterals(),
-            new NormalizeCasts(),
-            new NormalizeInstanceOfs(),
-            new NormalizeEquality(),
-            new NormalizeStaticNativeMemberReferences(),
-            new NormalizeJsVarargs(),
-            new NormalizeArrayCreations(),
-            new InsertExceptionConversions(),
-            new NormalizeLiterals(),
+        // Statement/Expression normalizations
+        new NormalizeArrayLiterals(),
+        new NormalizeStaticMemberQualifiers(),
+        // Runs after NormalizeStaticMemberQualifiersPass.
+        new DevirtualizeMethodCalls(),
+        new ControlStatementFormatter(),
+        new NormalizeMultiExpressions(),
+        // Runs after NormalizeMultiExpressions to make sure it only sees valid l-values.
+        new ExpandCompoundAssignments(),
+        new InsertErasureTypeSafetyCasts(),
+        // Runs before unboxing conversion.
+        new InsertStringConversions(),
+        new InsertNarrowingReferenceConversions(),
+        new InsertUnboxingConversions(),
+        new InsertBoxingConversions(),
+        new InsertNarrowingPrimitiveConversions(unboxSmallLongs),
+        new InsertWideningPrimitiveConversions(unboxSmallLongs),
+        new NormalizeLongs(),
+        new InsertDivisionCoercions(),
+        new InsertBitwiseOperatorBooleanCoercions(),
+        new InsertUnsignedRightShiftCoercions(),
+        new NormalizeJsFunctionPropertyInvocations(),
+        // Run before other passes that normalize JsEnum expressions, but after all the normal
+        // Java semantic conversions.
+        new InsertJsEnumBoxingAndUnboxingConversions(),
+        new NormalizeSwitchStatements(),
+        new ArrayAccessNormalizer(),
+        new ImplementAssertStatements(),
+        new ImplementSynchronizedStatements(),
+        new NormalizeFieldInitialization(),
+        new ImplementInstanceInitialization(),
+        new NormalizeNestedClassConstructors(),
+        new NormalizeConstructors(),
+        new NormalizeTypeLiterals(),
+        new NormalizeCasts(),
+        new NormalizeInstanceOfs(),
+        new NormalizeEquality(),
+        new NormalizeStaticNativeMemberReferences(),
+        new NormalizeJsVarargs(),
+        new NormalizeArrayCreations(),
+        new InsertExceptionConversions(),
+        new NormalizeLiterals(unboxSmallLongs),
 
-            // Needs to run after passes that do code synthesis are run so that it handles the
-            // synthesize code as well.
-            // TODO(b/35241823): Revisit this pass if jscompiler adds a way to express constraints
-            // to template variables.
-            new InsertCastsToTypeBounds(),
+        // Needs to run after passes that do code synthesis are run so that it handles the
+        // synthesize code as well.
+        // TODO(b/35241823): Revisit this pass if jscompiler adds a way to express constraints
+        // to template variables.
+        new InsertCastsToTypeBounds(),
 
-            // TODO(b/72652198): remove the temporary fix once switch to JSCompiler's new type
-            // checker.
-            new InsertTypeAnnotationOnGenericReturnTypes(),
+        // TODO(b/72652198): remove the temporary fix once switch to JSCompiler's new type
+        // checker.
+        new InsertTypeAnnotationOnGenericReturnTypes(),
 
-            // Perform post cleanups.
-            new ImplementStaticInitialization(),
-            // Normalize multiexpressions again to remove unnecessary clutter, but run before
-            // variable motion.
-            new NormalizeMultiExpressions(),
-            new MoveVariableDeclarationsToEnclosingBlock(),
-            // Remove redundant JsDocCasts.
-            new RemoveUnneededJsDocCasts(),
-            new NormalizeJsDocCastExpressions(),
+        // Perform post cleanups.
+        new ImplementStaticInitialization(),
+        // Normalize multiexpressions again to remove unnecessary clutter, but run before
+        // variable motion.
+        new NormalizeMultiExpressions(),
+        new MoveVariableDeclarationsToEnclosingBlock(),
+        // Remove redundant JsDocCasts.
+        new RemoveUnneededJsDocCasts(),
+        new NormalizeJsDocCastExpressions(),
 
-            // Handle await keyword.
-            new NormalizeJsAwaitMethodInvocations(),
-            new RemoveNoopStatements(),
+        // Handle await keyword.
+        new NormalizeJsAwaitMethodInvocations(),
+        new RemoveNoopStatements(),
 
-            // Enrich source mapping information for better stack deobfuscation.
-            new FilloutMissingSourceMapInformation());
+        // Enrich source mapping information for better stack deobfuscation.
+        new FilloutMissingSourceMapInformation());
+  }
 
-    for (CompilationUnit j2clUnit : j2clUnits) {
-      verifyUnit(j2clUnit);
-      for (NormalizationPass pass : passes) {
-        pass.applyTo(j2clUnit);
-      }
-      verifyNormalizedUnit(j2clUnit);
-    }
+  private static void applyPass(NormalizationPass pass, CompilationUnit j2clUnit) {
+    CompilationProfiler.get().step(pass.getClass().getSimpleName(), () -> pass.applyTo(j2clUnit));
   }
 
   private static void verifyUnit(CompilationUnit j2clUnit) {
-    VerifySingleAstReference.applyTo(j2clUnit);
-    VerifyParamAndArgCounts.applyTo(j2clUnit);
-    VerifyVariableScoping.applyTo(j2clUnit);
+    CompilationProfiler profiler = CompilationProfiler.get();
+    profiler.step("VerifySingleAstReference", () -> VerifySingleAstReference.applyTo(j2clUnit));
+    profiler.step("VerifyParamAndArgCounts", () -> VerifyParamAndArgCounts.applyTo(j2clUnit));
+    profiler.step("VerifyVariableScoping", () -> VerifyVariableScoping.applyTo(j2clUnit));
   }
 
   private static void verifyNormalizedUnit(CompilationUnit j2clUnit) {
     verifyUnit(j2clUnit);
-    VerifyNormalizedUnits.applyTo(j2clUnit);
+    CompilationProfiler.get()
+        .step("VerifyNormalizedUnits", () -> VerifyNormalizedUnits.applyTo(j2clUnit));
   }
 
   private void generateOutputs(List<CompilationUnit> j2clCompilationUnits) {
     new OutputGeneratorStage(
+            options.getSources(),
             options.getNativeSources(),
             options.getOutput(),
             options.getLibraryInfoOutput(),
             options.getEmitReadableLibraryInfo(),
             options.getEmitReadableSourceMap(),
             options.getGenerateKytheIndexingMetadata(),
+            options.getThreadCount(),
             problems)
         .generateOutputs(j2clCompilationUnits);
   }
-
-  private void maybeCloseFileSystem() {
-    FileSystem outputFileSystem = options.getOutput().getFileSystem();
-    if (outputFileSystem.getClass().getCanonicalName().equals("com.sun.nio.zipfs.ZipFileSystem")
-        || outputFileSystem.getClass().getCanonicalName().equals("jdk.nio.zipfs.ZipFileSystem")) {
-      try {
-        outputFileSystem.close();
-      } catch (IOException e) {
-        problems.fatal(FatalError.CANNOT_CLOSE_ZIP, e.getMessage());
-      }
-    }
-  }
 }
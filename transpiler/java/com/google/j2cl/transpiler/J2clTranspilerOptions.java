@@ -20,6 +20,7 @@ import static com.google.common.base.Preconditions.checkState;
 import com.google.auto.value.AutoValue;
 import com.google.common.collect.ImmutableList;
 import com.google.j2cl.common.FrontendUtils.FileInfo;
+import com.google.j2cl.common.Output;
 import com.google.j2cl.frontend.Frontend;
 import java.nio.file.Path;
 import java.util.List;
@@ -35,10 +36,16 @@ public abstract class J2clTranspilerOptions {
 
   public abstract ImmutableList<String> getClasspaths();
 
-  public abstract Path getOutput();
+  public abstract Output getOutput();
 
   public abstract Optional<Path> getLibraryInfoOutput();
 
+  /**
+   * Where to write the compilation profile, if profiling is enabled. Normalization passes are not
+   * fused in profiled compilations so that each of them is measured.
+   */
+  public abstract Optional<Path> getProfileOutput();
+
   public abstract boolean getEmitReadableLibraryInfo();
 
   public abstract boolean getEmitReadableSourceMap();
@@ -47,8 +54,26 @@ public abstract class J2clTranspilerOptions {
 
   public abstract Frontend getFrontend();
 
+  /** Number of threads used to process the compilation units; 1 processes them sequentially. */
+  public abstract int getThreadCount();
+
+  /**
+   * Whether longs whose values are safe integers are emitted as plain JavaScript numbers, falling
+   * back to goog.math.Long only for values outside of that range.
+   */
+  public abstract boolean getUnboxSmallLongs();
+
+  /**
+   * Whether consecutive local normalization passes run in a single traversal of each unit, which
+   * does not change the output.
+   */
+  public abstract boolean getFuseNormalizationPasses();
+
   public static Builder newBuilder() {
-    return new AutoValue_J2clTranspilerOptions.Builder();
+    return new AutoValue_J2clTranspilerOptions.Builder()
+        .setThreadCount(1)
+        .setUnboxSmallLongs(false)
+        .setFuseNormalizationPasses(true);
   }
 
   /** A Builder for J2clTranspilerOptions. */
@@ -61,10 +86,12 @@ public abstract class J2clTranspilerOptions {
 
     public abstract Builder setClasspaths(List<String> entries);
 
-    public abstract Builder setOutput(Path path);
+    public abstract Builder setOutput(Output output);
 
     public abstract Builder setLibraryInfoOutput(Path path);
 
+    public abstract Builder setProfileOutput(Path path);
+
     public abstract Builder setEmitReadableLibraryInfo(boolean b);
 
     public abstract Builder setEmitReadableSourceMap(boolean b);
@@ -73,6 +100,12 @@ public abstract class J2clTranspilerOptions {
 
     public abstract Builder setFrontend(Frontend frontend);
 
+    public abstract Builder setThreadCount(int threadCount);
+
+    public abstract Builder setUnboxSmallLongs(boolean b);
+
+    public abstract Builder setFuseNormalizationPasses(boolean b);
+
     abstract J2clTranspilerOptions autoBuild();
 
     public J2clTranspilerOptions build() {
@@ -81,6 +114,7 @@ public abstract class J2clTranspilerOptions {
           !options.getEmitReadableSourceMap() || !options.getGenerateKytheIndexingMetadata());
       checkState(
           !options.getEmitReadableLibraryInfo() || options.getLibraryInfoOutput().isPresent());
+      checkState(options.getThreadCount() > 0);
       return options;
     }
   }
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.j2cl.ast;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.j2cl.common.ConcurrencyUtils;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class LazyDescriptorsTest {
+
+  @Test
+  public void testMemo_allThreadsGetTheFirstValue() {
+    LazyDescriptors.Memo<Object> memo = new LazyDescriptors.Memo<>();
+    List<Integer> inputs = Collections.nCopies(64, 0);
+
+    List<Object> values = ConcurrencyUtils.map(inputs, 8, i -> memo.get(Object::new));
+
+    assertThat(ImmutableSet.copyOf(values)).hasSize(1);
+  }
+
+  @Test
+  public void testMemo_computesConcurrently() {
+    // Each computation waits for all the others to start, which only happens if none of them
+    // holds a lock that the others need, including the lock held by frontend computations.
+    int threadCount = 4;
+    CountDownLatch started = new CountDownLatch(threadCount);
+    LazyDescriptors.Memo<Boolean> frontendMemo = new LazyDescriptors.Memo<>();
+    List<LazyDescriptors.Memo<Boolean>> memos =
+        ImmutableList.of(
+            new LazyDescriptors.Memo<>(),
+            new LazyDescriptors.Memo<>(),
+            new LazyDescriptors.Memo<>());
+
+    List<Boolean> values =
+        ConcurrencyUtils.map(
+            ImmutableList.of(0, 1, 2, 3),
+            threadCount,
+            i ->
+                i == 0
+                    ? frontendMemo.getFromFrontend(() -> awaitAll(started))
+                    : memos.get(i - 1).get(() -> awaitAll(started)));
+
+    assertThat(values).containsExactly(true, true, true, true);
+  }
+
+  @Test
+  public void testMemo_computesFromFrontendOnceAcrossThreads() {
+    LazyDescriptors.Memo<Object> memo = new LazyDescriptors.Memo<>();
+    AtomicInteger computationCount = new AtomicInteger();
+    List<Integer> inputs = Collections.nCopies(64, 0);
+
+    List<Object> values =
+        ConcurrencyUtils.map(
+            inputs,
+            8,
+            i ->
+                memo.getFromFrontend(
+                    () -> {
+                      computationCount.incrementAndGet();
+                      return new Object();
+                    }));
+
+    assertThat(computationCount.get()).isEqualTo(1);
+    assertThat(ImmutableSet.copyOf(values)).hasSize(1);
+  }
+
+  @Test
+  public void testMemo_memoizesNull() {
+    LazyDescriptors.Memo<Object> memo = new LazyDescriptors.Memo<>();
+    LazyDescriptors.Memo<Object> frontendMemo = new LazyDescriptors.Memo<>();
+    AtomicInteger computationCount = new AtomicInteger();
+
+    for (int i = 0; i < 3; i++) {
+      assertThat(
+              memo.get(
+                  () -> {
+                    computationCount.incrementAndGet();
+                    return null;
+                  }))
+          .isNull();
+      assertThat(
+              frontendMemo.getFromFrontend(
+                  () -> {
+                    computationCount.incrementAndGet();
+                    return null;
+                  }))
+          .isNull();
+    }
+    assertThat(computationCount.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void testMemo_dependentFrontendMemosComputedConcurrently() {
+    // Each memo depends on the next one, in opposite orders for even and odd inputs; since all of
+    // them are computed under the same lock the computations can't wait on each other.
+    List<LazyDescriptors.Memo<Integer>> memos =
+        ImmutableList.of(
+            new LazyDescriptors.Memo<>(),
+            new LazyDescriptors.Memo<>(),
+            new LazyDescriptors.Memo<>(),
+            new LazyDescriptors.Memo<>());
+    List<Integer> inputs = ImmutableList.of(0, 1, 2, 3, 4, 5, 6, 7);
+
+    List<Integer> values =
+        ConcurrencyUtils.map(
+            inputs, 8, i -> compute(memos, i % 2 == 0 ? 0 : memos.size() - 1, i % 2 == 0 ? 1 : -1));
+
+    assertThat(values).hasSize(inputs.size());
+  }
+
+  private static int compute(List<LazyDescriptors.Memo<Integer>> memos, int index, int direction) {
+    int next = index + direction;
+    return memos
+        .get(index)
+        .getFromFrontend(
+            () -> next < 0 || next >= memos.size() ? 1 : compute(memos, next, direction) + 1);
+  }
+
+  private static boolean awaitAll(CountDownLatch started) {
+    started.countDown();
+    try {
+      return started.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.j2cl.bazel;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.devtools.build.lib.worker.WorkerProtocol.WorkRequest;
+import com.google.devtools.build.lib.worker.WorkerProtocol.WorkResponse;
+import com.google.j2cl.common.Problems;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.kohsuke.args4j.Argument;
+import org.kohsuke.args4j.Option;
+
+@RunWith(JUnit4.class)
+public final class BazelWorkerTest {
+
+  @Test
+  public void testMultiplexedRequests() throws Exception {
+    // The first request can only complete once the third one has run, and the third one once the
+    // second one has run, so they have to be processed concurrently.
+    Map<Integer, WorkResponse> responseByRequestId =
+        runPersistentWorker(
+            createRequest(1, "-waitfor", "third", "first"),
+            createRequest(2, "-fail", "second"),
+            createRequest(3, "-waitfor", "second", "third"),
+            createRequest(4, "-crash", "fourth"));
+
+    assertThat(responseByRequestId.keySet()).containsExactly(1, 2, 3, 4);
+    assertThat(responseByRequestId.get(1).getExitCode()).isEqualTo(0);
+    assertThat(responseByRequestId.get(1).getOutput().trim()).isEqualTo("first done");
+    assertThat(responseByRequestId.get(2).getExitCode()).isEqualTo(1);
+    assertThat(responseByRequestId.get(2).getOutput()).contains("second failed");
+    assertThat(responseByRequestId.get(3).getExitCode()).isEqualTo(0);
+    assertThat(responseByRequestId.get(3).getOutput().trim()).isEqualTo("third done");
+    assertThat(responseByRequestId.get(4).getExitCode()).isEqualTo(1);
+    assertThat(responseByRequestId.get(4).getOutput()).contains("fourth crashed");
+  }
+
+  @Test
+  public void testSingleplexRequests() throws Exception {
+    Map<Integer, WorkResponse> responseByRequestId = runPersistentWorker(createRequest(0, "only"));
+
+    assertThat(responseByRequestId.keySet()).containsExactly(0);
+    assertThat(responseByRequestId.get(0).getExitCode()).isEqualTo(0);
+    assertThat(responseByRequestId.get(0).getOutput().trim()).isEqualTo("only done");
+  }
+
+  private static WorkRequest createRequest(int requestId, String... arguments) {
+    return WorkRequest.newBuilder()
+        .addAllArguments(ImmutableList.copyOf(arguments))
+        .setRequestId(requestId)
+        .build();
+  }
+
+  /** Sends the requests to a worker and returns the responses, by request id. */
+  private static Map<Integer, WorkResponse> runPersistentWorker(WorkRequest... requests)
+      throws IOException, InterruptedException {
+    ByteArrayOutputStream requestBytes = new ByteArrayOutputStream();
+    for (WorkRequest request : requests) {
+      request.writeDelimitedTo(requestBytes);
+    }
+    ByteArrayOutputStream responseBytes = new ByteArrayOutputStream();
+
+    BazelWorker.runPersistentWorker(
+        TestWorker::new,
+        new ByteArrayInputStream(requestBytes.toByteArray()),
+        new PrintStream(responseBytes),
+        /* maxConcurrentRequests= */ requests.length,
+        new GcPolicy(GcPolicy.Mode.NEVER, 0, 0));
+
+    Map<Integer, WorkResponse> responseByRequestId = new HashMap<>();
+    InputStream responses = new ByteArrayInputStream(responseBytes.toByteArray());
+    for (WorkResponse response = WorkResponse.parseDelimitedFrom(responses);
+        response != null;
+        response = WorkResponse.parseDelimitedFrom(responses)) {
+      assertThat(responseByRequestId.put(response.getRequestId(), response)).isNull();
+    }
+    return responseByRequestId;
+  }
+
+  /** A worker that reports its name, once the requests it waits for have run. */
+  private static final class TestWorker extends BazelWorker {
+    private static final Map<String, CountDownLatch> latchByName = new ConcurrentHashMap<>();
+
+    @Option(name = "-waitfor")
+    List<String> waitFor = new ArrayList<>();
+
+    @Option(name = "-fail")
+    boolean fail = false;
+
+    @Option(name = "-crash")
+    boolean crash = false;
+
+    @Argument(required = true)
+    String name = null;
+
+    @Override
+    protected Problems run() {
+      Problems problems = new Problems();
+      try {
+        for (String otherName : waitFor) {
+          if (!getLatch(otherName).await(30, TimeUnit.SECONDS)) {
+            problems.error("%s timed out waiting for %s", name, otherName);
+            return problems;
+          }
+        }
+      } catch (InterruptedException e) {
+        throw new AssertionError(e);
+      } finally {
+        getLatch(name).countDown();
+      }
+
+      if (crash) {
+        throw new IllegalStateException(name + " crashed");
+      }
+      if (fail) {
+        problems.error("%s failed", name);
+      } else {
+        problems.info("%s done", name);
+      }
+      return problems;
+    }
+
+    private static CountDownLatch getLatch(String name) {
+      return latchByName.computeIfAbsent(name, n -> new CountDownLatch(1));
+    }
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.j2cl.bazel;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.Properties;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class GcPolicyTest {
+
+  private static final long MAX_HEAP_BYTES = 1000;
+
+  @Test
+  public void testNever() {
+    GcPolicy gcPolicy = GcPolicy.fromProperties(createProperties("never", null, null));
+
+    assertThat(gcPolicy.shouldCollect(MAX_HEAP_BYTES, MAX_HEAP_BYTES, true)).isFalse();
+    for (int i = 0; i < 100; i++) {
+      assertThat(gcPolicy.shouldCollect(0, MAX_HEAP_BYTES, true)).isFalse();
+    }
+  }
+
+  @Test
+  public void testAlways() {
+    GcPolicy gcPolicy = GcPolicy.fromProperties(createProperties("ALWAYS", null, null));
+
+    assertThat(gcPolicy.shouldCollect(0, MAX_HEAP_BYTES, true)).isTrue();
+    assertThat(gcPolicy.shouldCollect(0, MAX_HEAP_BYTES, true)).isTrue();
+    // A collection would pause the requests that are running.
+    assertThat(gcPolicy.shouldCollect(MAX_HEAP_BYTES, MAX_HEAP_BYTES, false)).isFalse();
+  }
+
+  @Test
+  public void testAdaptive_heapOccupancy() {
+    GcPolicy gcPolicy = GcPolicy.fromProperties(createProperties("adaptive", "0.5", "0"));
+
+    assertThat(gcPolicy.shouldCollect(500, MAX_HEAP_BYTES, true)).isFalse();
+    assertThat(gcPolicy.shouldCollect(501, MAX_HEAP_BYTES, true)).isTrue();
+    assertThat(gcPolicy.shouldCollect(900, MAX_HEAP_BYTES, false)).isFalse();
+    // The maximum heap size is unknown.
+    assertThat(gcPolicy.shouldCollect(900, -1, true)).isFalse();
+    for (int i = 0; i < 100; i++) {
+      assertThat(gcPolicy.shouldCollect(0, MAX_HEAP_BYTES, true)).isFalse();
+    }
+  }
+
+  @Test
+  public void testAdaptive_requestInterval() {
+    GcPolicy gcPolicy = GcPolicy.fromProperties(createProperties(null, "1", "3"));
+
+    assertThat(gcPolicy.shouldCollect(0, MAX_HEAP_BYTES, true)).isFalse();
+    assertThat(gcPolicy.shouldCollect(0, MAX_HEAP_BYTES, true)).isFalse();
+    assertThat(gcPolicy.shouldCollect(0, MAX_HEAP_BYTES, true)).isTrue();
+    assertThat(gcPolicy.shouldCollect(0, MAX_HEAP_BYTES, false)).isFalse();
+    assertThat(gcPolicy.shouldCollect(0, MAX_HEAP_BYTES, false)).isFalse();
+    // The requests that completed while others were running count as well.
+    assertThat(gcPolicy.shouldCollect(0, MAX_HEAP_BYTES, true)).isTrue();
+  }
+
+  @Test
+  public void testDefaults() {
+    GcPolicy gcPolicy = GcPolicy.fromProperties(new Properties());
+
+    assertThat(gcPolicy.shouldCollect(750, MAX_HEAP_BYTES, true)).isFalse();
+    assertThat(gcPolicy.shouldCollect(751, MAX_HEAP_BYTES, true)).isTrue();
+    for (int i = 1; i < 50; i++) {
+      assertThat(gcPolicy.shouldCollect(0, MAX_HEAP_BYTES, true)).isFalse();
+    }
+    assertThat(gcPolicy.shouldCollect(0, MAX_HEAP_BYTES, true)).isTrue();
+  }
+
+  @Test
+  public void testInvalidProperties() {
+    assertInvalid(
+        createProperties("sometimes", null, null),
+        "Invalid j2cl.worker.gc 'sometimes', expected never, always or adaptive.");
+    assertInvalid(
+        createProperties(null, "75%", null),
+        "Invalid j2cl.worker.gcHeapOccupancy '75%', expected a fraction between 0 and 1.");
+    assertInvalid(
+        createProperties(null, "1.5", null),
+        "Invalid j2cl.worker.gcHeapOccupancy '1.5', expected a fraction between 0 and 1.");
+    assertInvalid(
+        createProperties(null, null, "-1"),
+        "Invalid j2cl.worker.gcRequestInterval '-1', expected a number of requests or 0.");
+    assertInvalid(
+        createProperties(null, null, "often"),
+        "Invalid j2cl.worker.gcRequestInterval 'often', expected a number of requests or 0.");
+  }
+
+  private static void assertInvalid(Properties properties, String expectedMessage) {
+    try {
+      GcPolicy.fromProperties(properties);
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      assertThat(e.getMessage()).isEqualTo(expectedMessage);
+    }
+  }
+
+  private static Properties createProperties(
+      String mode, String heapOccupancy, String requestInterval) {
+    Properties properties = new Properties();
+    if (mode != null) {
+      properties.setProperty("j2cl.worker.gc", mode);
+    }
+    if (heapOccupancy != null) {
+      properties.setProperty("j2cl.worker.gcHeapOccupancy", heapOccupancy);
+    }
+    if (requestInterval != null) {
+      properties.setProperty("j2cl.worker.gcRequestInterval", requestInterval);
+    }
+    return properties;
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.j2cl.common;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class CompilationScopeTest {
+
+  private static final CompilationScope.Local<Object> value =
+      CompilationScope.Local.withInitial(Object::new);
+
+  @Test
+  public void testLocal_isolatedBetweenThreads() throws Exception {
+    Object valueInMainThread = value.get();
+    Future<Object> valueInOtherThread = Executors.newSingleThreadExecutor().submit(value::get);
+
+    assertThat(valueInOtherThread.get()).isNotSameInstanceAs(valueInMainThread);
+  }
+
+  @Test
+  public void testLocal_sharedWithinScope() throws Exception {
+    Object valueInMainThread = value.get();
+    Future<Object> valueInOtherThread =
+        Executors.newSingleThreadExecutor().submit(CompilationScope.current().wrap(value::get));
+
+    assertThat(valueInOtherThread.get()).isSameInstanceAs(valueInMainThread);
+  }
+
+  @Test
+  public void testConcurrencyUtilsMap_preservesOrderAndScope() {
+    Object valueInMainThread = value.get();
+    List<Integer> inputs = ImmutableList.of(1, 2, 3, 4, 5, 6, 7, 8);
+
+    assertThat(ConcurrencyUtils.map(inputs, 4, i -> i * 2))
+        .containsExactly(2, 4, 6, 8, 10, 12, 14, 16)
+        .inOrder();
+    for (Object valueInWorker : ConcurrencyUtils.map(inputs, 4, i -> value.get())) {
+      assertThat(valueInWorker).isSameInstanceAs(valueInMainThread);
+    }
+  }
+
+  @Test
+  public void testConcurrencyUtilsForEach_rethrowsEarliestFailure() {
+    IllegalStateException e =
+        assertThrows(
+            IllegalStateException.class,
+            () ->
+                ConcurrencyUtils.forEach(
+                    ImmutableList.of(1, 2, 3),
+                    3,
+                    i -> {
+                      if (i > 1) {
+                        throw new IllegalStateException(String.valueOf(i));
+                      }
+                    }));
+
+    assertThat(e).hasMessageThat().isEqualTo("2");
+  }
+}
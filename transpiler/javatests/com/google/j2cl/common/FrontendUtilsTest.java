@@ -15,15 +15,33 @@
  */
 package com.google.j2cl.common;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.MoreCollectors.onlyElement;
 import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertThrows;
 
+import com.google.common.collect.ImmutableList;
+import com.google.j2cl.common.FrontendUtils.FileInfo;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
 @RunWith(JUnit4.class)
 public final class FrontendUtilsTest {
 
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   private static final String[][] JAVA_PATHS_GOOD = {
     {"java", "com/google/foo/Foo"},
     {"javatests", "com/google/foo/FooTest"},
@@ -57,4 +75,61 @@ public final class FrontendUtilsTest {
       assertThat(FrontendUtils.getJavaPath(JAVA_PATHS_BAD[i])).isEqualTo(JAVA_PATHS_BAD[i]);
     }
   }
+
+  @Test
+  public void testGetAllSources_readsJarsInPlace() throws IOException {
+    Path first = temporaryFolder.getRoot().toPath().resolve("first.srcjar");
+    writeZip(first, "com/foo/B.java", "class B {}", "com/foo/A.java", "class A {}");
+    Path second = temporaryFolder.getRoot().toPath().resolve("second.srcjar");
+    writeZip(second, "com/foo/A.java", "class A { int a; }");
+
+    ImmutableList<FileInfo> sources =
+        FrontendUtils.getAllSources(
+                ImmutableList.of(first.toString(), second.toString()), new Problems())
+            .collect(toImmutableList());
+
+    // Entries are sorted and shadow the entries with the same name in previous jars.
+    assertThat(sources.stream().map(FileInfo::sourcePath))
+        .containsExactly(second + "!/com/foo/A.java", first + "!/com/foo/B.java")
+        .inOrder();
+    assertThat(sources.stream().map(FileInfo::targetPath))
+        .containsExactly("com/foo/A.java", "com/foo/B.java")
+        .inOrder();
+    assertThat(sources.get(0).isInJar()).isTrue();
+    assertThat(sources.get(0).asByteSource().asCharSource(UTF_8).read())
+        .isEqualTo("class A { int a; }");
+  }
+
+  @Test
+  public void testGetAllSources_closesJarsWithTheCompilationScope() throws Exception {
+    Path jar = temporaryFolder.getRoot().toPath().resolve("sources.srcjar");
+    writeZip(jar, "com/foo/A.java", "class A {}");
+
+    // Runs in a thread of its own so that the scope is not shared with other tests.
+    Thread thread =
+        new Thread(
+            () -> {
+              FileInfo source =
+                  FrontendUtils.getAllSources(ImmutableList.of(jar.toString()), new Problems())
+                      .collect(onlyElement());
+              CompilationScope.current().close();
+              assertThrows(IllegalStateException.class, () -> source.asByteSource().read());
+            });
+    List<Throwable> failures = new ArrayList<>();
+    thread.setUncaughtExceptionHandler((t, e) -> failures.add(e));
+    thread.start();
+    thread.join();
+    assertThat(failures).isEmpty();
+  }
+
+  private static void writeZip(Path path, String... namesAndContents) throws IOException {
+    try (OutputStream outputStream = Files.newOutputStream(path);
+        ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream)) {
+      for (int i = 0; i < namesAndContents.length; i += 2) {
+        zipOutputStream.putNextEntry(new ZipEntry(namesAndContents[i]));
+        zipOutputStream.write(namesAndContents[i + 1].getBytes(UTF_8));
+        zipOutputStream.closeEntry();
+      }
+    }
+  }
 }
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.j2cl.common;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.io.ByteStreams;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class OutputTest {
+
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testZip() throws IOException {
+    Path zipPath = temporaryFolder.getRoot().toPath().resolve("output.zip");
+    Problems problems = new Problems();
+    Output output = Output.zip(zipPath, /* threadCount= */ 4, problems);
+    for (int i = 0; i < 100; i++) {
+      output.write("com/google/Foo" + i + ".js", "foo();", problems);
+    }
+    output.write("com/google/Bar.js", "bar();".getBytes(UTF_8), problems);
+    output.close(problems);
+    assertThat(problems.hasProblems()).isFalse();
+
+    try (ZipFile zipFile = new ZipFile(zipPath.toFile())) {
+      List<String> names = new ArrayList<>();
+      zipFile.stream().map(ZipEntry::getName).forEach(names::add);
+      assertThat(names).hasSize(101);
+      assertThat(names.get(0)).isEqualTo("com/google/Foo0.js");
+      assertThat(names.get(100)).isEqualTo("com/google/Bar.js");
+
+      assertThat(readEntry(zipFile, "com/google/Foo42.js"))
+          .isEqualTo("foo();" + System.lineSeparator());
+      assertThat(readEntry(zipFile, "com/google/Bar.js")).isEqualTo("bar();");
+      assertThat(zipFile.getEntry("com/google/Foo42.js").getTime())
+          .isEqualTo(zipFile.getEntry("com/google/Bar.js").getTime());
+    }
+  }
+
+  @Test
+  public void testZipRejectsDuplicatePaths() throws IOException {
+    Path zipPath = temporaryFolder.getRoot().toPath().resolve("output.zip");
+    Problems problems = new Problems();
+    Output output = Output.zip(zipPath, /* threadCount= */ 1, problems);
+    output.write("com/google/Bar.js", "bar();".getBytes(UTF_8), problems);
+    output.write("com/google/Bar.js", "baz();".getBytes(UTF_8), problems);
+    output.close(problems);
+
+    assertThat(problems.getErrors())
+        .containsExactly(
+            "Error: Cannot write 'com/google/Bar.js' more than once to zip '" + zipPath + "'.");
+    try (ZipFile zipFile = new ZipFile(zipPath.toFile())) {
+      assertThat(zipFile.size()).isEqualTo(1);
+      assertThat(readEntry(zipFile, "com/google/Bar.js")).isEqualTo("bar();");
+    }
+    // Only the first entry was written.
+    assertThat(Files.size(zipPath)).isLessThan(2L * (30 + 46 + "com/google/Bar.js".length()));
+  }
+
+  @Test
+  public void testZipWithUnknownCompression() {
+    Path zipPath = temporaryFolder.getRoot().toPath().resolve("output.zip");
+    Problems problems = new Problems();
+    System.setProperty("j2cl.zipOutputCompression", "bzip2");
+    try {
+      assertThrows(Problems.Exit.class, () -> Output.zip(zipPath, /* threadCount= */ 1, problems));
+    } finally {
+      System.clearProperty("j2cl.zipOutputCompression");
+    }
+
+    assertThat(problems.getErrors())
+        .containsExactly(
+            "Error: Cannot create zip '"
+                + zipPath
+                + "': unknown j2cl.zipOutputCompression 'bzip2'.");
+  }
+
+  private static String readEntry(ZipFile zipFile, String name) throws IOException {
+    try (InputStream inputStream = zipFile.getInputStream(zipFile.getEntry(name))) {
+      return new String(ByteStreams.toByteArray(inputStream), UTF_8);
+    }
+  }
+}
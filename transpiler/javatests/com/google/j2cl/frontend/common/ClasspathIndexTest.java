@@ -0,0 +1,180 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.j2cl.frontend.common;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.j2cl.common.InputDigests;
+import com.google.j2cl.common.Problems;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import jsinterop.annotations.JsPackage;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class ClasspathIndexTest {
+
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testGetJsNamespace() throws Exception {
+    String jar =
+        createJar(
+            "lib.jar",
+            ImmutableMap.of(
+                "com/example/package-info.class", packageInfo("com.example", "example.ns"),
+                "com/example/Foo.class", new byte[0],
+                "com/example/other/Bar.class", new byte[0]));
+    Path directory = temporaryFolder.newFolder("classes").toPath();
+    write(directory.resolve("org/example/package-info.class"), packageInfo("org.example", "dir"));
+    write(directory.resolve("org/example/Baz.class"), new byte[0]);
+
+    ClasspathIndex classpathIndex =
+        ClasspathIndex.create(ImmutableList.of(jar, directory.toString()), new Problems());
+
+    assertThat(classpathIndex.findOriginClassPathEntry("com.example.Foo")).isEqualTo(jar);
+    assertThat(classpathIndex.getJsNamespace(jar, "com.example")).isEqualTo("example.ns");
+    assertThat(classpathIndex.getJsNamespace(jar, "com.example.other")).isNull();
+    assertThat(classpathIndex.findOriginClassPathEntry("org.example.Baz"))
+        .isEqualTo(directory.toString());
+    assertThat(classpathIndex.getJsNamespace(directory.toString(), "org.example")).isEqualTo("dir");
+    assertThat(classpathIndex.findOriginClassPathEntry("com.example.Missing")).isNull();
+  }
+
+  @Test
+  public void testSplitPackage() throws Exception {
+    // "Aa" and "BB" have the same hash code.
+    String firstJar =
+        createJar(
+            "first.jar",
+            ImmutableMap.of(
+                "com/example/package-info.class", packageInfo("com.example", "first"),
+                "com/example/Aa.class", new byte[0],
+                "com/example/Shared.class", new byte[0]));
+    String secondJar =
+        createJar(
+            "second.jar",
+            ImmutableMap.of(
+                "com/example/package-info.class", packageInfo("com.example", "second"),
+                "com/example/BB.class", new byte[0],
+                "com/example/Shared.class", new byte[0]));
+
+    ClasspathIndex classpathIndex =
+        ClasspathIndex.create(ImmutableList.of(firstJar, secondJar), new Problems());
+
+    assertThat(classpathIndex.findOriginClassPathEntry("com.example.Aa")).isEqualTo(firstJar);
+    assertThat(classpathIndex.findOriginClassPathEntry("com.example.BB")).isEqualTo(secondJar);
+    assertThat(classpathIndex.findOriginClassPathEntry("com.example.Shared")).isEqualTo(firstJar);
+    assertThat(classpathIndex.getJsNamespace(firstJar, "com.example")).isEqualTo("first");
+    assertThat(classpathIndex.getJsNamespace(secondJar, "com.example")).isEqualTo("second");
+  }
+
+  @Test
+  public void testInvalidation() throws Exception {
+    String jar =
+        createJar(
+            "lib.jar",
+            ImmutableMap.of("com/example/package-info.class", packageInfo("com.example", "old")));
+    InputDigests.record(jar, "digest1");
+    ClasspathIndex classpathIndex = ClasspathIndex.create(ImmutableList.of(jar), new Problems());
+    assertThat(classpathIndex.getJsNamespace(jar, "com.example")).isEqualTo("old");
+
+    createJar(
+        "lib.jar",
+        ImmutableMap.of(
+            "com/example/package-info.class", packageInfo("com.example", "new"),
+            "com/example/Foo.class", new byte[0]));
+
+    // The index of the jar is reused for as long as its content key is the same.
+    classpathIndex = ClasspathIndex.create(ImmutableList.of(jar), new Problems());
+    assertThat(classpathIndex.getJsNamespace(jar, "com.example")).isEqualTo("old");
+    assertThat(classpathIndex.findOriginClassPathEntry("com.example.Foo")).isNull();
+
+    InputDigests.record(jar, "digest2");
+    classpathIndex = ClasspathIndex.create(ImmutableList.of(jar), new Problems());
+    assertThat(classpathIndex.getJsNamespace(jar, "com.example")).isEqualTo("new");
+    assertThat(classpathIndex.findOriginClassPathEntry("com.example.Foo")).isEqualTo(jar);
+  }
+
+  private String createJar(String name, Map<String, byte[]> classFiles) throws IOException {
+    Path jar = temporaryFolder.getRoot().toPath().resolve(name);
+    try (ZipOutputStream zipOutputStream = new ZipOutputStream(Files.newOutputStream(jar))) {
+      for (Map.Entry<String, byte[]> classFile : classFiles.entrySet()) {
+        zipOutputStream.putNextEntry(new ZipEntry(classFile.getKey()));
+        zipOutputStream.write(classFile.getValue());
+        zipOutputStream.closeEntry();
+      }
+    }
+    return jar.toString();
+  }
+
+  /** Compiles a package-info class with a {@code @JsPackage} namespace. */
+  private byte[] packageInfo(String packageName, String namespace)
+      throws IOException, URISyntaxException {
+    Path sourceDirectory = temporaryFolder.newFolder().toPath();
+    Path source = sourceDirectory.resolve("package-info.java");
+    write(
+        source,
+        String.format(
+                "@jsinterop.annotations.JsPackage(namespace = \"%s\") package %s;",
+                namespace, packageName)
+            .getBytes(UTF_8));
+
+    String annotationsPath =
+        Paths.get(JsPackage.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+            .toString();
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    ByteArrayOutputStream errors = new ByteArrayOutputStream();
+    int exitCode =
+        compiler.run(
+            null,
+            null,
+            errors,
+            "-classpath",
+            annotationsPath,
+            "-d",
+            sourceDirectory.toString(),
+            source.toString());
+    assertThat(errors.toString()).isEmpty();
+    assertThat(exitCode).isEqualTo(0);
+    return Files.readAllBytes(
+        sourceDirectory
+            .resolve(packageName.replace('.', File.separatorChar))
+            .resolve("package-info.class"));
+  }
+
+  private static void write(Path path, byte[] content) throws IOException {
+    Files.createDirectories(path.getParent());
+    Files.write(path, content);
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.j2cl.frontend.common;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import com.google.j2cl.common.InputDigests;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class ClasspathJarCacheTest {
+
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testUnchangedJarIsKeptOpen() throws Exception {
+    String jar = createJar("unchanged.jar", "a.txt", "content");
+
+    ClasspathJarCache.retain(ImmutableList.of(jar));
+    ZipFile openJar = ClasspathJarCache.getOpenJar(jar);
+    ClasspathJarCache.retain(ImmutableList.of(jar));
+
+    assertThat(openJar).isNotNull();
+    assertThat(ClasspathJarCache.getOpenJar(jar)).isSameInstanceAs(openJar);
+    assertThat(read(openJar, "a.txt")).isEqualTo("content");
+  }
+
+  @Test
+  public void testModifiedJarIsReopened() throws Exception {
+    String jar = createJar("modified.jar", "a.txt", "old content");
+    ClasspathJarCache.retain(ImmutableList.of(jar));
+    ZipFile staleJar = ClasspathJarCache.getOpenJar(jar);
+
+    createJar("modified.jar", "b.txt", "new content");
+    ClasspathJarCache.retain(ImmutableList.of(jar));
+
+    ZipFile openJar = ClasspathJarCache.getOpenJar(jar);
+    assertThat(openJar).isNotSameInstanceAs(staleJar);
+    assertThat(openJar.getEntry("a.txt")).isNull();
+    assertThat(read(openJar, "b.txt")).isEqualTo("new content");
+    assertThrows(IllegalStateException.class, staleJar::size);
+  }
+
+  @Test
+  public void testJarWithNewDigestIsReopened() throws Exception {
+    String jar = createJar("digest.jar", "a.txt", "old content");
+    InputDigests.record(jar, "digest1");
+    ClasspathJarCache.retain(ImmutableList.of(jar));
+    ZipFile staleJar = ClasspathJarCache.getOpenJar(jar);
+
+    // Rewrite the jar keeping its size and modification time; only the digest tells that the
+    // content changed.
+    Path jarPath = Paths.get(jar);
+    FileTime lastModifiedTime = Files.getLastModifiedTime(jarPath);
+    createJar("digest.jar", "a.txt", "new content");
+    Files.setLastModifiedTime(jarPath, lastModifiedTime);
+    ClasspathJarCache.retain(ImmutableList.of(jar));
+    assertThat(ClasspathJarCache.getOpenJar(jar)).isSameInstanceAs(staleJar);
+
+    InputDigests.record(jar, "digest2");
+    ClasspathJarCache.retain(ImmutableList.of(jar));
+
+    ZipFile openJar = ClasspathJarCache.getOpenJar(jar);
+    assertThat(openJar).isNotSameInstanceAs(staleJar);
+    assertThat(read(openJar, "a.txt")).isEqualTo("new content");
+    assertThrows(IllegalStateException.class, staleJar::size);
+  }
+
+  private String createJar(String name, String entryName, String content) throws IOException {
+    Path jar = temporaryFolder.getRoot().toPath().resolve(name);
+    try (ZipOutputStream zipOutputStream = new ZipOutputStream(Files.newOutputStream(jar))) {
+      zipOutputStream.putNextEntry(new ZipEntry(entryName));
+      zipOutputStream.write(content.getBytes(UTF_8));
+      zipOutputStream.closeEntry();
+    }
+    return jar.toString();
+  }
+
+  private static String read(ZipFile zipFile, String entryName) throws IOException {
+    try (InputStream inputStream = zipFile.getInputStream(zipFile.getEntry(entryName))) {
+      return new String(ByteStreams.toByteArray(inputStream), UTF_8);
+    }
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.j2cl.frontend.javac;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+import com.google.j2cl.common.CompilationScope;
+import com.sun.tools.javac.file.JavacFileManager;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaFileObject;
+import javax.tools.JavaFileObject.Kind;
+import javax.tools.StandardLocation;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class JavacFileManagerPoolTest {
+
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @After
+  public void tearDown() {
+    CompilationScope.current().close();
+  }
+
+  @Test
+  public void testFileManagerIsReturnedToThePoolOnClose() throws Exception {
+    List<String> classpath = ImmutableList.of(createJar("lib.jar", ImmutableMap.of()));
+
+    JavacFileManager fileManager = acquire(classpath);
+
+    // The file manager is not handed to other compilations while this one is running.
+    assertThat(acquireInOtherCompilation(classpath)).isNotSameInstanceAs(fileManager);
+
+    CompilationScope.current().close();
+
+    assertThat(acquireInOtherCompilation(classpath)).isSameInstanceAs(fileManager);
+  }
+
+  @Test
+  public void testChangedJarIsReopened() throws Exception {
+    List<String> classpath =
+        ImmutableList.of(createJar("lib.jar", ImmutableMap.of("a/A.class", "old")));
+    JavacFileManager fileManager = acquire(classpath);
+    assertThat(read(fileManager, "a.A")).isEqualTo("old");
+    CompilationScope.current().close();
+
+    createJar("lib.jar", ImmutableMap.of("a/A.class", "new", "b/B.class", "added"));
+
+    JavacFileManager reusedFileManager = acquire(classpath);
+    assertThat(reusedFileManager).isSameInstanceAs(fileManager);
+    assertThat(read(reusedFileManager, "a.A")).isEqualTo("new");
+    assertThat(read(reusedFileManager, "b.B")).isEqualTo("added");
+  }
+
+  @Test
+  public void testDiagnosticsAreReportedToTheCompilation() throws Exception {
+    Path corruptJar = temporaryFolder.getRoot().toPath().resolve("corrupt.jar");
+    Files.write(corruptJar, "not a jar".getBytes(UTF_8));
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+
+    JavacFileManagerPool.acquire(ImmutableList.of(corruptJar.toString()), diagnostics);
+
+    assertThat(diagnostics.getDiagnostics()).hasSize(1);
+    assertThat(diagnostics.getDiagnostics().get(0).getMessage(Locale.US))
+        .contains(corruptJar.toString());
+  }
+
+  /** Acquires a file manager in a compilation that runs, and completes, on another thread. */
+  private static JavacFileManager acquireInOtherCompilation(List<String> classpath)
+      throws Exception {
+    ExecutorService executorService = Executors.newSingleThreadExecutor();
+    try {
+      return executorService
+          .submit(
+              () -> {
+                try {
+                  return acquire(classpath);
+                } finally {
+                  CompilationScope.current().close();
+                }
+              })
+          .get();
+    } finally {
+      executorService.shutdown();
+    }
+  }
+
+  private static JavacFileManager acquire(List<String> classpath) throws IOException {
+    return JavacFileManagerPool.acquire(classpath, new DiagnosticCollector<>());
+  }
+
+  private static String read(JavacFileManager fileManager, String className) throws IOException {
+    JavaFileObject classFile =
+        fileManager.getJavaFileForInput(StandardLocation.CLASS_PATH, className, Kind.CLASS);
+    if (classFile == null) {
+      return null;
+    }
+    try (InputStream inputStream = classFile.openInputStream()) {
+      return new String(ByteStreams.toByteArray(inputStream), UTF_8);
+    }
+  }
+
+  private String createJar(String name, Map<String, String> files) throws IOException {
+    Path jar = temporaryFolder.getRoot().toPath().resolve(name);
+    try (ZipOutputStream zipOutputStream = new ZipOutputStream(Files.newOutputStream(jar))) {
+      for (Map.Entry<String, String> file : files.entrySet()) {
+        zipOutputStream.putNextEntry(new ZipEntry(file.getKey()));
+        zipOutputStream.write(file.getValue().getBytes(UTF_8));
+        zipOutputStream.closeEntry();
+      }
+    }
+    return jar.toString();
+  }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.j2cl.frontend.jdt;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.j2cl.common.FrontendUtils;
+import com.google.j2cl.common.FrontendUtils.FileInfo;
+import com.google.j2cl.common.Problems;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.IBinding;
+import org.eclipse.jdt.core.dom.ITypeBinding;
+import org.eclipse.jdt.core.dom.SimpleName;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class JdtParserTest {
+
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testReadPackageName() throws IOException {
+    assertThat(readPackageName("package com.example;\nclass Foo {}")).isEqualTo("com.example");
+    assertThat(readPackageName("/* package foo; */\n// package bar;\npackage  a . b;"))
+        .isEqualTo("a.b");
+    assertThat(readPackageName("@Foo(Bar.class)\n@Baz(name = \"package\")\npackage a;"))
+        .isEqualTo("a");
+    assertThat(readPackageName("import java.util.List;\nclass Foo {}")).isEmpty();
+    assertThat(readPackageName("public final class Foo { int package_; }")).isEmpty();
+    assertThat(readPackageName("@Deprecated\npublic @interface Foo {}")).isEmpty();
+    assertThat(readPackageName("enum Foo {}")).isEmpty();
+    assertThat(readPackageName("")).isEmpty();
+    assertThat(readPackageName("package a.b")).isNull();
+    assertThat(readPackageName("package a; \"unterminated")).isEqualTo("a");
+    assertThat(readPackageName("\\u00ZZ package a;")).isNull();
+    assertThat(JdtParser.readPackageName(temporaryFolder.getRoot() + "/Missing.java")).isNull();
+  }
+
+  @Test
+  public void testParseFilesConcurrently() throws IOException {
+    List<String> sources =
+        ImmutableList.of(
+            writeSource("a/package-info.java", "@Deprecated package a;"),
+            writeSource("a/A.java", "package a; public class A { B b; Hidden h; c.C c; }"),
+            writeSource("a/B.java", "package a; public class B {} class Hidden { A a; }"),
+            writeSource(
+                "b/D.java",
+                "package b;",
+                "public class D extends a.A implements c.I {",
+                "  @Override public boolean equals(Object o) { return o == this; }",
+                "  @Override public String toString() { return new a.B().toString(); }",
+                "}"),
+            writeSource("c/C.java", "package c; public class C { b.D d; }"),
+            writeSource("c/I.java", "package c; public interface I { boolean equals(Object o); }"),
+            writeSource("d/E.java", "package d; public class E { Missing m; a.B b = new a.A(); }"),
+            writeSource("d/F.java", "package d; class F { E e = new E(); int i = \"\"; }"),
+            writeSource("G.java", "public class G { d.E e; c.I i; }"));
+
+    Parse singleBatch = parse(sources, 1);
+    Parse concurrent = parse(sources, 4);
+
+    assertThat(singleBatch.problems.getErrors()).hasSize(3);
+    assertThat(concurrent.problems.getMessages())
+        .containsExactlyElementsIn(singleBatch.problems.getMessages())
+        .inOrder();
+
+    Map<String, CompilationUnit> singleBatchUnits =
+        singleBatch.compilationUnitsAndTypeBindings.getCompilationUnitsByFilePath();
+    Map<String, CompilationUnit> concurrentUnits =
+        concurrent.compilationUnitsAndTypeBindings.getCompilationUnitsByFilePath();
+    assertThat(singleBatchUnits).hasSize(7);
+    assertThat(concurrentUnits.keySet())
+        .containsExactlyElementsIn(singleBatchUnits.keySet())
+        .inOrder();
+    for (String filePath : singleBatchUnits.keySet()) {
+      CompilationUnit singleBatchUnit = singleBatchUnits.get(filePath);
+      CompilationUnit concurrentUnit = concurrentUnits.get(filePath);
+      assertThat(concurrentUnit.toString()).isEqualTo(singleBatchUnit.toString());
+      assertThat(getResolvedBindings(concurrentUnit))
+          .containsExactlyElementsIn(getResolvedBindings(singleBatchUnit))
+          .inOrder();
+    }
+
+    assertThat(getKeys(concurrent.compilationUnitsAndTypeBindings.getTypeBindings()))
+        .containsExactlyElementsIn(
+            getKeys(singleBatch.compilationUnitsAndTypeBindings.getTypeBindings()))
+        .inOrder();
+  }
+
+  @Test
+  public void testParseFilesInJar() throws IOException {
+    Path jar = temporaryFolder.getRoot().toPath().resolve("sources.srcjar");
+    try (ZipOutputStream zipOutputStream = new ZipOutputStream(Files.newOutputStream(jar))) {
+      writeEntry(zipOutputStream, "a/A.java", "package a; public class A { b.B b; }");
+      writeEntry(zipOutputStream, "b/B.java", "package b; public class B { a.A a; }");
+    }
+    ImmutableSet<String> temporaryFiles = listTemporaryDirectory();
+
+    Parse parse = parse(ImmutableList.of(jar.toString()), 4);
+
+    assertThat(parse.problems.getMessages()).isEmpty();
+    // Units are reported with the location of the source in the jar.
+    assertThat(parse.compilationUnitsAndTypeBindings.getCompilationUnitsByFilePath().keySet())
+        .containsExactly(jar + "!/a/A.java", jar + "!/b/B.java")
+        .inOrder();
+    // JDT only parses files on disk; the copies of the sources are deleted after the parse.
+    assertThat(listTemporaryDirectory()).containsExactlyElementsIn(temporaryFiles);
+  }
+
+  private static void writeEntry(ZipOutputStream zipOutputStream, String name, String content)
+      throws IOException {
+    zipOutputStream.putNextEntry(new ZipEntry(name));
+    zipOutputStream.write(content.getBytes(UTF_8));
+    zipOutputStream.closeEntry();
+  }
+
+  private static ImmutableSet<String> listTemporaryDirectory() throws IOException {
+    try (Stream<Path> paths = Files.list(Paths.get(System.getProperty("java.io.tmpdir")))) {
+      return paths.map(Path::toString).collect(toImmutableSet());
+    }
+  }
+
+  private String readPackageName(String source) throws IOException {
+    Path path = temporaryFolder.newFile().toPath();
+    Files.write(path, source.getBytes(UTF_8));
+    return JdtParser.readPackageName(path.toString());
+  }
+
+  private String writeSource(String relativePath, String... lines) throws IOException {
+    Path path = temporaryFolder.getRoot().toPath().resolve(relativePath);
+    Files.createDirectories(path.getParent());
+    Files.write(path, String.join("\n", lines).getBytes(UTF_8));
+    return path.toString();
+  }
+
+  private static Parse parse(List<String> sources, int threadCount) {
+    Problems problems = new Problems();
+    List<FileInfo> fileInfos =
+        FrontendUtils.getAllSources(sources, problems).collect(toImmutableList());
+    JdtParser parser =
+        new JdtParser(ImmutableList.of(System.getProperty("j2cl.jre")), threadCount, problems);
+    return new Parse(parser.parseFiles(fileInfos, false), problems);
+  }
+
+  /** Returns a description of what each name in the unit resolves to. */
+  private static List<String> getResolvedBindings(CompilationUnit compilationUnit) {
+    List<String> resolvedBindings = new ArrayList<>();
+    compilationUnit.accept(
+        new ASTVisitor() {
+          @Override
+          public boolean visit(SimpleName simpleName) {
+            IBinding binding = simpleName.resolveBinding();
+            resolvedBindings.add(
+                simpleName.getIdentifier()
+                    + " -> "
+                    + (binding == null
+                        ? "null"
+                        : binding.getKey() + (binding.isRecovered() ? " (recovered)" : "")));
+            return true;
+          }
+        });
+    return resolvedBindings;
+  }
+
+  private static List<String> getKeys(Iterable<ITypeBinding> typeBindings) {
+    List<String> keys = new ArrayList<>();
+    typeBindings.forEach(typeBinding -> keys.add(typeBinding.getKey()));
+    return keys;
+  }
+
+  private static final class Parse {
+    private final CompilationUnitsAndTypeBindings compilationUnitsAndTypeBindings;
+    private final Problems problems;
+
+    private Parse(
+        CompilationUnitsAndTypeBindings compilationUnitsAndTypeBindings, Problems problems) {
+      this.compilationUnitsAndTypeBindings = compilationUnitsAndTypeBindings;
+      this.problems = problems;
+    }
+  }
+}
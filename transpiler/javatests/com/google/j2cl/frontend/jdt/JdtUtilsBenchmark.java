@@ -0,0 +1,176 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.j2cl.frontend.jdt;
+
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.j2cl.common.CompilationScope;
+import com.google.j2cl.common.FrontendUtils;
+import com.google.j2cl.common.FrontendUtils.FileInfo;
+import com.google.j2cl.common.Problems;
+import com.google.j2cl.frontend.common.PackageInfoCache;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.Expression;
+import org.eclipse.jdt.core.dom.ITypeBinding;
+import org.eclipse.jdt.core.dom.Type;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the throughput of the type descriptor lookups in {@link JdtUtils} when they are
+ * performed by many threads of the same compilation, as the parallel parts of the transpiler do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JdtUtilsBenchmark {
+
+  private static final int CLASS_COUNT = 100;
+
+  private CompilationScope compilationScope;
+  private ImmutableList<ITypeBinding> typeBindings;
+
+  @Setup
+  public void setUp() throws IOException {
+    Problems problems = new Problems();
+    List<String> classpath = ImmutableList.of(System.getProperty("j2cl.benchmarks.jre"));
+    List<FileInfo> sources =
+        FrontendUtils.getAllSources(writeSources(), problems).collect(toImmutableList());
+
+    CompilationUnitsAndTypeBindings compilationUnitsAndTypeBindings =
+        new JdtParser(classpath, problems).parseFiles(sources, false);
+    checkState(!problems.hasErrors(), problems.getErrors());
+
+    Set<ITypeBinding> typeBindings = new LinkedHashSet<>();
+    for (CompilationUnit compilationUnit :
+        compilationUnitsAndTypeBindings.getCompilationUnitsByFilePath().values()) {
+      compilationUnit.accept(
+          new ASTVisitor() {
+            @Override
+            public void preVisit(ASTNode node) {
+              ITypeBinding typeBinding = null;
+              if (node instanceof Expression) {
+                typeBinding = ((Expression) node).resolveTypeBinding();
+              } else if (node instanceof Type) {
+                typeBinding = ((Type) node).resolveBinding();
+              }
+              if (typeBinding != null) {
+                typeBindings.add(typeBinding);
+              }
+            }
+          });
+    }
+    this.typeBindings = ImmutableList.copyOf(typeBindings);
+
+    PackageInfoCache.init(classpath, problems);
+    JdtUtils.initWellKnownTypes(
+        compilationUnitsAndTypeBindings
+            .getCompilationUnitsByFilePath()
+            .values()
+            .iterator()
+            .next()
+            .getAST(),
+        compilationUnitsAndTypeBindings.getTypeBindings());
+    // All the benchmark threads perform their lookups in the compilation set up here.
+    this.compilationScope = CompilationScope.current();
+  }
+
+  private static List<String> writeSources() throws IOException {
+    Path sourceDirectory = Files.createTempDirectory("JdtUtilsBenchmark");
+    sourceDirectory.toFile().deleteOnExit();
+    List<String> sourcePaths = new ArrayList<>();
+    for (int i = 0; i < CLASS_COUNT; i++) {
+      String previousClassName = i == 0 ? "Object" : "Class" + (i - 1);
+      String source =
+          String.join(
+              "\n",
+              "package benchmark;",
+              "import java.util.*;",
+              "import java.util.function.*;",
+              "public class Class" + i + "<E extends Comparable<E>> {",
+              "  List<String> strings = new ArrayList<>();",
+              "  Map<String, List<Integer>> map = new HashMap<>();",
+              "  Set<" + previousClassName + "> previous = new HashSet<>();",
+              "  Optional<Long> optional = Optional.empty();",
+              "  Function<Class" + i + "<E>, Double> function = c -> 1.0;",
+              "  Comparator<String> comparator = Comparator.naturalOrder();",
+              "  int[][] matrix = new int[1][1];",
+              "  E max(E a, E b) { return a.compareTo(b) > 0 ? a : b; }",
+              "  StringBuilder describe() {",
+              "    return new StringBuilder().append(strings.size()).append(map.keySet());",
+              "  }",
+              "  Iterator<Map.Entry<String, List<Integer>>> entries() {",
+              "    return map.entrySet().iterator();",
+              "  }",
+              "}");
+      Path sourcePath = sourceDirectory.resolve("Class" + i + ".java");
+      Files.write(sourcePath, source.getBytes(UTF_8));
+      sourcePath.toFile().deleteOnExit();
+      sourcePaths.add(sourcePath.toString());
+    }
+    return sourcePaths;
+  }
+
+  @Benchmark
+  @Threads(1)
+  public void lookupSingleThreaded(Blackhole blackhole) throws Exception {
+    lookupAll(blackhole);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public void lookupContended(Blackhole blackhole) throws Exception {
+    lookupAll(blackhole);
+  }
+
+  private void lookupAll(Blackhole blackhole) throws Exception {
+    compilationScope
+        .wrap(
+            () -> {
+              for (ITypeBinding typeBinding : typeBindings) {
+                blackhole.consume(JdtUtils.createTypeDescriptor(typeBinding));
+              }
+              return null;
+            })
+        .call();
+  }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.j2cl.generator;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.debugging.sourcemap.SourceMapFormat;
+import com.google.debugging.sourcemap.SourceMapGenerator;
+import com.google.debugging.sourcemap.SourceMapGeneratorFactory;
+import com.google.j2cl.common.FilePosition;
+import com.google.j2cl.common.SourcePosition;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Checks that {@link SourceMapWriter} produces the same source maps as Closure's generator. */
+@RunWith(JUnit4.class)
+public final class SourceMapWriterTest {
+
+  @Test
+  public void testEmpty() throws IOException {
+    assertSameSourceMap(new MappingsBuilder());
+  }
+
+  @Test
+  public void testSequentialMappings() throws IOException {
+    assertSameSourceMap(
+        new MappingsBuilder()
+            .add(0, 0, 0, 10, "Foo.java", 3, 2, null)
+            .add(0, 10, 0, 15, "Foo.java", 3, 12, "bar")
+            .add(0, 20, 1, 4, "Foo.java", 4, 2, "baz")
+            .add(3, 2, 5, 0, "Foo.java", 1, 0, "bar"));
+  }
+
+  @Test
+  public void testNestedMappings() throws IOException {
+    assertSameSourceMap(
+        new MappingsBuilder()
+            .start(0, 0, "Foo.java", 1, 0, "Foo")
+            .start(1, 2, "Foo.java", 2, 2, "m")
+            .add(1, 4, 1, 8, "Foo.java", 2, 4, "x")
+            .start(2, 4, "Foo.java", 3, 4, null)
+            .add(2, 4, 2, 6, "Foo.java", 3, 4, "y")
+            .add(2, 6, 2, 9, "Foo.java", 3, 8, "z")
+            .end(3, 0)
+            .end(4, 3)
+            .add(5, 2, 6, 1, "Foo.java", 7, 2, "n")
+            .end(8, 1));
+  }
+
+  @Test
+  public void testMappingsStartingAtTheSamePosition() throws IOException {
+    assertSameSourceMap(
+        new MappingsBuilder()
+            .start(0, 0, "Foo.java", 1, 0, "outer")
+            .start(0, 0, "Foo.java", 1, 4, "middle")
+            .add(0, 0, 0, 3, "Foo.java", 1, 8, "inner")
+            .end(0, 7)
+            .end(1, 0));
+  }
+
+  @Test
+  public void testMultipleSourcesAndNames() throws IOException {
+    assertSameSourceMap(
+        new MappingsBuilder()
+            .add(0, 0, 0, 5, "a/Foo.java", 10, 3, "foo")
+            .add(0, 5, 0, 9, "b/Bar.java", 2, 1, "bar")
+            .add(0, 12, 0, 20, "a/Foo.java", 11, 3, "bar")
+            .add(1, 0, 1, 5, "c/Baz.java", 0, 0, "foo")
+            .add(1, 7, 1, 9, "b/Bar.java", 0, 100, null)
+            .add(2, 0, 2, 200, "a/Foo.java", 1000, 0, "qux"));
+  }
+
+  @Test
+  public void testMappingsWithoutSourceFile() throws IOException {
+    assertSameSourceMap(
+        new MappingsBuilder()
+            .add(0, 0, 0, 4, null, 1, 0, "dropped")
+            .start(1, 0, "Foo.java", 1, 0, null)
+            .add(1, 2, 1, 4, null, 2, 0, null)
+            .add(1, 6, 1, 8, "Foo.java", -1, 0, null)
+            .end(1, 10)
+            .add(9, 0, 9, 4, null, 3, 0, null));
+  }
+
+  @Test
+  public void testEscaping() throws IOException {
+    String name = "a\"b\\c\nd\te</Script><!--x-->y]]>z\u007f\u0080\u00e9\u2028\u0001'";
+    SourceMappings sourceMappings =
+        new MappingsBuilder().add(0, 0, 0, 1, "F\u00f6o</script>.java", 1, 0, name).build();
+    assertSameSourceMap(sourceMappings, name + ".js");
+
+    assertThat(SourceMapWriter.write(name + ".js", sourceMappings))
+        .contains(
+            "\"a\\\"b\\\\c\\nd\\te<\\/Script><\\!--x--\\>y]]\\>z\u007f"
+                + "\\u0080\\u00e9\\u2028\\u0001'\"");
+  }
+
+  private static void assertSameSourceMap(MappingsBuilder mappingsBuilder) throws IOException {
+    assertSameSourceMap(mappingsBuilder.build(), "Foo.impl.java.js");
+  }
+
+  private static void assertSameSourceMap(SourceMappings sourceMappings, String fileName)
+      throws IOException {
+    SourceMapGenerator sourceMapGenerator =
+        SourceMapGeneratorFactory.getInstance(SourceMapFormat.V3);
+    for (int i = 0; i < sourceMappings.size(); i++) {
+      SourcePosition javaSourcePosition = sourceMappings.getJavaSourcePosition(i);
+      sourceMapGenerator.addMapping(
+          javaSourcePosition.getFileName(),
+          javaSourcePosition.getName(),
+          new com.google.debugging.sourcemap.FilePosition(
+              javaSourcePosition.getStartFilePosition().getLine(),
+              javaSourcePosition.getStartFilePosition().getColumn()),
+          new com.google.debugging.sourcemap.FilePosition(
+              sourceMappings.getStartLine(i), sourceMappings.getStartColumn(i)),
+          new com.google.debugging.sourcemap.FilePosition(
+              sourceMappings.getEndLine(i), sourceMappings.getEndColumn(i)));
+    }
+    StringBuilder expected = new StringBuilder();
+    sourceMapGenerator.appendTo(expected, fileName);
+
+    assertThat(SourceMapWriter.write(fileName, sourceMappings)).isEqualTo(expected.toString());
+  }
+
+  /** Records mappings the way the generator does, in the order of their output start. */
+  private static final class MappingsBuilder {
+    private final SourceMappings sourceMappings = new SourceMappings();
+    private final Deque<Integer> openMappings = new ArrayDeque<>();
+    private final List<SourcePosition> javaSourcePositions = new ArrayList<>();
+
+    MappingsBuilder start(
+        int line,
+        int column,
+        String javaFilePath,
+        int javaLine,
+        int javaColumn,
+        String name) {
+      openMappings.push(sourceMappings.start(line, column, getByteOffset(line, column)));
+      SourcePosition.Builder javaSourcePosition =
+          SourcePosition.newBuilder()
+              .setStartFilePosition(createFilePosition(javaLine, javaColumn))
+              .setEndFilePosition(createFilePosition(javaLine, javaColumn + 1));
+      if (javaFilePath != null) {
+        javaSourcePosition.setFilePath(javaFilePath);
+      }
+      if (name != null) {
+        javaSourcePosition.setName(name);
+      }
+      javaSourcePositions.add(javaSourcePosition.build());
+      return this;
+    }
+
+    MappingsBuilder end(int line, int column) {
+      int index = openMappings.pop();
+      sourceMappings.end(
+          index, line, column, getByteOffset(line, column), javaSourcePositions.get(index));
+      return this;
+    }
+
+    MappingsBuilder add(
+        int startLine,
+        int startColumn,
+        int endLine,
+        int endColumn,
+        String javaFilePath,
+        int javaLine,
+        int javaColumn,
+        String name) {
+      return start(startLine, startColumn, javaFilePath, javaLine, javaColumn, name)
+          .end(endLine, endColumn);
+    }
+
+    SourceMappings build() {
+      assertThat(openMappings).isEmpty();
+      sourceMappings.finish();
+      return sourceMappings;
+    }
+
+    private static FilePosition createFilePosition(int line, int column) {
+      return FilePosition.newBuilder()
+          .setLine(line)
+          .setColumn(column)
+          .setByteOffset(getByteOffset(line, column))
+          .build();
+    }
+
+    /** Returns a byte offset that orders positions like the generated file does. */
+    private static int getByteOffset(int line, int column) {
+      return line * 1000 + column;
+    }
+  }
+}
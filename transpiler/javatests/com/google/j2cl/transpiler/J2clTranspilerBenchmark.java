@@ -0,0 +1,233 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.j2cl.transpiler;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Futures;
+import com.google.j2cl.ast.CompilationUnit;
+import com.google.j2cl.common.CompilationScope;
+import com.google.j2cl.common.FrontendUtils;
+import com.google.j2cl.common.FrontendUtils.FileInfo;
+import com.google.j2cl.common.Output;
+import com.google.j2cl.common.Problems;
+import com.google.j2cl.frontend.Frontend;
+import com.google.j2cl.generator.OutputGeneratorStage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of the transpiler, end to end and for each of its stages.
+ *
+ * <p>Every measured operation is a whole compilation, or a whole stage of one, so that each
+ * operation starts from a fresh compilation scope as it does in the transpiler.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class J2clTranspilerBenchmark {
+
+  /** The library that is transpiled. */
+  @State(Scope.Benchmark)
+  public static class Library {
+    @Param({"box2d", "jre"})
+    public String name;
+
+    private ImmutableList<String> classpath;
+    private ImmutableList<FileInfo> sources;
+    private ImmutableList<FileInfo> nativeSources;
+    private Path outputDirectory;
+
+    @Setup
+    public void setUp() throws IOException {
+      Problems problems = new Problems();
+      classpath = ImmutableList.of(System.getProperty("j2cl.benchmarks.jre"));
+      ImmutableList<FileInfo> allSources =
+          FrontendUtils.getAllSources(
+                  ImmutableList.of(System.getProperty("j2cl.benchmarks." + name + ".sources")),
+                  problems)
+              .collect(toImmutableList());
+      sources =
+          allSources.stream()
+              .filter(f -> f.sourcePath().endsWith(".java"))
+              .collect(toImmutableList());
+      nativeSources =
+          allSources.stream()
+              .filter(f -> f.sourcePath().endsWith(".native.js"))
+              .collect(toImmutableList());
+      outputDirectory = Files.createTempDirectory("J2clTranspilerBenchmark");
+    }
+
+    private List<CompilationUnit> parse(Frontend frontend) {
+      return frontend.getCompilationUnits(classpath, sources, false, 1, new Problems());
+    }
+  }
+
+  /** The frontend that parses and resolves the sources. */
+  @State(Scope.Benchmark)
+  public static class FrontendChoice {
+    @Param({"JDT", "JAVAC"})
+    public Frontend frontend;
+  }
+
+  /**
+   * A compilation whose stages run on a thread of its own, and hence in a compilation scope of its
+   * own.
+   */
+  private static class IsolatedCompilation {
+    private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+
+    <T> T run(Callable<T> stage) {
+      return Futures.getUnchecked(executorService.submit(stage));
+    }
+
+    void close() {
+      run(
+          () -> {
+            CompilationScope.current().close();
+            return null;
+          });
+      executorService.shutdownNow();
+    }
+  }
+
+  /** The units of a library as produced by the frontend, ready to be normalized. */
+  @State(Scope.Thread)
+  public static class ParsedUnits {
+    /**
+     * The number of threads that normalize the units; comparing the results shows whether the
+     * normalization scales or contends on the descriptors shared by the units.
+     */
+    @Param({"1", "4"})
+    public int threadCount;
+
+    private IsolatedCompilation compilation;
+    private List<CompilationUnit> compilationUnits;
+
+    @Setup(Level.Invocation)
+    public void setUp(Library library) {
+      compilation = new IsolatedCompilation();
+      compilationUnits = compilation.run(() -> library.parse(Frontend.JDT));
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+      compilation.close();
+    }
+  }
+
+  /** The normalized units of a library, ready to be rendered. */
+  @State(Scope.Thread)
+  public static class NormalizedUnits {
+    private IsolatedCompilation compilation;
+    private List<CompilationUnit> compilationUnits;
+
+    @Setup(Level.Invocation)
+    public void setUp(Library library) {
+      compilation = new IsolatedCompilation();
+      compilationUnits =
+          compilation.run(
+              () -> {
+                List<CompilationUnit> compilationUnits = library.parse(Frontend.JDT);
+                J2clTranspiler.normalizeUnits(compilationUnits, 1, false, true);
+                return compilationUnits;
+              });
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+      compilation.close();
+    }
+  }
+
+  @Benchmark
+  public Problems transpile(Library library, FrontendChoice frontendChoice) {
+    return J2clTranspiler.transpile(
+        J2clTranspilerOptions.newBuilder()
+            .setSources(library.sources)
+            .setNativeSources(library.nativeSources)
+            .setClasspaths(library.classpath)
+            .setOutput(Output.directory(library.outputDirectory))
+            .setLibraryInfoOutput(library.outputDirectory.resolve("library_info"))
+            .setEmitReadableSourceMap(false)
+            .setEmitReadableLibraryInfo(false)
+            .setGenerateKytheIndexingMetadata(false)
+            .setFrontend(frontendChoice.frontend)
+            .build());
+  }
+
+  @Benchmark
+  public List<CompilationUnit> frontend(Library library, FrontendChoice frontendChoice) {
+    IsolatedCompilation compilation = new IsolatedCompilation();
+    try {
+      return compilation.run(() -> library.parse(frontendChoice.frontend));
+    } finally {
+      compilation.close();
+    }
+  }
+
+  @Benchmark
+  public void normalization(ParsedUnits parsedUnits) {
+    parsedUnits.compilation.run(
+        () -> {
+          J2clTranspiler.normalizeUnits(
+              parsedUnits.compilationUnits, parsedUnits.threadCount, false, true);
+          return null;
+        });
+  }
+
+  @Benchmark
+  public void outputGeneration(Library library, NormalizedUnits normalizedUnits) {
+    normalizedUnits.compilation.run(
+        () -> {
+          new OutputGeneratorStage(
+                  library.sources,
+                  library.nativeSources,
+                  Output.directory(library.outputDirectory),
+                  Optional.of(library.outputDirectory.resolve("library_info")),
+                  /* shouldGenerateReadableLibraryInfo= */ false,
+                  /* shouldGenerateReadableSourceMaps= */ false,
+                  /* generateKytheIndexingMetadata= */ false,
+                  /* threadCount= */ 1,
+                  new Problems())
+              .generateOutputs(normalizedUnits.compilationUnits);
+          return null;
+        });
+  }
+}
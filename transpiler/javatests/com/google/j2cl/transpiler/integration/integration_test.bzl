@@ -43,7 +43,8 @@ def integration_test(
         suppress = [],
         j2cl_library_tags = [],
         tags = [],
-        plugins = []):
+        plugins = [],
+        unbox_small_longs = False):
     """Macro that turns Java files into integration test targets.
 
     deps are Labels of j2cl_library() rules. NOT labels of
@@ -71,6 +72,7 @@ def integration_test(
         plugins = plugins,
         tags = tags + j2cl_library_tags,
         js_suppress = suppress,
+        unbox_small_longs = unbox_small_longs,
     )
 
     # blaze test :uncompiled_test
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.j2cl.transpiler.integration.longarithmeticbenchmark;
+
+import static com.google.j2cl.transpiler.utils.Asserts.assertTrue;
+
+/**
+ * Measures typical long workloads, i.e. timestamp and id arithmetic in tight loops.
+ *
+ * <p>The same workloads are run with small longs unboxed by :longarithmeticbenchmark_unboxed; the
+ * time taken by each one is logged so that both representations can be compared.
+ */
+public class Main {
+  private static final int ITERATIONS = 1000000;
+
+  public static void main(String... args) {
+    // Warm up before measuring.
+    bucketTimestamps(ITERATIONS);
+    hashIds(ITERATIONS);
+    countByBucket(ITERATIONS);
+
+    long start = System.nanoTime();
+    assertTrue(bucketTimestamps(ITERATIONS) == 1579915116800L);
+    report("bucketTimestamps", start);
+
+    start = System.nanoTime();
+    assertTrue(hashIds(ITERATIONS) == 958244219);
+    report("hashIds", start);
+
+    start = System.nanoTime();
+    assertTrue(countByBucket(ITERATIONS) == 499999500000L);
+    report("countByBucket", start);
+  }
+
+  /** Rounds timestamps to the minute and keeps the latest one. */
+  private static long bucketTimestamps(int iterations) {
+    long timestamp = 1577836800000L;
+    long latestBucket = 0;
+    for (int i = 0; i < iterations; i++) {
+      timestamp += 500;
+      long bucket = timestamp - timestamp % 60000;
+      if (bucket > latestBucket) {
+        latestBucket = bucket;
+      }
+    }
+    return latestBucket + timestamp / 1000;
+  }
+
+  /** Mixes ids as hash functions usually do, which overflows the range of safe integers. */
+  private static int hashIds(int iterations) {
+    int hash = 0;
+    for (int i = 0; i < iterations; i++) {
+      long id = 4000000000L + i * 7919L;
+      hash = 31 * hash + Long.hashCode(id ^ (id >>> 17) * 0x9E3779B97F4A7C15L);
+    }
+    return hash;
+  }
+
+  /** Accumulates in long array elements, which start with the default long value. */
+  private static long countByBucket(int iterations) {
+    long[] counts = new long[16];
+    for (int i = 0; i < iterations; i++) {
+      counts[i & 15] += i;
+    }
+    long total = 0;
+    for (long count : counts) {
+      total += count;
+    }
+    return total;
+  }
+
+  private static void report(String workload, long startNanos) {
+    System.out.println(workload + ": " + (System.nanoTime() - startNanos) / 1000000 + " ms");
+  }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2020 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.j2cl.transpiler.integration.unboxedlongoperations;
+
+import static com.google.j2cl.transpiler.utils.Asserts.assertFalse;
+import static com.google.j2cl.transpiler.utils.Asserts.assertThrows;
+import static com.google.j2cl.transpiler.utils.Asserts.assertTrue;
+
+/**
+ * Checks the long operations when longs that are safe integers are represented as numbers, in
+ * particular around the boundaries of the safe range where they fall back to goog.math.Long.
+ */
+public class Main {
+  private static final long MAX_SAFE = 9007199254740991L;
+  private static final long MIN_SAFE = -9007199254740991L;
+
+  public static void main(String... args) {
+    // The operations are also checked with the values representations the suite is written for.
+    com.google.j2cl.transpiler.integration.alllongoperations.Main.main();
+
+    testArithmeticOverflow();
+    testBitwiseOperations();
+    testShiftOperations();
+    testDivision();
+    testComparisons();
+    testMixedRepresentations();
+    testConversions();
+    testStringsAndHashing();
+    testAccumulation();
+    testNoNegativeZero();
+  }
+
+  private static void testArithmeticOverflow() {
+    long max = MAX_SAFE;
+    long min = MIN_SAFE;
+
+    assertTrue(max + 1 == 9007199254740992L);
+    assertTrue(max + 2 == 9007199254740993L);
+    assertTrue(max + 2 - 2 == MAX_SAFE);
+    assertTrue(min - 1 == -9007199254740992L);
+    assertTrue(min - 2 == -9007199254740993L);
+    assertTrue(min - 2 + 2 == MIN_SAFE);
+    assertTrue(max * 2 == 18014398509481982L);
+    assertTrue(max * max == -18014398509481983L);
+    assertTrue((1L << 40) * (1L << 30) == 0L);
+    assertTrue(94906265L * 94906265L == 9007199136250225L);
+    assertTrue(94906267L * 94906267L == 9007199515875289L);
+    assertTrue(-max == min);
+    assertTrue(-min == max);
+    assertTrue(~max == -9007199254740992L);
+    assertTrue(~min == 9007199254740990L);
+    assertTrue(Long.MAX_VALUE + 1 == Long.MIN_VALUE);
+    assertTrue(Long.MIN_VALUE - 1 == Long.MAX_VALUE);
+  }
+
+  private static void testBitwiseOperations() {
+    long a = MAX_SAFE;
+    long b = -4294967296L;
+    long c = 123456789012345L;
+
+    assertTrue((a & b) == 9007194959773696L);
+    assertTrue((a | b) == -1L);
+    assertTrue((a ^ b) == -9007194959773697L);
+    assertTrue((c & 0xFFFFFFFFL) == 2249056121L);
+    assertTrue((c | 0xFFFFFFFFL) == 123458834923519L);
+    assertTrue((c ^ -1L) == -123456789012346L);
+    assertTrue((MIN_SAFE & -9007199254740990L) == -9007199254740992L);
+    assertTrue((MIN_SAFE ^ MAX_SAFE) == -2L);
+  }
+
+  private static void testShiftOperations() {
+    long a = 123456789012345L;
+    long n = -123456789012345L;
+
+    assertTrue(a << 10 == 126419751948641280L);
+    assertTrue(a << 22 == 1306469917767237632L);
+    assertTrue(a << 64 == a);
+    assertTrue(a >> 7 == 964506164158L);
+    assertTrue(n >> 7 == -964506164159L);
+    assertTrue(n >> 63 == -1L);
+    assertTrue(a >>> 7 == 964506164158L);
+    assertTrue(n >>> 7 == 144114223569691713L);
+    assertTrue(n >>> 0 == n);
+    assertTrue(n >>> 64 == n);
+    assertTrue(-1L >>> 11 == MAX_SAFE);
+    assertTrue(1L << 53 == MAX_SAFE + 1);
+  }
+
+  private static void testDivision() {
+    long a = MAX_SAFE;
+    long zero = 0;
+
+    assertTrue(a / 2 == 4503599627370495L);
+    assertTrue(a % 2 == 1L);
+    assertTrue(-a / 2 == -4503599627370495L);
+    assertTrue(-a % 2 == -1L);
+    assertTrue(a / -3 == -3002399751580330L);
+    assertTrue(a % -3 == 1L);
+    assertTrue(-7L / 2 == -3L);
+    assertTrue(-7L % 2 == -1L);
+    assertTrue(Long.MIN_VALUE / -1 == Long.MIN_VALUE);
+    assertTrue(Long.MIN_VALUE % -1 == 0L);
+    assertThrows(ArithmeticException.class, () -> assertFalse(a / zero == 0));
+    assertThrows(ArithmeticException.class, () -> assertFalse(a % zero == 0));
+    assertThrows(ArithmeticException.class, () -> assertFalse(a / (new long[1])[0] == 0));
+  }
+
+  private static void testComparisons() {
+    long small = MAX_SAFE;
+    long large = MAX_SAFE + 2;
+
+    assertTrue(small < large);
+    assertTrue(large > small);
+    assertTrue(small != large);
+    assertTrue(-large < -small);
+    assertTrue(Long.MIN_VALUE < MIN_SAFE);
+    assertTrue(Long.MAX_VALUE > MAX_SAFE);
+    assertTrue(large - 2 == small);
+    assertTrue(Long.compare(small, large) < 0);
+    assertTrue(Long.compare(large, small) > 0);
+    assertTrue(Long.compare(large - 2, small) == 0);
+  }
+
+  private static void testMixedRepresentations() {
+    // Array elements are initialized with the default value that was built for the runtime.
+    long[] values = new long[3];
+    values[0] += 5;
+    values[1] = values[0] * MAX_SAFE;
+    values[2] = Long.MAX_VALUE;
+
+    assertTrue(values[0] == 5L);
+    assertTrue(values[1] == 45035996273704955L);
+    assertTrue(values[2] - values[1] == 9178336040581070852L);
+    assertTrue(values[2] - Long.MAX_VALUE + values[0] == 5L);
+    assertTrue(values[2] > values[0]);
+    assertTrue((new long[1])[0] == 0L);
+  }
+
+  private static void testConversions() {
+    int i = Integer.MIN_VALUE;
+    double d = 9007199254740993.0;
+    double nan = Double.NaN;
+
+    assertTrue((long) i == -2147483648L);
+    assertTrue((long) -0.5 == 0L);
+    assertTrue((long) -1234.9 == -1234L);
+    assertTrue((long) d == 9007199254740992L);
+    assertTrue((long) 1e300 == Long.MAX_VALUE);
+    assertTrue((long) -1e300 == Long.MIN_VALUE);
+    assertTrue((long) nan == 0L);
+    assertTrue((int) 4294967297L == 1);
+    assertTrue((int) MAX_SAFE == -1);
+    assertTrue((int) MIN_SAFE == 1);
+    assertTrue((short) 123456789012345L == -8327);
+    assertTrue((double) MAX_SAFE == 9007199254740991.0);
+    assertTrue((double) (MAX_SAFE + 2) == 9007199254740992.0);
+  }
+
+  private static void testStringsAndHashing() {
+    long a = -123456789012345L;
+
+    assertTrue("-123456789012345".equals(String.valueOf(a)));
+    assertTrue("9007199254740993".equals("" + (MAX_SAFE + 2)));
+    assertTrue("0".equals(Long.toString(-0L)));
+    assertTrue(Long.hashCode(a) == -2045923536);
+    assertTrue(Long.valueOf(a).equals(Long.valueOf(a + 1 - 1)));
+    assertTrue(Long.valueOf(MAX_SAFE + 2).equals(Long.valueOf(MAX_SAFE + 3 - 1)));
+  }
+
+  private static void testAccumulation() {
+    long start = 1577836800000L;
+    long time = start;
+    for (int i = 0; i < 1000; i++) {
+      time += 86400000L;
+    }
+
+    assertTrue(time - start == 86400000000L);
+    assertTrue(time / 1000 == 1664236800L);
+  }
+
+  private static void testNoNegativeZero() {
+    long zero = 0;
+    long one = 1;
+    long five = 5;
+    double half = 0.5;
+
+    // Longs have no negative zero, which would be observable as a double.
+    assertPositiveZero(-zero);
+    assertPositiveZero(zero * -one);
+    assertPositiveZero(-one * zero);
+    assertPositiveZero(-five % five);
+    assertPositiveZero(-five % -five);
+    assertPositiveZero(-one / five);
+    assertPositiveZero(zero / -five);
+    assertPositiveZero((long) -half);
+    assertPositiveZero((long) -0.0);
+    assertPositiveZero(-zero >> 3);
+    assertPositiveZero(-zero >>> 3);
+    assertPositiveZero(-zero << 3);
+    assertPositiveZero(-five + five);
+    assertPositiveZero(-five - -five);
+  }
+
+  private static void assertPositiveZero(long value) {
+    assertTrue(value == 0);
+    assertTrue(1.0 / (double) value == Double.POSITIVE_INFINITY);
+  }
+}
@@ -14,6 +14,7 @@ readable_example(
 
 load("//build_defs:rules.bzl", "J2CL_OPTIMIZED_DEFS", "j2cl_library")
 load("@bazel_tools//tools/build_rules:build_test.bzl", "build_test")
+load("@bazel_skylib//rules:diff_test.bzl", "diff_test")
 
 JAVAC_FLAGS = [
     "-XepDisableAllChecks",
@@ -52,6 +53,47 @@ def readable_example(
         _readable_library_info = generate_library_info,
     )
 
+    # Transpile the Java files concurrently, which has to produce the same output.
+    j2cl_library(
+        name = "readable_threaded",
+        srcs = srcs,
+        javacopts = JAVAC_FLAGS,
+        deps = deps,
+        plugins = plugins,
+        generate_build_test = False,
+        tags = j2cl_library_tags,
+        _readable_source_maps = True,
+        _readable_library_info = generate_library_info,
+        _threads = 4,
+    )
+
+    diff_test(
+        name = "readable_threaded_test",
+        file1 = ":readable.js.zip",
+        file2 = ":readable_threaded.js.zip",
+    )
+
+    # Run each normalization pass in its own traversal, which has to produce the same output as
+    # the fused passes.
+    j2cl_library(
+        name = "readable_unfused",
+        srcs = srcs,
+        javacopts = JAVAC_FLAGS,
+        deps = deps,
+        plugins = plugins,
+        generate_build_test = False,
+        tags = j2cl_library_tags,
+        _readable_source_maps = True,
+        _readable_library_info = generate_library_info,
+        _fuse_passes = False,
+    )
+
+    diff_test(
+        name = "readable_unfused_test",
+        file1 = ":readable.js.zip",
+        file2 = ":readable_unfused.js.zip",
+    )
+
     if generate_library_info:
         # Used by replace_all.py script to know wheter the generated output libraryinfo.json has to
         # be copied or deleted